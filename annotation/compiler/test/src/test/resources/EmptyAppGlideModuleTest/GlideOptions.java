@@ -324,6 +324,13 @@ public final class GlideOptions extends RequestOptions implements Cloneable {
     return (GlideOptions) super.onlyRetrieveFromCache(flag);
   }
 
+  @Override
+  @NonNull
+  @CheckResult
+  public GlideOptions experimentalDeadline(@IntRange(from = 0) long value) {
+    return (GlideOptions) super.experimentalDeadline(value);
+  }
+
   @Override
   @NonNull
   @CheckResult
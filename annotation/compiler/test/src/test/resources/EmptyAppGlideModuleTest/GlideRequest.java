@@ -97,6 +97,15 @@ public class GlideRequest<TranscodeType> extends RequestBuilder<TranscodeType> i
     return (GlideRequest<TranscodeType>) super.onlyRetrieveFromCache(flag);
   }
 
+  /**
+   * @see GlideOptions#experimentalDeadline(long)
+   */
+  @NonNull
+  @CheckResult
+  public GlideRequest<TranscodeType> experimentalDeadline(@IntRange(from = 0) long value) {
+    return (GlideRequest<TranscodeType>) super.experimentalDeadline(value);
+  }
+
   /**
    * @see GlideOptions#diskCacheStrategy(DiskCacheStrategy)
    */
@@ -543,6 +552,13 @@ public class GlideRequest<TranscodeType> extends RequestBuilder<TranscodeType> i
     return (GlideRequest<TranscodeType>) super.thumbnail(sizeMultiplier);
   }
 
+  @Override
+  @NonNull
+  @CheckResult
+  public GlideRequest<TranscodeType> progressivePreview(int previewBytes) {
+    return (GlideRequest<TranscodeType>) super.progressivePreview(previewBytes);
+  }
+
   @Override
   @NonNull
   @CheckResult
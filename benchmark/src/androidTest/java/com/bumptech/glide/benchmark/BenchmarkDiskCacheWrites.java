@@ -0,0 +1,140 @@
+package com.bumptech.glide.benchmark;
+
+import android.app.Application;
+import androidx.annotation.NonNull;
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheFactory;
+import com.bumptech.glide.signature.ObjectKey;
+import com.google.common.io.ByteStreams;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares disk cache write throughput with and without journal group commit while simulating a
+ * prefetch of {@link #IMAGE_COUNT} images from as many threads as Glide's default source executor
+ * uses.
+ *
+ * <p>Each measured iteration writes every image into an empty cache, so writes per second is
+ * {@link #IMAGE_COUNT} divided by the reported time per iteration.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BenchmarkDiskCacheWrites {
+  private static final int IMAGE_COUNT = 500;
+  private static final int THREAD_COUNT = 4;
+  private static final long CACHE_SIZE = 250 * 1024 * 1024;
+
+  @Rule public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  private final Application app = ApplicationProvider.getApplicationContext();
+  private ExecutorService executor;
+  private File cacheDir;
+  private byte[] data;
+
+  @Before
+  public void setUp() throws IOException {
+    executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    cacheDir = new File(app.getCacheDir(), "benchmark_disk_cache_writes");
+    InputStream is = app.getResources().openRawResource(R.raw.small);
+    try {
+      data = ByteStreams.toByteArray(is);
+    } finally {
+      is.close();
+    }
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void prefetch_withoutGroupCommit() throws Exception {
+    runBenchmark(/* useGroupCommit= */ false);
+  }
+
+  @Test
+  public void prefetch_withGroupCommit() throws Exception {
+    runBenchmark(/* useGroupCommit= */ true);
+  }
+
+  private void runBenchmark(boolean useGroupCommit) throws Exception {
+    DiskLruCacheFactory factory =
+        new DiskLruCacheFactory(
+                new DiskLruCacheFactory.CacheDirectoryGetter() {
+                  @Override
+                  public File getCacheDirectory() {
+                    return cacheDir;
+                  }
+                },
+                CACHE_SIZE)
+            .experimentalSetUseGroupCommit(useGroupCommit);
+    final DiskCache.Writer writer =
+        new DiskCache.Writer() {
+          @Override
+          public boolean write(@NonNull File file) {
+            try {
+              OutputStream os = new FileOutputStream(file);
+              try {
+                os.write(data);
+              } finally {
+                os.close();
+              }
+              return true;
+            } catch (IOException e) {
+              throw new RuntimeException(e);
+            }
+          }
+        };
+
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    BenchmarkState state = benchmarkRule.getState();
+    while (state.keepRunning()) {
+      state.pauseTiming();
+      final DiskCache diskCache = factory.build();
+      diskCache.clear();
+      state.resumeTiming();
+
+      final CountDownLatch done = new CountDownLatch(IMAGE_COUNT);
+      for (int i = 0; i < IMAGE_COUNT; i++) {
+        final ObjectKey key = new ObjectKey("image" + i);
+        executor.execute(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  diskCache.put(key, writer);
+                } catch (Throwable e) {
+                  failure.compareAndSet(null, e);
+                } finally {
+                  done.countDown();
+                }
+              }
+            });
+      }
+      done.await();
+
+      state.pauseTiming();
+      diskCache.clear();
+      state.resumeTiming();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+}
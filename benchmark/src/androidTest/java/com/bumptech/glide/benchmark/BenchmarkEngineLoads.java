@@ -0,0 +1,314 @@
+package com.bumptech.glide.benchmark;
+
+import android.app.Application;
+import android.content.Context;
+import android.graphics.Bitmap;
+import androidx.annotation.NonNull;
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.engine.Engine;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.request.ResourceCallback;
+import com.bumptech.glide.signature.EmptySignature;
+import com.bumptech.glide.testutil.TearDownGlide;
+import com.bumptech.glide.util.Executors;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares the throughput of memory cache hits in {@link Engine#load} with and without lock
+ * striping as the number of threads loading at once increases.
+ *
+ * <p>Hits are served either from active resources, or from the memory cache, in which case each
+ * hit moves the resource into active resources and releasing it moves it back. Each measured
+ * iteration has every thread load {@link #LOADS_PER_THREAD} times from its own range of keys, so
+ * that hits for a key never race with the release of the same key on another thread.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BenchmarkEngineLoads {
+  private static final int KEY_COUNT = 1024;
+  private static final int LOADS_PER_THREAD = 10_000;
+  private static final int SIZE = 1;
+
+  @Rule public final TearDownGlide tearDownGlide = new TearDownGlide();
+  @Rule public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  private final Application app = ApplicationProvider.getApplicationContext();
+  private final Map<Class<?>, Transformation<?>> transformations = Collections.emptyMap();
+  private final Options options = new Options();
+  private ExecutorService executor;
+
+  @After
+  public void tearDown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void activeResources_oneThread() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ false, /* isActive= */ true, /* threadCount= */ 1);
+  }
+
+  @Test
+  public void activeResources_twoThreads() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ false, /* isActive= */ true, /* threadCount= */ 2);
+  }
+
+  @Test
+  public void activeResources_fourThreads() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ false, /* isActive= */ true, /* threadCount= */ 4);
+  }
+
+  @Test
+  public void activeResources_eightThreads() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ false, /* isActive= */ true, /* threadCount= */ 8);
+  }
+
+  @Test
+  public void activeResources_striped_oneThread() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ true, /* isActive= */ true, /* threadCount= */ 1);
+  }
+
+  @Test
+  public void activeResources_striped_twoThreads() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ true, /* isActive= */ true, /* threadCount= */ 2);
+  }
+
+  @Test
+  public void activeResources_striped_fourThreads() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ true, /* isActive= */ true, /* threadCount= */ 4);
+  }
+
+  @Test
+  public void activeResources_striped_eightThreads() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ true, /* isActive= */ true, /* threadCount= */ 8);
+  }
+
+  @Test
+  public void memoryCache_oneThread() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ false, /* isActive= */ false, /* threadCount= */ 1);
+  }
+
+  @Test
+  public void memoryCache_twoThreads() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ false, /* isActive= */ false, /* threadCount= */ 2);
+  }
+
+  @Test
+  public void memoryCache_fourThreads() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ false, /* isActive= */ false, /* threadCount= */ 4);
+  }
+
+  @Test
+  public void memoryCache_eightThreads() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ false, /* isActive= */ false, /* threadCount= */ 8);
+  }
+
+  @Test
+  public void memoryCache_striped_oneThread() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ true, /* isActive= */ false, /* threadCount= */ 1);
+  }
+
+  @Test
+  public void memoryCache_striped_twoThreads() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ true, /* isActive= */ false, /* threadCount= */ 2);
+  }
+
+  @Test
+  public void memoryCache_striped_fourThreads() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ true, /* isActive= */ false, /* threadCount= */ 4);
+  }
+
+  @Test
+  public void memoryCache_striped_eightThreads() throws Exception {
+    runBenchmark(/* isLockStripingEnabled= */ true, /* isActive= */ false, /* threadCount= */ 8);
+  }
+
+  private void runBenchmark(boolean isLockStripingEnabled, boolean isActive, int threadCount)
+      throws Exception {
+    Glide.init(app, new GlideBuilder().setEngineLockStripingEnabled(isLockStripingEnabled));
+    GlideContext glideContext = obtainGlideContext();
+    Engine engine = glideContext.getEngine();
+    Bitmap[] models = new Bitmap[KEY_COUNT];
+    for (int i = 0; i < KEY_COUNT; i++) {
+      models[i] = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+    }
+    populate(glideContext, engine, models, isActive);
+
+    executor = java.util.concurrent.Executors.newFixedThreadPool(threadCount);
+    final ReleasingCallback cb = new ReleasingCallback(engine);
+    final int keysPerThread = KEY_COUNT / threadCount;
+    BenchmarkState state = benchmarkRule.getState();
+    while (state.keepRunning()) {
+      final CountDownLatch done = new CountDownLatch(threadCount);
+      for (int t = 0; t < threadCount; t++) {
+        final int offset = t * keysPerThread;
+        executor.execute(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  for (int i = 0; i < LOADS_PER_THREAD; i++) {
+                    Engine.LoadStatus status =
+                        load(glideContext, engine, models[offset + i % keysPerThread], cb);
+                    if (status != null) {
+                      throw new IllegalStateException("Expected a memory cache hit");
+                    }
+                  }
+                } catch (Throwable e) {
+                  cb.failure.compareAndSet(null, e);
+                } finally {
+                  done.countDown();
+                }
+              }
+            });
+      }
+      done.await();
+    }
+    if (cb.failure.get() != null) {
+      throw new AssertionError(cb.failure.get());
+    }
+  }
+
+  /**
+   * Loads every model once so that it's in active resources, or, if {@code isActive} is {@code
+   * false}, in the memory cache.
+   */
+  private void populate(
+      GlideContext glideContext, Engine engine, Bitmap[] models, final boolean isActive)
+      throws InterruptedException {
+    final CountDownLatch loaded = new CountDownLatch(models.length);
+    final ReleasingCallback cb =
+        new ReleasingCallback(engine) {
+          @Override
+          public void onResourceReady(
+              Resource<?> resource, DataSource dataSource, boolean isLoadedFromAlternateCacheKey) {
+            // Active resources are kept active by never releasing the first load.
+            if (!isActive) {
+              super.onResourceReady(resource, dataSource, isLoadedFromAlternateCacheKey);
+            }
+            loaded.countDown();
+          }
+
+          @Override
+          public void onLoadFailed(GlideException e) {
+            super.onLoadFailed(e);
+            loaded.countDown();
+          }
+        };
+    for (Bitmap model : models) {
+      load(glideContext, engine, model, cb);
+    }
+    if (!loaded.await(30, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("Timed out populating the memory caches");
+    }
+    if (cb.failure.get() != null) {
+      throw new AssertionError(cb.failure.get());
+    }
+  }
+
+  private Engine.LoadStatus load(
+      GlideContext glideContext, Engine engine, Bitmap model, ResourceCallback cb) {
+    return engine.load(
+        glideContext,
+        model,
+        EmptySignature.obtain(),
+        SIZE,
+        SIZE,
+        Bitmap.class,
+        Bitmap.class,
+        Priority.NORMAL,
+        DiskCacheStrategy.NONE,
+        transformations,
+        /* isTransformationRequired= */ false,
+        /* isScaleOnlyOrNoTransform= */ true,
+        options,
+        /* isMemoryCacheable= */ true,
+        /* useUnlimitedSourceExecutorPool= */ false,
+        /* useAnimationPool= */ false,
+        /* onlyRetrieveFromCache= */ false,
+        cb,
+        Executors.directExecutor());
+  }
+
+  /**
+   * Returns the {@link GlideContext} of the current Glide instance, which Glide passes to {@link
+   * Transformation}s.
+   */
+  private GlideContext obtainGlideContext() throws Exception {
+    final AtomicReference<GlideContext> result = new AtomicReference<>();
+    Glide.with(app)
+        .asBitmap()
+        .load(Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888))
+        .diskCacheStrategy(DiskCacheStrategy.NONE)
+        .skipMemoryCache(true)
+        .transform(
+            new Transformation<Bitmap>() {
+              @NonNull
+              @Override
+              public Resource<Bitmap> transform(
+                  @NonNull Context context,
+                  @NonNull Resource<Bitmap> resource,
+                  int outWidth,
+                  int outHeight) {
+                result.set((GlideContext) context);
+                return resource;
+              }
+
+              @Override
+              public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+                // Never cached.
+              }
+            })
+        .submit()
+        .get(30, TimeUnit.SECONDS);
+    return result.get();
+  }
+
+  /** Releases each resource it's given so that every load acquires and releases it once. */
+  private static class ReleasingCallback implements ResourceCallback {
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Engine engine;
+
+    ReleasingCallback(Engine engine) {
+      this.engine = engine;
+    }
+
+    @Override
+    public void onResourceReady(
+        Resource<?> resource, DataSource dataSource, boolean isLoadedFromAlternateCacheKey) {
+      engine.release(resource);
+    }
+
+    @Override
+    public void onLoadFailed(GlideException e) {
+      failure.compareAndSet(null, e);
+    }
+
+    @Override
+    public Object getLock() {
+      return this;
+    }
+  }
+}
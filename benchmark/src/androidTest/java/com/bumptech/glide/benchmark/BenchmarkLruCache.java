@@ -0,0 +1,156 @@
+package com.bumptech.glide.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.bumptech.glide.util.LruCache;
+import com.bumptech.glide.util.SegmentedLruCache;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares get/put throughput of {@link LruCache} and {@link SegmentedLruCache} as the number of
+ * threads accessing them at once increases.
+ *
+ * <p>Each measured iteration has every thread perform a fixed number of operations, mostly gets
+ * with some puts, over a key space larger than the cache so that evictions happen throughout.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BenchmarkLruCache {
+  private static final int CACHE_SIZE = 1000;
+  private static final int KEY_SPACE = CACHE_SIZE * 2;
+  private static final int OPERATIONS_PER_THREAD = 10_000;
+  private static final float PUT_FRACTION = 0.1f;
+
+  @Rule public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  private ExecutorService executor;
+
+  @After
+  public void tearDown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void lruCache_oneThread() throws Exception {
+    runBenchmark(new LruCacheAdapter(), /* threadCount= */ 1);
+  }
+
+  @Test
+  public void lruCache_fourThreads() throws Exception {
+    runBenchmark(new LruCacheAdapter(), /* threadCount= */ 4);
+  }
+
+  @Test
+  public void lruCache_eightThreads() throws Exception {
+    runBenchmark(new LruCacheAdapter(), /* threadCount= */ 8);
+  }
+
+  @Test
+  public void segmentedLruCache_oneThread() throws Exception {
+    runBenchmark(new SegmentedLruCacheAdapter(), /* threadCount= */ 1);
+  }
+
+  @Test
+  public void segmentedLruCache_fourThreads() throws Exception {
+    runBenchmark(new SegmentedLruCacheAdapter(), /* threadCount= */ 4);
+  }
+
+  @Test
+  public void segmentedLruCache_eightThreads() throws Exception {
+    runBenchmark(new SegmentedLruCacheAdapter(), /* threadCount= */ 8);
+  }
+
+  private void runBenchmark(final Cache cache, int threadCount) throws Exception {
+    executor = Executors.newFixedThreadPool(threadCount);
+    final int[][] keysByThread = new int[threadCount][];
+    final boolean[][] isPutByThread = new boolean[threadCount][];
+    Random random = new Random(0);
+    for (int t = 0; t < threadCount; t++) {
+      keysByThread[t] = new int[OPERATIONS_PER_THREAD];
+      isPutByThread[t] = new boolean[OPERATIONS_PER_THREAD];
+      for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+        keysByThread[t][i] = random.nextInt(KEY_SPACE);
+        isPutByThread[t][i] = random.nextFloat() < PUT_FRACTION;
+      }
+    }
+    for (int i = 0; i < KEY_SPACE; i++) {
+      cache.put(i, i);
+    }
+
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    BenchmarkState state = benchmarkRule.getState();
+    while (state.keepRunning()) {
+      final CountDownLatch done = new CountDownLatch(threadCount);
+      for (int t = 0; t < threadCount; t++) {
+        final int[] keys = keysByThread[t];
+        final boolean[] isPut = isPutByThread[t];
+        executor.execute(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  for (int i = 0; i < keys.length; i++) {
+                    Integer key = keys[i];
+                    if (isPut[i] || cache.get(key) == null) {
+                      cache.put(key, key);
+                    }
+                  }
+                } catch (Throwable e) {
+                  failure.compareAndSet(null, e);
+                } finally {
+                  done.countDown();
+                }
+              }
+            });
+      }
+      done.await();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+
+  private interface Cache {
+    Integer get(Integer key);
+
+    void put(Integer key, Integer value);
+  }
+
+  private static final class LruCacheAdapter implements Cache {
+    private final LruCache<Integer, Integer> cache = new LruCache<>(CACHE_SIZE);
+
+    @Override
+    public Integer get(Integer key) {
+      return cache.get(key);
+    }
+
+    @Override
+    public void put(Integer key, Integer value) {
+      cache.put(key, value);
+    }
+  }
+
+  private static final class SegmentedLruCacheAdapter implements Cache {
+    private final SegmentedLruCache<Integer, Integer> cache = new SegmentedLruCache<>(CACHE_SIZE);
+
+    @Override
+    public Integer get(Integer key) {
+      return cache.get(key);
+    }
+
+    @Override
+    public void put(Integer key, Integer value) {
+      cache.put(key, value);
+    }
+  }
+}
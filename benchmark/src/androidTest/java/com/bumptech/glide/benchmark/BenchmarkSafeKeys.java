@@ -0,0 +1,54 @@
+package com.bumptech.glide.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.bumptech.glide.load.engine.cache.SafeKeyGenerator;
+import com.bumptech.glide.load.engine.cache.SafeKeyGenerator.HashAlgorithm;
+import com.bumptech.glide.signature.ObjectKey;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares how quickly {@link SafeKeyGenerator} calculates safe keys with each {@link
+ * HashAlgorithm}.
+ *
+ * <p>Each measured iteration calculates the safe keys of {@link #KEY_COUNT} distinct URL like keys
+ * with a new generator, so every key misses the generator's cache. Keys per second is {@link
+ * #KEY_COUNT} divided by the reported time per iteration.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BenchmarkSafeKeys {
+  private static final int KEY_COUNT = 1000;
+
+  @Rule public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  @Test
+  public void sha256() {
+    runBenchmark(HashAlgorithm.SHA_256);
+  }
+
+  @Test
+  public void murmur3() {
+    runBenchmark(HashAlgorithm.MURMUR3_128);
+  }
+
+  private void runBenchmark(HashAlgorithm hashAlgorithm) {
+    ObjectKey[] keys = new ObjectKey[KEY_COUNT];
+    for (int i = 0; i < KEY_COUNT; i++) {
+      keys[i] = new ObjectKey("https://images.example.com/photos/" + i + "/thumbnail.jpg?w=256");
+    }
+
+    BenchmarkState state = benchmarkRule.getState();
+    while (state.keepRunning()) {
+      state.pauseTiming();
+      SafeKeyGenerator generator = new SafeKeyGenerator(hashAlgorithm);
+      state.resumeTiming();
+
+      for (ObjectKey key : keys) {
+        generator.getSafeKey(key);
+      }
+    }
+  }
+}
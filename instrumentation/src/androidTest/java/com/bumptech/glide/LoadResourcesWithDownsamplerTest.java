@@ -23,6 +23,7 @@ import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoaderFactory;
 import com.bumptech.glide.load.model.MultiModelLoaderFactory;
 import com.bumptech.glide.load.resource.bitmap.Downsampler;
+import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.signature.ObjectKey;
 import com.bumptech.glide.test.GlideApp;
 import com.bumptech.glide.test.ResourceIds;
@@ -100,6 +101,28 @@ public class LoadResourcesWithDownsamplerTest {
     assertThat(bitmap).isNotNull();
   }
 
+  @Test
+  public void loadOpaquePngResource_withCenterCropRegion_decodesOnlyCenterRegion() {
+    Glide.get(context)
+        .getRegistry()
+        .prepend(
+            Object.class, InputStream.class, new FakeModelLoader<>(ResourceIds.raw.canonical_png));
+
+    // The 320x240 image is sampled by 2 and cropped to its central 240x240 pixels.
+    Bitmap bitmap =
+        concurrency.get(
+            Glide.with(context)
+                .asBitmap()
+                .load(new Object())
+                .apply(
+                    RequestOptions.option(Downsampler.DECODE_CENTER_CROP_REGION, true)
+                        .dontTransform()
+                        .override(100, 100))
+                .submit());
+    assertThat(bitmap.getWidth()).isEqualTo(120);
+    assertThat(bitmap.getHeight()).isEqualTo(120);
+  }
+
   @Test
   public void loadTransparentPngResource_withNoOtherLoaders_decodesResource() {
     Glide.get(context)
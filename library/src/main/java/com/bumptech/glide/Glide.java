@@ -336,7 +336,8 @@ public class Glide implements ComponentCallbacks2 {
       @NonNull List<RequestListener<Object>> defaultRequestListeners,
       @NonNull List<GlideModule> manifestModules,
       @Nullable AppGlideModule annotationGeneratedModule,
-      @NonNull GlideExperiments experiments) {
+      @NonNull GlideExperiments experiments,
+      @Nullable GlideEventListener eventListener) {
     this.engine = engine;
     this.bitmapPool = bitmapPool;
     this.arrayPool = arrayPool;
@@ -370,7 +371,8 @@ public class Glide implements ComponentCallbacks2 {
             defaultRequestListeners,
             engine,
             experiments,
-            logLevel);
+            logLevel,
+            eventListener);
   }
 
   /**
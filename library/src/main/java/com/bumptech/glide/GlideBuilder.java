@@ -64,7 +64,11 @@ public final class GlideBuilder {
       };
   @Nullable private RequestManagerFactory requestManagerFactory;
   private GlideExecutor animationExecutor;
+  @Nullable private GlideExecutor sourceFetchExecutor;
   private boolean isActiveResourceRetentionAllowed;
+  private boolean isEngineLockStripingEnabled;
+  private boolean isMemoryCacheSizeVariantReuseEnabled;
+  @Nullable private GlideEventListener eventListener;
   @Nullable private List<RequestListener<Object>> defaultRequestListeners;
 
   /**
@@ -211,6 +215,36 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * Sets an optional {@link GlideExecutor} to use to fetch data that isn't in the disk cache,
+   * pipelining loads so that data is fetched on this executor and then decoded on the source
+   * executor set by {@link #setSourceExecutor(GlideExecutor)}.
+   *
+   * <p>By default, and if {@code null} is given, a single thread from the source executor both
+   * fetches and decodes each load. Fetching is typically bound by network I/O, so loads from a
+   * slow server can occupy every source thread while the CPU is idle. With a separate fetch
+   * executor, the source executor can be sized for decoding, and the fetch executor can have more
+   * threads than there are cores. Each executor has its own queue ordered by the priority of each
+   * load. If the source executor's queue is full, the fetch thread decodes the data itself rather
+   * than queueing more decoded work, which limits the amount of fetched data held in memory.
+   *
+   * <p>Use {@link GlideExecutor#newSourceFetchBuilder()} to create a fetch executor. Loads that
+   * use the unlimited source executor or the animation executor are not pipelined.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   *
+   * @param service The {@link GlideExecutor} to use, or {@code null} to fetch and decode on the
+   *     same executor.
+   * @return This builder.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  @NonNull
+  public GlideBuilder setSourceFetchExecutor(@Nullable GlideExecutor service) {
+    this.sourceFetchExecutor = service;
+    return this;
+  }
+
   /**
    * Sets the default {@link RequestOptions} to use for all loads across the app.
    *
@@ -414,6 +448,65 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * Set to {@code true} to partition the {@link Engine}'s memory cache lookups and job registration
+   * across a set of locks selected by the hash of each load's key, rather than serializing every
+   * load on a single lock.
+   *
+   * <p>When enabled, hits in the set of active resources are served without taking any lock shared
+   * with loads for other keys. Hits in the {@link MemoryCache} are still subject to whatever
+   * synchronization the {@link MemoryCache} implementation uses.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   */
+  @NonNull
+  public GlideBuilder setEngineLockStripingEnabled(boolean isEnabled) {
+    this.isEngineLockStripingEnabled = isEnabled;
+    return this;
+  }
+
+  /**
+   * Set to {@code true} to allow a request for an untransformed {@link android.graphics.Bitmap}
+   * that misses the memory cache to be served by scaling down a larger Bitmap of the same model,
+   * with the same options, that's already in the {@link MemoryCache} or in use elsewhere.
+   *
+   * <p>This avoids disk cache reads and decodes when, for example, a list shows thumbnails of
+   * images that were just shown full size. The scaled Bitmap is obtained from the {@link
+   * BitmapPool} and drawn on the thread that starts the request, usually the main thread. The
+   * result is scaled using the request's {@link
+   * com.bumptech.glide.load.resource.bitmap.DownsampleStrategy}, but may differ by a pixel or so
+   * from the result of decoding the original image at the requested size.
+   *
+   * <p>Requests with transformations, requests for types other than Bitmap and requests for {@link
+   * com.bumptech.glide.request.target.Target#SIZE_ORIGINAL} are never served this way.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   */
+  @NonNull
+  public GlideBuilder setMemoryCacheSizeVariantReuseEnabled(boolean isEnabled) {
+    this.isMemoryCacheSizeVariantReuseEnabled = isEnabled;
+    return this;
+  }
+
+  /**
+   * Sets a {@link GlideEventListener} that will be notified as every load moves through each stage
+   * of Glide's pipeline, or {@code null} to not report any events (the default).
+   *
+   * <p>Use {@link HistogramEventListener} to collect latency histograms for each stage with low
+   * overhead.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   */
+  @NonNull
+  public GlideBuilder setEventListener(@Nullable GlideEventListener eventListener) {
+    this.eventListener = eventListener;
+    return this;
+  }
+
   /**
    * Adds a global {@link RequestListener} that will be added to every request started with Glide.
    *
@@ -566,6 +659,112 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * Set to {@code true} to start loading data from source at the same time as looking it up in the
+   * disk cache, rather than only after the disk cache misses.
+   *
+   * <p>Loads that miss the disk cache then don't wait for the disk cache lookups, which can take
+   * tens of milliseconds on slow storage, before starting to load from source. Loads that hit the
+   * disk cache cancel their load from source and ignore its result, so some data may be fetched
+   * needlessly. Loads that only retrieve from cache, or that don't read the disk cache at all, are
+   * unaffected.
+   *
+   * <p>Use {@link GlideEventListener#onDiskCacheRaceFinished(Object, boolean)} to see how often
+   * each wins.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   */
+  @NonNull
+  public GlideBuilder setDiskCacheSourceRaceEnabled(boolean isEnabled) {
+    glideExperimentsBuilder.update(new RaceDiskCacheWithSource(), isEnabled);
+    return this;
+  }
+
+  /**
+   * Set to {@code true} to decode data loaded from source while it's written to the disk cache,
+   * rather than writing it to the disk cache first and then decoding it from the cache file.
+   *
+   * <p>Loads that miss the disk cache then read their data only once, and can start decoding before
+   * all of their data has been loaded. Data is copied to a temporary file as it's decoded and is
+   * only added to the disk cache once it has all been loaded successfully. Only {@link
+   * java.io.InputStream} data written with the default source encoder is affected.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   */
+  @NonNull
+  public GlideBuilder setWriteSourceToDiskCacheWhileDecoding(boolean isEnabled) {
+    glideExperimentsBuilder.update(new WriteSourceToDiskCacheWhileDecoding(), isEnabled);
+    return this;
+  }
+
+  /**
+   * Set to {@code true} to store the type, orientation and dimensions of images in the disk cache
+   * alongside their original source data.
+   *
+   * <p>Decodes of data retrieved from the disk cache can then skip reading the image header and,
+   * for JPEGs and PNGs, decoding the image's bounds before decoding the image itself. Only loads
+   * that cache their original source data ({@link
+   * com.bumptech.glide.load.engine.DiskCacheStrategy#DATA} or {@link
+   * com.bumptech.glide.load.engine.DiskCacheStrategy#ALL}) are affected.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   */
+  @NonNull
+  public GlideBuilder setPersistImageMetadataInDiskCache(boolean isEnabled) {
+    glideExperimentsBuilder.update(new PersistDataCacheImageMetadata(), isEnabled);
+    return this;
+  }
+
+  /**
+   * Set to {@code true} to decode only the part of an image that remains visible after it's center
+   * cropped, rather than decoding the entire image and then discarding its margins.
+   *
+   * <p>Only loads whose only transformation is {@link
+   * com.bumptech.glide.load.resource.bitmap.CenterCrop} are affected, for example those that use
+   * {@link com.bumptech.glide.request.RequestOptions#centerCropTransform()}. JPEG, PNG and WebP
+   * images without an exif rotation are decoded with {@link android.graphics.BitmapRegionDecoder}
+   * into a {@link android.graphics.Bitmap} obtained from the {@link BitmapPool}. Other images are
+   * decoded as usual.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   */
+  @NonNull
+  public GlideBuilder setDecodeCenterCropRegion(boolean isEnabled) {
+    glideExperimentsBuilder.update(new DecodeCenterCropRegion(), isEnabled);
+    return this;
+  }
+
+  /**
+   * Set to {@code true} to allow {@link RequestBuilder#progressivePreview(int)} to load low
+   * resolution previews of progressive JPEGs.
+   *
+   * <p>Each preview is loaded by its own request that doesn't share its connection with the full
+   * request, so the first bytes of images that aren't already in the disk cache are downloaded
+   * twice, concurrently. Images that turn out not to be progressive JPEGs still pay for
+   * downloading their headers a second time. Only enable previews where the faster first frame is
+   * worth the extra bandwidth. Previews are skipped without a second fetch when {@link
+   * #setPersistImageMetadataInDiskCache(boolean)} is enabled and the cached metadata shows that
+   * the image isn't progressive. While disabled, {@link RequestBuilder#progressivePreview(int)}
+   * has no effect.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   */
+  @NonNull
+  public GlideBuilder setProgressivePreviews(boolean isEnabled) {
+    glideExperimentsBuilder.update(new ProgressivePreviews(), isEnabled);
+    return this;
+  }
+
   /**
    * Set to {@code true} to make Glide use {@link MemoryCategory} to set the memory category when
    * the app is in the background.
@@ -669,7 +868,11 @@ public final class GlideBuilder {
               sourceExecutor,
               GlideExecutor.newUnlimitedSourceExecutor(),
               animationExecutor,
-              isActiveResourceRetentionAllowed);
+              isActiveResourceRetentionAllowed,
+              isEngineLockStripingEnabled,
+              isMemoryCacheSizeVariantReuseEnabled,
+              bitmapPool,
+              sourceFetchExecutor);
     }
 
     if (defaultRequestListeners == null) {
@@ -696,7 +899,8 @@ public final class GlideBuilder {
         defaultRequestListeners,
         manifestModules,
         annotationGeneratedGlideModule,
-        experiments);
+        experiments,
+        eventListener);
   }
 
   static final class ManualOverrideHardwareBitmapMaxFdCount implements Experiment {
@@ -730,6 +934,21 @@ public final class GlideBuilder {
   /** See {@link #setUseMediaStoreOpenFileApisIfPossible(boolean)}. */
   public static final class UseMediaStoreOpenFileApisIfPossible implements Experiment {}
 
+  /** See {@link #setDiskCacheSourceRaceEnabled(boolean)}. */
+  public static final class RaceDiskCacheWithSource implements Experiment {}
+
+  /** See {@link #setWriteSourceToDiskCacheWhileDecoding(boolean)}. */
+  public static final class WriteSourceToDiskCacheWhileDecoding implements Experiment {}
+
+  /** See {@link #setPersistImageMetadataInDiskCache(boolean)}. */
+  public static final class PersistDataCacheImageMetadata implements Experiment {}
+
+  /** See {@link #setDecodeCenterCropRegion(boolean)}. */
+  public static final class DecodeCenterCropRegion implements Experiment {}
+
+  /** See {@link #setProgressivePreviews(boolean)}. */
+  public static final class ProgressivePreviews implements Experiment {}
+
   /** See {@link #setMemoryCategoryInBackground(MemoryCategory)}. */
   public static final class MemoryCategoryInBackground implements Experiment {
     private final MemoryCategory memoryCategory;
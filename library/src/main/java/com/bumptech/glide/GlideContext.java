@@ -39,6 +39,7 @@ public class GlideContext extends ContextWrapper {
   private final Engine engine;
   private final GlideExperiments experiments;
   private final int logLevel;
+  @Nullable private final GlideEventListener eventListener;
 
   @Nullable
   @GuardedBy("this")
@@ -55,6 +56,32 @@ public class GlideContext extends ContextWrapper {
       @NonNull Engine engine,
       @NonNull GlideExperiments experiments,
       int logLevel) {
+    this(
+        context,
+        arrayPool,
+        registry,
+        imageViewTargetFactory,
+        defaultRequestOptionsFactory,
+        defaultTransitionOptions,
+        defaultRequestListeners,
+        engine,
+        experiments,
+        logLevel,
+        /* eventListener= */ null);
+  }
+
+  public GlideContext(
+      @NonNull Context context,
+      @NonNull ArrayPool arrayPool,
+      @NonNull GlideSupplier<Registry> registry,
+      @NonNull ImageViewTargetFactory imageViewTargetFactory,
+      @NonNull RequestOptionsFactory defaultRequestOptionsFactory,
+      @NonNull Map<Class<?>, TransitionOptions<?, ?>> defaultTransitionOptions,
+      @NonNull List<RequestListener<Object>> defaultRequestListeners,
+      @NonNull Engine engine,
+      @NonNull GlideExperiments experiments,
+      int logLevel,
+      @Nullable GlideEventListener eventListener) {
     super(context.getApplicationContext());
     this.arrayPool = arrayPool;
     this.imageViewTargetFactory = imageViewTargetFactory;
@@ -64,6 +91,7 @@ public class GlideContext extends ContextWrapper {
     this.engine = engine;
     this.experiments = experiments;
     this.logLevel = logLevel;
+    this.eventListener = eventListener;
 
     this.registry = GlideSuppliers.memorize(registry);
   }
@@ -125,4 +153,10 @@ public class GlideContext extends ContextWrapper {
   public GlideExperiments getExperiments() {
     return experiments;
   }
+
+  /** Returns the {@link GlideEventListener} to notify, or {@code null} if none was set. */
+  @Nullable
+  public GlideEventListener getEventListener() {
+    return eventListener;
+  }
 }
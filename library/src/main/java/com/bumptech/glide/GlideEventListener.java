@@ -0,0 +1,121 @@
+package com.bumptech.glide;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.load.DataSource;
+
+/**
+ * Receives timing events from each stage of Glide's load pipeline so that applications can see
+ * where slow loads spend their time.
+ *
+ * <p>Register a listener with {@link GlideBuilder#setEventListener(GlideEventListener)}. A single
+ * listener receives events for every request. Events are identified by the model of the load they
+ * belong to, so events for concurrent loads of different models can be told apart, but events for
+ * concurrent loads of the same model can not. Loads for the same model, size and options share a
+ * single decode, so events from the decode stages are only reported once.
+ *
+ * <p>Methods are called synchronously on whichever thread is running the stage, including the main
+ * thread and Glide's executor threads, and may be called concurrently. Implementations must be
+ * thread safe and must return quickly. {@link HistogramEventListener} is a low overhead
+ * implementation that records the durations of each stage.
+ *
+ * <p>When no listener is registered Glide does no additional work beyond a null check at each
+ * stage boundary.
+ *
+ * <p>This is an experimental API that may be removed in the future.
+ */
+public abstract class GlideEventListener {
+
+  /**
+   * The stages of a load, in the order they typically occur.
+   *
+   * <p>Stages may be nested, repeated, or skipped entirely depending on where the resource is
+   * found. Durations are measured with {@link android.os.SystemClock#elapsedRealtimeNanos()}.
+   */
+  public enum Stage {
+    /**
+     * The time a request spends waiting for its {@link com.bumptech.glide.request.target.Target}
+     * to provide a size.
+     */
+    SIZE,
+    /** The time taken to check active resources and the memory cache. */
+    MEMORY_CACHE,
+    /**
+     * The time a decode job spends waiting for a thread in one of Glide's executors, either when
+     * it's first started or each time it's rescheduled onto another executor.
+     */
+    EXECUTOR_QUEUE,
+    /**
+     * The time taken to look up transformed resources in the disk cache, including opening any
+     * cached data that's found.
+     */
+    RESOURCE_CACHE,
+    /**
+     * The time taken to look up original data in the disk cache, including opening any cached
+     * data that's found.
+     */
+    DATA_CACHE,
+    /**
+     * The time taken to load data from source via {@link
+     * com.bumptech.glide.load.data.DataFetcher#loadData}, ending when the data is ready or the
+     * load fails. Reported a second time if the data is then written to the disk cache.
+     */
+    SOURCE,
+    /** The time taken to decode data into a resource, including {@link #TRANSFORM}. */
+    DECODE,
+    /** The time taken to apply transformations to a decoded resource. */
+    TRANSFORM,
+    /** The time taken to write a decoded and transformed resource to the disk cache. */
+    ENCODE,
+    /**
+     * The time from when a completed resource is posted to a request's callback executor, usually
+     * the main thread, until the request has delivered it to its listeners and target.
+     */
+    CALLBACK,
+  }
+
+  /** Called when a request starts, before it has a size. */
+  public void onRequestStarted(@NonNull Object model) {
+    // Do nothing by default.
+  }
+
+  /** Called when the given stage starts for a load of the given model. */
+  public void onStageStarted(@NonNull Object model, @NonNull Stage stage) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when the given stage finishes for a load of the given model.
+   *
+   * @param durationNanos The time elapsed since the corresponding call to {@link
+   *     #onStageStarted(Object, Stage)}.
+   */
+  public void onStageFinished(@NonNull Object model, @NonNull Stage stage, long durationNanos) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when a load that races the disk cache against its source, see {@link
+   * GlideBuilder#setDiskCacheSourceRaceEnabled(boolean)}, finds out which of the two will provide
+   * its data.
+   *
+   * @param isDiskCacheWinner {@code true} if the data was found in the disk cache and the load from
+   *     source was cancelled, or {@code false} if the disk cache missed and the data will be loaded
+   *     from source.
+   */
+  public void onDiskCacheRaceFinished(@NonNull Object model, boolean isDiskCacheWinner) {
+    // Do nothing by default.
+  }
+
+  /**
+   * Called when a request completes or fails.
+   *
+   * @param dataSource The source of the resource that was loaded, or {@code null} if the request
+   *     failed.
+   * @param durationNanos The time elapsed since the request started.
+   */
+  public void onRequestFinished(
+      @NonNull Object model, @Nullable DataSource dataSource, long durationNanos) {
+    // Do nothing by default.
+  }
+}
@@ -0,0 +1,75 @@
+package com.bumptech.glide;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.util.LatencyHistogram;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A {@link GlideEventListener} that records the duration of every stage, and of every request as a
+ * whole, in a {@link LatencyHistogram}.
+ *
+ * <p>Recording never allocates or blocks, so this listener is suitable for use in production.
+ * Call {@link #dump()} periodically to log a summary, optionally followed by {@link #reset()} to
+ * start a new period.
+ *
+ * <p>This is an experimental API that may be removed in the future.
+ */
+public final class HistogramEventListener extends GlideEventListener {
+  private final Map<Stage, LatencyHistogram> stageHistograms = new EnumMap<>(Stage.class);
+  private final LatencyHistogram requestHistogram = new LatencyHistogram();
+
+  public HistogramEventListener() {
+    for (Stage stage : Stage.values()) {
+      stageHistograms.put(stage, new LatencyHistogram());
+    }
+  }
+
+  @Override
+  public void onStageFinished(@NonNull Object model, @NonNull Stage stage, long durationNanos) {
+    getHistogram(stage).record(durationNanos);
+  }
+
+  @Override
+  public void onRequestFinished(
+      @NonNull Object model, @Nullable DataSource dataSource, long durationNanos) {
+    requestHistogram.record(durationNanos);
+  }
+
+  /** Returns the histogram of durations for the given stage. */
+  @NonNull
+  public LatencyHistogram getHistogram(@NonNull Stage stage) {
+    // Populated for every stage in the constructor and never modified, so safe to read
+    // concurrently.
+    return stageHistograms.get(stage);
+  }
+
+  /** Returns the histogram of the total durations of requests, from start to finish. */
+  @NonNull
+  public LatencyHistogram getRequestHistogram() {
+    return requestHistogram;
+  }
+
+  /** Clears all recorded durations. */
+  public void reset() {
+    for (LatencyHistogram histogram : stageHistograms.values()) {
+      histogram.reset();
+    }
+    requestHistogram.reset();
+  }
+
+  /** Returns a multi-line summary of every stage with at least one recorded duration. */
+  @NonNull
+  public String dump() {
+    StringBuilder result = new StringBuilder();
+    result.append("REQUEST: ").append(requestHistogram);
+    for (Map.Entry<Stage, LatencyHistogram> entry : stageHistograms.entrySet()) {
+      if (entry.getValue().getCount() > 0) {
+        result.append('\n').append(entry.getKey()).append(": ").append(entry.getValue());
+      }
+    }
+    return result.toString();
+  }
+}
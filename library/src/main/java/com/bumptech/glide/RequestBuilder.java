@@ -16,10 +16,14 @@ import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RawRes;
+import androidx.annotation.VisibleForTesting;
+import com.bumptech.glide.GlideBuilder.ProgressivePreviews;
 import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.EncodeStrategy;
 import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.load.resource.bitmap.Downsampler;
 import com.bumptech.glide.request.BaseRequestOptions;
 import com.bumptech.glide.request.ErrorRequestCoordinator;
 import com.bumptech.glide.request.FutureTarget;
@@ -62,6 +66,30 @@ public class RequestBuilder<TranscodeType> extends BaseRequestOptions<RequestBui
           .diskCacheStrategy(DiskCacheStrategy.DATA)
           .priority(Priority.LOW)
           .skipMemoryCache(true);
+  // Reads any cached data, but never writes the truncated data read for previews.
+  private static final DiskCacheStrategy PROGRESSIVE_PREVIEW_DISK_CACHE_STRATEGY =
+      new DiskCacheStrategy() {
+        @Override
+        public boolean isDataCacheable(DataSource dataSource) {
+          return false;
+        }
+
+        @Override
+        public boolean isResourceCacheable(
+            boolean isFromAlternateCacheKey, DataSource dataSource, EncodeStrategy encodeStrategy) {
+          return false;
+        }
+
+        @Override
+        public boolean decodeCachedResource() {
+          return false;
+        }
+
+        @Override
+        public boolean decodeCachedData() {
+          return true;
+        }
+      };
 
   private final Context context;
   private final RequestManager requestManager;
@@ -518,6 +546,59 @@ public class RequestBuilder<TranscodeType> extends BaseRequestOptions<RequestBui
     return selfOrThrowIfLocked();
   }
 
+  /**
+   * Loads a low resolution preview from the first {@code previewBytes} of progressive JPEGs and
+   * displays it using {@link #thumbnail(RequestBuilder)} until this request finishes.
+   *
+   * <p>Progressive JPEGs store a low resolution version of the entire image in their first scans,
+   * so for large images on slow connections a blurry version of the image can be shown long before
+   * the image is downloaded. The preview is loaded by a separate request that stops reading the
+   * image's data after {@code previewBytes}, see {@link Downsampler#PROGRESSIVE_PREVIEW_BYTES}. For
+   * any other type of image the preview request fails, which, like any other failed thumbnail, has
+   * no visible effect.
+   *
+   * <p>This is a double fetch approximation of decoding the image as it downloads. The preview
+   * request doesn't share its connection with this request. For images that aren't already in the
+   * disk cache, up to {@code previewBytes} are downloaded twice, concurrently, and images that
+   * aren't progressive JPEGs download their headers twice. For that reason this method has no
+   * effect unless {@link GlideBuilder#setProgressivePreviews(boolean)} is enabled.
+   *
+   * <p>If {@link GlideBuilder#setPersistImageMetadataInDiskCache(boolean)} is enabled and the
+   * metadata cached with the image's data shows that the image isn't progressive, the preview
+   * request fails without decoding the cached data or fetching the image again.
+   *
+   * <p>The preview is never written to the disk cache. However, it will be loaded from data that's
+   * already in the disk cache.
+   *
+   * <p>All options are copied from this request, other than thumbnail and error {@code
+   * RequestBuilder}s, which are removed. <b>Order matters!</b> Any options applied after this
+   * method is called, including the model passed to {@code load()}, will not be applied to the
+   * preview.
+   *
+   * <p>Overrides any previous calls to {@link #thumbnail(RequestBuilder)}, {@link
+   * #thumbnail(float)} and {@link #thumbnail(RequestBuilder[])}.
+   *
+   * @param previewBytes The maximum number of bytes of the image to read for the preview, typically
+   *     a small fraction of the size of the image.
+   * @return This request builder.
+   */
+  @NonNull
+  @CheckResult
+  public RequestBuilder<TranscodeType> progressivePreview(int previewBytes) {
+    Preconditions.checkArgument(previewBytes > 0, "previewBytes must be positive");
+    if (!glideContext.getExperiments().isEnabled(ProgressivePreviews.class)) {
+      return this;
+    }
+    return thumbnail(newProgressivePreview(previewBytes));
+  }
+
+  @VisibleForTesting
+  RequestBuilder<TranscodeType> newProgressivePreview(int previewBytes) {
+    return cloneWithNullErrorAndThumbnail()
+        .set(Downsampler.PROGRESSIVE_PREVIEW_BYTES, previewBytes)
+        .diskCacheStrategy(PROGRESSIVE_PREVIEW_DISK_CACHE_STRATEGY);
+  }
+
   /**
    * Sets the specific model to load data for.
    *
@@ -1146,21 +1227,6 @@ public class RequestBuilder<TranscodeType> extends BaseRequestOptions<RequestBui
     return new RequestBuilder<>(File.class, this).apply(DOWNLOAD_ONLY_OPTIONS);
   }
 
-  @NonNull
-  private Priority getThumbnailPriority(@NonNull Priority current) {
-    switch (current) {
-      case LOW:
-        return Priority.NORMAL;
-      case NORMAL:
-        return Priority.HIGH;
-      case HIGH:
-      case IMMEDIATE:
-        return Priority.IMMEDIATE;
-      default:
-        throw new IllegalArgumentException("unknown priority: " + getPriority());
-    }
-  }
-
   private Request buildRequest(
       Target<TranscodeType> target,
       @Nullable RequestListener<TranscodeType> targetListener,
@@ -1266,10 +1332,11 @@ public class RequestBuilder<TranscodeType> extends BaseRequestOptions<RequestBui
         thumbTransitionOptions = transitionOptions;
       }
 
+      boolean isThumbPriorityExplicit = thumbnailBuilder.isPrioritySet();
       Priority thumbPriority =
-          thumbnailBuilder.isPrioritySet()
+          isThumbPriorityExplicit
               ? thumbnailBuilder.getPriority()
-              : getThumbnailPriority(priority);
+              : ThumbnailRequestCoordinator.getThumbnailPriority(priority);
 
       int thumbOverrideWidth = thumbnailBuilder.getOverrideWidth();
       int thumbOverrideHeight = thumbnailBuilder.getOverrideHeight();
@@ -1308,7 +1375,7 @@ public class RequestBuilder<TranscodeType> extends BaseRequestOptions<RequestBui
               thumbnailBuilder,
               callbackExecutor);
       isThumbnailBuilt = false;
-      coordinator.setRequests(fullRequest, thumbRequest);
+      coordinator.setRequests(fullRequest, thumbRequest, isThumbPriorityExplicit);
       return coordinator;
     } else if (thumbSizeMultiplier != null) {
       // Base case: thumbnail multiplier generates a thumbnail request, but cannot recurse.
@@ -1337,7 +1404,7 @@ public class RequestBuilder<TranscodeType> extends BaseRequestOptions<RequestBui
               thumbnailOptions,
               coordinator,
               transitionOptions,
-              getThumbnailPriority(priority),
+              ThumbnailRequestCoordinator.getThumbnailPriority(priority),
               overrideWidth,
               overrideHeight,
               callbackExecutor);
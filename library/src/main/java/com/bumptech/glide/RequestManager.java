@@ -642,6 +642,29 @@ public class RequestManager
     untrackOrDelegate(target);
   }
 
+  /**
+   * Changes the {@link Priority} of any load Glide has started for the view, for example to move a
+   * view that has just scrolled on screen ahead of views that have scrolled off screen.
+   *
+   * @see #setPriority(Target, Priority)
+   */
+  public void setPriority(@NonNull View view, @NonNull Priority priority) {
+    setPriority(new ClearTarget(view), priority);
+  }
+
+  /**
+   * Changes the {@link Priority} of any load Glide has started for the target, including loads
+   * that are already queued.
+   *
+   * @see Request#setPriority(Priority)
+   */
+  public void setPriority(@NonNull Target<?> target, @NonNull Priority priority) {
+    Request request = target.getRequest();
+    if (request != null) {
+      request.setPriority(priority);
+    }
+  }
+
   private void untrackOrDelegate(@NonNull Target<?> target) {
     boolean isOwnedByUs = untrack(target);
     // We'll end up here if the Target was cleared after the RequestManager that started the request
@@ -0,0 +1,283 @@
+package com.bumptech.glide;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
+import com.bumptech.glide.load.resource.bitmap.Downsampler;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the tiles of a large image that are visible in a viewport, each sampled for the viewport's
+ * scale, so that images much larger than the screen can be displayed and zoomed without decoding
+ * the entire image at once.
+ *
+ * <p>Each tile is loaded by its own request using {@link Downsampler#REGION}, so tiles are decoded
+ * in parallel on Glide's executors, each with one of a small pool of decoders for the image, and
+ * are cached independently in the memory and disk caches. The source data is cached once and
+ * shared by every tile. Tiles that leave the viewport are cleared,
+ * which returns them to the memory cache from where they're eventually evicted to the {@link
+ * com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool}.
+ *
+ * <p>Tiles are aligned to a grid of {@code tileSize} pixels at each sample size, so panning reuses
+ * tiles that are already loaded. When the viewport's scale changes enough to change the sample
+ * size, tiles at the previous sample size are cleared.
+ *
+ * <p>Only JPEG, PNG and WebP images can be loaded in tiles. This class must only be used on the
+ * main thread.
+ */
+public final class TiledImageLoader {
+  private final RequestManager requestManager;
+  private final RequestBuilder<Bitmap> requestBuilder;
+  private final int imageWidth;
+  private final int imageHeight;
+  private final int tileSize;
+  private final TileListener listener;
+  // Lets tiles reuse BitmapRegionDecoders, see Downsampler#REGION_SOURCE_KEY.
+  private final Object sourceKey;
+  private final Map<Tile, TileTarget> targets = new HashMap<>();
+
+  /** Receives tiles as they're loaded and cleared, on the main thread. */
+  public interface TileListener {
+
+    /**
+     * Called when a tile has been loaded.
+     *
+     * <p>The {@link Bitmap} must not be used after {@link #onTileCleared(Tile)} is called for the
+     * same tile.
+     */
+    void onTileReady(@NonNull Tile tile, @NonNull Bitmap bitmap);
+
+    /** Called when a tile is no longer visible, or failed to load, and must no longer be drawn. */
+    void onTileCleared(@NonNull Tile tile);
+  }
+
+  /** A region of the image decoded with a given sample size. */
+  public static final class Tile {
+    private final Rect region;
+    private final int sampleSize;
+
+    Tile(Rect region, int sampleSize) {
+      this.region = region;
+      this.sampleSize = sampleSize;
+    }
+
+    /** Returns the region of the image this tile covers, in the image's coordinates. */
+    @NonNull
+    public Rect getRegion() {
+      return new Rect(region);
+    }
+
+    /**
+     * Returns the sample size the tile is decoded with, the tile's {@link Bitmap} is roughly this
+     * many times smaller than its region in each dimension.
+     */
+    public int getSampleSize() {
+      return sampleSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof Tile) {
+        Tile other = (Tile) o;
+        return sampleSize == other.sampleSize && region.equals(other.region);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * region.hashCode() + sampleSize;
+    }
+
+    @Override
+    public String toString() {
+      return "Tile{" + "region=" + region + ", sampleSize=" + sampleSize + '}';
+    }
+  }
+
+  /**
+   * @param requestManager The {@link RequestManager} used to clear tiles.
+   * @param requestBuilder A {@link RequestBuilder} on which {@link RequestBuilder#load(Object)} has
+   *     been called for the image. Each tile's request is a copy with the tile's region and size.
+   * @param imageWidth The width of the image, after any exif orientation is applied.
+   * @param imageHeight The height of the image, after any exif orientation is applied.
+   * @param tileSize The maximum width and height in pixels of each tile's {@link Bitmap}.
+   * @param listener Receives tiles as they're loaded and cleared.
+   */
+  public TiledImageLoader(
+      @NonNull RequestManager requestManager,
+      @NonNull RequestBuilder<Bitmap> requestBuilder,
+      int imageWidth,
+      int imageHeight,
+      int tileSize,
+      @NonNull TileListener listener) {
+    Preconditions.checkArgument(
+        imageWidth > 0 && imageHeight > 0, "Image dimensions must be positive");
+    Preconditions.checkArgument(tileSize > 0, "Tile size must be positive");
+    this.requestManager = requestManager;
+    this.requestBuilder = requestBuilder;
+    this.imageWidth = imageWidth;
+    this.imageHeight = imageHeight;
+    this.tileSize = tileSize;
+    this.listener = listener;
+    sourceKey = Arrays.asList(requestBuilder.getModel(), requestBuilder.getSignature());
+  }
+
+  /**
+   * Loads the tiles that cover the visible part of the image and clears any other tiles.
+   *
+   * @param visibleRegion The part of the image that's visible, in the image's coordinates.
+   * @param scale The number of pixels on screen for each pixel of the image.
+   */
+  public void setViewport(@NonNull Rect visibleRegion, float scale) {
+    Util.assertMainThread();
+    List<Tile> visibleTiles =
+        getTiles(visibleRegion, getSampleSize(scale), imageWidth, imageHeight, tileSize);
+
+    Iterator<Map.Entry<Tile, TileTarget>> iterator = targets.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Tile, TileTarget> entry = iterator.next();
+      if (!visibleTiles.contains(entry.getKey())) {
+        iterator.remove();
+        requestManager.clear(entry.getValue());
+      }
+    }
+
+    for (Tile tile : visibleTiles) {
+      if (!targets.containsKey(tile)) {
+        TileTarget target = new TileTarget(tile);
+        targets.put(tile, target);
+        loadTile(tile, target);
+      }
+    }
+  }
+
+  /** Clears every tile. */
+  public void clear() {
+    Util.assertMainThread();
+    // Copy the targets first because clearing may call back into the listener.
+    List<TileTarget> toClear = new ArrayList<>(targets.values());
+    targets.clear();
+    for (TileTarget target : toClear) {
+      requestManager.clear(target);
+    }
+  }
+
+  private void loadTile(Tile tile, TileTarget target) {
+    requestBuilder
+        .clone()
+        .set(Downsampler.REGION, tile.region)
+        .set(Downsampler.REGION_SOURCE_KEY, sourceKey)
+        // Any other strategy may choose a smaller sample size for tiles at the edges of the image.
+        .downsample(DownsampleStrategy.CENTER_INSIDE)
+        .dontTransform()
+        .override(
+            getSampledDimension(tile.region.width(), tile.sampleSize),
+            getSampledDimension(tile.region.height(), tile.sampleSize))
+        .into(target);
+  }
+
+  private static int getSampledDimension(int dimension, int sampleSize) {
+    return Math.max(1, dimension / sampleSize);
+  }
+
+  /**
+   * Returns the largest power of two sample size that produces at least one pixel of the image for
+   * each pixel on screen.
+   */
+  @VisibleForTesting
+  static int getSampleSize(float scale) {
+    if (scale >= 1f || scale <= 0f) {
+      return 1;
+    }
+    return Integer.highestOneBit(Math.max(1, (int) (1f / scale)));
+  }
+
+  /** Returns the tiles of the grid for the given sample size that overlap the visible region. */
+  @VisibleForTesting
+  static List<Tile> getTiles(
+      Rect visibleRegion, int sampleSize, int imageWidth, int imageHeight, int tileSize) {
+    List<Tile> result = new ArrayList<>();
+    Rect visible = new Rect(visibleRegion);
+    if (!visible.intersect(0, 0, imageWidth, imageHeight)) {
+      return result;
+    }
+    int regionSize = tileSize * sampleSize;
+    for (int top = visible.top / regionSize * regionSize; top < visible.bottom; top += regionSize) {
+      for (int left = visible.left / regionSize * regionSize;
+          left < visible.right;
+          left += regionSize) {
+        Rect region =
+            new Rect(
+                left,
+                top,
+                Math.min(left + regionSize, imageWidth),
+                Math.min(top + regionSize, imageHeight));
+        result.add(new Tile(region, sampleSize));
+      }
+    }
+    return result;
+  }
+
+  private final class TileTarget extends CustomTarget<Bitmap> {
+    private final Tile tile;
+    // Set once the tile has failed and is no longer tracked, after which nothing is delivered.
+    private boolean isForgotten;
+
+    @Synthetic
+    TileTarget(Tile tile) {
+      this.tile = tile;
+    }
+
+    @Override
+    public void onResourceReady(
+        @NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
+      // A failed request that's restarted before it's cleared may still finish.
+      if (!isForgotten) {
+        listener.onTileReady(tile, resource);
+      }
+    }
+
+    @Override
+    public void onLoadFailed(@Nullable Drawable errorDrawable) {
+      // Forget the tile so that it's loaded again the next time it's visible.
+      isForgotten = true;
+      if (targets.get(tile) == this) {
+        targets.remove(tile);
+        // Otherwise the failed request is restarted when the RequestManager is, and its result
+        // would never be cleared. Requests can't be cleared from their own callbacks.
+        Util.postOnUiThread(
+            new Runnable() {
+              @Override
+              public void run() {
+                requestManager.clear(TileTarget.this);
+              }
+            });
+      }
+      listener.onTileCleared(tile);
+    }
+
+    @Override
+    public void onLoadCleared(@Nullable Drawable placeholder) {
+      // The listener was told the tile was cleared when it failed, and the tile may have been
+      // loaded again since.
+      if (!isForgotten) {
+        listener.onTileCleared(tile);
+      }
+    }
+  }
+}
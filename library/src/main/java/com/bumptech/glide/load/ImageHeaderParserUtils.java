@@ -343,6 +343,181 @@ public final class ImageHeaderParserUtils {
     return false;
   }
 
+  /**
+   * Returns the {@link ImageMetadata} for the given InputStream, reading the header once with each
+   * {@link ImageMetadataParser} in {@code parsers}.
+   *
+   * <p>Each property is taken from the first parser that knows it, just as it would be by {@link
+   * #getType(List, InputStream, ArrayPool)} and {@link #getOrientation(List, InputStream,
+   * ArrayPool)}. Parsers that aren't {@link ImageMetadataParser}s are asked for the type and
+   * orientation separately, and can't provide dimensions.
+   */
+  @NonNull
+  public static ImageMetadata getMetadata(
+      @NonNull List<ImageHeaderParser> parsers,
+      @Nullable InputStream is,
+      @NonNull final ArrayPool byteArrayPool)
+      throws IOException {
+    if (is == null) {
+      return ImageMetadata.UNKNOWN;
+    }
+
+    if (!is.markSupported()) {
+      is = new RecyclableBufferedInputStream(is, byteArrayPool);
+    }
+
+    is.mark(MARK_READ_LIMIT);
+    final InputStream finalIs = is;
+    return getMetadataInternal(
+        parsers,
+        new MetadataReader() {
+          @Override
+          public ImageMetadata getMetadataAndRewind(ImageMetadataParser parser)
+              throws IOException {
+            try {
+              return parser.getMetadata(finalIs, byteArrayPool);
+            } finally {
+              finalIs.reset();
+            }
+          }
+
+          @Override
+          public ImageType getTypeAndRewind(ImageHeaderParser parser) throws IOException {
+            try {
+              return parser.getType(finalIs);
+            } finally {
+              finalIs.reset();
+            }
+          }
+
+          @Override
+          public int getOrientationAndRewind(ImageHeaderParser parser) throws IOException {
+            try {
+              return parser.getOrientation(finalIs, byteArrayPool);
+            } finally {
+              finalIs.reset();
+            }
+          }
+        });
+  }
+
+  /** Returns the {@link ImageMetadata} for the given ByteBuffer. */
+  @NonNull
+  public static ImageMetadata getMetadata(
+      @NonNull List<ImageHeaderParser> parsers,
+      @Nullable final ByteBuffer buffer,
+      @NonNull final ArrayPool byteArrayPool)
+      throws IOException {
+    if (buffer == null) {
+      return ImageMetadata.UNKNOWN;
+    }
+
+    return getMetadataInternal(
+        parsers,
+        new MetadataReader() {
+          @Override
+          public ImageMetadata getMetadataAndRewind(ImageMetadataParser parser)
+              throws IOException {
+            try {
+              return parser.getMetadata(buffer, byteArrayPool);
+            } finally {
+              ByteBufferUtil.rewind(buffer);
+            }
+          }
+
+          @Override
+          public ImageType getTypeAndRewind(ImageHeaderParser parser) throws IOException {
+            try {
+              return parser.getType(buffer);
+            } finally {
+              ByteBufferUtil.rewind(buffer);
+            }
+          }
+
+          @Override
+          public int getOrientationAndRewind(ImageHeaderParser parser) throws IOException {
+            try {
+              return parser.getOrientation(buffer, byteArrayPool);
+            } finally {
+              ByteBufferUtil.rewind(buffer);
+            }
+          }
+        });
+  }
+
+  /** Returns the {@link ImageMetadata} for the given {@link ParcelFileDescriptorRewinder}. */
+  @NonNull
+  @RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+  public static ImageMetadata getMetadata(
+      @NonNull List<ImageHeaderParser> parsers,
+      @NonNull final ParcelFileDescriptorRewinder parcelFileDescriptorRewinder,
+      @NonNull final ArrayPool byteArrayPool)
+      throws IOException {
+    RecyclableBufferedInputStream is = null;
+    try {
+      // Wrap the FileInputStream into a RecyclableBufferedInputStream to optimize I/O performance.
+      is =
+          new RecyclableBufferedInputStream(
+              new FileInputStream(parcelFileDescriptorRewinder.rewindAndGet().getFileDescriptor()),
+              byteArrayPool);
+      return getMetadata(parsers, is, byteArrayPool);
+    } finally {
+      // If we close the stream, we'll close the file descriptor as well, so we can't do that. We do
+      // however want to make sure we release any buffers we used back to the pool so we call
+      // release instead of close.
+      if (is != null) {
+        is.release();
+      }
+      parcelFileDescriptorRewinder.rewindAndGet();
+    }
+  }
+
+  @NonNull
+  private static ImageMetadata getMetadataInternal(
+      @NonNull List<ImageHeaderParser> parsers, MetadataReader reader) throws IOException {
+    ImageType type = ImageType.UNKNOWN;
+    int orientation = ImageHeaderParser.UNKNOWN_ORIENTATION;
+    ImageMetadata withDimensions = null;
+    //noinspection ForLoopReplaceableByForEach to improve perf
+    for (int i = 0, size = parsers.size(); i < size; i++) {
+      ImageHeaderParser parser = parsers.get(i);
+      if (parser instanceof ImageMetadataParser) {
+        ImageMetadata metadata = reader.getMetadataAndRewind((ImageMetadataParser) parser);
+        if (type == ImageType.UNKNOWN) {
+          type = metadata.getType();
+        }
+        if (orientation == ImageHeaderParser.UNKNOWN_ORIENTATION) {
+          orientation = metadata.getOrientation();
+        }
+        if (withDimensions == null && metadata.hasDimensions()) {
+          withDimensions = metadata;
+        }
+      } else {
+        if (type == ImageType.UNKNOWN) {
+          type = reader.getTypeAndRewind(parser);
+        }
+        if (orientation == ImageHeaderParser.UNKNOWN_ORIENTATION) {
+          orientation = reader.getOrientationAndRewind(parser);
+        }
+      }
+    }
+
+    if (withDimensions == null) {
+      return new ImageMetadata(
+          type,
+          orientation,
+          ImageMetadata.UNKNOWN_DIMENSION,
+          ImageMetadata.UNKNOWN_DIMENSION,
+          /* isProgressive= */ false);
+    }
+    return new ImageMetadata(
+        type,
+        orientation,
+        withDimensions.getWidth(),
+        withDimensions.getHeight(),
+        withDimensions.isProgressive());
+  }
+
   private interface TypeReader {
     ImageType getTypeAndRewind(ImageHeaderParser parser) throws IOException;
   }
@@ -351,6 +526,13 @@ public final class ImageHeaderParserUtils {
     int getOrientationAndRewind(ImageHeaderParser parser) throws IOException;
   }
 
+  /** Reads each property of an image, with one pass over the header if the parser allows it. */
+  private interface MetadataReader extends TypeReader, OrientationReader {
+
+    /** Returns the metadata of the image, rewinding the data before returning. */
+    ImageMetadata getMetadataAndRewind(ImageMetadataParser parser) throws IOException;
+  }
+
   /** Reads JPEG multi-picture format (MPF) data. */
   private interface JpegMpfReader {
 
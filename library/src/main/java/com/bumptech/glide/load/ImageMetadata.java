@@ -0,0 +1,100 @@
+package com.bumptech.glide.load;
+
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+
+/**
+ * The properties of an image that can be read from its header without decoding it.
+ *
+ * <p>Obtained in a single pass over the header by an {@link ImageMetadataParser}, see {@link
+ * ImageHeaderParserUtils#getMetadata(java.util.List, java.io.InputStream,
+ * com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool)}.
+ */
+public final class ImageMetadata {
+  /** Indicates that the width or height of the image couldn't be read from its header. */
+  public static final int UNKNOWN_DIMENSION = -1;
+
+  /** Metadata for data that isn't a recognized image. */
+  public static final ImageMetadata UNKNOWN =
+      new ImageMetadata(
+          ImageType.UNKNOWN,
+          ImageHeaderParser.UNKNOWN_ORIENTATION,
+          UNKNOWN_DIMENSION,
+          UNKNOWN_DIMENSION,
+          /* isProgressive= */ false);
+
+  private final ImageType type;
+  private final int orientation;
+  private final int width;
+  private final int height;
+  private final boolean isProgressive;
+
+  public ImageMetadata(
+      @NonNull ImageType type, int orientation, int width, int height, boolean isProgressive) {
+    this.type = type;
+    this.orientation = orientation;
+    this.width = width;
+    this.height = height;
+    this.isProgressive = isProgressive;
+  }
+
+  @NonNull
+  public ImageType getType() {
+    return type;
+  }
+
+  /**
+   * Returns the exif orientation of the image, or {@link ImageHeaderParser#UNKNOWN_ORIENTATION} if
+   * the header doesn't contain one.
+   */
+  public int getOrientation() {
+    return orientation;
+  }
+
+  /**
+   * Returns the width of the image as it's stored, before any exif orientation is applied, or
+   * {@link #UNKNOWN_DIMENSION}.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the image as it's stored, before any exif orientation is applied, or
+   * {@link #UNKNOWN_DIMENSION}.
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /** Returns {@code true} if both the width and the height of the image are known. */
+  public boolean hasDimensions() {
+    return width > 0 && height > 0;
+  }
+
+  /** Returns whether the image may include transparent pixels, see {@link ImageType#hasAlpha()}. */
+  public boolean hasAlpha() {
+    return type.hasAlpha();
+  }
+
+  /** Returns {@code true} if the image is a progressive JPEG. */
+  public boolean isProgressive() {
+    return isProgressive;
+  }
+
+  @Override
+  public String toString() {
+    return "ImageMetadata{"
+        + "type="
+        + type
+        + ", orientation="
+        + orientation
+        + ", width="
+        + width
+        + ", height="
+        + height
+        + ", isProgressive="
+        + isProgressive
+        + '}';
+  }
+}
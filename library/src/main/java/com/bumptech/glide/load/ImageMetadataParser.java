@@ -0,0 +1,30 @@
+package com.bumptech.glide.load;
+
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link ImageHeaderParser} that can read all of an image's {@link ImageMetadata} in one pass
+ * over its header, rather than reading the header again for each property.
+ */
+public interface ImageMetadataParser extends ImageHeaderParser {
+
+  /**
+   * Returns the metadata of the image, or {@link ImageMetadata#UNKNOWN} if this parser doesn't
+   * recognize it.
+   */
+  @NonNull
+  ImageMetadata getMetadata(@NonNull InputStream is, @NonNull ArrayPool byteArrayPool)
+      throws IOException;
+
+  /**
+   * Returns the metadata of the image, or {@link ImageMetadata#UNKNOWN} if this parser doesn't
+   * recognize it.
+   */
+  @NonNull
+  ImageMetadata getMetadata(@NonNull ByteBuffer byteBuffer, @NonNull ArrayPool byteArrayPool)
+      throws IOException;
+}
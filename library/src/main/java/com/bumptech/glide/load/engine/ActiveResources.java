@@ -13,14 +13,16 @@ import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
 
 final class ActiveResources {
   private final boolean isActiveResourceRetentionAllowed;
+  private final boolean isConcurrent;
   private final Executor monitorClearedResourcesExecutor;
-  @VisibleForTesting final Map<Key, ResourceWeakReference> activeEngineResources = new HashMap<>();
+  @VisibleForTesting final Map<Key, ResourceWeakReference> activeEngineResources;
   private final ReferenceQueue<EngineResource<?>> resourceReferenceQueue = new ReferenceQueue<>();
 
   private ResourceListener listener;
@@ -29,8 +31,17 @@ final class ActiveResources {
   @Nullable private volatile DequeuedResourceCallback cb;
 
   ActiveResources(boolean isActiveResourceRetentionAllowed) {
+    this(isActiveResourceRetentionAllowed, /* isConcurrent= */ false);
+  }
+
+  /**
+   * @param isConcurrent If {@code true}, {@link #get(Key)} reads from a concurrent map without
+   *     locking. Writes are still serialized.
+   */
+  ActiveResources(boolean isActiveResourceRetentionAllowed, boolean isConcurrent) {
     this(
         isActiveResourceRetentionAllowed,
+        isConcurrent,
         java.util.concurrent.Executors.newSingleThreadExecutor(
             new ThreadFactory() {
               @Override
@@ -51,7 +62,23 @@ final class ActiveResources {
   @VisibleForTesting
   ActiveResources(
       boolean isActiveResourceRetentionAllowed, Executor monitorClearedResourcesExecutor) {
+    this(
+        isActiveResourceRetentionAllowed,
+        /* isConcurrent= */ false,
+        monitorClearedResourcesExecutor);
+  }
+
+  @VisibleForTesting
+  ActiveResources(
+      boolean isActiveResourceRetentionAllowed,
+      boolean isConcurrent,
+      Executor monitorClearedResourcesExecutor) {
     this.isActiveResourceRetentionAllowed = isActiveResourceRetentionAllowed;
+    this.isConcurrent = isConcurrent;
+    this.activeEngineResources =
+        isConcurrent
+            ? new ConcurrentHashMap<Key, ResourceWeakReference>()
+            : new HashMap<Key, ResourceWeakReference>();
     this.monitorClearedResourcesExecutor = monitorClearedResourcesExecutor;
 
     monitorClearedResourcesExecutor.execute(
@@ -90,8 +117,17 @@ final class ActiveResources {
   }
 
   @Nullable
-  synchronized EngineResource<?> get(Key key) {
-    ResourceWeakReference activeRef = activeEngineResources.get(key);
+  EngineResource<?> get(Key key) {
+    if (isConcurrent) {
+      return getFromReference(activeEngineResources.get(key));
+    }
+    synchronized (this) {
+      return getFromReference(activeEngineResources.get(key));
+    }
+  }
+
+  @Nullable
+  private EngineResource<?> getFromReference(@Nullable ResourceWeakReference activeRef) {
     if (activeRef == null) {
       return null;
     }
@@ -107,7 +143,11 @@ final class ActiveResources {
   @Synthetic
   void cleanupActiveReference(@NonNull ResourceWeakReference ref) {
     synchronized (this) {
-      activeEngineResources.remove(ref.key);
+      // Concurrent lookups don't hold this lock, so the reference may already have been replaced by
+      // the time we get here. Replaced references are reset, so they're ignored below.
+      if (!isConcurrent || activeEngineResources.get(ref.key) == ref) {
+        activeEngineResources.remove(ref.key);
+      }
 
       if (!ref.isCacheable || ref.resource == null) {
         return;
@@ -1,9 +1,12 @@
 package com.bumptech.glide.load.engine;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.ImageMetadata;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import com.bumptech.glide.util.pool.GlideTrace;
@@ -19,6 +22,7 @@ class DataCacheGenerator implements DataFetcherGenerator, DataFetcher.DataCallba
   private final List<Key> cacheKeys;
   private final DecodeHelper<?> helper;
   private final FetcherReadyCallback cb;
+  private final boolean isReadingWrittenData;
 
   private int sourceIdIndex = -1;
   private Key sourceKey;
@@ -31,16 +35,29 @@ class DataCacheGenerator implements DataFetcherGenerator, DataFetcher.DataCallba
   @SuppressWarnings("PMD.SingularField")
   private File cacheFile;
 
+  // Metadata persisted alongside cacheFile, if any.
+  @Nullable private ImageMetadata cacheFileMetadata;
+
   DataCacheGenerator(DecodeHelper<?> helper, FetcherReadyCallback cb) {
-    this(helper.getCacheKeys(), helper, cb);
+    this(helper.getCacheKeys(), helper, cb, /* isReadingWrittenData= */ false);
   }
 
   // In some cases we may want to load a specific cache key (when loading from source written to
-  // cache), so we accept a list of keys rather than just obtain the list from the helper.
+  // cache), so we accept a list of keys rather than just obtain the list from the helper. The data
+  // was just written, so reading it isn't counted as a lookup.
   DataCacheGenerator(List<Key> cacheKeys, DecodeHelper<?> helper, FetcherReadyCallback cb) {
+    this(cacheKeys, helper, cb, /* isReadingWrittenData= */ true);
+  }
+
+  private DataCacheGenerator(
+      List<Key> cacheKeys,
+      DecodeHelper<?> helper,
+      FetcherReadyCallback cb,
+      boolean isReadingWrittenData) {
     this.cacheKeys = cacheKeys;
     this.helper = helper;
     this.cb = cb;
+    this.isReadingWrittenData = isReadingWrittenData;
   }
 
   @Override
@@ -57,10 +74,23 @@ class DataCacheGenerator implements DataFetcherGenerator, DataFetcher.DataCallba
         // PMD.AvoidInstantiatingObjectsInLoops The loop iterates a limited number of times
         // and the actions it performs are much more expensive than a single allocation.
         @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
-        Key originalKey = new DataCacheKey(sourceId, helper.getSignature());
-        cacheFile = helper.getDiskCache().get(originalKey);
+        DataCacheKey originalKey = new DataCacheKey(sourceId, helper.getSignature());
+        DiskCache diskCache = helper.getDiskCache();
+        cacheFile = isReadingWrittenData ? diskCache.peek(originalKey) : diskCache.get(originalKey);
         if (cacheFile != null) {
           this.sourceKey = sourceId;
+          cacheFileMetadata =
+              helper.isPersistImageMetadataEnabled()
+                  ? DataCacheImageMetadata.read(diskCache, originalKey, cacheFile)
+                  : null;
+          if (cacheFileMetadata != null
+              && !cacheFileMetadata.isProgressive()
+              && helper.isProgressivePreview()) {
+            // The preview would fail to decode, from this file or from source, so load neither.
+            helper.setKnownNotProgressive();
+            cacheFile = null;
+            continue;
+          }
           modelLoaders = helper.getModelLoaders(cacheFile);
           modelLoaderIndex = 0;
         }
@@ -98,6 +128,7 @@ class DataCacheGenerator implements DataFetcherGenerator, DataFetcher.DataCallba
 
   @Override
   public void onDataReady(Object data) {
+    helper.setDataCacheImageMetadata(data, cacheFileMetadata);
     cb.onDataFetcherReady(sourceKey, data, loadData.fetcher, DataSource.DATA_DISK_CACHE, sourceKey);
   }
 
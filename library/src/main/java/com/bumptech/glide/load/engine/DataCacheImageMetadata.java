@@ -0,0 +1,196 @@
+package com.bumptech.glide.load.engine;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.ImageHeaderParserUtils;
+import com.bumptech.glide.load.ImageMetadata;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskCacheAdmissionFilter;
+import com.bumptech.glide.load.resource.bitmap.RecyclableBufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Reads and writes a small record of {@link ImageMetadata} stored in the disk cache alongside each
+ * entry of original source data, so that decodes of cached data don't need to read the image
+ * header again.
+ *
+ * <p>Records are stored under their own key and may be evicted independently of the data they
+ * describe. Each record includes the size of the data it was written for and is ignored if the
+ * size of the cached data doesn't match.
+ */
+final class DataCacheImageMetadata {
+  private static final String TAG = "DataCacheMetadata";
+  private static final int VERSION = 1;
+
+  private DataCacheImageMetadata() {}
+
+  /**
+   * Returns the metadata of the image in the given file, or {@code null} if the file isn't an image
+   * that any of {@code parsers} recognizes.
+   */
+  @Nullable
+  static ImageMetadata parse(File file, List<ImageHeaderParser> parsers, ArrayPool arrayPool) {
+    RecyclableBufferedInputStream is = null;
+    try {
+      is = new RecyclableBufferedInputStream(new FileInputStream(file), arrayPool);
+      ImageMetadata result = ImageHeaderParserUtils.getMetadata(parsers, is, arrayPool);
+      return result.getType() != ImageType.UNKNOWN ? result : null;
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to parse metadata from: " + file, e);
+      }
+      return null;
+    } finally {
+      if (is != null) {
+        try {
+          is.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the metadata of the data cached under {@code dataKey}, which is {@code size} bytes.
+   *
+   * <p>Must only be called once the data is in the disk cache, because the write bypasses any
+   * {@link DiskCacheAdmissionFilter} so that the metadata is kept whenever its data is.
+   */
+  static void write(
+      DiskCache diskCache, DataCacheKey dataKey, final ImageMetadata metadata, final long size) {
+    diskCache.put(
+        new MetadataKey(dataKey),
+        new DiskCacheAdmissionFilter.DependentWriter() {
+          @Override
+          public boolean write(@NonNull File file) {
+            OutputStream os = null;
+            try {
+              os = new FileOutputStream(file);
+              DataOutputStream out = new DataOutputStream(os);
+              out.writeInt(VERSION);
+              out.writeUTF(metadata.getType().name());
+              out.writeInt(metadata.getOrientation());
+              out.writeInt(metadata.getWidth());
+              out.writeInt(metadata.getHeight());
+              out.writeBoolean(metadata.isProgressive());
+              out.writeLong(size);
+              out.flush();
+              return true;
+            } catch (IOException e) {
+              if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "Failed to write metadata", e);
+              }
+              return false;
+            } finally {
+              if (os != null) {
+                try {
+                  os.close();
+                } catch (IOException e) {
+                  // Ignored.
+                }
+              }
+            }
+          }
+        });
+  }
+
+  /**
+   * Returns the metadata written for the data cached under {@code dataKey} in {@code dataFile}, or
+   * {@code null} if there isn't any or it doesn't match the data.
+   *
+   * <p>The record is read with {@link DiskCache#peek(Key)} because looking up the data already
+   * counted as the request, so reading the record mustn't count as a second lookup.
+   */
+  @Nullable
+  static ImageMetadata read(DiskCache diskCache, DataCacheKey dataKey, File dataFile) {
+    File file = diskCache.peek(new MetadataKey(dataKey));
+    if (file == null) {
+      return null;
+    }
+    InputStream is = null;
+    try {
+      is = new FileInputStream(file);
+      DataInputStream in = new DataInputStream(is);
+      if (in.readInt() != VERSION) {
+        return null;
+      }
+      ImageType type = ImageType.valueOf(in.readUTF());
+      int orientation = in.readInt();
+      int width = in.readInt();
+      int height = in.readInt();
+      boolean isProgressive = in.readBoolean();
+      long size = in.readLong();
+      if (size != dataFile.length()) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Ignoring metadata for different data, key: " + dataKey);
+        }
+        return null;
+      }
+      return new ImageMetadata(type, orientation, width, height, isProgressive);
+    } catch (IOException | IllegalArgumentException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to read metadata for key: " + dataKey, e);
+      }
+      return null;
+    } finally {
+      if (is != null) {
+        try {
+          is.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+      }
+    }
+  }
+
+  /** The key of the metadata record for the data cached under a {@link DataCacheKey}. */
+  private static final class MetadataKey implements Key {
+    private static final byte[] SUFFIX = "ImageMetadata".getBytes(CHARSET);
+
+    private final DataCacheKey dataKey;
+
+    MetadataKey(DataCacheKey dataKey) {
+      this.dataKey = dataKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof MetadataKey) {
+        MetadataKey other = (MetadataKey) o;
+        return dataKey.equals(other.dataKey);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * dataKey.hashCode() + 1;
+    }
+
+    @Override
+    public String toString() {
+      return "MetadataKey{" + "dataKey=" + dataKey + '}';
+    }
+
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      dataKey.updateDiskCacheKey(messageDigest);
+      messageDigest.update(SUFFIX);
+    }
+  }
+}
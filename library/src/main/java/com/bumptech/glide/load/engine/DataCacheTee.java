@@ -0,0 +1,348 @@
+package com.bumptech.glide.load.engine;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageMetadata;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.model.StreamEncoder;
+import com.bumptech.glide.util.LogTime;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Copies an {@link InputStream} loaded from source to a temporary file as it's decoded, and then
+ * moves the file into the disk cache, so that source data is written to the disk cache without
+ * being read back from disk before it's decoded.
+ *
+ * <p>Decoders often stop reading before the end of their data, so the rest of the data is read and
+ * copied when this tee is run after decoding, which must happen before the fetcher that loaded the
+ * stream is cleaned up. The data is only written to the disk cache if it was read to the end
+ * without errors and the load wasn't cancelled.
+ *
+ * <p>If image header parsers are provided, the {@link ImageMetadata} of the data is also written
+ * to the disk cache, see {@link DataCacheImageMetadata}.
+ */
+final class DataCacheTee implements Runnable {
+  private static final String TAG = "DataCacheTee";
+  private static final String TEMP_DIRECTORY_NAME = "glide_source_tee";
+
+  // Temporary directories that have been cleared of files left behind by previous processes.
+  private static final Set<File> PREPARED_TEMP_DIRECTORIES = new HashSet<>();
+
+  private final TeeInputStream stream;
+  private final File tempFile;
+  private final DiskCache diskCache;
+  private final DataCacheKey key;
+  private final ArrayPool arrayPool;
+  private final Options options;
+  @Nullable private final List<ImageHeaderParser> metadataParsers;
+  private volatile boolean isCancelled;
+  private boolean isFinished;
+
+  private DataCacheTee(
+      TeeInputStream stream,
+      File tempFile,
+      DiskCache diskCache,
+      DataCacheKey key,
+      ArrayPool arrayPool,
+      Options options,
+      @Nullable List<ImageHeaderParser> metadataParsers) {
+    this.stream = stream;
+    this.tempFile = tempFile;
+    this.diskCache = diskCache;
+    this.key = key;
+    this.arrayPool = arrayPool;
+    this.options = options;
+    this.metadataParsers = metadataParsers;
+  }
+
+  /**
+   * Starts copying the given stream to a temporary file in the given directory.
+   *
+   * @param key The key to write the data to in {@code diskCache}.
+   * @param metadataParsers The parsers used to read the metadata written alongside the data, or
+   *     {@code null} to write only the data.
+   * @throws IOException If the temporary file couldn't be created.
+   */
+  static DataCacheTee start(
+      InputStream source,
+      File cacheDir,
+      DiskCache diskCache,
+      DataCacheKey key,
+      ArrayPool arrayPool,
+      Options options,
+      @Nullable List<ImageHeaderParser> metadataParsers)
+      throws IOException {
+    File tempDirectory = prepareTempDirectory(cacheDir);
+    File tempFile = File.createTempFile("source", null, tempDirectory);
+    OutputStream copy;
+    try {
+      copy = new FileOutputStream(tempFile);
+    } catch (IOException e) {
+      if (!tempFile.delete() && Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to delete: " + tempFile);
+      }
+      throw e;
+    }
+    return new DataCacheTee(
+        new TeeInputStream(source, copy, arrayPool),
+        tempFile,
+        diskCache,
+        key,
+        arrayPool,
+        options,
+        metadataParsers);
+  }
+
+  /**
+   * Returns the temporary directory in the given cache directory, creating it if necessary.
+   *
+   * <p>Temporary files are normally deleted when their tee is run, but files left behind if the
+   * process died while decoding are only deleted here, the first time the directory is used in
+   * each process.
+   */
+  private static synchronized File prepareTempDirectory(File cacheDir) throws IOException {
+    File tempDirectory = new File(cacheDir, TEMP_DIRECTORY_NAME);
+    if (PREPARED_TEMP_DIRECTORIES.add(tempDirectory)) {
+      File[] staleFiles = tempDirectory.listFiles();
+      if (staleFiles != null) {
+        for (File staleFile : staleFiles) {
+          if (!staleFile.delete() && Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Failed to delete: " + staleFile);
+          }
+        }
+      }
+    }
+    if (!tempDirectory.isDirectory() && !tempDirectory.mkdirs()) {
+      throw new IOException("Failed to create directory: " + tempDirectory);
+    }
+    return tempDirectory;
+  }
+
+  /** Returns the stream to decode, which copies everything that's read from it. */
+  InputStream getStream() {
+    return stream;
+  }
+
+  /**
+   * Reads and copies the rest of the stream, unless the load was cancelled, and writes the copy to
+   * the disk cache if it's complete.
+   *
+   * <p>Must be called once the stream has been decoded, before the fetcher that loaded it is
+   * cleaned up. Calls after the first are ignored.
+   */
+  @Override
+  public void run() {
+    synchronized (this) {
+      if (isFinished) {
+        return;
+      }
+      isFinished = true;
+    }
+    long startTime = LogTime.getLogTime();
+    byte[] buffer = arrayPool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class);
+    try {
+      if (stream.finish(buffer, /* isDrainRequired= */ !isCancelled)) {
+        // Read the metadata before the temporary file is moved into the disk cache.
+        ImageMetadata metadata =
+            metadataParsers != null
+                ? DataCacheImageMetadata.parse(tempFile, metadataParsers, arrayPool)
+                : null;
+        long size = tempFile.length();
+        diskCache.put(key, new TempFileWriter());
+        if (metadata != null && diskCache.peek(key) != null) {
+          DataCacheImageMetadata.write(diskCache, key, metadata, size);
+        }
+        if (Log.isLoggable(TAG, Log.VERBOSE)) {
+          Log.v(
+              TAG,
+              "Finished writing source to cache"
+                  + ", key: "
+                  + key
+                  + ", duration: "
+                  + LogTime.getElapsedMillis(startTime));
+        }
+      } else if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Source wasn't read completely, not caching: " + key);
+      }
+    } finally {
+      arrayPool.put(buffer);
+      if (tempFile.exists() && !tempFile.delete() && Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to delete: " + tempFile);
+      }
+    }
+  }
+
+  /** Prevents the data from being written to the disk cache, without reading the rest of it. */
+  void cancel() {
+    isCancelled = true;
+  }
+
+  /** Moves the finished temporary file into the disk cache, or copies it if it can't be moved. */
+  private final class TempFileWriter implements DiskCache.Writer {
+
+    @Override
+    public boolean write(@NonNull File file) {
+      if (tempFile.renameTo(file)) {
+        return true;
+      }
+      // The disk cache may be on a different file system.
+      InputStream is = null;
+      try {
+        is = new FileInputStream(tempFile);
+        return new StreamEncoder(arrayPool).encode(is, file, options);
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Failed to copy: " + tempFile + " to: " + file, e);
+        }
+        return false;
+      } finally {
+        if (is != null) {
+          try {
+            is.close();
+          } catch (IOException e) {
+            // Ignored.
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes every byte read from a source stream to a copy exactly once.
+   *
+   * <p>Doesn't support mark and reset, decoders that need them wrap this stream in a buffered
+   * stream. Closing this stream doesn't close the source, which is owned by the fetcher.
+   */
+  private static final class TeeInputStream extends InputStream {
+    private final InputStream source;
+    private final OutputStream copy;
+    private final ArrayPool arrayPool;
+    private boolean isSourceExhausted;
+    private boolean isSourceFailed;
+    private boolean isCopyFailed;
+
+    TeeInputStream(InputStream source, OutputStream copy, ArrayPool arrayPool) {
+      this.source = source;
+      this.copy = copy;
+      this.arrayPool = arrayPool;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int result;
+      try {
+        result = source.read();
+      } catch (IOException e) {
+        isSourceFailed = true;
+        throw e;
+      }
+      if (result == -1) {
+        isSourceExhausted = true;
+      } else if (!isCopyFailed) {
+        try {
+          copy.write(result);
+        } catch (IOException e) {
+          onCopyFailed(e);
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+      int result;
+      try {
+        result = source.read(buffer, offset, length);
+      } catch (IOException e) {
+        isSourceFailed = true;
+        throw e;
+      }
+      if (result == -1) {
+        isSourceExhausted = true;
+      } else if (result > 0 && !isCopyFailed) {
+        try {
+          copy.write(buffer, offset, result);
+        } catch (IOException e) {
+          onCopyFailed(e);
+        }
+      }
+      return result;
+    }
+
+    // Skipped bytes still need to be copied, so read them instead.
+    @Override
+    public long skip(long byteCount) throws IOException {
+      if (byteCount <= 0) {
+        return 0;
+      }
+      byte[] buffer = arrayPool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class);
+      try {
+        long skipped = 0;
+        while (skipped < byteCount) {
+          int read = read(buffer, 0, (int) Math.min(byteCount - skipped, buffer.length));
+          if (read == -1) {
+            break;
+          }
+          skipped += read;
+        }
+        return skipped;
+      } finally {
+        arrayPool.put(buffer);
+      }
+    }
+
+    @Override
+    public int available() throws IOException {
+      return source.available();
+    }
+
+    @Override
+    public void close() {
+      // The source is closed when the fetcher is cleaned up.
+    }
+
+    private void onCopyFailed(IOException e) {
+      isCopyFailed = true;
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to copy source data, continuing without caching", e);
+      }
+    }
+
+    /**
+     * Optionally reads and copies the rest of the source, then closes the copy.
+     *
+     * @return {@code true} if the copy contains all of the source data.
+     */
+    boolean finish(byte[] buffer, boolean isDrainRequired) {
+      if (isDrainRequired && !isSourceFailed && !isCopyFailed) {
+        try {
+          while (read(buffer, 0, buffer.length) != -1) {
+            // Keep reading.
+          }
+        } catch (IOException e) {
+          if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Failed to read the rest of the source", e);
+          }
+        }
+      }
+      try {
+        copy.close();
+      } catch (IOException e) {
+        onCopyFailed(e);
+      }
+      return isSourceExhausted && !isSourceFailed && !isCopyFailed;
+    }
+  }
+}
@@ -3,7 +3,7 @@ package com.bumptech.glide.load.engine;
 import androidx.annotation.NonNull;
 import com.bumptech.glide.load.Encoder;
 import com.bumptech.glide.load.Options;
-import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskCacheAdmissionFilter;
 import java.io.File;
 
 /**
@@ -14,19 +14,34 @@ import java.io.File;
  * @param <DataType> The type of data that will be encoded (InputStream, ByteBuffer,
  *     Resource<Bitmap> etc).
  */
-class DataCacheWriter<DataType> implements DiskCache.Writer {
+class DataCacheWriter<DataType> implements DiskCacheAdmissionFilter.CostAwareWriter {
   private final Encoder<DataType> encoder;
   private final DataType data;
   private final Options options;
+  private final long costMillis;
 
   DataCacheWriter(Encoder<DataType> encoder, DataType data, Options options) {
+    this(encoder, data, options, /* costMillis= */ 0);
+  }
+
+  /**
+   * @param costMillis How long it took to produce {@code data}, which may be used to decide
+   *     whether it's worth caching.
+   */
+  DataCacheWriter(Encoder<DataType> encoder, DataType data, Options options, long costMillis) {
     this.encoder = encoder;
     this.data = data;
     this.options = options;
+    this.costMillis = costMillis;
   }
 
   @Override
   public boolean write(@NonNull File file) {
     return encoder.encode(data, file, options);
   }
+
+  @Override
+  public long getCostMillis() {
+    return costMillis;
+  }
 }
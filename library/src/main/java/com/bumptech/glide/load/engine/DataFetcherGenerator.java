@@ -28,12 +28,34 @@ interface DataFetcherGenerator {
      * @param dataSource The data source we were loading from.
      * @param attemptedKey The key we were loading data from (may be an alternate).
      */
+    default void onDataFetcherReady(
+        Key sourceKey,
+        @Nullable Object data,
+        DataFetcher<?> fetcher,
+        DataSource dataSource,
+        Key attemptedKey) {
+      onDataFetcherReady(
+          sourceKey, data, fetcher, dataSource, attemptedKey, /* cleanupHook= */ null);
+    }
+
+    /**
+     * Notifies the callback that the load is complete.
+     *
+     * @param sourceKey The id of the loaded data.
+     * @param data The loaded data, or null if the load failed.
+     * @param fetcher The data fetcher we attempted to load from.
+     * @param dataSource The data source we were loading from.
+     * @param attemptedKey The key we were loading data from (may be an alternate).
+     * @param cleanupHook Run once the data is no longer needed, just before {@code fetcher} is
+     *     cleaned up, or {@code null}.
+     */
     void onDataFetcherReady(
         Key sourceKey,
         @Nullable Object data,
         DataFetcher<?> fetcher,
         DataSource dataSource,
-        Key attemptedKey);
+        Key attemptedKey,
+        @Nullable Runnable cleanupHook);
 
     /**
      * Notifies the callback when the load fails.
@@ -1,9 +1,14 @@
 package com.bumptech.glide.load.engine;
 
+import android.graphics.Bitmap;
+import com.bumptech.glide.GlideBuilder.PersistDataCacheImageMetadata;
+import com.bumptech.glide.GlideBuilder.WriteSourceToDiskCacheWhileDecoding;
 import com.bumptech.glide.GlideContext;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.Registry;
 import com.bumptech.glide.load.Encoder;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageMetadata;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.ResourceEncoder;
@@ -15,6 +20,9 @@ import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import com.bumptech.glide.load.resource.UnitTransformation;
+import com.bumptech.glide.load.resource.bitmap.CenterCrop;
+import com.bumptech.glide.load.resource.bitmap.Downsampler;
+import com.bumptech.glide.util.Synthetic;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
@@ -42,6 +50,8 @@ final class DecodeHelper<Transcode> {
   private DiskCacheStrategy diskCacheStrategy;
   private boolean isTransformationRequired;
   private boolean isScaleOnlyOrNoTransform;
+  @Nullable private volatile DataCacheImageMetadataHolder dataCacheImageMetadata;
+  private volatile boolean isKnownNotProgressive;
 
   @SuppressWarnings("unchecked")
   <R> void init(
@@ -90,12 +100,63 @@ final class DecodeHelper<Transcode> {
     isLoadDataSet = false;
     cacheKeys.clear();
     isCacheKeysSet = false;
+    dataCacheImageMetadata = null;
+    isKnownNotProgressive = false;
   }
 
   DiskCache getDiskCache() {
     return diskCacheProvider.getDiskCache();
   }
 
+  File getCacheDir() {
+    return glideContext.getCacheDir();
+  }
+
+  boolean isWriteSourceWhileDecodingEnabled() {
+    return glideContext.getExperiments().isEnabled(WriteSourceToDiskCacheWhileDecoding.class);
+  }
+
+  boolean isPersistImageMetadataEnabled() {
+    return glideContext.getExperiments().isEnabled(PersistDataCacheImageMetadata.class);
+  }
+
+  List<ImageHeaderParser> getImageHeaderParsers() {
+    return glideContext.getRegistry().getImageHeaderParsers();
+  }
+
+  /**
+   * Returns the metadata persisted in the disk cache for the given data, or {@code null} if the
+   * data wasn't retrieved from the disk cache or has no metadata.
+   */
+  @Nullable
+  ImageMetadata getDataCacheImageMetadata(Object data) {
+    DataCacheImageMetadataHolder local = dataCacheImageMetadata;
+    // Compare references so that metadata is never applied to data from some other fetcher.
+    return local != null && local.data == data ? local.metadata : null;
+  }
+
+  void setDataCacheImageMetadata(Object data, @Nullable ImageMetadata metadata) {
+    dataCacheImageMetadata =
+        metadata != null ? new DataCacheImageMetadataHolder(data, metadata) : null;
+  }
+
+  /** Returns {@code true} if this load only decodes a preview of a progressive JPEG. */
+  boolean isProgressivePreview() {
+    return options.get(Downsampler.PROGRESSIVE_PREVIEW_BYTES) != null;
+  }
+
+  /**
+   * Returns {@code true} if metadata persisted in the disk cache showed that the image isn't
+   * progressive, so a progressive preview can't be loaded from any source.
+   */
+  boolean isKnownNotProgressive() {
+    return isKnownNotProgressive;
+  }
+
+  void setKnownNotProgressive() {
+    isKnownNotProgressive = true;
+  }
+
   DiskCacheStrategy getDiskCacheStrategy() {
     return diskCacheStrategy;
   }
@@ -108,6 +169,10 @@ final class DecodeHelper<Transcode> {
     return priority;
   }
 
+  void setPriority(Priority priority) {
+    this.priority = priority;
+  }
+
   Options getOptions() {
     return options;
   }
@@ -154,6 +219,17 @@ final class DecodeHelper<Transcode> {
     return isScaleOnlyOrNoTransform;
   }
 
+  /**
+   * Returns {@code true} if decoded {@link Bitmap}s are only transformed by {@link CenterCrop}.
+   *
+   * <p>Subclasses of {@link CenterCrop} may transform the cropped region differently, so only
+   * {@link CenterCrop} itself matches.
+   */
+  boolean isCenterCropOnly() {
+    Transformation<?> transformation = transformations.get(Bitmap.class);
+    return transformation != null && transformation.getClass() == CenterCrop.class;
+  }
+
   @SuppressWarnings("unchecked")
   <Z> Transformation<Z> getTransformation(Class<Z> resourceClass) {
     Transformation<Z> result = (Transformation<Z>) transformations.get(resourceClass);
@@ -246,4 +322,14 @@ final class DecodeHelper<Transcode> {
   <X> Encoder<X> getSourceEncoder(X data) throws Registry.NoSourceEncoderAvailableException {
     return glideContext.getRegistry().getSourceEncoder(data);
   }
+
+  private static final class DataCacheImageMetadataHolder {
+    @Synthetic final Object data;
+    @Synthetic final ImageMetadata metadata;
+
+    DataCacheImageMetadataHolder(Object data, ImageMetadata metadata) {
+      this.data = data;
+      this.metadata = metadata;
+    }
+  }
 }
@@ -8,13 +8,17 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.util.Pools;
+import com.bumptech.glide.GlideBuilder.DecodeCenterCropRegion;
 import com.bumptech.glide.GlideBuilder.OverrideGlideThreadPriority;
+import com.bumptech.glide.GlideBuilder.RaceDiskCacheWithSource;
 import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.GlideEventListener;
 import com.bumptech.glide.GlideExperiments;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.Registry;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.EncodeStrategy;
+import com.bumptech.glide.load.ImageMetadata;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Option;
 import com.bumptech.glide.load.Options;
@@ -44,11 +48,8 @@ import java.util.function.Supplier;
  * @param <R> The type of resource that will be transcoded from the decoded and transformed
  *     resource.
  */
-class DecodeJob<R>
-    implements DataFetcherGenerator.FetcherReadyCallback,
-        Runnable,
-        Comparable<DecodeJob<?>>,
-        Poolable {
+class DecodeJob<R> extends PrioritizedRunnable
+    implements DataFetcherGenerator.FetcherReadyCallback, GlideExecutor.DeadlineTask, Poolable {
   private static final String TAG = "DecodeJob";
 
   /**
@@ -89,10 +90,15 @@ class DecodeJob<R>
   private Stage stage;
   private RunReason runReason;
   private long startFetchTime;
+  private long deadlineNanos;
   private boolean onlyRetrieveFromCache;
   private Object model;
   private GlideExperiments experiments;
   @Nullable private Supplier<Integer> glideThreadPriorityOverride;
+  @Nullable private GlideEventListener eventListener;
+  private long queuedTime;
+  @Nullable private GlideEventListener.Stage generatorEventStage;
+  private long generatorStartTime;
 
   private Thread currentThread;
   private Key currentSourceKey;
@@ -100,6 +106,7 @@ class DecodeJob<R>
   private Object currentData;
   private DataSource currentDataSource;
   private DataFetcher<?> currentFetcher;
+  @Nullable private Runnable currentCleanupHook;
 
   private volatile DataFetcherGenerator currentGenerator;
   private volatile boolean isCallbackNotified;
@@ -159,16 +166,29 @@ class DecodeJob<R>
     this.model = model;
     this.experiments = glideContext.getExperiments();
     this.glideThreadPriorityOverride = options.get(GLIDE_THREAD_PRIORITY_OVERRIDE);
+    this.deadlineNanos = GlideExecutor.NO_DEADLINE;
+    this.eventListener = glideContext.getEventListener();
+    this.queuedTime = startStage(GlideEventListener.Stage.EXECUTOR_QUEUE);
     return this;
   }
 
+  /**
+   * Returns {@code true} if this job has been rescheduled to decode data it has already retrieved,
+   * rather than to retrieve data.
+   */
+  boolean isDecodingRetrievedData() {
+    return runReason == RunReason.DECODE_DATA;
+  }
+
   /**
    * Returns true if this job will attempt to decode a resource from the disk cache, and false if it
    * will always decode from source.
    */
   boolean willDecodeFromCache() {
     Stage firstStage = getNextStage(Stage.INITIALIZE);
-    return firstStage == Stage.RESOURCE_CACHE || firstStage == Stage.DATA_CACHE;
+    return firstStage == Stage.RESOURCE_CACHE
+        || firstStage == Stage.DATA_CACHE
+        || firstStage == Stage.RACE;
   }
 
   /**
@@ -218,22 +238,19 @@ class DecodeJob<R>
     currentData = null;
     currentDataSource = null;
     currentFetcher = null;
+    currentCleanupHook = null;
     startFetchTime = 0L;
+    deadlineNanos = 0L;
     isCancelled = false;
     model = null;
+    eventListener = null;
+    queuedTime = 0L;
+    generatorEventStage = null;
+    generatorStartTime = 0L;
     throwables.clear();
     pool.release(this);
   }
 
-  @Override
-  public int compareTo(@NonNull DecodeJob<?> other) {
-    int result = priority.compareTo(other.priority);
-    if (result == 0) {
-      result = order - other.order;
-    }
-    return result;
-  }
-
   public void cancel() {
     isCancelled = true;
     DataFetcherGenerator local = currentGenerator;
@@ -250,9 +267,11 @@ class DecodeJob<R>
     // swallows all otherwise fatal exceptions, this will at least make it obvious to developers
     // that something is failing.
     GlideTrace.beginSectionFormat("DecodeJob#run(reason=%s, model=%s)", runReason, model);
+    finishStage(GlideEventListener.Stage.EXECUTOR_QUEUE, queuedTime);
     // Methods in the try statement can invalidate currentFetcher, so set a local variable here to
     // ensure that the fetcher is cleaned up either way.
     DataFetcher<?> localFetcher = currentFetcher;
+    Runnable localCleanupHook = currentCleanupHook;
     try {
       if (isCancelled) {
         notifyFailed();
@@ -289,7 +308,7 @@ class DecodeJob<R>
       // Keeping track of the fetcher here and calling cleanup is excessively paranoid, we call
       // close in all cases anyway.
       if (localFetcher != null) {
-        localFetcher.cleanup();
+        cleanup(localFetcher, localCleanupHook);
       }
       GlideTrace.endSection();
     }
@@ -321,6 +340,9 @@ class DecodeJob<R>
         return new DataCacheGenerator(decodeHelper, this);
       case SOURCE:
         return new SourceGenerator(decodeHelper, this);
+      case RACE:
+        return new RacingGenerator(
+            decodeHelper, this, callback.getSourceFetchExecutor(), order, model, eventListener);
       case FINISHED:
         return null;
       default:
@@ -334,7 +356,7 @@ class DecodeJob<R>
     boolean isStarted = false;
     while (!isCancelled
         && currentGenerator != null
-        && !(isStarted = currentGenerator.startNext())) {
+        && !(isStarted = startNextGenerator())) {
       stage = getNextStage(stage);
       currentGenerator = getNextGenerator();
 
@@ -345,6 +367,10 @@ class DecodeJob<R>
     }
     // We've run out of stages and generators, give up.
     if ((stage == Stage.FINISHED || isCancelled) && !isStarted) {
+      if (decodeHelper.isKnownNotProgressive()) {
+        throwables.add(
+            new GlideException("Skipped progressive preview of an image that isn't progressive"));
+      }
       notifyFailed();
     }
 
@@ -352,6 +378,99 @@ class DecodeJob<R>
     // onDataFetcherReady.
   }
 
+  private boolean startNextGenerator() {
+    if (eventListener != null) {
+      generatorEventStage = getEventStage(stage);
+      generatorStartTime = startStage(generatorEventStage);
+    }
+    boolean isStarted = currentGenerator.startNext();
+    if (!isStarted) {
+      finishGeneratorStage();
+    }
+    return isStarted;
+  }
+
+  // Generators may call us back before startNext returns, so this may be called more than once for
+  // a single attempt.
+  private void finishGeneratorStage() {
+    GlideEventListener.Stage eventStage = generatorEventStage;
+    if (eventStage != null) {
+      generatorEventStage = null;
+      finishStage(eventStage, generatorStartTime);
+    }
+  }
+
+  private static GlideEventListener.Stage getEventStage(Stage stage) {
+    switch (stage) {
+      case RESOURCE_CACHE:
+        return GlideEventListener.Stage.RESOURCE_CACHE;
+      case DATA_CACHE:
+        return GlideEventListener.Stage.DATA_CACHE;
+      case SOURCE:
+      case RACE:
+        // Racing takes as long as loading from source unless the disk cache hits.
+        return GlideEventListener.Stage.SOURCE;
+      default:
+        throw new IllegalArgumentException("Unrecognized generator stage: " + stage);
+    }
+  }
+
+  private long startStage(GlideEventListener.Stage eventStage) {
+    if (eventListener == null) {
+      return 0L;
+    }
+    eventListener.onStageStarted(model, eventStage);
+    return LogTime.getLogTime();
+  }
+
+  private void finishStage(GlideEventListener.Stage eventStage, long startTime) {
+    if (eventListener != null) {
+      eventListener.onStageFinished(model, eventStage, LogTime.getLogTime() - startTime);
+    }
+  }
+
+  @Override
+  public Priority getPriority() {
+    return priority;
+  }
+
+  @Override
+  int getOrder() {
+    return order;
+  }
+
+  /**
+   * Changes the deadline of this job, in {@link LogTime#getLogTime()} units.
+   *
+   * <p>This job must not be queued in an executor when this is called.
+   */
+  void setDeadlineNanos(long deadlineNanos) {
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  /**
+   * Changes the priority of this job, and of its speculative source load if that's still queued.
+   *
+   * <p>This job must not be queued in an executor when this is called.
+   */
+  void setPriority(Priority priority) {
+    this.priority = priority;
+    decodeHelper.setPriority(priority);
+    DataFetcherGenerator generator = currentGenerator;
+    if (generator instanceof RacingGenerator) {
+      ((RacingGenerator) generator).setPriority(priority);
+    }
+  }
+
+  @Nullable
+  GlideEventListener getEventListener() {
+    return eventListener;
+  }
+
+  Object getModel() {
+    return model;
+  }
+
   /**
    * Restores the OS priority of the Glide thread to the default thread priority of {@link
    * com.bumptech.glide.load.engine.executor.GlideExecutor}.
@@ -403,9 +522,25 @@ class DecodeJob<R>
     isCallbackNotified = true;
   }
 
+  @Override
+  public long getDeadlineNanos() {
+    return deadlineNanos;
+  }
+
+  boolean isPastDeadline() {
+    return isPastDeadline(deadlineNanos);
+  }
+
+  static boolean isPastDeadline(long deadlineNanos) {
+    return deadlineNanos != GlideExecutor.NO_DEADLINE && LogTime.getLogTime() > deadlineNanos;
+  }
+
   private Stage getNextStage(Stage current) {
     switch (current) {
       case INITIALIZE:
+        if (isRaceEnabled()) {
+          return Stage.RACE;
+        }
         return diskCacheStrategy.decodeCachedResource()
             ? Stage.RESOURCE_CACHE
             : getNextStage(Stage.RESOURCE_CACHE);
@@ -414,9 +549,13 @@ class DecodeJob<R>
             ? Stage.DATA_CACHE
             : getNextStage(Stage.DATA_CACHE);
       case DATA_CACHE:
-        // Skip loading from source if the user opted to only retrieve the resource from cache.
-        return onlyRetrieveFromCache ? Stage.FINISHED : Stage.SOURCE;
+        // Skip loading from source if the user opted to only retrieve the resource from cache, or
+        // if this is a progressive preview of an image the disk cache knows isn't progressive.
+        return onlyRetrieveFromCache || decodeHelper.isKnownNotProgressive()
+            ? Stage.FINISHED
+            : Stage.SOURCE;
       case SOURCE:
+      case RACE:
       case FINISHED:
         return Stage.FINISHED;
       default:
@@ -424,8 +563,18 @@ class DecodeJob<R>
     }
   }
 
+  private boolean isRaceEnabled() {
+    return experiments.isEnabled(RaceDiskCacheWithSource.class)
+        && (diskCacheStrategy.decodeCachedResource() || diskCacheStrategy.decodeCachedData())
+        && !onlyRetrieveFromCache
+        && !isPastDeadline()
+        // Racing would fetch the source before the disk cache could rule out a preview.
+        && !decodeHelper.isProgressivePreview();
+  }
+
   private void reschedule(RunReason runReason) {
     this.runReason = runReason;
+    queuedTime = startStage(GlideEventListener.Stage.EXECUTOR_QUEUE);
     callback.reschedule(this);
   }
 
@@ -433,20 +582,29 @@ class DecodeJob<R>
   // this class should call reschedule with a specific RunReason.
   @Override
   public void reschedule() {
+    finishGeneratorStage();
     reschedule(RunReason.SWITCH_TO_SOURCE_SERVICE);
   }
 
   @Override
   public void onDataFetcherReady(
-      Key sourceKey, Object data, DataFetcher<?> fetcher, DataSource dataSource, Key attemptedKey) {
+      Key sourceKey,
+      Object data,
+      DataFetcher<?> fetcher,
+      DataSource dataSource,
+      Key attemptedKey,
+      @Nullable Runnable cleanupHook) {
+    finishGeneratorStage();
     this.currentSourceKey = sourceKey;
     this.currentData = data;
     this.currentFetcher = fetcher;
+    this.currentCleanupHook = cleanupHook;
     this.currentDataSource = dataSource;
     this.currentAttemptingKey = attemptedKey;
     this.isLoadingFromAlternateCacheKey = sourceKey != decodeHelper.getCacheKeys().get(0);
 
-    if (Thread.currentThread() != currentThread) {
+    if (Thread.currentThread() != currentThread
+        || (stage == Stage.SOURCE && callback.shouldDecodeOnSeparateExecutor())) {
       reschedule(RunReason.DECODE_DATA);
     } else {
       GlideTrace.beginSection("DecodeJob.decodeFromRetrievedData");
@@ -461,6 +619,7 @@ class DecodeJob<R>
   @Override
   public void onDataFetcherFailed(
       Key attemptedKey, Exception e, DataFetcher<?> fetcher, DataSource dataSource) {
+    finishGeneratorStage();
     fetcher.cleanup();
     GlideException exception = new GlideException("Fetching data failed", e);
     exception.setLoggingDetails(attemptedKey, dataSource, fetcher.getDataClass());
@@ -499,41 +658,83 @@ class DecodeJob<R>
         }
       }
     }
+    // A cleanup hook may write the rest of the fetched data to the disk cache. That shouldn't delay
+    // the decoded resource or count towards the time spent decoding it, so if the decode succeeds
+    // the fetcher is only cleaned up once the resource has been delivered.
+    DataFetcher<?> fetcher = currentFetcher;
+    Runnable cleanupHook = currentCleanupHook;
+    boolean isCleanupDeferred = false;
     Resource<R> resource = null;
     try {
-      resource = decodeFromData(currentFetcher, currentData, currentDataSource);
-    } catch (GlideException e) {
-      e.setLoggingDetails(currentAttemptingKey, currentDataSource);
-      throwables.add(e);
+      long decodeStartTime = startStage(GlideEventListener.Stage.DECODE);
+      long decodeCostStartTime = LogTime.getLogTime();
+      try {
+        resource = decodeFromData(currentData, currentDataSource);
+      } catch (GlideException e) {
+        e.setLoggingDetails(currentAttemptingKey, currentDataSource);
+        throwables.add(e);
+      } finally {
+        finishStage(GlideEventListener.Stage.DECODE, decodeStartTime);
+      }
+      if (resource != null) {
+        // Includes transforming the resource, which is what's saved by caching it.
+        long costMillis = (long) LogTime.getElapsedMillis(decodeCostStartTime);
+        deferredEncodeManager.setCostMillis(costMillis);
+        isCleanupDeferred = cleanupHook != null;
+        notifyEncodeAndRelease(
+            resource,
+            currentDataSource,
+            isLoadingFromAlternateCacheKey,
+            isCleanupDeferred ? fetcher : null,
+            cleanupHook);
+      }
+    } finally {
+      if (!isCleanupDeferred) {
+        cleanup(fetcher, cleanupHook);
+      }
     }
-    if (resource != null) {
-      notifyEncodeAndRelease(resource, currentDataSource, isLoadingFromAlternateCacheKey);
-    } else {
+    if (resource == null) {
       runGenerators();
     }
   }
 
+  /**
+   * @param deferredCleanupFetcher A fetcher to clean up, along with {@code cleanupHook}, once the
+   *     resource has been delivered, or {@code null} if it has already been cleaned up.
+   */
   private void notifyEncodeAndRelease(
-      Resource<R> resource, DataSource dataSource, boolean isLoadedFromAlternateCacheKey) {
+      Resource<R> resource,
+      DataSource dataSource,
+      boolean isLoadedFromAlternateCacheKey,
+      @Nullable DataFetcher<?> deferredCleanupFetcher,
+      @Nullable Runnable cleanupHook) {
     GlideTrace.beginSection("DecodeJob.notifyEncodeAndRelease");
     try {
-      if (resource instanceof Initializable) {
-        ((Initializable) resource).initialize();
-      }
-
-      Resource<R> result = resource;
       LockedResource<R> lockedResource = null;
-      if (deferredEncodeManager.hasResourceToEncode()) {
-        lockedResource = LockedResource.obtain(resource);
-        result = lockedResource;
-      }
+      try {
+        if (resource instanceof Initializable) {
+          ((Initializable) resource).initialize();
+        }
 
-      notifyComplete(result, dataSource, isLoadedFromAlternateCacheKey);
+        Resource<R> result = resource;
+        if (deferredEncodeManager.hasResourceToEncode()) {
+          lockedResource = LockedResource.obtain(resource);
+          result = lockedResource;
+        }
+
+        notifyComplete(result, dataSource, isLoadedFromAlternateCacheKey);
+      } finally {
+        if (deferredCleanupFetcher != null) {
+          cleanup(deferredCleanupFetcher, cleanupHook);
+        }
+      }
 
       stage = Stage.ENCODE;
       try {
         if (deferredEncodeManager.hasResourceToEncode()) {
+          long encodeStartTime = startStage(GlideEventListener.Stage.ENCODE);
           deferredEncodeManager.encode(diskCacheProvider, options);
+          finishStage(GlideEventListener.Stage.ENCODE, encodeStartTime);
         }
       } finally {
         if (lockedResource != null) {
@@ -549,18 +750,25 @@ class DecodeJob<R>
     }
   }
 
-  private <Data> Resource<R> decodeFromData(
-      DataFetcher<?> fetcher, Data data, DataSource dataSource) throws GlideException {
+  @Nullable
+  private <Data> Resource<R> decodeFromData(@Nullable Data data, DataSource dataSource)
+      throws GlideException {
+    if (data == null) {
+      return null;
+    }
+    long startTime = LogTime.getLogTime();
+    Resource<R> result = decodeFromFetcher(data, dataSource);
+    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      logWithTimeAndKey("Decoded result " + result, startTime);
+    }
+    return result;
+  }
+
+  private static void cleanup(DataFetcher<?> fetcher, @Nullable Runnable cleanupHook) {
     try {
-      if (data == null) {
-        return null;
+      if (cleanupHook != null) {
+        cleanupHook.run();
       }
-      long startTime = LogTime.getLogTime();
-      Resource<R> result = decodeFromFetcher(data, dataSource);
-      if (Log.isLoggable(TAG, Log.VERBOSE)) {
-        logWithTimeAndKey("Decoded result " + result, startTime);
-      }
-      return result;
     } finally {
       fetcher.cleanup();
     }
@@ -599,10 +807,45 @@ class DecodeJob<R>
     return options;
   }
 
+  /**
+   * Returns options that include the metadata persisted in the disk cache for the given data, if
+   * it was retrieved from the disk cache and has any.
+   */
+  @NonNull
+  private Options getOptionsWithImageMetadata(Options options, Object data) {
+    ImageMetadata metadata = decodeHelper.getDataCacheImageMetadata(data);
+    if (metadata == null) {
+      return options;
+    }
+    Options result = new Options();
+    result.putAll(options);
+    result.set(Downsampler.IMAGE_METADATA, metadata);
+    return result;
+  }
+
+  /**
+   * Returns options that allow decoding only the region of the image that's kept by center
+   * cropping, if center cropping is the only transformation.
+   */
+  @NonNull
+  private Options getOptionsWithCenterCropRegion(Options options) {
+    if (!experiments.isEnabled(DecodeCenterCropRegion.class)
+        || !decodeHelper.isCenterCropOnly()
+        || options.get(Downsampler.DECODE_CENTER_CROP_REGION)) {
+      return options;
+    }
+    Options result = new Options();
+    result.putAll(options);
+    result.set(Downsampler.DECODE_CENTER_CROP_REGION, true);
+    return result;
+  }
+
   private <Data, ResourceType> Resource<R> runLoadPath(
       Data data, DataSource dataSource, LoadPath<Data, ResourceType, R> path)
       throws GlideException {
-    Options options = getOptionsWithHardwareConfig(dataSource);
+    Options options =
+        getOptionsWithCenterCropRegion(
+            getOptionsWithImageMetadata(getOptionsWithHardwareConfig(dataSource), data));
     DataRewinder<Data> rewinder = glideContext.getRegistry().getRewinder(data);
     try {
       // ResourceType in DecodeCallback below is required for compilation to work with gradle.
@@ -655,7 +898,9 @@ class DecodeJob<R>
                   + appliedTransformation);
         }
       } else {
+        long transformStartTime = startStage(GlideEventListener.Stage.TRANSFORM);
         transformed = appliedTransformation.transform(glideContext, decoded, width, height);
+        finishStage(GlideEventListener.Stage.TRANSFORM, transformStartTime);
       }
     }
     // TODO: Make this the responsibility of the Transformation.
@@ -804,6 +1049,7 @@ class DecodeJob<R>
     private Key key;
     private ResourceEncoder<Z> encoder;
     private LockedResource<Z> toEncode;
+    private long costMillis;
 
     @Synthetic
     DeferredEncodeManager() {}
@@ -816,12 +1062,16 @@ class DecodeJob<R>
       this.toEncode = (LockedResource<Z>) toEncode;
     }
 
+    void setCostMillis(long costMillis) {
+      this.costMillis = costMillis;
+    }
+
     void encode(DiskCacheProvider diskCacheProvider, Options options) {
       GlideTrace.beginSection("DecodeJob.encode");
       try {
         diskCacheProvider
             .getDiskCache()
-            .put(key, new DataCacheWriter<>(encoder, toEncode, options));
+            .put(key, new DataCacheWriter<>(encoder, toEncode, options, costMillis));
       } finally {
         toEncode.unlock();
         GlideTrace.endSection();
@@ -836,6 +1086,7 @@ class DecodeJob<R>
       key = null;
       encoder = null;
       toEncode = null;
+      costMillis = 0;
     }
   }
 
@@ -847,6 +1098,18 @@ class DecodeJob<R>
     void onLoadFailed(GlideException e);
 
     void reschedule(DecodeJob<?> job);
+
+    /**
+     * Returns the executor that loads data from source, for work that has to run alongside the
+     * job rather than as part of it. Tasks must extend {@link PrioritizedRunnable}.
+     */
+    GlideExecutor getSourceFetchExecutor();
+
+    /**
+     * Returns {@code true} if data fetched from source should be decoded after rescheduling onto a
+     * separate executor, rather than on the thread that fetched it.
+     */
+    boolean shouldDecodeOnSeparateExecutor();
   }
 
   interface DiskCacheProvider {
@@ -860,8 +1123,8 @@ class DecodeJob<R>
     /** We want to switch from the disk cache service to the source executor. */
     SWITCH_TO_SOURCE_SERVICE,
     /**
-     * We retrieved some data on a thread we don't own and want to switch back to our thread to
-     * process the data.
+     * We retrieved some data on a thread we don't own, or on a thread used only to fetch data, and
+     * want to switch back to our thread to process the data.
      */
     DECODE_DATA,
   }
@@ -876,6 +1139,8 @@ class DecodeJob<R>
     DATA_CACHE,
     /** Decode from retrieved source. */
     SOURCE,
+    /** Decode from cached data, or from source if it misses, while loading both concurrently. */
+    RACE,
     /** Encoding transformed resources after a successful load. */
     ENCODE,
     /** No more viable stages. */
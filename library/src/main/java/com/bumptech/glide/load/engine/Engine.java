@@ -7,16 +7,20 @@ import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.util.Pools;
 import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.GlideEventListener;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.engine.EngineResource.ResourceListener;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
 import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.engine.cache.DiskCacheAdapter;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheFactory;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.load.resource.bitmap.BitmapResource;
 import com.bumptech.glide.request.ResourceCallback;
 import com.bumptech.glide.util.Executors;
 import com.bumptech.glide.util.LogTime;
@@ -24,8 +28,10 @@ import com.bumptech.glide.util.Preconditions;
 import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.Util;
 import com.bumptech.glide.util.pool.FactoryPools;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** Responsible for starting loads and managing active and cached resources. */
 public final class Engine
@@ -46,6 +52,8 @@ public final class Engine
   public static final String GLIDE_MEMORY_TRACKING_TAG = "GlideMemoryTracking";
 
   private static final int JOB_POOL_SIZE = 150;
+  // Must be a power of two so that stripes can be selected with a mask.
+  private static final int LOCK_STRIPE_COUNT = 32;
   private static final boolean VERBOSE_IS_LOGGABLE = Log.isLoggable(TAG, Log.VERBOSE);
   private final Jobs jobs;
   private final EngineKeyFactory keyFactory;
@@ -55,6 +63,11 @@ public final class Engine
   private final LazyDiskCacheProvider diskCacheProvider;
   private final DecodeJobFactory decodeJobFactory;
   private final ActiveResources activeResources;
+  // Null unless lock striping is enabled, in which case the Engine itself is never locked.
+  @Nullable private final Object[] lockStripes;
+  // Null unless smaller requests may be served by scaling down larger Bitmaps in memory.
+  @Nullable private final SizeVariantIndex sizeVariants;
+  @Nullable private final BitmapPool bitmapPool;
 
   public Engine(
       MemoryCache memoryCache,
@@ -64,6 +77,47 @@ public final class Engine
       GlideExecutor sourceUnlimitedExecutor,
       GlideExecutor animationExecutor,
       boolean isActiveResourceRetentionAllowed) {
+    this(
+        memoryCache,
+        diskCacheFactory,
+        diskCacheExecutor,
+        sourceExecutor,
+        sourceUnlimitedExecutor,
+        animationExecutor,
+        isActiveResourceRetentionAllowed,
+        /* isLockStripingEnabled= */ false,
+        /* isSizeVariantReuseEnabled= */ false,
+        /* bitmapPool= */ null,
+        /* sourceFetchExecutor= */ null);
+  }
+
+  /**
+   * Creates a new Engine.
+   *
+   * @param isLockStripingEnabled If {@code true}, loads for different keys are partitioned across a
+   *     fixed set of locks instead of all sharing a lock on the Engine, and hits in active
+   *     resources are served without taking any lock shared with other keys.
+   * @param isSizeVariantReuseEnabled If {@code true}, a load for an untransformed Bitmap that
+   *     misses the memory caches may be served by scaling down a larger Bitmap of the same model
+   *     that's already in active resources or the memory cache.
+   * @param bitmapPool The pool used to obtain Bitmaps for scaled down variants, required if {@code
+   *     isSizeVariantReuseEnabled} is {@code true}.
+   * @param sourceFetchExecutor An optional executor used to fetch data not found in the disk cache,
+   *     in which case {@code sourceExecutor} is used to decode the fetched data. If {@code null},
+   *     data is fetched and decoded on {@code sourceExecutor}.
+   */
+  public Engine(
+      MemoryCache memoryCache,
+      DiskCache.Factory diskCacheFactory,
+      GlideExecutor diskCacheExecutor,
+      GlideExecutor sourceExecutor,
+      GlideExecutor sourceUnlimitedExecutor,
+      GlideExecutor animationExecutor,
+      boolean isActiveResourceRetentionAllowed,
+      boolean isLockStripingEnabled,
+      boolean isSizeVariantReuseEnabled,
+      @Nullable BitmapPool bitmapPool,
+      @Nullable GlideExecutor sourceFetchExecutor) {
     this(
         memoryCache,
         diskCacheFactory,
@@ -77,7 +131,11 @@ public final class Engine
         /* engineJobFactory= */ null,
         /* decodeJobFactory= */ null,
         /* resourceRecycler= */ null,
-        isActiveResourceRetentionAllowed);
+        isActiveResourceRetentionAllowed,
+        isLockStripingEnabled,
+        isSizeVariantReuseEnabled,
+        bitmapPool,
+        sourceFetchExecutor);
   }
 
   @VisibleForTesting
@@ -94,12 +152,34 @@ public final class Engine
       EngineJobFactory engineJobFactory,
       DecodeJobFactory decodeJobFactory,
       ResourceRecycler resourceRecycler,
-      boolean isActiveResourceRetentionAllowed) {
+      boolean isActiveResourceRetentionAllowed,
+      boolean isLockStripingEnabled,
+      boolean isSizeVariantReuseEnabled,
+      @Nullable BitmapPool bitmapPool,
+      @Nullable GlideExecutor sourceFetchExecutor) {
     this.cache = cache;
     this.diskCacheProvider = new LazyDiskCacheProvider(diskCacheFactory);
+    this.bitmapPool = bitmapPool;
+    if (isSizeVariantReuseEnabled) {
+      Preconditions.checkNotNull(bitmapPool, "A BitmapPool is required to re-use size variants");
+      sizeVariants = new SizeVariantIndex();
+    } else {
+      sizeVariants = null;
+    }
+
+    if (isLockStripingEnabled) {
+      lockStripes = new Object[LOCK_STRIPE_COUNT];
+      for (int i = 0; i < LOCK_STRIPE_COUNT; i++) {
+        lockStripes[i] = new Object();
+      }
+    } else {
+      lockStripes = null;
+    }
 
     if (activeResources == null) {
-      activeResources = new ActiveResources(isActiveResourceRetentionAllowed);
+      activeResources =
+          new ActiveResources(
+              isActiveResourceRetentionAllowed, /* isConcurrent= */ isLockStripingEnabled);
     }
     this.activeResources = activeResources;
     activeResources.setListener(this);
@@ -110,7 +190,7 @@ public final class Engine
     this.keyFactory = keyFactory;
 
     if (jobs == null) {
-      jobs = new Jobs();
+      jobs = new Jobs(/* isConcurrent= */ isLockStripingEnabled);
     }
     this.jobs = jobs;
 
@@ -121,6 +201,7 @@ public final class Engine
               sourceExecutor,
               sourceUnlimitedExecutor,
               animationExecutor,
+              sourceFetchExecutor,
               /* engineJobListener= */ this,
               /* resourceListener= */ this);
     }
@@ -137,6 +218,34 @@ public final class Engine
     this.resourceRecycler = resourceRecycler;
 
     cache.setResourceRemovedListener(this);
+
+    // Caches that open in the background should start replaying their journals as soon as
+    // possible, so build them before the first load needs them. Other caches are built lazily.
+    if (diskCacheFactory instanceof DiskLruCacheFactory
+        && ((DiskLruCacheFactory) diskCacheFactory).isOpenInBackground()) {
+      prewarmDiskCache(diskCacheExecutor);
+    }
+  }
+
+  private void prewarmDiskCache(GlideExecutor diskCacheExecutor) {
+    final LazyDiskCacheProvider diskCacheProvider = this.diskCacheProvider;
+    diskCacheExecutor.execute(
+        new PrioritizedRunnable() {
+          @Override
+          public Priority getPriority() {
+            return Priority.IMMEDIATE;
+          }
+
+          @Override
+          int getOrder() {
+            return 0;
+          }
+
+          @Override
+          public void run() {
+            diskCacheProvider.getDiskCache();
+          }
+        });
   }
 
   /**
@@ -186,10 +295,70 @@ public final class Engine
       boolean onlyRetrieveFromCache,
       ResourceCallback cb,
       Executor callbackExecutor) {
-    long startTime = VERBOSE_IS_LOGGABLE ? LogTime.getLogTime() : 0;
+    return load(
+        glideContext,
+        model,
+        signature,
+        width,
+        height,
+        resourceClass,
+        transcodeClass,
+        priority,
+        diskCacheStrategy,
+        transformations,
+        isTransformationRequired,
+        isScaleOnlyOrNoTransform,
+        options,
+        isMemoryCacheable,
+        useUnlimitedSourceExecutorPool,
+        useAnimationPool,
+        onlyRetrieveFromCache,
+        GlideExecutor.NO_DEADLINE,
+        cb,
+        callbackExecutor);
+  }
 
-    EngineKey key =
-        keyFactory.buildKey(
+  /**
+   * Starts a load for the given arguments that should finish by the given deadline.
+   *
+   * <p>Like priority, the deadline only affects the order in which loads are run and isn't part of
+   * the load's key. Loads that share a job run with the latest deadline of any of their requests.
+   *
+   * @param deadlineNanos The time by which the load should finish in {@link LogTime#getLogTime()}
+   *     units, or {@link GlideExecutor#NO_DEADLINE}.
+   * @see #load(GlideContext, Object, Key, int, int, Class, Class, Priority, DiskCacheStrategy, Map,
+   *     boolean, boolean, Options, boolean, boolean, boolean, boolean, ResourceCallback, Executor)
+   */
+  public <R> LoadStatus load(
+      GlideContext glideContext,
+      Object model,
+      Key signature,
+      int width,
+      int height,
+      Class<?> resourceClass,
+      Class<R> transcodeClass,
+      Priority priority,
+      DiskCacheStrategy diskCacheStrategy,
+      Map<Class<?>, Transformation<?>> transformations,
+      boolean isTransformationRequired,
+      boolean isScaleOnlyOrNoTransform,
+      Options options,
+      boolean isMemoryCacheable,
+      boolean useUnlimitedSourceExecutorPool,
+      boolean useAnimationPool,
+      boolean onlyRetrieveFromCache,
+      long deadlineNanos,
+      ResourceCallback cb,
+      Executor callbackExecutor) {
+    long startTime = VERBOSE_IS_LOGGABLE ? LogTime.getLogTime() : 0;
+    GlideEventListener eventListener = glideContext.getEventListener();
+    long memoryCacheStartTime = onMemoryCacheStarted(eventListener, model);
+
+    // Probe the memory caches with a re-used key so that the lookups themselves don't allocate a
+    // key. An immutable key is only built if we need to store it. Activating a memory cache hit
+    // still allocates a reference to track the resource.
+    EngineKey probeKey =
+        keyFactory.obtainProbeKey(
             model,
             signature,
             width,
@@ -199,36 +368,101 @@ public final class Engine
             transcodeClass,
             options);
 
-    EngineResource<?> memoryResource;
-    synchronized (this) {
-      memoryResource = loadFromMemory(key, isMemoryCacheable, startTime);
+    EngineResource<?> memoryResource = null;
+    EngineKey key = null;
+    try {
+      if (lockStripes != null) {
+        // Active resources are backed by a concurrent map when striping is enabled, so the most
+        // common kind of memory hit can be served without taking any lock at all.
+        memoryResource = loadFromActiveResources(probeKey, isMemoryCacheable, startTime);
+      }
 
       if (memoryResource == null) {
-        return waitForExistingOrStartNewJob(
-            glideContext,
-            model,
-            signature,
-            width,
-            height,
-            resourceClass,
-            transcodeClass,
-            priority,
-            diskCacheStrategy,
-            transformations,
-            isTransformationRequired,
-            isScaleOnlyOrNoTransform,
-            options,
-            isMemoryCacheable,
-            useUnlimitedSourceExecutorPool,
-            useAnimationPool,
-            onlyRetrieveFromCache,
-            cb,
-            callbackExecutor,
-            key,
-            startTime);
+        synchronized (getLock(probeKey)) {
+          memoryResource = loadFromMemory(probeKey, isMemoryCacheable, startTime);
+
+          if (memoryResource == null) {
+            key =
+                keyFactory.buildKey(
+                    model,
+                    signature,
+                    width,
+                    height,
+                    transformations,
+                    resourceClass,
+                    transcodeClass,
+                    options);
+            if (!isLargerVariantLoadAllowed(key, isMemoryCacheable, onlyRetrieveFromCache)) {
+              onMemoryCacheFinished(eventListener, model, memoryCacheStartTime);
+              return waitForExistingOrStartNewJob(
+                  glideContext,
+                  model,
+                  signature,
+                  width,
+                  height,
+                  resourceClass,
+                  transcodeClass,
+                  priority,
+                  diskCacheStrategy,
+                  transformations,
+                  isTransformationRequired,
+                  isScaleOnlyOrNoTransform,
+                  options,
+                  isMemoryCacheable,
+                  useUnlimitedSourceExecutorPool,
+                  useAnimationPool,
+                  onlyRetrieveFromCache,
+                  deadlineNanos,
+                  cb,
+                  callbackExecutor,
+                  key,
+                  startTime);
+            }
+          }
+        }
       }
+    } finally {
+      keyFactory.releaseProbeKey(probeKey);
     }
 
+    if (memoryResource == null) {
+      memoryResource = loadFromLargerVariant(Preconditions.checkNotNull(key), startTime);
+      if (memoryResource == null) {
+        synchronized (getLock(key)) {
+          // The lock was released while looking for a larger variant, so another load for the
+          // same key may have finished or started since the memory caches were checked.
+          memoryResource = loadFromMemory(key, isMemoryCacheable, startTime);
+          if (memoryResource == null) {
+            onMemoryCacheFinished(eventListener, model, memoryCacheStartTime);
+            return waitForExistingOrStartNewJob(
+                glideContext,
+                model,
+                signature,
+                width,
+                height,
+                resourceClass,
+                transcodeClass,
+                priority,
+                diskCacheStrategy,
+                transformations,
+                isTransformationRequired,
+                isScaleOnlyOrNoTransform,
+                options,
+                isMemoryCacheable,
+                useUnlimitedSourceExecutorPool,
+                useAnimationPool,
+                onlyRetrieveFromCache,
+                deadlineNanos,
+                cb,
+                callbackExecutor,
+                key,
+                startTime);
+          }
+        }
+      }
+    }
+    onMemoryCacheFinished(eventListener, model, memoryCacheStartTime);
+
     // Avoid calling back while holding the engine lock, doing so makes it easier for callers to
     // deadlock.
     cb.onResourceReady(
@@ -254,6 +488,7 @@ public final class Engine
       boolean useUnlimitedSourceExecutorPool,
       boolean useAnimationPool,
       boolean onlyRetrieveFromCache,
+      long deadlineNanos,
       ResourceCallback cb,
       Executor callbackExecutor,
       EngineKey key,
@@ -262,10 +497,13 @@ public final class Engine
     EngineJob<?> current = jobs.get(key, onlyRetrieveFromCache);
     if (current != null) {
       current.addCallback(cb, callbackExecutor);
+      // The shared job runs at the highest priority of any request waiting for it.
+      current.setPriority(cb, priority);
+      current.setDeadline(cb, deadlineNanos);
       if (VERBOSE_IS_LOGGABLE) {
         logWithTimeAndKey("Added to existing load", startTime, key);
       }
-      return new LoadStatus(cb, current);
+      return new LoadStatus(cb, current, getLock(key));
     }
 
     EngineJob<R> engineJob =
@@ -298,12 +536,14 @@ public final class Engine
     jobs.put(key, engineJob);
 
     engineJob.addCallback(cb, callbackExecutor);
+    engineJob.setPriority(cb, priority);
+    engineJob.setDeadline(cb, deadlineNanos);
     engineJob.start(decodeJob);
 
     if (VERBOSE_IS_LOGGABLE) {
       logWithTimeAndKey("Started new load", startTime, key);
     }
-    return new LoadStatus(cb, engineJob);
+    return new LoadStatus(cb, engineJob, getLock(key));
   }
 
   @Nullable
@@ -313,14 +553,8 @@ public final class Engine
       return null;
     }
 
-    EngineResource<?> active = loadFromActiveResources(key);
+    EngineResource<?> active = loadFromActiveResources(key, isMemoryCacheable, startTime);
     if (active != null) {
-      if (VERBOSE_IS_LOGGABLE) {
-        logWithTimeAndKey("Loaded resource from active resources", startTime, key);
-      }
-      if (Log.isLoggable(GLIDE_MEMORY_TRACKING_TAG, Log.DEBUG)) {
-        logCacheHit("active", key, active);
-      }
       return active;
     }
 
@@ -338,6 +572,144 @@ public final class Engine
     return null;
   }
 
+  @Nullable
+  private EngineResource<?> loadFromActiveResources(
+      EngineKey key, boolean isMemoryCacheable, long startTime) {
+    if (!isMemoryCacheable) {
+      return null;
+    }
+
+    EngineResource<?> active = loadFromActiveResources(key);
+    if (active != null) {
+      if (VERBOSE_IS_LOGGABLE) {
+        logWithTimeAndKey("Loaded resource from active resources", startTime, key);
+      }
+      if (Log.isLoggable(GLIDE_MEMORY_TRACKING_TAG, Log.DEBUG)) {
+        logCacheHit("active", key, active);
+      }
+    }
+    return active;
+  }
+
+  /**
+   * Returns {@code true} if a request that missed the memory caches may be served by {@link
+   * #loadFromLargerVariant(EngineKey, long)}.
+   *
+   * <p>Must be called while holding the lock for the given key. A request that can join a load
+   * that's already in progress does so instead.
+   */
+  private boolean isLargerVariantLoadAllowed(
+      EngineKey key, boolean isMemoryCacheable, boolean onlyRetrieveFromCache) {
+    return sizeVariants != null
+        && isMemoryCacheable
+        && SizeVariantIndex.isEligible(key)
+        && jobs.get(key, onlyRetrieveFromCache) == null;
+  }
+
+  /**
+   * Serves a request for an untransformed Bitmap by scaling down the smallest larger Bitmap of the
+   * same model in active resources or the memory cache.
+   *
+   * <p>Must be called without holding any lock. Each variant is looked up and acquired while
+   * holding the lock for its own key, but the Bitmap is scaled without holding any lock so that
+   * loads of other keys aren't blocked on it. The scaled Bitmap is activated under the given key so
+   * that subsequent requests for the same size are exact hits.
+   */
+  @Nullable
+  private EngineResource<?> loadFromLargerVariant(EngineKey key, long startTime) {
+    SizeVariantIndex sizeVariants = Preconditions.checkNotNull(this.sizeVariants);
+    BitmapPool pool = Preconditions.checkNotNull(bitmapPool);
+    List<EngineKey> variantKeys = sizeVariants.findLarger(key);
+    for (EngineKey variantKey : variantKeys) {
+      EngineResource<?> variant;
+      synchronized (getLock(variantKey)) {
+        variant = loadFromActiveResources(variantKey);
+        if (variant == null) {
+          variant = loadFromCache(variantKey);
+        }
+      }
+      if (variant == null) {
+        sizeVariants.remove(variantKey);
+        continue;
+      }
+
+      Bitmap scaled;
+      try {
+        Object data = variant.get();
+        scaled =
+            data instanceof Bitmap ? SizeVariantIndex.scaleDown(pool, (Bitmap) data, key) : null;
+      } finally {
+        variant.release();
+      }
+      if (scaled == null) {
+        continue;
+      }
+
+      EngineResource<?> result;
+      synchronized (getLock(key)) {
+        // Another load may have finished for the same key while the Bitmap was scaled.
+        result = loadFromMemory(key, /* isMemoryCacheable= */ true, startTime);
+        if (result != null) {
+          pool.put(scaled);
+          return result;
+        }
+        result =
+            new EngineResource<>(
+                BitmapResource.obtain(scaled, pool),
+                /* isMemoryCacheable= */ true,
+                /* isRecyclable= */ true,
+                key,
+                /* listener= */ this);
+        result.acquire();
+        activeResources.activate(key, result);
+        sizeVariants.add(key);
+      }
+      if (VERBOSE_IS_LOGGABLE) {
+        logWithTimeAndKey("Scaled resource from larger variant: " + variantKey, startTime, key);
+      }
+      if (Log.isLoggable(GLIDE_MEMORY_TRACKING_TAG, Log.DEBUG)) {
+        logCacheHit("variant", key, result);
+      }
+      return result;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the lock that guards lookups and job registration for the given key.
+   *
+   * <p>Without lock striping this is always the Engine itself.
+   */
+  private Object getLock(Key key) {
+    if (lockStripes == null) {
+      return this;
+    }
+    int hash = key.hashCode();
+    // Spread the higher bits downwards so that keys with poorly distributed low bits still spread
+    // across stripes.
+    hash ^= hash >>> 16;
+    return lockStripes[hash & (lockStripes.length - 1)];
+  }
+
+  private static long onMemoryCacheStarted(
+      @Nullable GlideEventListener eventListener, Object model) {
+    if (eventListener == null) {
+      return 0;
+    }
+    eventListener.onStageStarted(model, GlideEventListener.Stage.MEMORY_CACHE);
+    return LogTime.getLogTime();
+  }
+
+  private static void onMemoryCacheFinished(
+      @Nullable GlideEventListener eventListener, Object model, long memoryCacheStartTime) {
+    if (eventListener != null) {
+      eventListener.onStageFinished(
+          model,
+          GlideEventListener.Stage.MEMORY_CACHE,
+          LogTime.getLogTime() - memoryCacheStartTime);
+    }
+  }
+
   private static void logWithTimeAndKey(String log, long startTime, Key key) {
     Log.v(TAG, log + " in " + LogTime.getElapsedMillis(startTime) + "ms, key: " + key);
   }
@@ -390,23 +762,25 @@ public final class Engine
     return active;
   }
 
-  private EngineResource<?> loadFromCache(Key key) {
-    EngineResource<?> cached = getEngineResourceFromCache(key);
+  /** Loads from the memory cache using {@code probeKey}, which must not be stored. */
+  private EngineResource<?> loadFromCache(EngineKey probeKey) {
+    EngineResource<?> cached = getEngineResourceFromCache(probeKey);
     if (cached != null) {
       cached.acquire();
-      activeResources.activate(key, cached);
+      activeResources.activate(cached.getKey(), cached);
     }
     return cached;
   }
 
-  private EngineResource<?> getEngineResourceFromCache(Key key) {
-    Resource<?> cached = cache.remove(key);
+  private EngineResource<?> getEngineResourceFromCache(EngineKey probeKey) {
+    Resource<?> cached = cache.remove(probeKey);
 
     final EngineResource<?> result;
     if (cached == null) {
       result = null;
     } else if (cached instanceof EngineResource) {
-      // Save an object allocation if we've cached an EngineResource (the typical case).
+      // Save an object allocation if we've cached an EngineResource (the typical case). Resources
+      // are always cached under their own keys, so we can also avoid copying the probe key.
       result = (EngineResource<?>) cached;
     } else {
       result =
@@ -414,7 +788,7 @@ public final class Engine
               cached,
               /* isMemoryCacheable= */ true,
               /* isRecyclable= */ true,
-              key,
+              probeKey.copy(),
               /* listener= */ this);
     }
     return result;
@@ -430,23 +804,35 @@ public final class Engine
 
   @SuppressWarnings("unchecked")
   @Override
-  public synchronized void onEngineJobComplete(
-      EngineJob<?> engineJob, Key key, EngineResource<?> resource) {
-    // A null resource indicates that the load failed, usually due to an exception.
-    if (resource != null && resource.isMemoryCacheable()) {
-      activeResources.activate(key, resource);
-    }
+  public void onEngineJobComplete(EngineJob<?> engineJob, Key key, EngineResource<?> resource) {
+    synchronized (getLock(key)) {
+      // A null resource indicates that the load failed, usually due to an exception.
+      if (resource != null && resource.isMemoryCacheable()) {
+        activeResources.activate(key, resource);
+        if (sizeVariants != null && key instanceof EngineKey) {
+          sizeVariants.add((EngineKey) key);
+        }
+      }
 
-    jobs.removeIfCurrent(key, engineJob);
+      jobs.removeIfCurrent(key, engineJob);
+    }
   }
 
   @Override
-  public synchronized void onEngineJobCancelled(EngineJob<?> engineJob, Key key) {
-    jobs.removeIfCurrent(key, engineJob);
+  public void onEngineJobCancelled(EngineJob<?> engineJob, Key key) {
+    synchronized (getLock(key)) {
+      jobs.removeIfCurrent(key, engineJob);
+    }
   }
 
   @Override
   public void onResourceRemoved(@NonNull final Resource<?> resource) {
+    if (sizeVariants != null && resource instanceof EngineResource) {
+      Key key = ((EngineResource<?>) resource).getKey();
+      if (key instanceof EngineKey) {
+        sizeVariants.remove((EngineKey) key);
+      }
+    }
     // Avoid deadlock with RequestManagers when recycling triggers recursive clear() calls.
     // See b/145519760.
     resourceRecycler.recycle(resource, /* forceNextFrame= */ true);
@@ -481,21 +867,33 @@ public final class Engine
   public class LoadStatus {
     private final EngineJob<?> engineJob;
     private final ResourceCallback cb;
+    private final Object lock;
 
-    LoadStatus(ResourceCallback cb, EngineJob<?> engineJob) {
+    LoadStatus(ResourceCallback cb, EngineJob<?> engineJob, Object lock) {
       this.cb = cb;
       this.engineJob = engineJob;
+      this.lock = lock;
     }
 
     public void cancel() {
-      // Acquire the Engine lock so that a new request can't get access to a particular EngineJob
-      // just after the EngineJob has been cancelled. Without this lock, we'd allow new requests
-      // to find the cancelling EngineJob in our Jobs data structure. With this lock, the EngineJob
-      // is both cancelled and removed from Jobs atomically.
-      synchronized (Engine.this) {
+      // Acquire the Engine lock (or the stripe for this key) so that a new request can't get access
+      // to a particular EngineJob just after the EngineJob has been cancelled. Without this lock,
+      // we'd allow new requests to find the cancelling EngineJob in our Jobs data structure. With
+      // this lock, the EngineJob is both cancelled and removed from Jobs atomically.
+      synchronized (lock) {
         engineJob.removeCallback(cb);
       }
     }
+
+    /**
+     * Changes the priority of the load, which may move it ahead of or behind other loads that are
+     * waiting to start.
+     *
+     * <p>A load shared by multiple requests runs at the highest priority of any of them.
+     */
+    public void setPriority(@NonNull Priority priority) {
+      engineJob.setPriority(cb, priority);
+    }
   }
 
   private static class LazyDiskCacheProvider implements DecodeJob.DiskCacheProvider {
@@ -546,7 +944,8 @@ public final class Engine
               }
             });
 
-    private int creationOrder;
+    // Incremented under the lock for each key, which may be one of several when striping.
+    private final AtomicInteger creationOrder = new AtomicInteger();
 
     DecodeJobFactory(DecodeJob.DiskCacheProvider diskCacheProvider) {
       this.diskCacheProvider = diskCacheProvider;
@@ -588,7 +987,7 @@ public final class Engine
           onlyRetrieveFromCache,
           options,
           callback,
-          creationOrder++);
+          creationOrder.getAndIncrement());
     }
   }
 
@@ -598,6 +997,7 @@ public final class Engine
     @Synthetic final GlideExecutor sourceExecutor;
     @Synthetic final GlideExecutor sourceUnlimitedExecutor;
     @Synthetic final GlideExecutor animationExecutor;
+    @Synthetic @Nullable final GlideExecutor sourceFetchExecutor;
     @Synthetic final EngineJobListener engineJobListener;
     @Synthetic final ResourceListener resourceListener;
 
@@ -613,6 +1013,7 @@ public final class Engine
                     sourceExecutor,
                     sourceUnlimitedExecutor,
                     animationExecutor,
+                    sourceFetchExecutor,
                     engineJobListener,
                     resourceListener,
                     pool);
@@ -624,12 +1025,14 @@ public final class Engine
         GlideExecutor sourceExecutor,
         GlideExecutor sourceUnlimitedExecutor,
         GlideExecutor animationExecutor,
+        @Nullable GlideExecutor sourceFetchExecutor,
         EngineJobListener engineJobListener,
         ResourceListener resourceListener) {
       this.diskCacheExecutor = diskCacheExecutor;
       this.sourceExecutor = sourceExecutor;
       this.sourceUnlimitedExecutor = sourceUnlimitedExecutor;
       this.animationExecutor = animationExecutor;
+      this.sourceFetchExecutor = sourceFetchExecutor;
       this.engineJobListener = engineJobListener;
       this.resourceListener = resourceListener;
     }
@@ -640,6 +1043,9 @@ public final class Engine
       Executors.shutdownAndAwaitTermination(sourceExecutor);
       Executors.shutdownAndAwaitTermination(sourceUnlimitedExecutor);
       Executors.shutdownAndAwaitTermination(animationExecutor);
+      if (sourceFetchExecutor != null) {
+        Executors.shutdownAndAwaitTermination(sourceFetchExecutor);
+      }
     }
 
     @SuppressWarnings("unchecked")
@@ -2,21 +2,27 @@ package com.bumptech.glide.load.engine;
 
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.util.Pools;
+import com.bumptech.glide.GlideEventListener;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.EngineResource.ResourceListener;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import com.bumptech.glide.request.ResourceCallback;
 import com.bumptech.glide.util.Executors;
+import com.bumptech.glide.util.LogTime;
 import com.bumptech.glide.util.Preconditions;
 import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.pool.FactoryPools.Poolable;
 import com.bumptech.glide.util.pool.StateVerifier;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -26,6 +32,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
   private static final EngineResourceFactory DEFAULT_FACTORY = new EngineResourceFactory();
+  // The maximum number of jobs that may wait for the source executor to decode data fetched by the
+  // source fetch executor before fetch threads start decoding data themselves.
+  private static final int MAX_QUEUED_DECODES = 8;
 
   @SuppressWarnings("WeakerAccess")
   @Synthetic
@@ -40,6 +49,8 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
   private final GlideExecutor sourceExecutor;
   private final GlideExecutor sourceUnlimitedExecutor;
   private final GlideExecutor animationExecutor;
+  // Null unless fetching data from source is pipelined separately from decoding it.
+  @Nullable private final GlideExecutor sourceFetchExecutor;
   private final AtomicInteger pendingCallbacks = new AtomicInteger();
 
   private Key key;
@@ -66,6 +77,23 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
   EngineResource<?> engineResource;
 
   private DecodeJob<R> decodeJob;
+  // The executor decodeJob was most recently submitted to.
+  @Nullable private GlideExecutor currentExecutor;
+
+  @GuardedBy("this")
+  private final Map<ResourceCallback, Priority> callbackPriorities = new HashMap<>();
+
+  @GuardedBy("this")
+  private final Map<ResourceCallback, Long> callbackDeadlines = new HashMap<>();
+
+  @SuppressWarnings("WeakerAccess")
+  @Synthetic
+  @Nullable
+  GlideEventListener eventListener;
+
+  @SuppressWarnings("WeakerAccess")
+  @Synthetic
+  Object model;
 
   // Checked primarily on the main thread, but also on other threads in reschedule.
   private volatile boolean isCancelled;
@@ -76,6 +104,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
       GlideExecutor sourceExecutor,
       GlideExecutor sourceUnlimitedExecutor,
       GlideExecutor animationExecutor,
+      @Nullable GlideExecutor sourceFetchExecutor,
       EngineJobListener engineJobListener,
       ResourceListener resourceListener,
       Pools.Pool<EngineJob<?>> pool) {
@@ -84,6 +113,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
         sourceExecutor,
         sourceUnlimitedExecutor,
         animationExecutor,
+        sourceFetchExecutor,
         engineJobListener,
         resourceListener,
         pool,
@@ -96,6 +126,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
       GlideExecutor sourceExecutor,
       GlideExecutor sourceUnlimitedExecutor,
       GlideExecutor animationExecutor,
+      @Nullable GlideExecutor sourceFetchExecutor,
       EngineJobListener engineJobListener,
       ResourceListener resourceListener,
       Pools.Pool<EngineJob<?>> pool,
@@ -104,6 +135,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
     this.sourceExecutor = sourceExecutor;
     this.sourceUnlimitedExecutor = sourceUnlimitedExecutor;
     this.animationExecutor = animationExecutor;
+    this.sourceFetchExecutor = sourceFetchExecutor;
     this.engineJobListener = engineJobListener;
     this.resourceListener = resourceListener;
     this.pool = pool;
@@ -127,11 +159,95 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
 
   public synchronized void start(DecodeJob<R> decodeJob) {
     this.decodeJob = decodeJob;
+    this.eventListener = decodeJob.getEventListener();
+    this.model = decodeJob.getModel();
+    decodeJob.setDeadlineNanos(getLatestDeadlineNanos());
+    deprioritizeIfPastDeadline(decodeJob);
     GlideExecutor executor =
-        decodeJob.willDecodeFromCache() ? diskCacheExecutor : getActiveSourceExecutor();
+        decodeJob.willDecodeFromCache() ? diskCacheExecutor : getActiveSourceFetchExecutor();
+    currentExecutor = executor;
     executor.execute(decodeJob);
   }
 
+  /**
+   * Sets the priority wanted by the given callback and, if that changes the highest priority
+   * wanted by any callback, moves our {@link DecodeJob} to its new place in its executor's queue.
+   */
+  synchronized void setPriority(ResourceCallback cb, Priority priority) {
+    callbackPriorities.put(cb, priority);
+    updateDecodeJobSchedule();
+  }
+
+  /**
+   * Sets the deadline wanted by the given callback, in {@link LogTime#getLogTime()} units, and, if
+   * that changes the latest deadline wanted by any callback, moves our {@link DecodeJob} to its new
+   * place in its executor's queue.
+   */
+  synchronized void setDeadline(ResourceCallback cb, long deadlineNanos) {
+    callbackDeadlines.put(cb, deadlineNanos);
+    updateDecodeJobSchedule();
+  }
+
+  @GuardedBy("this")
+  private void updateDecodeJobSchedule() {
+    if (decodeJob == null || isDone() || callbackPriorities.isEmpty()) {
+      return;
+    }
+    Priority highest = null;
+    for (Priority priority : callbackPriorities.values()) {
+      if (highest == null || priority.compareTo(highest) < 0) {
+        highest = priority;
+      }
+    }
+    long latestDeadline = getLatestDeadlineNanos();
+    // A job that has missed its deadline still finishes, but no longer runs ahead of jobs that
+    // can still finish in time.
+    Priority priority = DecodeJob.isPastDeadline(latestDeadline) ? Priority.LOW : highest;
+    boolean isPriorityChanged = priority != decodeJob.getPriority();
+    boolean isDeadlineChanged = latestDeadline != decodeJob.getDeadlineNanos();
+    if (!isPriorityChanged && !isDeadlineChanged) {
+      return;
+    }
+    // The executor's queue is a heap ordered by priority, so changing the priority of a queued job
+    // in place would corrupt the queue. GlideExecutor#remove also removes jobs wrapped by an
+    // onExecuteDecorator, so if the job isn't removed it isn't queued. It's either running and the
+    // new priority applies the next time it's rescheduled, or it's finished and nothing happens.
+    GlideExecutor executor = currentExecutor;
+    boolean wasQueued = executor != null && executor.remove(decodeJob);
+    if (isPriorityChanged) {
+      decodeJob.setPriority(priority);
+    }
+    if (isDeadlineChanged) {
+      decodeJob.setDeadlineNanos(latestDeadline);
+    }
+    if (wasQueued) {
+      executor.execute(decodeJob);
+    }
+  }
+
+  /**
+   * Returns the latest deadline wanted by any callback, or {@link GlideExecutor#NO_DEADLINE} if
+   * any callback doesn't have one, so that a shared job never runs ahead of what its most patient
+   * callback needs at the expense of other jobs.
+   */
+  @GuardedBy("this")
+  private long getLatestDeadlineNanos() {
+    if (callbackDeadlines.isEmpty()) {
+      return GlideExecutor.NO_DEADLINE;
+    }
+    long latest = Long.MIN_VALUE;
+    for (long deadlineNanos : callbackDeadlines.values()) {
+      latest = Math.max(latest, deadlineNanos);
+    }
+    return latest;
+  }
+
+  private static void deprioritizeIfPastDeadline(DecodeJob<?> job) {
+    if (job.isPastDeadline() && job.getPriority() != Priority.LOW) {
+      job.setPriority(Priority.LOW);
+    }
+  }
+
   synchronized void addCallback(final ResourceCallback cb, Executor callbackExecutor) {
     stateVerifier.throwIfRecycled();
     cbs.add(cb, callbackExecutor);
@@ -179,12 +295,16 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
   synchronized void removeCallback(ResourceCallback cb) {
     stateVerifier.throwIfRecycled();
     cbs.remove(cb);
+    callbackPriorities.remove(cb);
+    callbackDeadlines.remove(cb);
     if (cbs.isEmpty()) {
       cancel();
       boolean isFinishedRunning = hasResource || hasLoadFailed;
       if (isFinishedRunning && pendingCallbacks.get() == 0) {
         release();
       }
+    } else {
+      updateDecodeJobSchedule();
     }
   }
 
@@ -198,6 +318,14 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
         : (useAnimationPool ? animationExecutor : sourceExecutor);
   }
 
+  private boolean isPipelined() {
+    return sourceFetchExecutor != null && !useUnlimitedSourceGeneratorPool && !useAnimationPool;
+  }
+
+  private GlideExecutor getActiveSourceFetchExecutor() {
+    return isPipelined() ? sourceFetchExecutor : getActiveSourceExecutor();
+  }
+
   // Exposed for testing.
   void cancel() {
     if (isDone()) {
@@ -308,6 +436,11 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
     isLoadedFromAlternateCacheKey = false;
     decodeJob.release(/* isRemovedFromQueue= */ false);
     decodeJob = null;
+    currentExecutor = null;
+    callbackPriorities.clear();
+    callbackDeadlines.clear();
+    eventListener = null;
+    model = null;
     exception = null;
     dataSource = null;
     pool.release(this);
@@ -333,10 +466,25 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
   }
 
   @Override
-  public void reschedule(DecodeJob<?> job) {
+  public synchronized void reschedule(DecodeJob<?> job) {
     // Even if the job is cancelled here, it still needs to be scheduled so that it can clean itself
     // up.
-    getActiveSourceExecutor().execute(job);
+    deprioritizeIfPastDeadline(job);
+    currentExecutor =
+        job.isDecodingRetrievedData() ? getActiveSourceExecutor() : getActiveSourceFetchExecutor();
+    currentExecutor.execute(job);
+  }
+
+  @Override
+  public GlideExecutor getSourceFetchExecutor() {
+    return getActiveSourceFetchExecutor();
+  }
+
+  @Override
+  public boolean shouldDecodeOnSeparateExecutor() {
+    // If decoding has fallen behind, decode on the fetch thread instead of queueing more fetched
+    // data, which holds open connections and memory, and limits fetching to the decode rate.
+    return isPipelined() && sourceExecutor.getQueuedTaskCount() < MAX_QUEUED_DECODES;
   }
 
   // We have to post Runnables in a loop. Typically there will be very few callbacks. Acessor method
@@ -411,9 +559,21 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
   private class CallResourceReady implements Runnable {
 
     private final ResourceCallback cb;
+    // Captured when posted because this job may be released before or while we run.
+    @Nullable private final GlideEventListener eventListener;
+    private final Object model;
+    private final long postedTime;
 
     CallResourceReady(ResourceCallback cb) {
       this.cb = cb;
+      eventListener = EngineJob.this.eventListener;
+      model = EngineJob.this.model;
+      if (eventListener != null) {
+        eventListener.onStageStarted(model, GlideEventListener.Stage.CALLBACK);
+        postedTime = LogTime.getLogTime();
+      } else {
+        postedTime = 0L;
+      }
     }
 
     @Override
@@ -431,6 +591,10 @@ class EngineJob<R> implements DecodeJob.Callback<R>, Poolable {
           decrementPendingCallbacks();
         }
       }
+      if (eventListener != null) {
+        eventListener.onStageFinished(
+            model, GlideEventListener.Stage.CALLBACK, LogTime.getLogTime() - postedTime);
+      }
     }
   }
 
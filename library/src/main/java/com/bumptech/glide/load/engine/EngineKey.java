@@ -8,18 +8,29 @@ import com.bumptech.glide.util.Preconditions;
 import java.security.MessageDigest;
 import java.util.Map;
 
-/** An in memory only cache key used to multiplex loads. */
+/**
+ * An in memory only cache key used to multiplex loads.
+ *
+ * <p>Keys are only mutable so that a single instance can be re-used to probe memory caches without
+ * allocating, see {@link EngineKeyFactory#obtainProbeKey}. Keys that are stored anywhere must never
+ * be modified.
+ */
 class EngineKey implements Key {
-  private final Object model;
-  private final int width;
-  private final int height;
-  private final Class<?> resourceClass;
-  private final Class<?> transcodeClass;
-  private final Key signature;
-  private final Map<Class<?>, Transformation<?>> transformations;
-  private final Options options;
+  private Object model;
+  private int width;
+  private int height;
+  private Class<?> resourceClass;
+  private Class<?> transcodeClass;
+  private Key signature;
+  private Map<Class<?>, Transformation<?>> transformations;
+  private Options options;
   private int hashCode;
 
+  /** Creates an empty key that must be {@link #set} before it's used. */
+  EngineKey() {
+    // leave fields null.
+  }
+
   EngineKey(
       Object model,
       Key signature,
@@ -29,6 +40,18 @@ class EngineKey implements Key {
       Class<?> resourceClass,
       Class<?> transcodeClass,
       Options options) {
+    set(model, signature, width, height, transformations, resourceClass, transcodeClass, options);
+  }
+
+  final void set(
+      Object model,
+      Key signature,
+      int width,
+      int height,
+      Map<Class<?>, Transformation<?>> transformations,
+      Class<?> resourceClass,
+      Class<?> transcodeClass,
+      Options options) {
     this.model = Preconditions.checkNotNull(model);
     this.signature = Preconditions.checkNotNull(signature, "Signature must not be null");
     this.width = width;
@@ -39,6 +62,50 @@ class EngineKey implements Key {
     this.transcodeClass =
         Preconditions.checkNotNull(transcodeClass, "Transcode class must not be null");
     this.options = Preconditions.checkNotNull(options);
+    this.hashCode = 0;
+  }
+
+  /** Returns a new key equal to this one that's safe to store. */
+  EngineKey copy() {
+    return new EngineKey(
+        model, signature, width, height, transformations, resourceClass, transcodeClass, options);
+  }
+
+  /** Returns a new key equal to this one except for the given dimensions. */
+  EngineKey withSize(int width, int height) {
+    return new EngineKey(
+        model, signature, width, height, transformations, resourceClass, transcodeClass, options);
+  }
+
+  int getWidth() {
+    return width;
+  }
+
+  int getHeight() {
+    return height;
+  }
+
+  Class<?> getTranscodeClass() {
+    return transcodeClass;
+  }
+
+  boolean hasTransformations() {
+    return !transformations.isEmpty();
+  }
+
+  Options getOptions() {
+    return options;
+  }
+
+  /** Drops references held by a key that is no longer in use so that they can be collected. */
+  void clear() {
+    model = null;
+    signature = null;
+    transformations = null;
+    resourceClass = null;
+    transcodeClass = null;
+    options = null;
+    hashCode = 0;
   }
 
   @Override
@@ -4,8 +4,10 @@ import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.Transformation;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 class EngineKeyFactory {
+  private final AtomicReference<EngineKey> probeKeyRef = new AtomicReference<>();
 
   @SuppressWarnings("rawtypes")
   EngineKey buildKey(
@@ -20,4 +22,35 @@ class EngineKeyFactory {
     return new EngineKey(
         model, signature, width, height, transformations, resourceClass, transcodeClass, options);
   }
+
+  /**
+   * Returns a mutable key equal to the key that {@link #buildKey} would return for the same
+   * arguments, re-using a previously released key if one is available.
+   *
+   * <p>The returned key may only be used for lookups, it must not be stored anywhere and must be
+   * returned via {@link #releaseProbeKey(EngineKey)} once the lookup completes. Use {@link
+   * EngineKey#copy()} or {@link #buildKey} to obtain a key that can be stored.
+   */
+  EngineKey obtainProbeKey(
+      Object model,
+      Key signature,
+      int width,
+      int height,
+      Map<Class<?>, Transformation<?>> transformations,
+      Class<?> resourceClass,
+      Class<?> transcodeClass,
+      Options options) {
+    EngineKey key = probeKeyRef.getAndSet(null);
+    if (key == null) {
+      key = new EngineKey();
+    }
+    key.set(
+        model, signature, width, height, transformations, resourceClass, transcodeClass, options);
+    return key;
+  }
+
+  void releaseProbeKey(EngineKey key) {
+    key.clear();
+    probeKeyRef.set(key);
+  }
 }
@@ -41,6 +41,11 @@ class EngineResource<Z> implements Resource<Z> {
     return resource;
   }
 
+  /** Returns the key this resource is stored under in active resources and the memory cache. */
+  Key getKey() {
+    return key;
+  }
+
   boolean isMemoryCacheable() {
     return isMemoryCacheable;
   }
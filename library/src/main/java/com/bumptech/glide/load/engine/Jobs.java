@@ -5,10 +5,29 @@ import com.bumptech.glide.load.Key;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 final class Jobs {
-  private final Map<Key, EngineJob<?>> jobs = new HashMap<>();
-  private final Map<Key, EngineJob<?>> onlyCacheJobs = new HashMap<>();
+  private final Map<Key, EngineJob<?>> jobs;
+  private final Map<Key, EngineJob<?>> onlyCacheJobs;
+
+  Jobs() {
+    this(/* isConcurrent= */ false);
+  }
+
+  /**
+   * @param isConcurrent {@code true} if callers may access different keys concurrently. Callers
+   *     must still serialize access to any individual key.
+   */
+  Jobs(boolean isConcurrent) {
+    if (isConcurrent) {
+      jobs = new ConcurrentHashMap<>();
+      onlyCacheJobs = new ConcurrentHashMap<>();
+    } else {
+      jobs = new HashMap<>();
+      onlyCacheJobs = new HashMap<>();
+    }
+  }
 
   @VisibleForTesting
   Map<Key, EngineJob<?>> getAll() {
@@ -0,0 +1,38 @@
+package com.bumptech.glide.load.engine;
+
+import androidx.annotation.NonNull;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+
+/**
+ * A task that can be run on Glide's prioritized executors alongside {@link DecodeJob}s.
+ *
+ * <p>The queues of Glide's executors compare every pair of tasks they hold, so every task they run
+ * has to be comparable with every other. Tasks are ordered by {@link Priority} and then by the
+ * order in which the loads they belong to were started. Executors that order tasks by {@link
+ * GlideExecutor.DeadlineTask deadline} do so between tasks of the same priority.
+ *
+ * <p>Note: this class has a natural ordering that is inconsistent with equals.
+ */
+abstract class PrioritizedRunnable
+    implements Runnable, Comparable<PrioritizedRunnable>, GlideExecutor.DeadlineTask {
+
+  @Override
+  public abstract Priority getPriority();
+
+  abstract int getOrder();
+
+  @Override
+  public long getDeadlineNanos() {
+    return GlideExecutor.NO_DEADLINE;
+  }
+
+  @Override
+  public final int compareTo(@NonNull PrioritizedRunnable other) {
+    int result = getPriority().compareTo(other.getPriority());
+    if (result == 0) {
+      result = getOrder() - other.getOrder();
+    }
+    return result;
+  }
+}
@@ -0,0 +1,435 @@
+package com.bumptech.glide.load.engine;
+
+import android.util.Log;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.GlideEventListener;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Looks up data in the disk cache while speculatively loading it from source on another thread, so
+ * that loads that miss the disk cache don't wait for the disk cache lookups before starting to
+ * load from source.
+ *
+ * <p>The disk cache is checked on the calling thread just as it would be without racing, first for
+ * transformed resources and then for original data, as allowed by the load's {@link
+ * DiskCacheStrategy}. If either lookup finds data, the disk cache wins, the source load is
+ * cancelled and anything it loads is released. If both miss, the source wins and its result is
+ * passed on as soon as it's available. From then on this generator delegates to the source
+ * generator, which writes data to the disk cache as usual.
+ *
+ * <p>The result of the source load is held until the disk cache lookups have finished, so our
+ * callback is never called on two threads at once.
+ */
+final class RacingGenerator
+    implements DataFetcherGenerator, DataFetcherGenerator.FetcherReadyCallback {
+  private static final String TAG = "RacingGenerator";
+
+  private final List<DataFetcherGenerator> cacheGenerators = new ArrayList<>(2);
+  private final DecodeHelper<?> helper;
+  @Synthetic final FetcherReadyCallback cb;
+  private final GlideExecutor sourceFetchExecutor;
+  private final int order;
+  private final Object model;
+  @Nullable private final GlideEventListener eventListener;
+
+  private int cacheGeneratorIndex;
+  private volatile DataFetcherGenerator currentCacheGenerator;
+  @Synthetic volatile SourceGenerator speculativeSourceGenerator;
+  private volatile SourceGenerator delegate;
+
+  @GuardedBy("this")
+  private boolean isCacheExhausted;
+
+  @Synthetic
+  @GuardedBy("this")
+  boolean isSourceAbandoned;
+
+  @GuardedBy("this")
+  private boolean isWinnerReported;
+
+  @GuardedBy("this")
+  @Nullable
+  private SourceEvent pendingSourceEvent;
+
+  // The speculative source load while it's waiting in the source fetch executor's queue.
+  @Synthetic
+  @GuardedBy("this")
+  @Nullable
+  SpeculativeSourceLoad queuedSourceLoad;
+
+  RacingGenerator(
+      DecodeHelper<?> helper,
+      FetcherReadyCallback cb,
+      GlideExecutor sourceFetchExecutor,
+      int order,
+      Object model,
+      @Nullable GlideEventListener eventListener) {
+    this.helper = helper;
+    this.cb = cb;
+    this.sourceFetchExecutor = sourceFetchExecutor;
+    this.order = order;
+    this.model = model;
+    this.eventListener = eventListener;
+    DiskCacheStrategy diskCacheStrategy = helper.getDiskCacheStrategy();
+    if (diskCacheStrategy.decodeCachedResource()) {
+      cacheGenerators.add(new ResourceCacheGenerator(helper, this));
+    }
+    if (diskCacheStrategy.decodeCachedData()) {
+      cacheGenerators.add(new DataCacheGenerator(helper, this));
+    }
+  }
+
+  @Override
+  public boolean startNext() {
+    SourceGenerator local = delegate;
+    if (local != null) {
+      return local.startNext();
+    }
+    if (speculativeSourceGenerator == null) {
+      startSpeculativeSourceLoad();
+    }
+
+    while (cacheGeneratorIndex < cacheGenerators.size()) {
+      currentCacheGenerator = cacheGenerators.get(cacheGeneratorIndex);
+      if (currentCacheGenerator.startNext()) {
+        return true;
+      }
+      cacheGeneratorIndex++;
+    }
+    currentCacheGenerator = null;
+    return onCacheExhausted();
+  }
+
+  private void startSpeculativeSourceLoad() {
+    // The helper lazily creates its load data and cache keys without synchronization. The cache
+    // generators have already created both on this thread, so the source load only reads them.
+    helper.getCacheKeys();
+    speculativeSourceGenerator = new SourceGenerator(helper, new SpeculativeSourceCallback());
+    SpeculativeSourceLoad load = new SpeculativeSourceLoad(helper.getPriority(), order);
+    synchronized (this) {
+      queuedSourceLoad = load;
+    }
+    sourceFetchExecutor.execute(load);
+  }
+
+  /**
+   * Moves the speculative source load to its place for the given priority in the source fetch
+   * executor's queue if it hasn't started yet.
+   */
+  void setPriority(Priority priority) {
+    SpeculativeSourceLoad load;
+    synchronized (this) {
+      load = queuedSourceLoad;
+    }
+    // The executor's queue is a heap, so the load's priority can't change while it's queued.
+    if (load == null || load.priority == priority || !sourceFetchExecutor.remove(load)) {
+      return;
+    }
+    SpeculativeSourceLoad replacement = new SpeculativeSourceLoad(priority, order);
+    synchronized (this) {
+      queuedSourceLoad = replacement;
+    }
+    sourceFetchExecutor.execute(replacement);
+  }
+
+  private boolean onCacheExhausted() {
+    SourceEvent event;
+    boolean isFallingBack = false;
+    synchronized (this) {
+      isCacheExhausted = true;
+      event = pendingSourceEvent;
+      pendingSourceEvent = null;
+      if (isSourceAbandoned) {
+        isFallingBack = true;
+      } else if (event == null) {
+        // The source load is still in progress and will pass on its result when it finishes.
+        return true;
+      } else {
+        delegate = speculativeSourceGenerator;
+      }
+    }
+
+    if (isFallingBack) {
+      // Either the disk cache won but its data couldn't be decoded, or the source load couldn't be
+      // started. Load from source the usual way, after switching to a thread that may do so.
+      delegate = new SourceGenerator(helper, cb);
+      cb.reschedule();
+      return true;
+    }
+    reportWinner(/* isDiskCacheWinner= */ false);
+    return event.forward(/* canReturnNotStarted= */ true);
+  }
+
+  @Synthetic
+  void onSpeculativeSourceEvent(SourceEvent event) {
+    boolean isAbandoned;
+    synchronized (this) {
+      isAbandoned = isSourceAbandoned;
+      if (!isAbandoned) {
+        if (!isCacheExhausted) {
+          pendingSourceEvent = event;
+          return;
+        }
+        delegate = speculativeSourceGenerator;
+      }
+    }
+
+    if (isAbandoned) {
+      event.release();
+    } else {
+      reportWinner(/* isDiskCacheWinner= */ false);
+      event.forward(/* canReturnNotStarted= */ false);
+    }
+  }
+
+  /**
+   * Abandons the speculative source load, unless it has already won or been abandoned.
+   *
+   * @param isRescheduleIfWaiting {@code true} to reschedule our callback if the disk cache lookups
+   *     have already finished and it's waiting for the source load, which will no longer call it.
+   * @return {@code true} if the source load was abandoned by this call.
+   */
+  @Synthetic
+  boolean abandonSource(boolean isRescheduleIfWaiting) {
+    SourceEvent event;
+    boolean isWaitingForSource;
+    synchronized (this) {
+      if (isSourceAbandoned || delegate != null || speculativeSourceGenerator == null) {
+        return false;
+      }
+      isSourceAbandoned = true;
+      event = pendingSourceEvent;
+      pendingSourceEvent = null;
+      isWaitingForSource = isCacheExhausted;
+    }
+    speculativeSourceGenerator.abandon();
+    if (event != null) {
+      event.release();
+    }
+    if (isRescheduleIfWaiting && isWaitingForSource) {
+      cb.reschedule();
+    }
+    return true;
+  }
+
+  private void reportWinner(boolean isDiskCacheWinner) {
+    synchronized (this) {
+      if (isWinnerReported) {
+        return;
+      }
+      isWinnerReported = true;
+    }
+    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, (isDiskCacheWinner ? "Disk cache" : "Source") + " won for model: " + model);
+    }
+    if (eventListener != null) {
+      eventListener.onDiskCacheRaceFinished(model, isDiskCacheWinner);
+    }
+  }
+
+  @Override
+  public void cancel() {
+    DataFetcherGenerator localCacheGenerator = currentCacheGenerator;
+    if (localCacheGenerator != null) {
+      localCacheGenerator.cancel();
+    }
+    // Abandoning the source load ensures that it won't use the job after the job has given up.
+    if (!abandonSource(/* isRescheduleIfWaiting= */ true)) {
+      SourceGenerator localDelegate = delegate;
+      if (localDelegate != null) {
+        localDelegate.cancel();
+      }
+    }
+  }
+
+  // Called by the cache generators.
+  @Override
+  public void reschedule() {
+    cb.reschedule();
+  }
+
+  // Called by the cache generators.
+  @Override
+  public void onDataFetcherReady(
+      Key sourceKey,
+      @Nullable Object data,
+      DataFetcher<?> fetcher,
+      DataSource dataSource,
+      Key attemptedKey,
+      @Nullable Runnable cleanupHook) {
+    if (data != null && abandonSource(/* isRescheduleIfWaiting= */ false)) {
+      reportWinner(/* isDiskCacheWinner= */ true);
+    }
+    cb.onDataFetcherReady(sourceKey, data, fetcher, dataSource, attemptedKey, cleanupHook);
+  }
+
+  // Called by the cache generators.
+  @Override
+  public void onDataFetcherFailed(
+      Key attemptedKey, Exception e, DataFetcher<?> fetcher, DataSource dataSource) {
+    cb.onDataFetcherFailed(attemptedKey, e, fetcher, dataSource);
+  }
+
+  /** A result from the speculative source load that's passed on only if the source wins. */
+  private abstract class SourceEvent {
+
+    /**
+     * Passes this event on to our callback.
+     *
+     * @param canReturnNotStarted {@code true} if we're called from {@link
+     *     RacingGenerator#startNext()} and can report that the source load never started by
+     *     returning {@code false}.
+     * @return {@code false} if the source load never started and no callback was called.
+     */
+    abstract boolean forward(boolean canReturnNotStarted);
+
+    /** Releases any data held by this event, which will never be passed on. */
+    abstract void release();
+  }
+
+  private final class SpeculativeSourceCallback implements FetcherReadyCallback {
+
+    @Synthetic
+    SpeculativeSourceCallback() {}
+
+    @Override
+    public void reschedule() {
+      onSpeculativeSourceEvent(
+          new SourceEvent() {
+            @Override
+            boolean forward(boolean canReturnNotStarted) {
+              cb.reschedule();
+              return true;
+            }
+
+            @Override
+            void release() {
+              // The source generator holds the data it wants to write to the disk cache.
+              speculativeSourceGenerator.cleanup();
+            }
+          });
+    }
+
+    @Override
+    public void onDataFetcherReady(
+        final Key sourceKey,
+        @Nullable final Object data,
+        final DataFetcher<?> fetcher,
+        final DataSource dataSource,
+        final Key attemptedKey,
+        @Nullable final Runnable cleanupHook) {
+      onSpeculativeSourceEvent(
+          new SourceEvent() {
+            @Override
+            boolean forward(boolean canReturnNotStarted) {
+              cb.onDataFetcherReady(
+                  sourceKey, data, fetcher, dataSource, attemptedKey, cleanupHook);
+              return true;
+            }
+
+            @Override
+            void release() {
+              try {
+                if (cleanupHook != null) {
+                  cleanupHook.run();
+                }
+              } finally {
+                fetcher.cleanup();
+              }
+            }
+          });
+    }
+
+    @Override
+    public void onDataFetcherFailed(
+        final Key attemptedKey,
+        final Exception e,
+        final DataFetcher<?> fetcher,
+        final DataSource dataSource) {
+      onSpeculativeSourceEvent(
+          new SourceEvent() {
+            @Override
+            boolean forward(boolean canReturnNotStarted) {
+              cb.onDataFetcherFailed(attemptedKey, e, fetcher, dataSource);
+              return true;
+            }
+
+            @Override
+            void release() {
+              fetcher.cleanup();
+            }
+          });
+    }
+  }
+
+  private final class SpeculativeSourceLoad extends PrioritizedRunnable {
+    @Synthetic final Priority priority;
+    private final int order;
+
+    @Synthetic
+    SpeculativeSourceLoad(Priority priority, int order) {
+      this.priority = priority;
+      this.order = order;
+    }
+
+    @Override
+    public Priority getPriority() {
+      return priority;
+    }
+
+    @Override
+    int getOrder() {
+      return order;
+    }
+
+    @Override
+    public void run() {
+      synchronized (RacingGenerator.this) {
+        if (queuedSourceLoad == this) {
+          queuedSourceLoad = null;
+        }
+        if (isSourceAbandoned) {
+          return;
+        }
+      }
+      boolean isStarted;
+      try {
+        isStarted = speculativeSourceGenerator.startNext();
+      } catch (RuntimeException e) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Speculative source load failed, falling back to loading from source", e);
+        }
+        // Loading from source again on the job's thread will report the failure to the job.
+        abandonSource(/* isRescheduleIfWaiting= */ true);
+        return;
+      }
+      if (!isStarted) {
+        onSpeculativeSourceEvent(
+            new SourceEvent() {
+              @Override
+              boolean forward(boolean canReturnNotStarted) {
+                if (canReturnNotStarted) {
+                  return false;
+                }
+                // Let the source generator report that it has nothing to load from a Glide thread.
+                cb.reschedule();
+                return true;
+              }
+
+              @Override
+              void release() {
+                // Nothing was loaded.
+              }
+            });
+      }
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.bumptech.glide.load.engine;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
+import com.bumptech.glide.load.resource.bitmap.TransformationUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the sizes at which untransformed {@link Bitmap}s are held in active resources or the
+ * memory cache so that a request for a smaller size of the same model can be served by scaling
+ * down a larger Bitmap rather than decoding again.
+ *
+ * <p>Only keys for untransformed Bitmaps with fixed dimensions are tracked. Every other part of the
+ * key, including the {@link DownsampleStrategy}, must match exactly.
+ *
+ * <p>Keys are added when a resource becomes active and removed when a resource is evicted from the
+ * memory cache. Keys whose resources have been cleared in some other way are removed lazily by
+ * {@link #remove(EngineKey)} once a lookup finds them missing.
+ */
+final class SizeVariantIndex {
+  private static final Comparator<EngineKey> BY_AREA =
+      new Comparator<EngineKey>() {
+        @Override
+        public int compare(EngineKey first, EngineKey second) {
+          long firstArea = (long) first.getWidth() * first.getHeight();
+          long secondArea = (long) second.getWidth() * second.getHeight();
+          return firstArea < secondArea ? -1 : (firstArea == secondArea ? 0 : 1);
+        }
+      };
+
+  // Keyed by an otherwise identical key with both dimensions set to zero.
+  private final Map<EngineKey, List<EngineKey>> variantsBySizelessKey = new HashMap<>();
+
+  static boolean isEligible(@NonNull EngineKey key) {
+    return key.getWidth() > 0
+        && key.getHeight() > 0
+        && key.getTranscodeClass() == Bitmap.class
+        && !key.hasTransformations();
+  }
+
+  synchronized void add(@NonNull EngineKey key) {
+    if (!isEligible(key)) {
+      return;
+    }
+    EngineKey sizelessKey = key.withSize(0, 0);
+    List<EngineKey> variants = variantsBySizelessKey.get(sizelessKey);
+    if (variants == null) {
+      variants = new ArrayList<>(2);
+      variantsBySizelessKey.put(sizelessKey, variants);
+    }
+    if (!variants.contains(key)) {
+      variants.add(key);
+    }
+  }
+
+  synchronized void remove(@NonNull EngineKey key) {
+    if (!isEligible(key)) {
+      return;
+    }
+    EngineKey sizelessKey = key.withSize(0, 0);
+    List<EngineKey> variants = variantsBySizelessKey.get(sizelessKey);
+    if (variants != null && variants.remove(key) && variants.isEmpty()) {
+      variantsBySizelessKey.remove(sizelessKey);
+    }
+  }
+
+  /**
+   * Returns the keys of tracked variants that are at least as large as the given key in both
+   * dimensions, smallest first, or an empty list if there are none.
+   */
+  @NonNull
+  synchronized List<EngineKey> findLarger(@NonNull EngineKey key) {
+    if (!isEligible(key)) {
+      return Collections.emptyList();
+    }
+    List<EngineKey> variants = variantsBySizelessKey.get(key.withSize(0, 0));
+    if (variants == null) {
+      return Collections.emptyList();
+    }
+    List<EngineKey> result = new ArrayList<>(variants.size());
+    for (EngineKey variant : variants) {
+      if (variant.getWidth() >= key.getWidth()
+          && variant.getHeight() >= key.getHeight()
+          && !variant.equals(key)) {
+        result.add(variant);
+      }
+    }
+    Collections.sort(result, BY_AREA);
+    return result;
+  }
+
+  /**
+   * Returns a copy of the given Bitmap scaled down to the size that decoding for the given key
+   * would produce using the key's {@link DownsampleStrategy}, or {@code null} if the Bitmap can't
+   * be scaled down to produce that size.
+   *
+   * <p>The returned Bitmap is obtained from the given pool.
+   */
+  @Nullable
+  static Bitmap scaleDown(@NonNull BitmapPool bitmapPool, @NonNull Bitmap source, EngineKey key) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+        && source.getConfig() == Bitmap.Config.HARDWARE) {
+      // Hardware Bitmaps can't be drawn into a software Canvas.
+      return null;
+    }
+    DownsampleStrategy strategy = key.getOptions().get(DownsampleStrategy.OPTION);
+    float scaleFactor =
+        strategy.getScaleFactor(
+            source.getWidth(), source.getHeight(), key.getWidth(), key.getHeight());
+    int targetWidth = Math.round(scaleFactor * source.getWidth());
+    int targetHeight = Math.round(scaleFactor * source.getHeight());
+    if (scaleFactor >= 1f
+        || targetWidth <= 0
+        || targetHeight <= 0
+        || (targetWidth == source.getWidth() && targetHeight == source.getHeight())) {
+      return null;
+    }
+    Bitmap result = TransformationUtils.fitCenter(bitmapPool, source, targetWidth, targetHeight);
+    // fitCenter returns the source if no scaling is needed, which we can't share across keys.
+    return result != source ? result : null;
+  }
+}
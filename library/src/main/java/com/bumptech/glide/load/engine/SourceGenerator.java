@@ -3,18 +3,24 @@ package com.bumptech.glide.load.engine;
 import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.bumptech.glide.Registry;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Encoder;
+import com.bumptech.glide.load.ImageMetadata;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.data.DataFetcher.DataCallback;
 import com.bumptech.glide.load.data.DataRewinder;
 import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskCacheAdapter;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
+import com.bumptech.glide.load.model.StreamEncoder;
 import com.bumptech.glide.util.LogTime;
 import com.bumptech.glide.util.Synthetic;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 
 /**
@@ -23,7 +29,10 @@ import java.util.Collections;
  * provided for the load.
  *
  * <p>Depending on the disk cache strategy, source data may first be written to disk and then loaded
- * from the cache file rather than returned directly.
+ * from the cache file rather than returned directly. If {@link
+ * com.bumptech.glide.GlideBuilder#setWriteSourceToDiskCacheWhileDecoding(boolean)} is enabled,
+ * streams are instead returned directly and written to disk as they're decoded, see {@link
+ * DataCacheTee}.
  *
  * <p>This object may be used by multiple threads, but only one at a time. It is not safe to access
  * this object on multiple threads concurrently.
@@ -39,6 +48,8 @@ class SourceGenerator implements DataFetcherGenerator, DataFetcherGenerator.Fetc
   private volatile Object dataToCache;
   private volatile ModelLoader.LoadData<?> loadData;
   private volatile DataCacheKey originalKey;
+  private volatile boolean isAbandoned;
+  @Nullable private volatile DataCacheTee currentTee;
 
   SourceGenerator(DecodeHelper<?> helper, FetcherReadyCallback cb) {
     this.helper = helper;
@@ -97,14 +108,18 @@ class SourceGenerator implements DataFetcherGenerator, DataFetcherGenerator.Fetc
         new DataCallback<Object>() {
           @Override
           public void onDataReady(@Nullable Object data) {
-            if (isCurrentRequest(toStart)) {
+            if (isAbandoned) {
+              toStart.fetcher.cleanup();
+            } else if (isCurrentRequest(toStart)) {
               onDataReadyInternal(toStart, data);
             }
           }
 
           @Override
           public void onLoadFailed(@NonNull Exception e) {
-            if (isCurrentRequest(toStart)) {
+            if (isAbandoned) {
+              toStart.fetcher.cleanup();
+            } else if (isCurrentRequest(toStart)) {
               onLoadFailedInternal(toStart, e);
             }
           }
@@ -153,7 +168,12 @@ class SourceGenerator implements DataFetcherGenerator, DataFetcherGenerator.Fetc
                 + LogTime.getElapsedMillis(startTime));
       }
 
-      if (diskCache.get(newOriginalKey) != null) {
+      // Reading back what we just wrote isn't a new lookup of the key.
+      File cacheFile = diskCache.peek(newOriginalKey);
+      if (cacheFile != null) {
+        if (helper.isPersistImageMetadataEnabled()) {
+          writeImageMetadata(diskCache, newOriginalKey, cacheFile);
+        }
         originalKey = newOriginalKey;
         sourceCacheGenerator =
             new DataCacheGenerator(Collections.singletonList(loadData.sourceKey), helper, this);
@@ -189,12 +209,49 @@ class SourceGenerator implements DataFetcherGenerator, DataFetcherGenerator.Fetc
     }
   }
 
+  private void writeImageMetadata(DiskCache diskCache, DataCacheKey key, File cacheFile) {
+    ImageMetadata metadata =
+        DataCacheImageMetadata.parse(
+            cacheFile, helper.getImageHeaderParsers(), helper.getArrayPool());
+    if (metadata != null) {
+      DataCacheImageMetadata.write(diskCache, key, metadata, cacheFile.length());
+    }
+  }
+
   @Override
   public void cancel() {
     LoadData<?> local = loadData;
     if (local != null) {
       local.fetcher.cancel();
     }
+    DataCacheTee localTee = currentTee;
+    if (localTee != null) {
+      localTee.cancel();
+    }
+  }
+
+  /**
+   * Cancels any load in progress and releases its result when it finishes instead of passing it
+   * to our callback.
+   *
+   * <p>Results that have already been passed to our callback must be released separately, see
+   * {@link #cleanup()}.
+   */
+  void abandon() {
+    isAbandoned = true;
+    cancel();
+  }
+
+  /**
+   * Releases data that has been loaded but will never be written to the disk cache, for example
+   * because the load was abandoned before the data was needed.
+   */
+  void cleanup() {
+    dataToCache = null;
+    LoadData<?> local = loadData;
+    if (local != null) {
+      local.fetcher.cleanup();
+    }
   }
 
   @SuppressWarnings("WeakerAccess")
@@ -202,6 +259,19 @@ class SourceGenerator implements DataFetcherGenerator, DataFetcherGenerator.Fetc
   void onDataReadyInternal(LoadData<?> loadData, Object data) {
     DiskCacheStrategy diskCacheStrategy = helper.getDiskCacheStrategy();
     if (data != null && diskCacheStrategy.isDataCacheable(loadData.fetcher.getDataSource())) {
+      DataCacheTee tee = startTee(loadData, data);
+      if (tee != null) {
+        currentTee = tee;
+        // The data is written to the disk cache when the tee is run after it's decoded.
+        cb.onDataFetcherReady(
+            loadData.sourceKey,
+            tee.getStream(),
+            loadData.fetcher,
+            loadData.fetcher.getDataSource(),
+            loadData.sourceKey,
+            /* cleanupHook= */ tee);
+        return;
+      }
       dataToCache = data;
       // We might be being called back on someone else's thread. Before doing anything, we should
       // reschedule to get back onto Glide's thread. Then once we're back on Glide's thread, we'll
@@ -217,6 +287,46 @@ class SourceGenerator implements DataFetcherGenerator, DataFetcherGenerator.Fetc
     }
   }
 
+  /**
+   * Returns a {@link DataCacheTee} that writes the given data to the disk cache as it's decoded, or
+   * {@code null} if the data should be written to the disk cache before it's decoded.
+   */
+  @Nullable
+  private DataCacheTee startTee(LoadData<?> loadData, Object data) {
+    if (!helper.isWriteSourceWhileDecodingEnabled() || !(data instanceof InputStream)) {
+      return null;
+    }
+    DiskCache diskCache = helper.getDiskCache();
+    if (diskCache instanceof DiskCacheAdapter) {
+      // There's no disk cache, so let the usual path decode the data directly.
+      return null;
+    }
+    try {
+      // Custom encoders may transform the data, so only the default encoder's output is known to
+      // match the bytes we'd copy.
+      if (!(helper.getSourceEncoder(data) instanceof StreamEncoder)) {
+        return null;
+      }
+    } catch (Registry.NoSourceEncoderAvailableException e) {
+      return null;
+    }
+    try {
+      return DataCacheTee.start(
+          (InputStream) data,
+          helper.getCacheDir(),
+          diskCache,
+          new DataCacheKey(loadData.sourceKey, helper.getSignature()),
+          helper.getArrayPool(),
+          helper.getOptions(),
+          helper.isPersistImageMetadataEnabled() ? helper.getImageHeaderParsers() : null);
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to start writing source to cache while decoding", e);
+      }
+      return null;
+    }
+  }
+
   @SuppressWarnings("WeakerAccess")
   @Synthetic
   void onLoadFailedInternal(LoadData<?> loadData, @NonNull Exception e) {
@@ -233,10 +343,16 @@ class SourceGenerator implements DataFetcherGenerator, DataFetcherGenerator.Fetc
   // Called from source cache generator.
   @Override
   public void onDataFetcherReady(
-      Key sourceKey, Object data, DataFetcher<?> fetcher, DataSource dataSource, Key attemptedKey) {
+      Key sourceKey,
+      Object data,
+      DataFetcher<?> fetcher,
+      DataSource dataSource,
+      Key attemptedKey,
+      @Nullable Runnable cleanupHook) {
     // This data fetcher will be loading from a File and provide the wrong data source, so override
     // with the data source of the original fetcher
-    cb.onDataFetcherReady(sourceKey, data, fetcher, loadData.fetcher.getDataSource(), sourceKey);
+    cb.onDataFetcherReady(
+        sourceKey, data, fetcher, loadData.fetcher.getDataSource(), sourceKey, cleanupHook);
   }
 
   @Override
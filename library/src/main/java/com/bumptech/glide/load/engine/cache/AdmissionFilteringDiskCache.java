@@ -0,0 +1,76 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.util.Log;
+import com.bumptech.glide.load.Key;
+import java.io.File;
+
+/**
+ * A {@link DiskCache} that counts lookups made with {@link #get(Key)} and only passes on writes
+ * accepted by a {@link DiskCacheAdmissionFilter}.
+ */
+final class AdmissionFilteringDiskCache implements DiskCache {
+  private static final String TAG = "AdmissionFilterCache";
+
+  private final DiskCache delegate;
+  private final DiskCacheAdmissionFilter filter;
+  private final SafeKeyGenerator safeKeyGenerator;
+
+  AdmissionFilteringDiskCache(DiskCache delegate, DiskCacheAdmissionFilter filter) {
+    this.delegate = delegate;
+    this.filter = filter;
+    safeKeyGenerator = getSafeKeyGenerator(delegate);
+  }
+
+  /**
+   * Returns the generator the given cache names its entries with, so that each key is only hashed
+   * once and with the configured algorithm, or a new generator for other caches.
+   */
+  private static SafeKeyGenerator getSafeKeyGenerator(DiskCache diskCache) {
+    if (diskCache instanceof DiskLruCacheWrapper) {
+      return ((DiskLruCacheWrapper) diskCache).getSafeKeyGenerator();
+    } else if (diskCache instanceof ShardedDiskCache) {
+      return ((ShardedDiskCache) diskCache).getSafeKeyGenerator();
+    } else if (diskCache instanceof PackFileDiskCache) {
+      return ((PackFileDiskCache) diskCache).getSafeKeyGenerator();
+    }
+    return new SafeKeyGenerator();
+  }
+
+  @Override
+  public File get(Key key) {
+    filter.recordAccess(safeKeyGenerator, key);
+    return delegate.get(key);
+  }
+
+  @Override
+  public File peek(Key key) {
+    return delegate.peek(key);
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    if (writer instanceof DiskCacheAdmissionFilter.DependentWriter) {
+      delegate.put(key, writer);
+      return;
+    }
+    long costMillis =
+        writer instanceof DiskCacheAdmissionFilter.CostAwareWriter
+            ? ((DiskCacheAdmissionFilter.CostAwareWriter) writer).getCostMillis()
+            : 0;
+    if (filter.admit(safeKeyGenerator, key, costMillis)) {
+      delegate.put(key, writer);
+    } else if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, "Rejected write for key: " + key + ", cost: " + costMillis + "ms");
+    }
+  }
+
+  @Override
+  public void delete(Key key) {
+    delegate.delete(key);
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+  }
+}
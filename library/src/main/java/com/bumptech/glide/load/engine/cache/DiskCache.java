@@ -43,6 +43,21 @@ public interface DiskCache {
   @Nullable
   File get(Key key);
 
+  /**
+   * Get the cache for the value at the given key, like {@link #get(Key)}, but without counting the
+   * call as a lookup in caches that track how often keys are looked up.
+   *
+   * <p>Used to read back values that were just written with {@link #put(Key, Writer)}, and values
+   * that are only read alongside another value that was looked up, neither of which are new
+   * requests for the value.
+   *
+   * @param key The key in the cache.
+   */
+  @Nullable
+  default File peek(Key key) {
+    return get(key);
+  }
+
   /**
    * Write to a key in the cache. {@link Writer} is used so that the cache implementation can
    * perform actions after the write finishes, like commit (via atomic file rename).
@@ -0,0 +1,137 @@
+package com.bumptech.glide.load.engine.cache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.load.Key;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which entries are worth writing to a disk cache, based on how often their keys have
+ * been looked up recently and how expensive the entries were to produce.
+ *
+ * <p>By default every image that's loaded is written to the disk cache, so images that are only
+ * ever shown once, like those passed while scrolling quickly through a long list, evict images
+ * that are shown repeatedly and use up write bandwidth. Disk caches wrapped by {@link
+ * #wrap(DiskCache.Factory)} instead only write entries whose keys have been looked up at least a
+ * given number of times, or entries that took at least a given amount of time to decode and
+ * transform. Lookups are counted in a small, fixed size sketch, so counts are approximate and old
+ * lookups are gradually forgotten.
+ *
+ * <p>Rejecting a write doesn't fail the load. Loads whose data isn't written to the disk cache are
+ * decoded directly from the source data instead.
+ *
+ * <p>This is an experimental API that may be removed in the future.
+ */
+// Public API.
+@SuppressWarnings("WeakerAccess")
+public final class DiskCacheAdmissionFilter {
+  /** The largest supported minimum frequency. */
+  public static final int MAX_MIN_FREQUENCY = FrequencySketch.MAX_FREQUENCY;
+
+  private static final int DEFAULT_EXPECTED_ITEMS = 4096;
+
+  private final AtomicLong admittedCount = new AtomicLong();
+  private final AtomicLong rejectedCount = new AtomicLong();
+  private final int minFrequency;
+  private final long minCostMillis;
+  private final FrequencySketch sketch;
+
+  /**
+   * Implemented by {@link DiskCache.Writer}s that know how long it took to produce the data they
+   * write.
+   */
+  public interface CostAwareWriter extends DiskCache.Writer {
+    /** Returns how long producing the data to write took, in milliseconds. */
+    long getCostMillis();
+  }
+
+  /**
+   * Implemented by {@link DiskCache.Writer}s that write a small record describing an entry that's
+   * already in the disk cache.
+   *
+   * <p>These writes are always admitted because the entry they describe was admitted, and they
+   * aren't counted as admitted or rejected writes.
+   */
+  public interface DependentWriter extends DiskCache.Writer {}
+
+  /**
+   * @param minFrequency The number of times a key must have been looked up for its entry to be
+   *     written, at most {@link #MAX_MIN_FREQUENCY}.
+   * @param minCostMillis The time in milliseconds that producing an entry must have taken for it
+   *     to be written regardless of how often its key was looked up, or {@link Long#MAX_VALUE} to
+   *     ignore the cost of entries.
+   */
+  public DiskCacheAdmissionFilter(int minFrequency, long minCostMillis) {
+    this(minFrequency, minCostMillis, DEFAULT_EXPECTED_ITEMS);
+  }
+
+  /**
+   * @param expectedItems The approximate number of distinct keys looked up in the disk cache
+   *     within the period that lookups should be remembered for. Each key uses eight bytes.
+   * @see #DiskCacheAdmissionFilter(int, long)
+   */
+  public DiskCacheAdmissionFilter(int minFrequency, long minCostMillis, int expectedItems) {
+    if (minFrequency < 1 || minFrequency > MAX_MIN_FREQUENCY) {
+      throw new IllegalArgumentException(
+          "Minimum frequency must be between 1 and "
+              + MAX_MIN_FREQUENCY
+              + ", given: "
+              + minFrequency);
+    }
+    this.minFrequency = minFrequency;
+    this.minCostMillis = minCostMillis;
+    sketch = new FrequencySketch(expectedItems);
+  }
+
+  /**
+   * Returns a factory that builds the disk caches built by the given factory, with writes filtered
+   * by this object.
+   *
+   * <p>The result can be passed to {@link com.bumptech.glide.GlideBuilder#setDiskCache(
+   * DiskCache.Factory)}.
+   */
+  @NonNull
+  public DiskCache.Factory wrap(@NonNull final DiskCache.Factory factory) {
+    return new DiskCache.Factory() {
+      @Nullable
+      @Override
+      public DiskCache build() {
+        DiskCache diskCache = factory.build();
+        return diskCache != null
+            ? new AdmissionFilteringDiskCache(diskCache, DiskCacheAdmissionFilter.this)
+            : null;
+      }
+    };
+  }
+
+  /** Returns the number of writes that have been passed on to the disk cache. */
+  public long getAdmittedCount() {
+    return admittedCount.get();
+  }
+
+  /** Returns the number of writes that have been dropped. */
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  void recordAccess(SafeKeyGenerator safeKeyGenerator, Key key) {
+    int hashCode = safeKeyGenerator.getSafeKey(key).hashCode();
+    synchronized (sketch) {
+      sketch.increment(hashCode);
+    }
+  }
+
+  boolean admit(SafeKeyGenerator safeKeyGenerator, Key key, long costMillis) {
+    boolean result =
+        costMillis >= minCostMillis || getFrequency(safeKeyGenerator, key) >= minFrequency;
+    (result ? admittedCount : rejectedCount).incrementAndGet();
+    return result;
+  }
+
+  private int getFrequency(SafeKeyGenerator safeKeyGenerator, Key key) {
+    int hashCode = safeKeyGenerator.getSafeKey(key).hashCode();
+    synchronized (sketch) {
+      return sketch.frequency(hashCode);
+    }
+  }
+}
@@ -1,105 +1,65 @@
 package com.bumptech.glide.load.engine.cache;
 
-import com.bumptech.glide.util.Preconditions;
-import com.bumptech.glide.util.Synthetic;
-import java.util.ArrayDeque;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.locks.Lock;
+import androidx.annotation.VisibleForTesting;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Keeps a map of keys to locks that allows locks to be removed from the map when no longer in use
- * so the size of the collection is bounded.
+ * Serializes writes to the same key using a fixed number of locks, each of which guards every key
+ * whose hash falls in its stripe.
  *
- * <p>This class will be accessed by multiple threads in a thread pool and ensures that the number
- * of threads interested in each lock is updated atomically so that when the count reaches 0, the
- * lock can safely be removed from the map.
+ * <p>This class will be accessed by multiple threads in a thread pool. Unlike a map of keys to
+ * locks, acquiring and releasing a stripe doesn't contend on a shared monitor or allocate, so the
+ * cost of a write isn't affected by the number of other threads writing at the same time.
+ *
+ * <p>Distinct keys that share a stripe are written one at a time. The number of stripes is
+ * comfortably larger than the number of threads that write to the disk cache, so this is rare.
+ * Callers must not wait on another thread that may acquire a lock from the same locker while
+ * holding a lock.
  */
 final class DiskCacheWriteLocker {
-  private final Map<String, WriteLock> locks = new HashMap<>();
-  private final WriteLockPool writeLockPool = new WriteLockPool();
+  private static final int DEFAULT_STRIPE_COUNT = 64;
 
-  void acquire(String safeKey) {
-    WriteLock writeLock;
-    synchronized (this) {
-      writeLock = locks.get(safeKey);
-      if (writeLock == null) {
-        writeLock = writeLockPool.obtain();
-        locks.put(safeKey, writeLock);
-      }
-      writeLock.interestedThreads++;
-    }
+  private final ReentrantLock[] stripes;
+  private final int mask;
 
-    writeLock.lock.lock();
+  DiskCacheWriteLocker() {
+    this(DEFAULT_STRIPE_COUNT);
   }
 
-  void release(String safeKey) {
-    WriteLock writeLock;
-    synchronized (this) {
-      writeLock = Preconditions.checkNotNull(locks.get(safeKey));
-      if (writeLock.interestedThreads < 1) {
-        throw new IllegalStateException(
-            "Cannot release a lock that is not held"
-                + ", safeKey: "
-                + safeKey
-                + ", interestedThreads: "
-                + writeLock.interestedThreads);
-      }
-
-      writeLock.interestedThreads--;
-      if (writeLock.interestedThreads == 0) {
-        WriteLock removed = locks.remove(safeKey);
-        if (!removed.equals(writeLock)) {
-          throw new IllegalStateException(
-              "Removed the wrong lock"
-                  + ", expected to remove: "
-                  + writeLock
-                  + ", but actually removed: "
-                  + removed
-                  + ", safeKey: "
-                  + safeKey);
-        }
-        writeLockPool.offer(removed);
-      }
+  @VisibleForTesting
+  DiskCacheWriteLocker(int stripeCount) {
+    if (Integer.bitCount(stripeCount) != 1) {
+      throw new IllegalArgumentException(
+          "Stripe count must be a power of two, given: " + stripeCount);
     }
-
-    writeLock.lock.unlock();
+    stripes = new ReentrantLock[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+    mask = stripeCount - 1;
   }
 
-  private static class WriteLock {
-    final Lock lock = new ReentrantLock();
-    int interestedThreads;
-
-    @Synthetic
-    WriteLock() {}
+  void acquire(String safeKey) {
+    getStripe(safeKey).lock();
   }
 
-  private static class WriteLockPool {
-    private static final int MAX_POOL_SIZE = 10;
-    private final Queue<WriteLock> pool = new ArrayDeque<>();
-
-    @Synthetic
-    WriteLockPool() {}
-
-    WriteLock obtain() {
-      WriteLock result;
-      synchronized (pool) {
-        result = pool.poll();
-      }
-      if (result == null) {
-        result = new WriteLock();
-      }
-      return result;
+  void release(String safeKey) {
+    ReentrantLock stripe = getStripe(safeKey);
+    if (!stripe.isHeldByCurrentThread()) {
+      throw new IllegalStateException(
+          "Cannot release a lock that is not held"
+              + ", safeKey: "
+              + safeKey
+              + ", holdCount: "
+              + stripe.getHoldCount());
     }
+    stripe.unlock();
+  }
 
-    void offer(WriteLock writeLock) {
-      synchronized (pool) {
-        if (pool.size() < MAX_POOL_SIZE) {
-          pool.offer(writeLock);
-        }
-      }
-    }
+  private ReentrantLock getStripe(String safeKey) {
+    int hash = safeKey.hashCode();
+    // Spread the high bits of the hash into the low bits that pick the stripe.
+    hash ^= hash >>> 16;
+    return stripes[hash & mask];
   }
 }
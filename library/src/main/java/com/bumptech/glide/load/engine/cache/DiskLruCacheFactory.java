@@ -1,5 +1,6 @@
 package com.bumptech.glide.load.engine.cache;
 
+import androidx.annotation.NonNull;
 import java.io.File;
 
 /**
@@ -14,6 +15,11 @@ import java.io.File;
 public class DiskLruCacheFactory implements DiskCache.Factory {
   private final long diskCacheSize;
   private final CacheDirectoryGetter cacheDirectoryGetter;
+  private final int shardCount;
+  private boolean useBinaryJournal;
+  private boolean useGroupCommit;
+  private boolean openInBackground;
+  private SafeKeyGenerator.HashAlgorithm hashAlgorithm = SafeKeyGenerator.HashAlgorithm.SHA_256;
 
   /** Interface called out of UI thread to get the cache folder. */
   public interface CacheDirectoryGetter {
@@ -53,8 +59,125 @@ public class DiskLruCacheFactory implements DiskCache.Factory {
   // Public API.
   @SuppressWarnings("WeakerAccess")
   public DiskLruCacheFactory(CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize) {
+    this(cacheDirectoryGetter, diskCacheSize, /* shardCount= */ 1);
+  }
+
+  /**
+   * Creates a factory for a disk cache that partitions keys by hash across the given number of
+   * independent {@link com.bumptech.glide.disklrucache.DiskLruCache}s.
+   *
+   * <p>Every {@link com.bumptech.glide.disklrucache.DiskLruCache} serializes reads and writes on a
+   * single lock and journal, so concurrent loads from the disk and source executors contend with
+   * each other. Each shard has its own lock and journal in a subdirectory of the cache folder,
+   * and a {@code 1 / shardCount} share of {@code diskCacheSize}, so the total size limit is only
+   * enforced approximately.
+   *
+   * <p>Keys are assigned to shards based on {@code shardCount}, so entries written with one shard
+   * count won't be found with another. Any unsharded cache in the cache folder is removed when a
+   * cache with more than one shard is built.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize Desired max bytes size for all shards of the LRU disk cache combined.
+   * @param shardCount The number of shards, {@code 1} for an unsharded cache.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public DiskLruCacheFactory(
+      CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize, int shardCount) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("Shard count must be at least 1, given: " + shardCount);
+    }
     this.diskCacheSize = diskCacheSize;
     this.cacheDirectoryGetter = cacheDirectoryGetter;
+    this.shardCount = shardCount;
+  }
+
+  /**
+   * Sets whether the cache's journal is written in a compact binary format instead of text.
+   *
+   * <p>The binary journal is smaller and is replayed faster when the cache is opened, which
+   * shortens the delay before the first disk cache read after a cold start, especially for large
+   * caches. An existing journal in the other format is migrated when the cache is opened. Versions
+   * of Glide that don't support the binary journal will clear a cache that uses it, so only
+   * enable it if the app won't be downgraded to such a version.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   *
+   * @return This factory.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public DiskLruCacheFactory experimentalSetUseBinaryJournal(boolean useBinaryJournal) {
+    this.useBinaryJournal = useBinaryJournal;
+    return this;
+  }
+
+  /**
+   * Sets whether journal writes from concurrent edits are batched into a single flush.
+   *
+   * <p>By default the cache flushes its journal at least twice for every entry written, which adds
+   * up to many small writes while prefetching. With group commit, entries written at about the
+   * same time share flushes. Entries written shortly before the process dies may be lost, but the
+   * cache never exposes partially written entries after a restart.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   *
+   * @return This factory.
+   * @see com.bumptech.glide.disklrucache.DiskLruCache#experimentalSetGroupCommitEnabled(boolean)
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public DiskLruCacheFactory experimentalSetUseGroupCommit(boolean useGroupCommit) {
+    this.useGroupCommit = useGroupCommit;
+    return this;
+  }
+
+  /**
+   * Sets whether the cache starts replaying its journal on a background thread as soon as it's
+   * built, rather than on the first read or write.
+   *
+   * <p>Glide builds its disk cache shortly after it's initialized, so with this option reads of the
+   * first images after a cold start don't have to wait for the whole journal to be replayed.
+   * Instead, until the journal has been replayed, reads look for each entry's file directly. Writes
+   * still wait for the journal to be replayed.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   *
+   * @return This factory.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public DiskLruCacheFactory experimentalSetOpenInBackground(boolean openInBackground) {
+    this.openInBackground = openInBackground;
+    return this;
+  }
+
+  /** Returns whether {@link #experimentalSetOpenInBackground(boolean)} was enabled. */
+  public boolean isOpenInBackground() {
+    return openInBackground;
+  }
+
+  /**
+   * Sets the hash function used to derive file names from cache keys.
+   *
+   * <p>{@link SafeKeyGenerator.HashAlgorithm#MURMUR3_128} is much cheaper to calculate than the
+   * default, which matters when the memory cache misses often. Entries written with a different
+   * algorithm can't be found, but they're never read, so they're the first to be evicted as new
+   * entries are written. To reclaim their space immediately instead, clear the cache or use a new
+   * cache directory when changing algorithms.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   *
+   * @return This factory.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public DiskLruCacheFactory experimentalSetKeyHashAlgorithm(
+      @NonNull SafeKeyGenerator.HashAlgorithm hashAlgorithm) {
+    this.hashAlgorithm = hashAlgorithm;
+    return this;
   }
 
   @Override
@@ -66,7 +189,32 @@ public class DiskLruCacheFactory implements DiskCache.Factory {
     }
 
     if (cacheDir.isDirectory() || cacheDir.mkdirs()) {
-      return DiskLruCacheWrapper.create(cacheDir, diskCacheSize);
+      if (shardCount > 1) {
+        ShardedDiskCache result =
+            ShardedDiskCache.create(
+                cacheDir,
+                diskCacheSize,
+                shardCount,
+                useBinaryJournal,
+                useGroupCommit,
+                hashAlgorithm);
+        if (openInBackground) {
+          result.openInBackground(DiskLruCacheWrapper.newOpenExecutor(shardCount));
+        }
+        return result;
+      }
+      DiskLruCacheWrapper result =
+          new DiskLruCacheWrapper(
+              cacheDir,
+              diskCacheSize,
+              /* memoizePathNames= */ false,
+              new SafeKeyGenerator(hashAlgorithm),
+              useBinaryJournal,
+              useGroupCommit);
+      if (openInBackground) {
+        result.openInBackground(DiskLruCacheWrapper.newOpenExecutor(/* cacheCount= */ 1));
+      }
+      return result;
     }
 
     return null;
@@ -5,11 +5,21 @@
 package com.bumptech.glide.load.engine.cache;
 
 import android.util.Log;
+import androidx.annotation.Nullable;
 import com.bumptech.glide.disklrucache.DiskLruCache;
 import com.bumptech.glide.disklrucache.DiskLruCache.Value;
 import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  * The default DiskCache implementation. There must be no more than one active instance for a given
@@ -19,17 +29,26 @@ import java.io.IOException;
  */
 public class DiskLruCacheWrapper implements DiskCache {
   private static final String TAG = "DiskLruCacheWrapper";
+  private static final String OPEN_EXECUTOR_NAME = "disk-cache-open";
+  private static final long OPEN_THREAD_TIMEOUT_MS = 1000;
 
-  private static final int APP_VERSION = 1;
-  private static final int VALUE_COUNT = 1;
+  static final int APP_VERSION = 1;
+  static final int VALUE_COUNT = 1;
   private static DiskLruCacheWrapper wrapper;
 
   private final SafeKeyGenerator safeKeyGenerator;
   private final File directory;
   private final long maxSize;
   private final boolean memoizePathNames;
+  private final boolean useBinaryJournal;
+  private final boolean useGroupCommit;
   private final DiskCacheWriteLocker writeLocker = new DiskCacheWriteLocker();
+  // Safe keys of the entries returned by get while the cache was opening in the background.
+  private final List<String> keysReadWhileOpening =
+      Collections.synchronizedList(new ArrayList<String>());
   private DiskLruCache diskLruCache;
+  // Set by openInBackground until the cache is first used after the open finishes.
+  @Nullable private volatile FutureTask<DiskLruCache> pendingOpen;
 
   /**
    * Get a DiskCache in the given directory and size. If a disk cache has already been created with
@@ -92,27 +111,145 @@ public class DiskLruCacheWrapper implements DiskCache {
   }
 
   protected DiskLruCacheWrapper(File directory, long maxSize, boolean memoizePathNames) {
+    this(
+        directory,
+        maxSize,
+        memoizePathNames,
+        new SafeKeyGenerator(),
+        /* useBinaryJournal= */ false,
+        /* useGroupCommit= */ false);
+  }
+
+  DiskLruCacheWrapper(
+      File directory,
+      long maxSize,
+      boolean memoizePathNames,
+      SafeKeyGenerator safeKeyGenerator,
+      boolean useBinaryJournal,
+      boolean useGroupCommit) {
     this.directory = directory;
     this.maxSize = maxSize;
     this.memoizePathNames = memoizePathNames;
-    this.safeKeyGenerator = new SafeKeyGenerator();
+    this.safeKeyGenerator = safeKeyGenerator;
+    this.useBinaryJournal = useBinaryJournal;
+    this.useGroupCommit = useGroupCommit;
+  }
+
+  /**
+   * Returns an executor for {@link #openInBackground(Executor)} with one thread for each of the
+   * given number of caches, so that every open starts immediately. The threads exit once the opens
+   * finish.
+   */
+  static GlideExecutor newOpenExecutor(int cacheCount) {
+    return GlideExecutor.newDiskCacheBuilder()
+        .setName(OPEN_EXECUTOR_NAME)
+        .setThreadCount(cacheCount)
+        .setThreadTimeoutMillis(OPEN_THREAD_TIMEOUT_MS)
+        .build();
+  }
+
+  /**
+   * Starts opening the cache on the given executor, if it isn't already open or opening.
+   *
+   * <p>Until the journal has been replayed, {@link #get(Key)} checks for each entry's file directly
+   * instead of waiting for the open, and the entries it finds are marked as read once the open
+   * finishes. Puts, deletes and clears wait for the open to finish.
+   */
+  synchronized void openInBackground(Executor executor) {
+    if (diskLruCache != null || pendingOpen != null) {
+      return;
+    }
+    // The task must not acquire this object's lock, getDiskCache waits for it while holding it.
+    FutureTask<DiskLruCache> task =
+        new FutureTask<>(
+            new Callable<DiskLruCache>() {
+              @Override
+              public DiskLruCache call() throws IOException {
+                return openDiskCache();
+              }
+            });
+    pendingOpen = task;
+    executor.execute(task);
   }
 
   private synchronized DiskLruCache getDiskCache() throws IOException {
     if (diskLruCache == null) {
-      diskLruCache =
-          DiskLruCache.experimentalOpen(
-              directory, APP_VERSION, VALUE_COUNT, maxSize, memoizePathNames);
+      FutureTask<DiskLruCache> pendingOpen = this.pendingOpen;
+      diskLruCache = pendingOpen != null ? awaitOpen(pendingOpen) : openDiskCache();
     }
     return diskLruCache;
   }
 
+  private DiskLruCache awaitOpen(FutureTask<DiskLruCache> task) throws IOException {
+    DiskLruCache result;
+    try {
+      result = task.get();
+    } catch (InterruptedException e) {
+      // The open is still running, so leave it pending rather than opening the cache again.
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the disk cache to open");
+    } catch (ExecutionException e) {
+      // Allow the next call to try to open the cache again.
+      pendingOpen = null;
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+    pendingOpen = null;
+    synchronized (keysReadWhileOpening) {
+      for (String safeKey : keysReadWhileOpening) {
+        result.get(safeKey);
+      }
+      keysReadWhileOpening.clear();
+    }
+    return result;
+  }
+
+  private DiskLruCache openDiskCache() throws IOException {
+    DiskLruCache result =
+        DiskLruCache.experimentalOpen(
+            directory, APP_VERSION, VALUE_COUNT, maxSize, memoizePathNames, useBinaryJournal);
+    if (useGroupCommit) {
+      result.experimentalSetGroupCommitEnabled(true);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the clean file for the given safe key if one exists, without waiting for the journal.
+   *
+   * <p>The journal may later show that the file belongs to an entry that was never committed, in
+   * which case the file is deleted when the open finishes and reading it fails the same way reading
+   * an entry that was evicted after it was returned does.
+   */
+  @Nullable
+  private File getWhileOpening(String safeKey) {
+    // See DiskLruCache.
+    File file = new File(directory, safeKey + ".0");
+    if (!file.isFile()) {
+      return null;
+    }
+    keysReadWhileOpening.add(safeKey);
+    return file;
+  }
+
+  /** Returns the generator used to name this cache's entries. */
+  SafeKeyGenerator getSafeKeyGenerator() {
+    return safeKeyGenerator;
+  }
+
   @Override
   public File get(Key key) {
     String safeKey = safeKeyGenerator.getSafeKey(key);
     if (Log.isLoggable(TAG, Log.VERBOSE)) {
       Log.v(TAG, "Get: Obtained: " + safeKey + " for for Key: " + key);
     }
+    FutureTask<DiskLruCache> pendingOpen = this.pendingOpen;
+    if (pendingOpen != null && !pendingOpen.isDone()) {
+      return getWhileOpening(safeKey);
+    }
     File result = null;
     try {
       // It is possible that the there will be a put in between these two gets. If so that shouldn't
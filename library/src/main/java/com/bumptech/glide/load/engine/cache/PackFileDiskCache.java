@@ -0,0 +1,859 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link DiskCache} that appends entries to a small number of large segment files rather than
+ * storing each entry in its own file.
+ *
+ * <p>An in memory index maps each key to the location of its data in a segment. The index is
+ * rebuilt when the cache is opened by reading the header of every record in every segment. Only
+ * the newest segment is written to, once it's full a new segment is started. Once the cache
+ * exceeds its maximum size, the oldest segments are deleted along with every entry in them, so
+ * eviction is first in first out rather than least recently used. Segments whose entries have
+ * mostly been deleted are compacted in the background by copying their remaining entries into the
+ * newest segment.
+ *
+ * <p>{@link #get(Key)} has to return a {@link File}, so reads copy the entry's data into its own
+ * file. A limited number of these files are kept so that entries that are read repeatedly are only
+ * copied once.
+ *
+ * <p>Entries larger than a given size can optionally be stored in a separate {@link DiskCache}.
+ *
+ * <p>Segments aren't synced to disk after every write, so entries written shortly before the
+ * process or device dies may be lost. Partially written entries are discarded when the cache is
+ * opened.
+ */
+final class PackFileDiskCache implements DiskCache {
+  private static final String TAG = "PackFileDiskCache";
+  private static final String SEGMENT_FILE_PREFIX = "pack-";
+  private static final String STAGING_FILE_PREFIX = "staging-";
+  private static final String EXTRACTED_DIRECTORY = "extracted";
+  private static final String EXTRACTING_FILE_SUFFIX = ".tmp";
+
+  // "GLPF"
+  private static final int RECORD_MAGIC = 0x474c5046;
+  private static final byte TYPE_PUT = 1;
+  private static final byte TYPE_DELETE = 2;
+  // The magic, type, key length, data length and data CRC, followed by the key and then the data.
+  private static final int RECORD_HEADER_SIZE = 4 + 1 + 2 + 4 + 4;
+  private static final int DATA_CRC_OFFSET = 4 + 1 + 2 + 4;
+
+  private static final long MAX_SEGMENT_SIZE = 4 * 1024 * 1024;
+  private static final int MIN_SEGMENT_COUNT = 8;
+  // Segments are compacted once less than this fraction of their size belongs to current entries.
+  private static final float COMPACTION_THRESHOLD = 0.5f;
+  private static final int MAX_EXTRACTED_FILES = 64;
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  private final SafeKeyGenerator safeKeyGenerator = new SafeKeyGenerator();
+  private final DiskCacheWriteLocker writeLocker = new DiskCacheWriteLocker();
+  private final AtomicLong nextTempFileId = new AtomicLong();
+  private final File directory;
+  private final File extractedDirectory;
+  private final long maxSize;
+  private final long segmentSize;
+  @Nullable private final DiskCache largeEntryCache;
+  private final long largeEntryThreshold;
+
+  /** Compacts segments on a single background thread. */
+  @VisibleForTesting
+  final ThreadPoolExecutor compactionExecutor =
+      new ThreadPoolExecutor(
+          0,
+          1,
+          60L,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          new CompactionThreadFactory());
+
+  // Held while appending records, before this object's lock if both are held, so that entries can
+  // be copied into a segment without blocking reads.
+  private final Object appendLock = new Object();
+  // Guarded by appendLock.
+  private final byte[] appendBuffer = new byte[BUFFER_SIZE];
+
+  // Everything below is guarded by this object's lock.
+  private final Map<String, Location> index = new HashMap<>();
+  private final TreeMap<Long, Segment> segments = new TreeMap<>();
+  private final Set<Segment> pendingCompactions = new HashSet<>();
+  // In access order, so the least recently read file is removed first.
+  private final LinkedHashMap<String, File> extractedFiles =
+      new LinkedHashMap<>(16, 0.75f, /* accessOrder= */ true);
+  private Segment activeSegment;
+  private long size;
+  private boolean isOpen;
+
+  /**
+   * @param directory The directory to store segments in, which may also contain other files.
+   * @param maxSize The maximum size of all segments combined.
+   * @param largeEntryCache An optional cache for entries larger than {@code largeEntryThreshold}.
+   * @param largeEntryThreshold The size in bytes above which entries are written to {@code
+   *     largeEntryCache}, if it's non-null.
+   */
+  PackFileDiskCache(
+      File directory, long maxSize, @Nullable DiskCache largeEntryCache, long largeEntryThreshold) {
+    this(
+        directory,
+        maxSize,
+        Math.max(1, Math.min(MAX_SEGMENT_SIZE, maxSize / MIN_SEGMENT_COUNT)),
+        largeEntryCache,
+        largeEntryThreshold);
+  }
+
+  @VisibleForTesting
+  PackFileDiskCache(
+      File directory,
+      long maxSize,
+      long segmentSize,
+      @Nullable DiskCache largeEntryCache,
+      long largeEntryThreshold) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    this.segmentSize = segmentSize;
+    this.largeEntryCache = largeEntryCache;
+    this.largeEntryThreshold = largeEntryThreshold;
+    extractedDirectory = new File(directory, EXTRACTED_DIRECTORY);
+  }
+
+  /** Returns the generator used to name this cache's entries. */
+  SafeKeyGenerator getSafeKeyGenerator() {
+    return safeKeyGenerator;
+  }
+
+  @Override
+  public File get(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    Location location;
+    synchronized (this) {
+      try {
+        openIfNeeded();
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.WARN)) {
+          Log.w(TAG, "Unable to open disk cache", e);
+        }
+        return null;
+      }
+      location = index.get(safeKey);
+      File extracted = extractedFiles.get(safeKey);
+      if (extracted != null) {
+        return extracted;
+      }
+    }
+    if (location != null) {
+      return extract(safeKey, location);
+    }
+    return largeEntryCache != null ? largeEntryCache.get(key) : null;
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    // As in DiskLruCacheWrapper, puts block so that data is available when put completes.
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    writeLocker.acquire(safeKey);
+    try {
+      synchronized (this) {
+        openIfNeeded();
+        if (index.containsKey(safeKey)) {
+          return;
+        }
+      }
+      if (largeEntryCache != null && largeEntryCache.get(key) != null) {
+        return;
+      }
+      File staging = newTempFile(directory, STAGING_FILE_PREFIX, /* suffix= */ "");
+      try {
+        if (!writer.write(staging)) {
+          return;
+        }
+        long length = staging.length();
+        if (largeEntryCache != null && length > largeEntryThreshold) {
+          putLargeEntry(key, staging);
+          return;
+        }
+        if (length > Integer.MAX_VALUE) {
+          throw new IOException("Entry is too large: " + length);
+        }
+        InputStream is = new FileInputStream(staging);
+        try {
+          appendEntry(safeKey, is, (int) length);
+        } finally {
+          is.close();
+        }
+      } finally {
+        if (staging.exists() && !staging.delete() && Log.isLoggable(TAG, Log.WARN)) {
+          Log.w(TAG, "Unable to delete staging file: " + staging);
+        }
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to put to disk cache", e);
+      }
+    } finally {
+      writeLocker.release(safeKey);
+    }
+  }
+
+  private void putLargeEntry(Key key, final File staging) {
+    Preconditions.checkNotNull(largeEntryCache)
+        .put(
+            key,
+            new Writer() {
+              @Override
+              public boolean write(@NonNull File file) {
+                return staging.renameTo(file);
+              }
+            });
+  }
+
+  /**
+   * Appends a record for the given entry to the active segment and adds it to the index.
+   *
+   * <p>The data is copied without holding this object's lock, so reads aren't blocked while large
+   * entries are written.
+   */
+  private void appendEntry(String safeKey, InputStream data, int dataLength) throws IOException {
+    synchronized (appendLock) {
+      Segment segment;
+      synchronized (this) {
+        // The cache may have been cleared while the writer was running.
+        openIfNeeded();
+        segment = prepareActiveSegment();
+      }
+      Location location = writeRecord(segment, TYPE_PUT, safeKey, data, dataLength);
+      synchronized (this) {
+        if (segments.get(segment.id) != segment) {
+          throw new IOException("Disk cache was cleared while writing: " + safeKey);
+        }
+        commitRecord(location);
+        putLocation(safeKey, location);
+        trimToSize();
+      }
+    }
+  }
+
+  @Override
+  public void delete(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    synchronized (appendLock) {
+      synchronized (this) {
+        try {
+          openIfNeeded();
+          if (index.containsKey(safeKey)) {
+            append(TYPE_DELETE, safeKey, /* data= */ null, /* dataLength= */ 0);
+            removeLocation(safeKey);
+          }
+        } catch (IOException e) {
+          if (Log.isLoggable(TAG, Log.WARN)) {
+            Log.w(TAG, "Unable to delete from disk cache", e);
+          }
+        }
+      }
+    }
+    if (largeEntryCache != null) {
+      largeEntryCache.delete(key);
+    }
+  }
+
+  @Override
+  public void clear() {
+    synchronized (this) {
+      for (Segment segment : segments.values()) {
+        segment.close();
+        deleteIfExists(segment.file);
+      }
+      segments.clear();
+      index.clear();
+      pendingCompactions.clear();
+      for (File file : extractedFiles.values()) {
+        deleteIfExists(file);
+      }
+      extractedFiles.clear();
+      activeSegment = null;
+      size = 0;
+      isOpen = false;
+      // Files written before the cache was opened in this process aren't tracked above.
+      deleteSegmentFiles(directory);
+      deleteContents(extractedDirectory);
+    }
+    if (largeEntryCache != null) {
+      largeEntryCache.clear();
+    }
+  }
+
+  private void openIfNeeded() throws IOException {
+    if (isOpen) {
+      return;
+    }
+    if (!extractedDirectory.isDirectory() && !extractedDirectory.mkdirs()) {
+      throw new IOException("Unable to create directory: " + extractedDirectory);
+    }
+    // Extracted files are copies of entries, so it's simpler to start over than to track them.
+    deleteContents(extractedDirectory);
+    File[] files = directory.listFiles();
+    if (files == null) {
+      throw new IOException("Unable to list files in: " + directory);
+    }
+    List<Long> segmentIds = new ArrayList<>();
+    for (File file : files) {
+      String name = file.getName();
+      if (name.startsWith(STAGING_FILE_PREFIX)) {
+        deleteIfExists(file);
+      } else if (name.startsWith(SEGMENT_FILE_PREFIX)) {
+        try {
+          segmentIds.add(Long.parseLong(name.substring(SEGMENT_FILE_PREFIX.length())));
+        } catch (NumberFormatException e) {
+          // Not one of our files.
+        }
+      }
+    }
+    Collections.sort(segmentIds);
+
+    try {
+      for (long id : segmentIds) {
+        Segment segment = openSegment(id);
+        readSegment(segment);
+        activeSegment = segment;
+      }
+      if (activeSegment == null) {
+        activeSegment = openSegment(0);
+      }
+    } catch (IOException e) {
+      for (Segment segment : segments.values()) {
+        segment.close();
+      }
+      segments.clear();
+      index.clear();
+      activeSegment = null;
+      size = 0;
+      throw e;
+    }
+    isOpen = true;
+
+    for (Segment segment : segments.values()) {
+      compactIfNeeded(segment);
+    }
+    trimToSize();
+  }
+
+  private Segment openSegment(long id) throws IOException {
+    Segment segment = new Segment(id, new File(directory, SEGMENT_FILE_PREFIX + id));
+    segments.put(id, segment);
+    return segment;
+  }
+
+  /** Adds every entry in the given segment to the index, replacing earlier entries for its keys. */
+  private void readSegment(Segment segment) throws IOException {
+    long length = segment.channel.size();
+    long position = 0;
+    RecordHeader header;
+    while ((header = RecordHeader.read(segment.channel, position, length)) != null) {
+      if (header.type == TYPE_PUT) {
+        putLocation(header.key, header.toLocation(segment));
+      } else {
+        removeLocation(header.key);
+      }
+      position = header.getEnd();
+    }
+    if (position < length) {
+      // Usually the end of a record that was being written when the process died. Records after a
+      // corrupt record can't be found either way, so they're discarded too.
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Discarding " + (length - position) + " bytes at the end of: " + segment.file);
+      }
+      segment.channel.truncate(position);
+    }
+    segment.size = position;
+    size += position;
+  }
+
+  /**
+   * Appends a record to the active segment, starting a new segment first if the active segment is
+   * full.
+   *
+   * <p>Must be called while holding both {@link #appendLock} and this object's lock.
+   */
+  private Location append(byte type, String key, @Nullable InputStream data, int dataLength)
+      throws IOException {
+    Location location = writeRecord(prepareActiveSegment(), type, key, data, dataLength);
+    commitRecord(location);
+    return location;
+  }
+
+  /**
+   * Returns the segment to append to, starting a new segment first if the active segment is full.
+   *
+   * <p>Must be called while holding both {@link #appendLock} and this object's lock.
+   */
+  private Segment prepareActiveSegment() throws IOException {
+    if (activeSegment.size >= segmentSize) {
+      Segment previous = activeSegment;
+      activeSegment = openSegment(previous.id + 1);
+      compactIfNeeded(previous);
+    }
+    return activeSegment;
+  }
+
+  /**
+   * Writes a record to the end of the given segment without adding it to the segment's size, see
+   * {@link #commitRecord(Location)}.
+   *
+   * <p>Must be called while holding {@link #appendLock}, which is the only lock required.
+   */
+  private Location writeRecord(
+      Segment segment, byte type, String key, @Nullable InputStream data, int dataLength)
+      throws IOException {
+    byte[] keyBytes = key.getBytes(Key.CHARSET);
+    long recordOffset = segment.size;
+    long dataOffset = recordOffset + RECORD_HEADER_SIZE + keyBytes.length;
+    ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE + keyBytes.length);
+    header
+        .putInt(RECORD_MAGIC)
+        .put(type)
+        .putShort((short) keyBytes.length)
+        .putInt(dataLength)
+        // The data's CRC is written once the data has been copied.
+        .putInt(0)
+        .put(keyBytes);
+    header.flip();
+    try {
+      writeFully(segment.channel, header, recordOffset);
+      CRC32 crc = new CRC32();
+      long position = dataOffset;
+      int remaining = dataLength;
+      while (remaining > 0) {
+        int read = data == null ? -1 : data.read(appendBuffer, 0, Math.min(remaining, BUFFER_SIZE));
+        if (read == -1) {
+          throw new IOException("Expected " + remaining + " more bytes for: " + key);
+        }
+        crc.update(appendBuffer, 0, read);
+        writeFully(segment.channel, ByteBuffer.wrap(appendBuffer, 0, read), position);
+        position += read;
+        remaining -= read;
+      }
+      int dataCrc = (int) crc.getValue();
+      ByteBuffer crcBuffer = ByteBuffer.allocate(4);
+      crcBuffer.putInt(dataCrc);
+      crcBuffer.flip();
+      writeFully(segment.channel, crcBuffer, recordOffset + DATA_CRC_OFFSET);
+      return new Location(segment, recordOffset, dataOffset, dataLength, dataCrc);
+    } catch (IOException e) {
+      // Don't leave a partial record for the next record to be appended after.
+      segment.channel.truncate(recordOffset);
+      throw e;
+    }
+  }
+
+  /** Adds a record written by {@link #writeRecord} to the size of its segment and the cache. */
+  private void commitRecord(Location location) {
+    location.segment.size = location.dataOffset + location.dataLength;
+    size += location.getRecordSize();
+  }
+
+  private void putLocation(String safeKey, Location location) {
+    removeLocation(safeKey);
+    index.put(safeKey, location);
+    location.segment.liveBytes += location.getRecordSize();
+  }
+
+  private void removeLocation(String safeKey) {
+    Location location = index.remove(safeKey);
+    if (location == null) {
+      return;
+    }
+    location.segment.liveBytes -= location.getRecordSize();
+    File extracted = extractedFiles.remove(safeKey);
+    if (extracted != null) {
+      deleteIfExists(extracted);
+    }
+    compactIfNeeded(location.segment);
+  }
+
+  private void trimToSize() {
+    while (size > maxSize && segments.size() > 1) {
+      deleteSegment(segments.firstEntry().getValue());
+    }
+  }
+
+  /** Deletes the given segment, along with every entry whose current location is in it. */
+  private void deleteSegment(Segment segment) {
+    Iterator<Map.Entry<String, Location>> iterator = index.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Location> entry = iterator.next();
+      if (entry.getValue().segment == segment) {
+        iterator.remove();
+        File extracted = extractedFiles.remove(entry.getKey());
+        if (extracted != null) {
+          deleteIfExists(extracted);
+        }
+      }
+    }
+    segments.remove(segment.id);
+    pendingCompactions.remove(segment);
+    size -= segment.size;
+    segment.close();
+    deleteIfExists(segment.file);
+  }
+
+  private void compactIfNeeded(final Segment segment) {
+    // Segments are checked once the cache has been opened.
+    if (!isOpen
+        || segment == activeSegment
+        || segment.liveBytes >= segment.size * COMPACTION_THRESHOLD
+        || !pendingCompactions.add(segment)) {
+      return;
+    }
+    compactionExecutor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            compact(segment);
+          }
+        });
+  }
+
+  /**
+   * Copies the current entries in the given segment to the active segment and then deletes it.
+   *
+   * <p>The segment is read without holding the locks, and each record is copied while holding them,
+   * so reads and writes can continue while a segment is compacted.
+   */
+  @Synthetic
+  void compact(Segment segment) {
+    try {
+      long end;
+      synchronized (this) {
+        if (segments.get(segment.id) != segment || segment == activeSegment) {
+          return;
+        }
+        end = segment.size;
+      }
+      long position = 0;
+      RecordHeader header;
+      while ((header = RecordHeader.read(segment.channel, position, end)) != null) {
+        synchronized (appendLock) {
+          synchronized (this) {
+            if (segments.get(segment.id) != segment) {
+              return;
+            }
+            compactRecord(segment, header);
+          }
+        }
+        position = header.getEnd();
+      }
+      synchronized (this) {
+        // If a record couldn't be read, entries after it would be lost if the segment was deleted.
+        if (position == end && segments.get(segment.id) == segment) {
+          deleteSegment(segment);
+        }
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to compact: " + segment.file, e);
+      }
+    } finally {
+      synchronized (this) {
+        pendingCompactions.remove(segment);
+      }
+    }
+  }
+
+  private void compactRecord(Segment segment, RecordHeader header) throws IOException {
+    if (header.type == TYPE_PUT) {
+      Location location = index.get(header.key);
+      if (location == null
+          || location.segment != segment
+          || location.recordOffset != header.recordOffset) {
+        return;
+      }
+      ByteBuffer data = ByteBuffer.allocate(location.dataLength);
+      if (!readFully(segment.channel, data, location.dataOffset)) {
+        throw new IOException("Unexpected end of: " + segment.file);
+      }
+      putLocation(
+          header.key,
+          append(
+              TYPE_PUT, header.key, new ByteArrayInputStream(data.array()), location.dataLength));
+    } else if (!index.containsKey(header.key) && segments.firstKey() < segment.id) {
+      // An older segment may still contain the entry this record deleted.
+      append(TYPE_DELETE, header.key, /* data= */ null, /* dataLength= */ 0);
+    }
+  }
+
+  /** Copies the given entry's data into its own file, or returns null if it can't be read. */
+  @Nullable
+  private File extract(String safeKey, Location location) {
+    File temp = newTempFile(extractedDirectory, safeKey, EXTRACTING_FILE_SUFFIX);
+    try {
+      CRC32 crc = new CRC32();
+      byte[] buffer = new byte[Math.min(BUFFER_SIZE, Math.max(1, location.dataLength))];
+      OutputStream os = new FileOutputStream(temp);
+      try {
+        long position = location.dataOffset;
+        int remaining = location.dataLength;
+        while (remaining > 0) {
+          ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, Math.min(remaining, buffer.length));
+          if (!readFully(location.segment.channel, chunk, position)) {
+            throw new IOException("Unexpected end of: " + location.segment.file);
+          }
+          crc.update(buffer, 0, chunk.position());
+          os.write(buffer, 0, chunk.position());
+          position += chunk.position();
+          remaining -= chunk.position();
+        }
+      } finally {
+        os.close();
+      }
+
+      synchronized (this) {
+        // The entry was deleted or replaced while it was being read.
+        if (index.get(safeKey) != location) {
+          deleteIfExists(temp);
+          return null;
+        }
+        if ((int) crc.getValue() == location.dataCrc) {
+          File result = new File(extractedDirectory, safeKey);
+          if (!temp.renameTo(result)) {
+            throw new IOException("Unable to rename: " + temp + " to: " + result);
+          }
+          extractedFiles.put(safeKey, result);
+          if (extractedFiles.size() > MAX_EXTRACTED_FILES) {
+            Iterator<File> iterator = extractedFiles.values().iterator();
+            deleteIfExists(iterator.next());
+            iterator.remove();
+          }
+          return result;
+        }
+        if (Log.isLoggable(TAG, Log.WARN)) {
+          Log.w(TAG, "Discarding corrupt entry for: " + safeKey);
+        }
+        deleteIfExists(temp);
+        removeLocation(safeKey);
+      }
+      // Record the deletion so the entry isn't found again when the cache is reopened. The append
+      // lock can't be acquired while holding this object's lock.
+      synchronized (appendLock) {
+        synchronized (this) {
+          if (isOpen && !index.containsKey(safeKey)) {
+            append(TYPE_DELETE, safeKey, /* data= */ null, /* dataLength= */ 0);
+          }
+        }
+      }
+      return null;
+    } catch (IOException e) {
+      // Includes the segment being deleted while it was being read.
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to get from disk cache", e);
+      }
+      deleteIfExists(temp);
+      return null;
+    }
+  }
+
+  private File newTempFile(File parent, String prefix, String suffix) {
+    return new File(parent, prefix + nextTempFileId.getAndIncrement() + suffix);
+  }
+
+  private static void deleteSegmentFiles(File directory) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.getName().startsWith(SEGMENT_FILE_PREFIX)) {
+        deleteIfExists(file);
+      }
+    }
+  }
+
+  private static void deleteContents(File directory) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      deleteIfExists(file);
+    }
+  }
+
+  private static void deleteIfExists(File file) {
+    if (!file.delete() && file.exists() && Log.isLoggable(TAG, Log.WARN)) {
+      Log.w(TAG, "Unable to delete: " + file);
+    }
+  }
+
+  /** Returns false if the end of the channel is reached before the buffer is full. */
+  @Synthetic
+  static boolean readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read == -1) {
+        return false;
+      }
+      position += read;
+    }
+    return true;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  /** A segment file, which is kept open until it's deleted or the cache is cleared. */
+  private static final class Segment {
+    @Synthetic final long id;
+    @Synthetic final File file;
+    private final RandomAccessFile randomAccessFile;
+    @Synthetic final FileChannel channel;
+    // The size of every record in the segment.
+    @Synthetic long size;
+    // The size of the records in the segment for entries that are in the index.
+    @Synthetic long liveBytes;
+
+    Segment(long id, File file) throws IOException {
+      this.id = id;
+      this.file = file;
+      randomAccessFile = new RandomAccessFile(file, "rw");
+      channel = randomAccessFile.getChannel();
+    }
+
+    void close() {
+      try {
+        randomAccessFile.close();
+      } catch (IOException e) {
+        // Ignored.
+      }
+    }
+  }
+
+  /** The location of an entry's record and data in a segment. */
+  private static final class Location {
+    @Synthetic final Segment segment;
+    @Synthetic final long recordOffset;
+    @Synthetic final long dataOffset;
+    @Synthetic final int dataLength;
+    @Synthetic final int dataCrc;
+
+    Location(Segment segment, long recordOffset, long dataOffset, int dataLength, int dataCrc) {
+      this.segment = segment;
+      this.recordOffset = recordOffset;
+      this.dataOffset = dataOffset;
+      this.dataLength = dataLength;
+      this.dataCrc = dataCrc;
+    }
+
+    long getRecordSize() {
+      return dataOffset + dataLength - recordOffset;
+    }
+  }
+
+  private static final class RecordHeader {
+    @Synthetic final byte type;
+    @Synthetic final String key;
+    @Synthetic final long recordOffset;
+    private final long dataOffset;
+    private final int dataLength;
+    private final int dataCrc;
+
+    private RecordHeader(
+        byte type, String key, long recordOffset, long dataOffset, int dataLength, int dataCrc) {
+      this.type = type;
+      this.key = key;
+      this.recordOffset = recordOffset;
+      this.dataOffset = dataOffset;
+      this.dataLength = dataLength;
+      this.dataCrc = dataCrc;
+    }
+
+    /**
+     * Returns the header of the record at the given position, or null if there isn't a complete
+     * and valid record between the position and the given end.
+     */
+    @Nullable
+    static RecordHeader read(FileChannel channel, long position, long end) throws IOException {
+      if (end - position < RECORD_HEADER_SIZE) {
+        return null;
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+      if (!readFully(channel, buffer, position)) {
+        return null;
+      }
+      buffer.flip();
+      int magic = buffer.getInt();
+      byte type = buffer.get();
+      int keyLength = buffer.getShort() & 0xffff;
+      int dataLength = buffer.getInt();
+      int dataCrc = buffer.getInt();
+      if (magic != RECORD_MAGIC
+          || (type != TYPE_PUT && type != TYPE_DELETE)
+          || keyLength == 0
+          || dataLength < 0) {
+        return null;
+      }
+      long dataOffset = position + RECORD_HEADER_SIZE + keyLength;
+      if (dataOffset + dataLength > end) {
+        return null;
+      }
+      ByteBuffer key = ByteBuffer.allocate(keyLength);
+      if (!readFully(channel, key, position + RECORD_HEADER_SIZE)) {
+        return null;
+      }
+      return new RecordHeader(
+          type, new String(key.array(), Key.CHARSET), position, dataOffset, dataLength, dataCrc);
+    }
+
+    long getEnd() {
+      return dataOffset + dataLength;
+    }
+
+    Location toLocation(Segment segment) {
+      return new Location(segment, recordOffset, dataOffset, dataLength, dataCrc);
+    }
+  }
+
+  /** Builds a thread with a specific thread name and with minimum priority. */
+  private static final class CompactionThreadFactory implements ThreadFactory {
+    @Override
+    public synchronized Thread newThread(@NonNull Runnable runnable) {
+      Thread result = new Thread(runnable, "glide-pack-file-disk-cache-thread");
+      result.setPriority(Thread.MIN_PRIORITY);
+      return result;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.content.Context;
+import java.io.File;
+
+/**
+ * Creates a disk cache that appends entries to a small number of large files rather than storing
+ * each entry in its own file.
+ *
+ * <p>For small entries, like thumbnails, {@link com.bumptech.glide.disklrucache.DiskLruCache}
+ * spends more time creating, looking up and deleting files than it does reading and writing data.
+ * This cache instead appends entries to segment files of up to a few megabytes and evicts entries
+ * by deleting whole segments. Eviction is first in first out rather than least recently used, so
+ * entries that are read often are evicted as soon as entries that are never read.
+ *
+ * <p>Because {@link DiskCache#get(com.bumptech.glide.load.Key)} returns a {@link File}, each read
+ * copies the entry into a temporary file unless the entry was read recently. Use {@link
+ * #setLargeEntryCache(long, long)} to store larger entries, which are more expensive to copy, in
+ * a {@link com.bumptech.glide.disklrucache.DiskLruCache} based cache instead.
+ *
+ * <p>This is an experimental API that may be removed in the future.
+ */
+// Public API.
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class PackFileDiskCacheFactory implements DiskCache.Factory {
+  private static final String LARGE_ENTRY_DIRECTORY = "large";
+
+  private final DiskLruCacheFactory.CacheDirectoryGetter cacheDirectoryGetter;
+  private final long diskCacheSize;
+  private long largeEntryThreshold;
+  private long largeEntryCacheSize;
+
+  /**
+   * Uses a directory with the given name in the internal cache directory.
+   *
+   * @param diskCacheSize Desired max bytes size for the cache.
+   */
+  public PackFileDiskCacheFactory(
+      final Context context, final String diskCacheName, long diskCacheSize) {
+    this(
+        new DiskLruCacheFactory.CacheDirectoryGetter() {
+          @Override
+          public File getCacheDirectory() {
+            File cacheDirectory = context.getCacheDir();
+            if (cacheDirectory == null) {
+              return null;
+            }
+            return new File(cacheDirectory, diskCacheName);
+          }
+        },
+        diskCacheSize);
+  }
+
+  /**
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize Desired max bytes size for the cache.
+   */
+  public PackFileDiskCacheFactory(
+      DiskLruCacheFactory.CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize) {
+    this.cacheDirectoryGetter = cacheDirectoryGetter;
+    this.diskCacheSize = diskCacheSize;
+  }
+
+  /**
+   * Stores entries larger than {@code largeEntryThreshold} in a separate {@link
+   * com.bumptech.glide.disklrucache.DiskLruCache} based cache in a subdirectory of the cache
+   * folder.
+   *
+   * @param largeEntryThreshold The size in bytes above which entries are stored in the separate
+   *     cache.
+   * @param largeEntryCacheSize Desired max bytes size for the separate cache, which is in addition
+   *     to the size given to the constructor.
+   * @return This factory.
+   */
+  public PackFileDiskCacheFactory setLargeEntryCache(
+      long largeEntryThreshold, long largeEntryCacheSize) {
+    if (largeEntryThreshold < 0) {
+      throw new IllegalArgumentException(
+          "Large entry threshold must be at least 0, given: " + largeEntryThreshold);
+    }
+    if (largeEntryCacheSize <= 0) {
+      throw new IllegalArgumentException(
+          "Large entry cache size must be greater than 0, given: " + largeEntryCacheSize);
+    }
+    this.largeEntryThreshold = largeEntryThreshold;
+    this.largeEntryCacheSize = largeEntryCacheSize;
+    return this;
+  }
+
+  @Override
+  public DiskCache build() {
+    File cacheDir = cacheDirectoryGetter.getCacheDirectory();
+
+    if (cacheDir == null) {
+      return null;
+    }
+
+    if (cacheDir.isDirectory() || cacheDir.mkdirs()) {
+      DiskCache largeEntryCache =
+          largeEntryCacheSize > 0
+              ? DiskLruCacheWrapper.create(
+                  new File(cacheDir, LARGE_ENTRY_DIRECTORY), largeEntryCacheSize)
+              : null;
+      return new PackFileDiskCache(cacheDir, diskCacheSize, largeEntryCache, largeEntryThreshold);
+    }
+
+    return null;
+  }
+}
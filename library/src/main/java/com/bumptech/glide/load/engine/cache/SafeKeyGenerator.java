@@ -3,8 +3,8 @@ package com.bumptech.glide.load.engine.cache;
 import androidx.annotation.NonNull;
 import androidx.core.util.Pools;
 import com.bumptech.glide.load.Key;
-import com.bumptech.glide.util.LruCache;
 import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.SegmentedLruCache;
 import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.Util;
 import com.bumptech.glide.util.pool.FactoryPools;
@@ -19,30 +19,65 @@ import java.security.NoSuchAlgorithmException;
 // Public API.
 @SuppressWarnings("WeakerAccess")
 public class SafeKeyGenerator {
-  private final LruCache<Key, String> loadIdToSafeHash = new LruCache<>(1000);
-  private final Pools.Pool<PoolableDigestContainer> digestPool =
-      FactoryPools.threadSafe(
-          10,
-          new FactoryPools.Factory<PoolableDigestContainer>() {
-            @Override
-            public PoolableDigestContainer create() {
-              try {
-                return new PoolableDigestContainer(MessageDigest.getInstance("SHA-256"));
-              } catch (NoSuchAlgorithmException e) {
-                throw new RuntimeException(e);
+  /** The hash functions that safe keys can be calculated with. */
+  public enum HashAlgorithm {
+    /** Produces 64 character keys. The default, and the only algorithm in earlier versions. */
+    SHA_256,
+    /**
+     * Produces 32 character keys using the 128 bit variant of MurmurHash3, which is several times
+     * faster than SHA-256 but isn't cryptographic.
+     *
+     * <p>Collisions are very unlikely for keys that aren't constructed to collide, but an app that
+     * loads models chosen by an attacker, like arbitrary URLs, could be made to load the wrong
+     * data from the disk cache.
+     *
+     * <p>Keys from the two algorithms never match, so switching algorithms leaves entries written
+     * with the previous algorithm in the cache until they're evicted.
+     */
+    MURMUR3_128,
+  }
+
+  // Segmented because safe keys are requested by every thread that reads from or writes to the
+  // disk cache.
+  private final SegmentedLruCache<Key, String> loadIdToSafeHash = new SegmentedLruCache<>(1000);
+  private final Pools.Pool<PoolableDigestContainer> digestPool;
+
+  public SafeKeyGenerator() {
+    this(HashAlgorithm.SHA_256);
+  }
+
+  public SafeKeyGenerator(@NonNull final HashAlgorithm hashAlgorithm) {
+    digestPool =
+        FactoryPools.threadSafe(
+            10,
+            new FactoryPools.Factory<PoolableDigestContainer>() {
+              @Override
+              public PoolableDigestContainer create() {
+                return new PoolableDigestContainer(newMessageDigest(hashAlgorithm));
               }
-            }
-          });
+            });
+  }
 
-  public String getSafeKey(Key key) {
-    String safeKey;
-    synchronized (loadIdToSafeHash) {
-      safeKey = loadIdToSafeHash.get(key);
+  @Synthetic
+  static MessageDigest newMessageDigest(HashAlgorithm hashAlgorithm) {
+    switch (hashAlgorithm) {
+      case SHA_256:
+        try {
+          return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+          throw new RuntimeException(e);
+        }
+      case MURMUR3_128:
+        return new Murmur3MessageDigest();
+      default:
+        throw new IllegalArgumentException("Unrecognized hash algorithm: " + hashAlgorithm);
     }
+  }
+
+  public String getSafeKey(Key key) {
+    String safeKey = loadIdToSafeHash.get(key);
     if (safeKey == null) {
       safeKey = calculateHexStringDigest(key);
-    }
-    synchronized (loadIdToSafeHash) {
       loadIdToSafeHash.put(key, safeKey);
     }
     return safeKey;
@@ -53,7 +88,10 @@ public class SafeKeyGenerator {
     try {
       key.updateDiskCacheKey(container.messageDigest);
       // calling digest() will automatically reset()
-      return Util.sha256BytesToHex(container.messageDigest.digest());
+      byte[] digest = container.messageDigest.digest();
+      return digest.length == Murmur3MessageDigest.DIGEST_LENGTH
+          ? Util.hash128BytesToHex(digest)
+          : Util.sha256BytesToHex(digest);
     } finally {
       digestPool.release(container);
     }
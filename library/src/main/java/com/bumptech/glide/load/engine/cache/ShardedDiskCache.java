@@ -0,0 +1,158 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.util.Log;
+import com.bumptech.glide.disklrucache.DiskLruCache;
+import com.bumptech.glide.load.Key;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link DiskCache} that partitions keys by hash across a fixed number of independent {@link
+ * DiskLruCacheWrapper}s.
+ *
+ * <p>Each shard has its own subdirectory, journal, locks and an equal share of the total size, so
+ * reads and writes of keys in different shards never contend with each other. Keys are assigned
+ * to shards from their safe key, so a given key is always found in the same shard across process
+ * restarts as long as the number of shards doesn't change. The total size limit is enforced
+ * approximately, each shard evicts its own least recently used entries independently once it
+ * exceeds its share.
+ *
+ * <p>An unsharded {@link com.bumptech.glide.disklrucache.DiskLruCache} found in the same directory
+ * is removed when the sharded cache is created. Changing the number of shards leaves the entries
+ * in shards that are no longer used on disk, so use a new directory if the number of shards
+ * changes.
+ */
+final class ShardedDiskCache implements DiskCache {
+  private static final String TAG = "ShardedDiskCache";
+  private static final String SHARD_DIRECTORY_PREFIX = "shard-";
+  // See DiskLruCache.
+  private static final String JOURNAL_FILE = "journal";
+  private static final String JOURNAL_FILE_BACKUP = "journal.bkp";
+  private static final String BINARY_JOURNAL_FILE = "journal.bin";
+  private static final String BINARY_JOURNAL_FILE_BACKUP = "journal.bin.bkp";
+
+  private final SafeKeyGenerator safeKeyGenerator;
+  private final DiskLruCacheWrapper[] shards;
+
+  /**
+   * Creates a new sharded cache in the given directory, removing any unsharded cache in the
+   * directory.
+   *
+   * <p>Must be called on a background thread.
+   */
+  static ShardedDiskCache create(
+      File directory,
+      long maxSize,
+      int shardCount,
+      boolean useBinaryJournal,
+      boolean useGroupCommit,
+      SafeKeyGenerator.HashAlgorithm hashAlgorithm) {
+    deleteUnshardedCache(directory, useBinaryJournal);
+    return new ShardedDiskCache(
+        directory, maxSize, shardCount, useBinaryJournal, useGroupCommit, hashAlgorithm);
+  }
+
+  private ShardedDiskCache(
+      File directory,
+      long maxSize,
+      int shardCount,
+      boolean useBinaryJournal,
+      boolean useGroupCommit,
+      SafeKeyGenerator.HashAlgorithm hashAlgorithm) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("Shard count must be at least 1, given: " + shardCount);
+    }
+    // Shared so that a safe key calculated to pick a shard is re-used by the shard.
+    safeKeyGenerator = new SafeKeyGenerator(hashAlgorithm);
+    shards = new DiskLruCacheWrapper[shardCount];
+    long shardMaxSize = Math.max(1, maxSize / shardCount);
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] =
+          new DiskLruCacheWrapper(
+              new File(directory, SHARD_DIRECTORY_PREFIX + i),
+              shardMaxSize,
+              /* memoizePathNames= */ false,
+              safeKeyGenerator,
+              useBinaryJournal,
+              useGroupCommit);
+    }
+  }
+
+  /**
+   * Starts opening every shard in the background.
+   *
+   * @see DiskLruCacheWrapper#openInBackground(Executor)
+   */
+  void openInBackground(Executor executor) {
+    for (DiskLruCacheWrapper shard : shards) {
+      shard.openInBackground(executor);
+    }
+  }
+
+  /** Returns the generator used to name this cache's entries. */
+  SafeKeyGenerator getSafeKeyGenerator() {
+    return safeKeyGenerator;
+  }
+
+  @Override
+  public File get(Key key) {
+    return getShard(key).get(key);
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    getShard(key).put(key, writer);
+  }
+
+  @Override
+  public void delete(Key key) {
+    getShard(key).delete(key);
+  }
+
+  @Override
+  public void clear() {
+    for (DiskLruCacheWrapper shard : shards) {
+      shard.clear();
+    }
+  }
+
+  private DiskLruCacheWrapper getShard(Key key) {
+    // String#hashCode is specified, so keys are assigned to the same shard in every process.
+    int hash = safeKeyGenerator.getSafeKey(key).hashCode();
+    return shards[(hash & Integer.MAX_VALUE) % shards.length];
+  }
+
+  private static void deleteUnshardedCache(File directory, boolean useBinaryJournal) {
+    if (!new File(directory, JOURNAL_FILE).exists()
+        && !new File(directory, JOURNAL_FILE_BACKUP).exists()
+        && !new File(directory, BINARY_JOURNAL_FILE).exists()
+        && !new File(directory, BINARY_JOURNAL_FILE_BACKUP).exists()) {
+      return;
+    }
+    try {
+      // The directory may contain files that don't belong to the cache, so evict every entry
+      // rather than deleting the directory's contents.
+      DiskLruCache unsharded =
+          DiskLruCache.experimentalOpen(
+              directory,
+              DiskLruCacheWrapper.APP_VERSION,
+              DiskLruCacheWrapper.VALUE_COUNT,
+              /* maxSize= */ Long.MAX_VALUE,
+              /* memoizePathNames= */ false,
+              useBinaryJournal);
+      unsharded.setMaxSize(0);
+      unsharded.close();
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to remove unsharded disk cache", e);
+      }
+    }
+    // DiskLruCache#open replaces the journal with its backup if only the backup exists and
+    // migrates a journal in the other format, so only the journal in the given format remains.
+    File journal = new File(directory, useBinaryJournal ? BINARY_JOURNAL_FILE : JOURNAL_FILE);
+    if (!journal.delete() && Log.isLoggable(TAG, Log.WARN)) {
+      Log.w(TAG, "Unable to delete unsharded disk cache journal");
+    }
+  }
+}
@@ -0,0 +1,293 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.annotation.SuppressLint;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.util.Synthetic;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An in memory cache for {@link Resource}s that uses a W-TinyLFU style admission policy to avoid
+ * evicting frequently used resources in favor of resources that are only ever used once.
+ *
+ * <p>New resources are added to a small LRU window. Resources that fall out of the window move to
+ * the main region of the cache, where they're only kept if they have been requested more often
+ * than the resource they would replace. Request frequencies are tracked approximately in a {@link
+ * FrequencySketch}, including for resources that are no longer in the cache, so a resource that
+ * keeps being requested will eventually be admitted even if it was evicted previously.
+ *
+ * <p>Glide removes resources from the memory cache while they're in use, so each call to {@link
+ * #remove(Key)} is counted as a request.
+ *
+ * <p>Compared to {@link LruResourceCache}, this cache tends to retain resources that are re-used
+ * across screens (avatars, icons, hero images) when the user scrolls through a long list of
+ * resources that are each displayed once. To use it, pass an instance to {@link
+ * com.bumptech.glide.GlideBuilder#setMemoryCache(MemoryCache)}.
+ */
+public class TinyLfuResourceCache implements MemoryCache {
+  /**
+   * The default fraction of the cache used for the LRU window.
+   *
+   * <p>Resources are typically large relative to the size of the cache and scrolling back through
+   * a list is common, so this is considerably larger than is typical for W-TinyLFU caches.
+   */
+  public static final float DEFAULT_WINDOW_FRACTION = 0.2f;
+
+  private static final int DEFAULT_EXPECTED_ENTRIES = 1024;
+
+  private final Map<Key, Node> nodes = new HashMap<>();
+  // Sentinels for circular doubly linked lists, ordered from least to most recently used.
+  private final Node window = new Node();
+  private final Node main = new Node();
+  private final FrequencySketch sketch;
+  private final long initialMaxSize;
+  private final float windowFraction;
+  private long maxSize;
+  private long windowSize;
+  private long currentSize;
+  private ResourceRemovedListener listener;
+
+  /**
+   * Constructor for TinyLfuResourceCache.
+   *
+   * @param size The maximum size in bytes the in memory cache can use.
+   */
+  public TinyLfuResourceCache(long size) {
+    this(size, DEFAULT_WINDOW_FRACTION, DEFAULT_EXPECTED_ENTRIES);
+  }
+
+  /**
+   * Constructor for TinyLfuResourceCache.
+   *
+   * @param size The maximum size in bytes the in memory cache can use.
+   * @param windowFraction The fraction of {@code size} used for the LRU window that new resources
+   *     are added to, in the range [0, 1].
+   * @param expectedEntries The approximate number of distinct resources whose frequency should be
+   *     tracked, used to size the frequency sketch.
+   */
+  public TinyLfuResourceCache(long size, float windowFraction, int expectedEntries) {
+    if (windowFraction < 0 || windowFraction > 1) {
+      throw new IllegalArgumentException("Window fraction must be in [0, 1]: " + windowFraction);
+    }
+    this.initialMaxSize = size;
+    this.maxSize = size;
+    this.windowFraction = windowFraction;
+    sketch = new FrequencySketch(expectedEntries);
+  }
+
+  @Override
+  public void setResourceRemovedListener(@NonNull ResourceRemovedListener listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public synchronized long getCurrentSize() {
+    return currentSize;
+  }
+
+  @Override
+  public synchronized long getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public synchronized void setSizeMultiplier(float multiplier) {
+    if (multiplier < 0) {
+      throw new IllegalArgumentException("Multiplier must be >= 0");
+    }
+    maxSize = Math.round(initialMaxSize * multiplier);
+    evict();
+  }
+
+  /** Returns true if there is a resource for the given key in the cache. */
+  public synchronized boolean contains(@NonNull Key key) {
+    return nodes.containsKey(key);
+  }
+
+  @Nullable
+  @Override
+  public synchronized Resource<?> remove(@NonNull Key key) {
+    sketch.increment(key.hashCode());
+    Node node = nodes.remove(key);
+    if (node == null) {
+      return null;
+    }
+    unlink(node);
+    return node.resource;
+  }
+
+  @Nullable
+  @Override
+  public synchronized Resource<?> put(@NonNull Key key, @Nullable Resource<?> resource) {
+    if (resource == null) {
+      Resource<?> old = remove(key);
+      if (old != null) {
+        notifyRemoved(old);
+      }
+      return old;
+    }
+
+    int size = resource.getSize();
+    if (size >= maxSize) {
+      notifyRemoved(resource);
+      return null;
+    }
+
+    Node existing = nodes.get(key);
+    if (existing != null) {
+      Resource<?> old = existing.resource;
+      unlink(existing);
+      existing.resource = resource;
+      existing.size = size;
+      // Keep the resource in the region it's already in, just mark it as recently used.
+      linkLast(existing.isInWindow ? window : main, existing);
+      if (!old.equals(resource)) {
+        notifyRemoved(old);
+      }
+      evict();
+      return old;
+    }
+
+    Node node = new Node(key, resource, size);
+    nodes.put(key, node);
+    linkLast(window, node);
+    evict();
+    return null;
+  }
+
+  @Override
+  public void clearMemory() {
+    trimToSize(0);
+  }
+
+  @SuppressLint("InlinedApi")
+  @Override
+  public void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      // Entering list of cached background apps
+      // Evict our entire bitmap cache
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+        || level == android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      // The app's UI is no longer visible, or app is in the foreground but system is running
+      // critically low on memory
+      // Evict the least valuable half of our bitmap cache
+      trimToSize(getMaxSize() / 2);
+    }
+  }
+
+  /**
+   * Removes resources until the current size is less than or equal to the given size, starting
+   * with the least recently used resources in the main region and then the window, without
+   * considering frequency.
+   */
+  protected synchronized void trimToSize(long size) {
+    while (currentSize > size) {
+      Node toEvict = main.next != main ? main.next : window.next;
+      evict(toEvict);
+    }
+  }
+
+  private void evict() {
+    long windowMaxSize = (long) (maxSize * windowFraction);
+    while (windowSize > windowMaxSize && window.next != window) {
+      // Resources that fall out of the window become candidates for the main region.
+      Node candidate = window.next;
+      unlink(candidate);
+      linkLast(main, candidate);
+      admit(candidate);
+    }
+
+    // Only reached if the window alone is too large, for example after the size is reduced.
+    while (currentSize > maxSize) {
+      evict(main.next != main ? main.next : window.next);
+    }
+  }
+
+  /**
+   * Makes room for the given candidate in the main region by evicting the least recently used
+   * resources, but only if the candidate has been requested more often than each resource it would
+   * replace. Otherwise the candidate is evicted instead.
+   */
+  private void admit(Node candidate) {
+    while (currentSize > maxSize) {
+      Node victim = main.next;
+      if (victim == candidate) {
+        evict(candidate);
+        return;
+      }
+      if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+        evict(victim);
+      } else {
+        evict(candidate);
+        // Give the victim a second chance so that the next candidate is compared against a
+        // different resource rather than repeatedly losing to the same frequently used one.
+        unlink(victim);
+        linkLast(main, victim);
+        return;
+      }
+    }
+  }
+
+  private void evict(Node node) {
+    nodes.remove(node.key);
+    unlink(node);
+    notifyRemoved(node.resource);
+  }
+
+  private void notifyRemoved(@NonNull Resource<?> resource) {
+    if (listener != null) {
+      listener.onResourceRemoved(resource);
+    }
+  }
+
+  private void linkLast(Node sentinel, Node node) {
+    node.previous = sentinel.previous;
+    node.next = sentinel;
+    sentinel.previous.next = node;
+    sentinel.previous = node;
+    node.isInWindow = sentinel == window;
+    currentSize += node.size;
+    if (node.isInWindow) {
+      windowSize += node.size;
+    }
+  }
+
+  private void unlink(Node node) {
+    node.previous.next = node.next;
+    node.next.previous = node.previous;
+    node.previous = null;
+    node.next = null;
+    currentSize -= node.size;
+    if (node.isInWindow) {
+      windowSize -= node.size;
+    }
+  }
+
+  private static final class Node {
+    @Nullable @Synthetic final Key key;
+    @Synthetic Resource<?> resource;
+    @Synthetic int size;
+    @Synthetic boolean isInWindow;
+    @Synthetic Node previous;
+    @Synthetic Node next;
+
+    /** Creates a sentinel. */
+    @Synthetic
+    Node() {
+      key = null;
+      previous = this;
+      next = this;
+    }
+
+    @Synthetic
+    Node(@NonNull Key key, @NonNull Resource<?> resource, int size) {
+      this.key = key;
+      this.resource = resource;
+      this.size = size;
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package com.bumptech.glide.load.engine.executor;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the number of threads for an executor from measurements of the tasks it runs.
+ *
+ * <p>The ideal number of threads for a pool is the number of cores divided by the fraction of each
+ * task's run time spent using the CPU, rather than blocked on I/O. The controller measures that
+ * fraction, and adds a thread at a time while tasks are waiting in the queue and the pool is below
+ * its ideal size. If the measured CPU fraction rises, for example because storage is fast, the pool
+ * shrinks a thread at a time towards its ideal size.
+ *
+ * <p>Threads that are waiting for a core look the same as threads that are blocked on I/O, so when
+ * the device is throttled the ideal size may be too large. To account for that, if adding a thread
+ * doesn't increase the rate at which tasks complete, the thread is removed again and the pool
+ * isn't allowed to grow past that size for the next {@link #PROBE_INTERVAL_WINDOWS} decisions.
+ *
+ * <p>Decisions are made once per {@link #WINDOW_SIZE} tasks and the thread count is always within
+ * the configured bounds.
+ */
+final class AdaptiveThreadCountController {
+  // The number of completed tasks between decisions.
+  static final int WINDOW_SIZE = 16;
+  // The number of decisions to wait before trying to grow past a size that didn't help.
+  static final int PROBE_INTERVAL_WINDOWS = 8;
+  // Tasks are considered to be waiting for threads if they spend at least this fraction of their
+  // run time in the queue.
+  private static final double QUEUE_WAIT_THRESHOLD = 0.25;
+  // Limits the ideal thread count for tasks that report almost no CPU time.
+  private static final double MIN_CPU_FRACTION = 0.1;
+  // The smallest relative increase in throughput that justifies an added thread.
+  private static final double MIN_THROUGHPUT_GAIN = 0.05;
+
+  private final int minThreadCount;
+  private final int maxThreadCount;
+  private final int cpuCount;
+
+  @GuardedBy("this")
+  private int threadCount;
+
+  @GuardedBy("this")
+  private int idealThreadCount;
+
+  @GuardedBy("this")
+  private int threadCountCeiling;
+
+  @GuardedBy("this")
+  private int windowsUntilProbe;
+
+  @GuardedBy("this")
+  private int lastAdjustment;
+
+  @GuardedBy("this")
+  private double lastThroughput;
+
+  @GuardedBy("this")
+  private long adjustmentCount;
+
+  @GuardedBy("this")
+  private int windowTaskCount;
+
+  @GuardedBy("this")
+  private long windowStartNanos;
+
+  @GuardedBy("this")
+  private long windowQueueWaitNanos;
+
+  @GuardedBy("this")
+  private long windowRunNanos;
+
+  // Only tasks whose CPU time could be measured.
+  @GuardedBy("this")
+  private long windowMeasuredRunNanos;
+
+  @GuardedBy("this")
+  private long windowCpuNanos;
+
+  @GuardedBy("this")
+  private GlideExecutor.ThreadCountStats stats;
+
+  AdaptiveThreadCountController(int minThreadCount, int maxThreadCount, int cpuCount) {
+    if (minThreadCount < 1 || maxThreadCount < minThreadCount) {
+      throw new IllegalArgumentException(
+          "Invalid thread count bounds, min: " + minThreadCount + ", max: " + maxThreadCount);
+    }
+    this.minThreadCount = minThreadCount;
+    this.maxThreadCount = maxThreadCount;
+    this.cpuCount = cpuCount;
+    threadCount = clamp(cpuCount);
+    idealThreadCount = threadCount;
+    threadCountCeiling = maxThreadCount;
+    stats =
+        newStats(
+            /* meanQueueWaitNanos= */ 0,
+            /* meanRunNanos= */ 0,
+            /* cpuFraction= */ 1,
+            /* throughput= */ 0);
+  }
+
+  /** Returns the number of threads the executor should currently use. */
+  synchronized int getThreadCount() {
+    return threadCount;
+  }
+
+  /**
+   * Records the measurements of a completed task, and returns the number of threads the executor
+   * should use from now on.
+   *
+   * @param finishTimeNanos The time the task finished, from {@link
+   *     com.bumptech.glide.util.LogTime#getLogTime()}.
+   * @param queueWaitNanos The time the task spent in the executor's queue.
+   * @param runNanos The wall clock time the task spent running.
+   * @param cpuNanos The CPU time the task's thread spent running the task, or a negative number if
+   *     it couldn't be measured.
+   */
+  synchronized int onTaskFinished(
+      long finishTimeNanos, long queueWaitNanos, long runNanos, long cpuNanos) {
+    if (windowTaskCount == 0) {
+      windowStartNanos = finishTimeNanos - runNanos;
+    }
+    windowTaskCount++;
+    windowQueueWaitNanos += Math.max(0, queueWaitNanos);
+    windowRunNanos += Math.max(0, runNanos);
+    if (cpuNanos >= 0 && runNanos > 0) {
+      windowMeasuredRunNanos += runNanos;
+      windowCpuNanos += Math.min(cpuNanos, runNanos);
+    }
+    if (windowTaskCount >= WINDOW_SIZE) {
+      adjust(finishTimeNanos);
+    }
+    return threadCount;
+  }
+
+  @NonNull
+  synchronized GlideExecutor.ThreadCountStats getStats() {
+    return stats;
+  }
+
+  @GuardedBy("this")
+  private void adjust(long finishTimeNanos) {
+    long meanQueueWaitNanos = windowQueueWaitNanos / windowTaskCount;
+    long meanRunNanos = windowRunNanos / windowTaskCount;
+    long windowNanos = Math.max(1, finishTimeNanos - windowStartNanos);
+    double throughput = (double) windowTaskCount * TimeUnit.SECONDS.toNanos(1) / windowNanos;
+    // Without any CPU measurements, assume tasks are CPU bound so we don't add threads that only
+    // contend for cores.
+    double cpuFraction =
+        windowMeasuredRunNanos > 0 ? (double) windowCpuNanos / windowMeasuredRunNanos : 1;
+    boolean isQueueing = meanQueueWaitNanos >= meanRunNanos * QUEUE_WAIT_THRESHOLD;
+
+    if (windowsUntilProbe > 0 && --windowsUntilProbe == 0) {
+      threadCountCeiling = maxThreadCount;
+    }
+    int previousThreadCount = threadCount;
+    if (lastAdjustment > 0
+        && isQueueing
+        && throughput < lastThroughput * (1 + MIN_THROUGHPUT_GAIN)) {
+      // The last thread we added didn't help, so the CPU is probably saturated.
+      threadCount = clamp(threadCount - 1);
+      threadCountCeiling = threadCount;
+      windowsUntilProbe = PROBE_INTERVAL_WINDOWS;
+    }
+    idealThreadCount =
+        Math.min(
+            threadCountCeiling,
+            clamp((int) Math.ceil(cpuCount / Math.max(MIN_CPU_FRACTION, cpuFraction))));
+    if (threadCount == previousThreadCount) {
+      if (threadCount > idealThreadCount) {
+        threadCount--;
+      } else if (threadCount < idealThreadCount && isQueueing) {
+        threadCount++;
+      }
+    }
+    lastAdjustment = threadCount - previousThreadCount;
+    if (lastAdjustment != 0) {
+      adjustmentCount++;
+    }
+    lastThroughput = throughput;
+
+    stats = newStats(meanQueueWaitNanos, meanRunNanos, cpuFraction, throughput);
+    windowTaskCount = 0;
+    windowQueueWaitNanos = 0;
+    windowRunNanos = 0;
+    windowMeasuredRunNanos = 0;
+    windowCpuNanos = 0;
+  }
+
+  @GuardedBy("this")
+  private GlideExecutor.ThreadCountStats newStats(
+      long meanQueueWaitNanos, long meanRunNanos, double cpuFraction, double throughput) {
+    return new GlideExecutor.ThreadCountStats(
+        threadCount,
+        idealThreadCount,
+        minThreadCount,
+        maxThreadCount,
+        adjustmentCount,
+        meanQueueWaitNanos,
+        meanRunNanos,
+        cpuFraction,
+        throughput);
+  }
+
+  private int clamp(int count) {
+    return Math.max(minThreadCount, Math.min(maxThreadCount, count));
+  }
+}
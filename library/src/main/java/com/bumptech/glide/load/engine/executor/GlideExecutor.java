@@ -1,16 +1,24 @@
 package com.bumptech.glide.load.engine.executor;
 
+import android.os.Debug;
 import android.os.StrictMode;
 import android.os.StrictMode.ThreadPolicy;
 import android.text.TextUtils;
 import android.util.Log;
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.util.LogTime;
 import com.bumptech.glide.util.Synthetic;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -21,6 +29,7 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 /** A prioritized {@link ThreadPoolExecutor} for running jobs in Glide. */
@@ -45,6 +54,13 @@ public final class GlideExecutor implements ExecutorService {
 
   private static final String TAG = "GlideExecutor";
 
+  /** Returned by {@link DeadlineTask#getDeadlineNanos()} for tasks without a deadline. */
+  public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+  // The default initial capacity of PriorityBlockingQueue, which has no constructor that accepts
+  // only a Comparator.
+  private static final int INITIAL_QUEUE_CAPACITY = 11;
+
   /**
    * The default thread name prefix for executors from unlimited thread pool used to
    * load/decode/transform data not found in cache.
@@ -53,6 +69,20 @@ public final class GlideExecutor implements ExecutorService {
 
   static final String DEFAULT_ANIMATION_EXECUTOR_NAME = "animation";
 
+  /**
+   * The default thread name prefix for executors used only to fetch data not found in cache, see
+   * {@link #newSourceFetchBuilder()}.
+   */
+  static final String DEFAULT_SOURCE_FETCH_EXECUTOR_NAME = "source-fetch";
+
+  /**
+   * The default thread count for executors used only to fetch data not found in cache.
+   *
+   * <p>Fetching data is primarily bound by I/O rather than by the CPU, so we allow more concurrent
+   * fetches than we have cores.
+   */
+  static final int DEFAULT_SOURCE_FETCH_EXECUTOR_THREADS = 8;
+
   /** The default keep alive time for threads in our cached thread pools in milliseconds. */
   private static final long KEEP_ALIVE_TIME_MS = TimeUnit.SECONDS.toMillis(10);
 
@@ -161,6 +191,32 @@ public final class GlideExecutor implements ExecutorService {
         .build();
   }
 
+  /**
+   * Returns a new {@link Builder} with {@link #DEFAULT_SOURCE_FETCH_EXECUTOR_THREADS} threads that
+   * time out after {@link #KEEP_ALIVE_TIME_MS} when idle, the {@link
+   * #DEFAULT_SOURCE_FETCH_EXECUTOR_NAME} thread name prefix, and the {@link
+   * com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy#DEFAULT}
+   * uncaught throwable strategy.
+   *
+   * <p>Source fetch executors are used with {@link
+   * com.bumptech.glide.GlideBuilder#setSourceFetchExecutor(GlideExecutor)} to fetch data from
+   * source, which is typically bound by network I/O, on a wider pool of threads than the source
+   * executor that then decodes the data.
+   *
+   * <p>Source fetch executors allow network operations on their threads.
+   */
+  public static GlideExecutor.Builder newSourceFetchBuilder() {
+    return new GlideExecutor.Builder(/* preventNetworkOperations= */ false)
+        .setThreadCount(DEFAULT_SOURCE_FETCH_EXECUTOR_THREADS)
+        .setThreadTimeoutMillis(KEEP_ALIVE_TIME_MS)
+        .setName(DEFAULT_SOURCE_FETCH_EXECUTOR_NAME);
+  }
+
+  /** Shortcut for calling {@link Builder#build()} on {@link #newSourceFetchBuilder()}. */
+  public static GlideExecutor newSourceFetchExecutor() {
+    return newSourceFetchBuilder().build();
+  }
+
   /**
    * Returns a new unlimited thread pool with zero core thread count to make sure no threads are
    * created by default, {@link #KEEP_ALIVE_TIME_MS} keep alive time, the {@link
@@ -319,6 +375,51 @@ public final class GlideExecutor implements ExecutorService {
     return delegate.toString();
   }
 
+  /**
+   * Removes the given task from this executor's queue if it hasn't started running yet.
+   *
+   * @return {@code true} if the task was removed and will not run unless it's executed again.
+   */
+  public boolean remove(@NonNull Runnable task) {
+    return delegate instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) delegate).remove(task);
+  }
+
+  /**
+   * Returns the approximate number of tasks waiting in this executor's queue for a thread.
+   *
+   * <p>Always returns {@code 0} for executors that aren't backed by a {@link ThreadPoolExecutor}.
+   */
+  public int getQueuedTaskCount() {
+    return delegate instanceof ThreadPoolExecutor
+        ? ((ThreadPoolExecutor) delegate).getQueue().size()
+        : 0;
+  }
+
+  /**
+   * Returns the number of {@link DeadlineTask}s that had already passed their deadline when they
+   * started running on this executor.
+   *
+   * <p>Always returns {@code 0} for executors that weren't created by a {@link Builder}.
+   */
+  public long getMissedDeadlineCount() {
+    return delegate instanceof GlideThreadPoolExecutor
+        ? ((GlideThreadPoolExecutor) delegate).missedDeadlineCount.get()
+        : 0;
+  }
+
+  /**
+   * Returns the current decisions of an executor built with {@link
+   * Builder#setAdaptiveThreadCount(int, int)}, or {@code null} if this executor has a fixed
+   * number of threads.
+   */
+  @Nullable
+  public ThreadCountStats getThreadCountStats() {
+    return delegate instanceof GlideThreadPoolExecutor
+            && ((GlideThreadPoolExecutor) delegate).threadCountController != null
+        ? ((GlideThreadPoolExecutor) delegate).threadCountController.getStats()
+        : null;
+  }
+
   /** Determines the number of cores available on the device. */
   // Public API.
   @SuppressWarnings("WeakerAccess")
@@ -376,6 +477,286 @@ public final class GlideExecutor implements ExecutorService {
     void handle(Throwable t);
   }
 
+  /**
+   * Implemented by tasks run on {@link GlideExecutor}s that may have a deadline.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   */
+  public interface DeadlineTask {
+    /** Returns the {@link Priority} of this task. */
+    Priority getPriority();
+
+    /**
+     * Returns the time by which this task should finish in {@link LogTime#getLogTime()} units, or
+     * {@link GlideExecutor#NO_DEADLINE}.
+     */
+    long getDeadlineNanos();
+  }
+
+  /**
+   * Orders {@link DeadlineTask}s by priority, then with earlier deadlines first, followed by tasks
+   * without deadlines, and then by each task's natural ordering.
+   *
+   * <p>Deadlines only break ties between tasks of the same priority so that a task without a
+   * deadline is never held up by an arbitrary number of lower priority tasks that have one.
+   */
+  private static final class EarliestDeadlineFirstComparator implements Comparator<Runnable> {
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public int compare(Runnable first, Runnable second) {
+      int result = 0;
+      if (first instanceof DeadlineTask && second instanceof DeadlineTask) {
+        DeadlineTask firstTask = (DeadlineTask) first;
+        DeadlineTask secondTask = (DeadlineTask) second;
+        result = firstTask.getPriority().compareTo(secondTask.getPriority());
+        if (result == 0) {
+          result = Long.compare(firstTask.getDeadlineNanos(), secondTask.getDeadlineNanos());
+        }
+      }
+      if (result == 0 && first instanceof Comparable) {
+        result = ((Comparable<Object>) first).compareTo(second);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * A snapshot of the thread count chosen by an executor built with {@link
+   * Builder#setAdaptiveThreadCount(int, int)} and of the measurements it was chosen from.
+   *
+   * <p>Measurements are averaged over the most recent batch of completed tasks.
+   *
+   * <p>This is an experimental API that may be removed in the future.
+   */
+  public static final class ThreadCountStats {
+    private final int threadCount;
+    private final int idealThreadCount;
+    private final int minThreadCount;
+    private final int maxThreadCount;
+    private final long adjustmentCount;
+    private final long meanQueueWaitNanos;
+    private final long meanRunNanos;
+    private final double cpuFraction;
+    private final double throughput;
+
+    ThreadCountStats(
+        int threadCount,
+        int idealThreadCount,
+        int minThreadCount,
+        int maxThreadCount,
+        long adjustmentCount,
+        long meanQueueWaitNanos,
+        long meanRunNanos,
+        double cpuFraction,
+        double throughput) {
+      this.threadCount = threadCount;
+      this.idealThreadCount = idealThreadCount;
+      this.minThreadCount = minThreadCount;
+      this.maxThreadCount = maxThreadCount;
+      this.adjustmentCount = adjustmentCount;
+      this.meanQueueWaitNanos = meanQueueWaitNanos;
+      this.meanRunNanos = meanRunNanos;
+      this.cpuFraction = cpuFraction;
+      this.throughput = throughput;
+    }
+
+    /** Returns the number of threads the executor is currently allowed to use. */
+    public int getThreadCount() {
+      return threadCount;
+    }
+
+    /**
+     * Returns the number of threads the executor is moving towards, calculated from the number of
+     * cores and {@link #getCpuFraction()}.
+     */
+    public int getIdealThreadCount() {
+      return idealThreadCount;
+    }
+
+    public int getMinThreadCount() {
+      return minThreadCount;
+    }
+
+    public int getMaxThreadCount() {
+      return maxThreadCount;
+    }
+
+    /** Returns the number of times the executor has added or removed a thread. */
+    public long getAdjustmentCount() {
+      return adjustmentCount;
+    }
+
+    /** Returns the mean time tasks spent waiting in the executor's queue. */
+    public long getMeanQueueWaitNanos() {
+      return meanQueueWaitNanos;
+    }
+
+    /** Returns the mean wall clock time tasks spent running. */
+    public long getMeanRunNanos() {
+      return meanRunNanos;
+    }
+
+    /**
+     * Returns the fraction of the time tasks spent running that was spent using the CPU, rather
+     * than blocked on I/O or waiting for a core, in the range [0, 1].
+     */
+    public double getCpuFraction() {
+      return cpuFraction;
+    }
+
+    /** Returns the number of tasks completed per second. */
+    public double getThroughput() {
+      return throughput;
+    }
+
+    @Override
+    public String toString() {
+      return "ThreadCountStats{"
+          + "threadCount="
+          + threadCount
+          + ", idealThreadCount="
+          + idealThreadCount
+          + ", minThreadCount="
+          + minThreadCount
+          + ", maxThreadCount="
+          + maxThreadCount
+          + ", adjustmentCount="
+          + adjustmentCount
+          + ", meanQueueWaitNanos="
+          + meanQueueWaitNanos
+          + ", meanRunNanos="
+          + meanRunNanos
+          + ", cpuFraction="
+          + cpuFraction
+          + ", throughput="
+          + throughput
+          + '}';
+    }
+  }
+
+  private static final class GlideThreadPoolExecutor extends ThreadPoolExecutor {
+    @Nullable private final Function<? super Runnable, ? extends Runnable> onExecuteDecorator;
+    @Synthetic final AtomicLong missedDeadlineCount = new AtomicLong();
+    @Synthetic @Nullable final AdaptiveThreadCountController threadCountController;
+    // The task each queued decorated task wraps, only tracked if onExecuteDecorator is non-null.
+    private final Map<Runnable, Runnable> decoratedTasks = new ConcurrentHashMap<>();
+    // The time each queued task was executed, only tracked if threadCountController is non-null.
+    private final Map<Runnable, Long> enqueueTimes = new ConcurrentHashMap<>();
+    // The queue wait, start time and start CPU time of the task running on each thread.
+    private final ThreadLocal<long[]> runningTaskTimes =
+        new ThreadLocal<long[]>() {
+          @Override
+          protected long[] initialValue() {
+            return new long[3];
+          }
+        };
+
+    GlideThreadPoolExecutor(
+        int corePoolSize,
+        int maximumPoolSize,
+        long keepAliveTimeMillis,
+        BlockingQueue<Runnable> workQueue,
+        ThreadFactory threadFactory,
+        @Nullable Function<? super Runnable, ? extends Runnable> onExecuteDecorator,
+        @Nullable AdaptiveThreadCountController threadCountController) {
+      super(
+          corePoolSize,
+          maximumPoolSize,
+          keepAliveTimeMillis,
+          TimeUnit.MILLISECONDS,
+          workQueue,
+          threadFactory);
+      this.onExecuteDecorator = onExecuteDecorator;
+      this.threadCountController = threadCountController;
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+      Runnable toExecute = onExecuteDecorator != null ? onExecuteDecorator.apply(command) : command;
+      if (toExecute != command) {
+        decoratedTasks.put(toExecute, command);
+      }
+      if (threadCountController != null) {
+        enqueueTimes.put(toExecute, LogTime.getLogTime());
+      }
+      try {
+        super.execute(toExecute);
+      } catch (RuntimeException e) {
+        decoratedTasks.remove(toExecute);
+        enqueueTimes.remove(toExecute);
+        throw e;
+      }
+    }
+
+    @Override
+    public boolean remove(Runnable task) {
+      Runnable queued = task;
+      // Queued tasks may have been wrapped by onExecuteDecorator, so find the wrapper to remove.
+      for (Map.Entry<Runnable, Runnable> entry : decoratedTasks.entrySet()) {
+        if (entry.getValue() == task) {
+          queued = entry.getKey();
+          break;
+        }
+      }
+      boolean result = super.remove(queued);
+      if (result) {
+        decoratedTasks.remove(queued);
+        enqueueTimes.remove(queued);
+      }
+      return result;
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+      super.beforeExecute(t, r);
+      decoratedTasks.remove(r);
+      if (r instanceof DeadlineTask) {
+        long deadlineNanos = ((DeadlineTask) r).getDeadlineNanos();
+        if (deadlineNanos != NO_DEADLINE && LogTime.getLogTime() > deadlineNanos) {
+          missedDeadlineCount.incrementAndGet();
+        }
+      }
+      if (threadCountController != null) {
+        long startTime = LogTime.getLogTime();
+        Long enqueueTime = enqueueTimes.remove(r);
+        long[] times = runningTaskTimes.get();
+        times[0] = enqueueTime != null ? startTime - enqueueTime : 0;
+        times[1] = startTime;
+        times[2] = Debug.threadCpuTimeNanos();
+      }
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+      super.afterExecute(r, t);
+      if (threadCountController != null) {
+        long[] times = runningTaskTimes.get();
+        long finishTime = LogTime.getLogTime();
+        long runNanos = finishTime - times[1];
+        // threadCpuTimeNanos returns -1 if CPU time isn't supported.
+        long endCpuTime = Debug.threadCpuTimeNanos();
+        long cpuNanos = times[2] >= 0 && endCpuTime >= 0 ? endCpuTime - times[2] : -1;
+        setThreadCount(
+            threadCountController.onTaskFinished(finishTime, times[0], runNanos, cpuNanos));
+      }
+    }
+
+    private synchronized void setThreadCount(int threadCount) {
+      if (threadCount == getCorePoolSize()) {
+        return;
+      }
+      // The core size may not exceed the maximum size, so the order matters.
+      if (threadCount > getMaximumPoolSize()) {
+        setMaximumPoolSize(threadCount);
+        setCorePoolSize(threadCount);
+      } else {
+        setCorePoolSize(threadCount);
+        setMaximumPoolSize(threadCount);
+      }
+    }
+  }
+
   private static final class DefaultPriorityThreadFactory implements ThreadFactory {
 
     @Override
@@ -457,7 +838,10 @@ public final class GlideExecutor implements ExecutorService {
 
     private String name;
     private long threadTimeoutMillis;
-    @Synthetic Function<? super Runnable, ? extends Runnable> onExecuteDecorator;
+    private boolean isEarliestDeadlineFirst;
+    private int minAdaptiveThreadCount;
+    private int maxAdaptiveThreadCount;
+    @Nullable private Function<? super Runnable, ? extends Runnable> onExecuteDecorator;
 
     @Synthetic
     Builder(boolean preventNetworkOperations) {
@@ -527,6 +911,48 @@ public final class GlideExecutor implements ExecutorService {
       return this;
     }
 
+    /**
+     * Set to {@code true} to run tasks of the same {@link Priority} in order of their {@link
+     * DeadlineTask deadlines} rather than only in the order they were started.
+     *
+     * <p>Tasks are still ordered by priority first. Within a priority, tasks with earlier deadlines
+     * run first, followed by tasks without deadlines, and then in the order they were started. Set
+     * deadlines on requests with {@link
+     * com.bumptech.glide.request.BaseRequestOptions#experimentalDeadline(long)}.
+     *
+     * <p>This is an experimental method that may be removed without warning in a future version.
+     */
+    public Builder setEarliestDeadlineFirst(boolean isEnabled) {
+      this.isEarliestDeadlineFirst = isEnabled;
+      return this;
+    }
+
+    /**
+     * Adjusts the number of threads at runtime, within the given bounds, instead of using the
+     * number of threads given to {@link #setThreadCount(int)}.
+     *
+     * <p>The executor measures how long tasks wait in its queue, how long they run, and how much of
+     * that time is spent using the CPU rather than blocked on I/O. It starts with one thread per
+     * core and adds threads while tasks are waiting and are frequently blocked. It removes threads
+     * while tasks are mostly using the CPU, or when an added thread doesn't increase throughput.
+     * Use {@link GlideExecutor#getThreadCountStats()} to see the executor's current decisions.
+     *
+     * <p>This is an experimental method that may be removed without warning in a future version.
+     *
+     * @param minThreadCount The fewest threads to use.
+     * @param maxThreadCount The most threads to use, at least {@code minThreadCount}.
+     */
+    public Builder setAdaptiveThreadCount(
+        @IntRange(from = 1) int minThreadCount, @IntRange(from = 1) int maxThreadCount) {
+      if (minThreadCount < 1 || maxThreadCount < minThreadCount) {
+        throw new IllegalArgumentException(
+            "Invalid thread count bounds, min: " + minThreadCount + ", max: " + maxThreadCount);
+      }
+      this.minAdaptiveThreadCount = minThreadCount;
+      this.maxAdaptiveThreadCount = maxThreadCount;
+      return this;
+    }
+
     /** Builds a new {@link GlideExecutor} with any previously specified options. */
     public GlideExecutor build() {
       if (TextUtils.isEmpty(name)) {
@@ -536,31 +962,32 @@ public final class GlideExecutor implements ExecutorService {
       ThreadFactory factory =
           new DefaultThreadFactory(
               threadFactory, name, uncaughtThrowableStrategy, preventNetworkOperations);
-      ThreadPoolExecutor executor;
-      if (onExecuteDecorator != null) {
-        executor =
-            new ThreadPoolExecutor(
-                corePoolSize,
-                maximumPoolSize,
-                /* keepAliveTime= */ threadTimeoutMillis,
-                TimeUnit.MILLISECONDS,
-                new PriorityBlockingQueue<>(),
-                factory) {
-              @Override
-              public void execute(@NonNull Runnable command) {
-                super.execute(onExecuteDecorator.apply(command));
-              }
-            };
-      } else {
-        executor =
-            new ThreadPoolExecutor(
-                corePoolSize,
-                maximumPoolSize,
-                /* keepAliveTime= */ threadTimeoutMillis,
-                TimeUnit.MILLISECONDS,
-                new PriorityBlockingQueue<>(),
-                factory);
+      BlockingQueue<Runnable> workQueue =
+          isEarliestDeadlineFirst
+              ? new PriorityBlockingQueue<>(
+                  INITIAL_QUEUE_CAPACITY, new EarliestDeadlineFirstComparator())
+              : new PriorityBlockingQueue<Runnable>();
+      AdaptiveThreadCountController threadCountController = null;
+      int threadCount = corePoolSize;
+      int maxThreadCount = maximumPoolSize;
+      if (maxAdaptiveThreadCount > 0) {
+        threadCountController =
+            new AdaptiveThreadCountController(
+                minAdaptiveThreadCount,
+                maxAdaptiveThreadCount,
+                RuntimeCompat.availableProcessors());
+        threadCount = threadCountController.getThreadCount();
+        maxThreadCount = threadCount;
       }
+      ThreadPoolExecutor executor =
+          new GlideThreadPoolExecutor(
+              threadCount,
+              maxThreadCount,
+              /* keepAliveTimeMillis= */ threadTimeoutMillis,
+              workQueue,
+              factory,
+              onExecuteDecorator,
+              threadCountController);
 
       if (threadTimeoutMillis != NO_THREAD_TIMEOUT) {
         executor.allowCoreThreadTimeOut(true);
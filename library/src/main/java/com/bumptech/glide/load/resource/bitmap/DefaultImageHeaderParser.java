@@ -12,7 +12,9 @@ import static com.bumptech.glide.load.ImageHeaderParser.ImageType.UNKNOWN;
 
 import android.util.Log;
 import androidx.annotation.NonNull;
-import com.bumptech.glide.load.ImageHeaderParser;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.load.ImageMetadata;
+import com.bumptech.glide.load.ImageMetadataParser;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.util.Preconditions;
 import java.io.IOException;
@@ -22,7 +24,7 @@ import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 
 /** A class for parsing the exif orientation and other data from an image header. */
-public final class DefaultImageHeaderParser implements ImageHeaderParser {
+public final class DefaultImageHeaderParser implements ImageMetadataParser {
   // Due to https://code.google.com/p/android/issues/detail?id=97751.
   // TAG needs to be under 23 chars, so "Default" > "Dflt".
   private static final String TAG = "DfltImageHeaderParser";
@@ -41,6 +43,13 @@ public final class DefaultImageHeaderParser implements ImageHeaderParser {
   static final byte[] JPEG_MPF_SEGMENT_PREAMBLE_BYTES =
       JPEG_MPF_SEGMENT_PREAMBLE.getBytes(Charset.forName("UTF-8"));
   private static final int SEGMENT_SOS = 0xDA;
+  private static final int SEGMENT_DHT = 0xC4;
+  private static final int SEGMENT_JPG = 0xC8;
+  private static final int SEGMENT_DAC = 0xCC;
+  private static final int SEGMENT_SOF0 = 0xC0;
+  private static final int SEGMENT_SOF15 = 0xCF;
+  // SOF2, SOF6, SOF10 and SOF14 all have the progressive bit set.
+  private static final int SOF_PROGRESSIVE_MASK = 0x2;
   private static final int MARKER_EOI = 0xD9;
   static final int SEGMENT_START_ID = 0xFF;
   static final int EXIF_SEGMENT_TYPE = 0xE1;
@@ -122,6 +131,24 @@ public final class DefaultImageHeaderParser implements ImageHeaderParser {
         Preconditions.checkNotNull(byteArrayPool));
   }
 
+  @NonNull
+  @Override
+  public ImageMetadata getMetadata(@NonNull InputStream is, @NonNull ArrayPool byteArrayPool)
+      throws IOException {
+    return getMetadata(
+        new StreamReader(Preconditions.checkNotNull(is)),
+        Preconditions.checkNotNull(byteArrayPool));
+  }
+
+  @NonNull
+  @Override
+  public ImageMetadata getMetadata(
+      @NonNull ByteBuffer byteBuffer, @NonNull ArrayPool byteArrayPool) throws IOException {
+    return getMetadata(
+        new ByteBufferReader(Preconditions.checkNotNull(byteBuffer)),
+        Preconditions.checkNotNull(byteArrayPool));
+  }
+
   private boolean hasJpegMpf(@NonNull Reader reader, @NonNull ArrayPool byteArrayPool)
       throws IOException {
     if (getType(reader) != JPEG) {
@@ -149,8 +176,117 @@ public final class DefaultImageHeaderParser implements ImageHeaderParser {
     return false;
   }
 
+  /**
+   * Reads the type of the image and, for JPEGs, walks the segments up to the start of the image
+   * data once to find the orientation, the dimensions and whether the image is progressive.
+   */
+  @NonNull
+  private ImageMetadata getMetadata(Reader reader, ArrayPool byteArrayPool) throws IOException {
+    int[] dimensions = new int[] {ImageMetadata.UNKNOWN_DIMENSION, ImageMetadata.UNKNOWN_DIMENSION};
+    ImageType type = getType(reader, dimensions);
+    if (type == JPEG) {
+      // getType leaves the reader just after the JPEG magic number.
+      return getJpegMetadata(reader, byteArrayPool);
+    }
+    return new ImageMetadata(
+        type, UNKNOWN_ORIENTATION, dimensions[0], dimensions[1], /* isProgressive= */ false);
+  }
+
+  @NonNull
+  private ImageMetadata getJpegMetadata(Reader reader, ArrayPool byteArrayPool)
+      throws IOException {
+    int orientation = UNKNOWN_ORIENTATION;
+    boolean isExifSegmentSeen = false;
+    int width = ImageMetadata.UNKNOWN_DIMENSION;
+    int height = ImageMetadata.UNKNOWN_DIMENSION;
+    boolean isProgressive = false;
+    try {
+      while (true) {
+        short segmentId = reader.getUInt8();
+        if (segmentId != SEGMENT_START_ID) {
+          if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Unknown segmentId=" + segmentId);
+          }
+          break;
+        }
+
+        short segmentType = reader.getUInt8();
+        if (segmentType == SEGMENT_SOS || segmentType == MARKER_EOI) {
+          break;
+        }
+
+        // A segment includes the bytes that specify its length.
+        int segmentContentsLength = reader.getUInt16() - 2;
+        if (segmentContentsLength < 0) {
+          if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Invalid length: " + segmentContentsLength + " for type: " + segmentType);
+          }
+          break;
+        }
+        if (segmentType == EXIF_SEGMENT_TYPE && !isExifSegmentSeen) {
+          // Like getOrientation, only the first APP1 segment is checked for exif data.
+          isExifSegmentSeen = true;
+          byte[] exifData = byteArrayPool.get(segmentContentsLength, byte[].class);
+          try {
+            orientation = parseExifSegment(reader, exifData, segmentContentsLength);
+          } finally {
+            byteArrayPool.put(exifData);
+          }
+          continue;
+        }
+
+        long toSkip = segmentContentsLength;
+        if (isStartOfFrame(segmentType) && segmentContentsLength >= 5) {
+          // Sample precision, then the height and width.
+          reader.skip(1);
+          height = reader.getUInt16();
+          width = reader.getUInt16();
+          isProgressive = (segmentType & SOF_PROGRESSIVE_MASK) != 0;
+          toSkip -= 5;
+        }
+        long skipped = reader.skip(toSkip);
+        if (skipped != toSkip) {
+          if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(
+                TAG,
+                "Unable to skip enough data"
+                    + ", type: "
+                    + segmentType
+                    + ", wanted to skip: "
+                    + toSkip
+                    + ", but actually skipped: "
+                    + skipped);
+          }
+          break;
+        }
+      }
+    } catch (Reader.EndOfFileException e) {
+      // Return whatever we found before the end of the data.
+    }
+    return new ImageMetadata(JPEG, orientation, width, height, isProgressive);
+  }
+
+  private static boolean isStartOfFrame(int segmentType) {
+    return segmentType >= SEGMENT_SOF0
+        && segmentType <= SEGMENT_SOF15
+        && segmentType != SEGMENT_DHT
+        && segmentType != SEGMENT_JPG
+        && segmentType != SEGMENT_DAC;
+  }
+
   @NonNull
   private ImageType getType(Reader reader) throws IOException {
+    return getType(reader, /* dimensions= */ null);
+  }
+
+  /**
+   * Returns the type of the image.
+   *
+   * @param dimensions If non-null, the width and height of PNGs are written to the first and second
+   *     elements respectively.
+   */
+  @NonNull
+  private ImageType getType(Reader reader, @Nullable int[] dimensions) throws IOException {
     try {
       final int firstTwoBytes = reader.getUInt16();
       // JPEG.
@@ -168,8 +304,18 @@ public final class DefaultImageHeaderParser implements ImageHeaderParser {
       if (firstFourBytes == PNG_HEADER) {
         // See: http://stackoverflow.com/questions/2057923/how-to-check-a-png-for-grayscale-alpha
         // -color-type
-        reader.skip(25 - 4);
         try {
+          if (dimensions == null) {
+            reader.skip(25 - 4);
+          } else {
+            // The IHDR chunk starts with the width and height, then the bit depth.
+            reader.skip(16 - 4);
+            int width = (reader.getUInt16() << 16) | reader.getUInt16();
+            int height = (reader.getUInt16() << 16) | reader.getUInt16();
+            dimensions[0] = width;
+            dimensions[1] = height;
+            reader.skip(1);
+          }
           int alpha = reader.getUInt8();
           // A RGB indexed PNG can also have transparency. Better safe than sorry!
           return alpha >= 3 ? PNG_A : PNG;
@@ -4,17 +4,22 @@ import android.annotation.TargetApi;
 import android.graphics.Bitmap;
 import android.graphics.Bitmap.Config;
 import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
 import android.graphics.ColorSpace;
+import android.graphics.Rect;
 import android.os.Build;
 import android.os.ParcelFileDescriptor;
 import android.util.DisplayMetrics;
 import android.util.Log;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.VisibleForTesting;
+import androidx.exifinterface.media.ExifInterface;
 import com.bumptech.glide.load.DecodeFormat;
 import com.bumptech.glide.load.ImageHeaderParser;
 import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.ImageMetadata;
 import com.bumptech.glide.load.Option;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.PreferredColorSpace;
@@ -33,6 +38,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -133,6 +139,108 @@ public final class Downsampler {
           "com.bumptech.glide.load.resource.bitmap.Downsampler.BypassTransformationsForHardwareBitmaps",
           false);
 
+  /**
+   * The {@link ImageMetadata} of the image to decode, if it's already known.
+   *
+   * <p>Glide sets this option for data retrieved from the disk cache when {@link
+   * com.bumptech.glide.GlideBuilder#setPersistImageMetadataInDiskCache(boolean)} is enabled so that
+   * the image's header isn't read again. Callers should not set this option themselves, incorrect
+   * metadata will produce incorrectly sized or oriented {@link Bitmap}s.
+   */
+  public static final Option<ImageMetadata> IMAGE_METADATA =
+      Option.memory("com.bumptech.glide.load.resource.bitmap.Downsampler.ImageMetadata");
+
+  /**
+   * Indicates that the decoded {@link Bitmap} will be center cropped to the requested dimensions,
+   * so only the region of the image that remains visible needs to be decoded.
+   *
+   * <p>Glide sets this option when {@link CenterCrop} is the only transformation and {@link
+   * com.bumptech.glide.GlideBuilder#setDecodeCenterCropRegion(boolean)} is enabled. If this option
+   * is set without also applying {@link CenterCrop}, the returned {@link Bitmap}s will be cropped,
+   * but not scaled, to the aspect ratio of the requested dimensions. Images provided as an {@link
+   * InputStream} are always decoded whole.
+   */
+  public static final Option<Boolean> DECODE_CENTER_CROP_REGION =
+      Option.memory(
+          "com.bumptech.glide.load.resource.bitmap.Downsampler.DecodeCenterCropRegion", false);
+
+  /**
+   * The region of the image to decode, in the coordinates of the image after any exif orientation
+   * is applied, or {@code null} to decode the entire image.
+   *
+   * <p>The region is decoded as if it were the entire image, so the requested dimensions and the
+   * {@link DownsampleStrategy} apply to the region rather than to the image. Regions that extend
+   * past the edges of the image are clipped. Only JPEG, PNG and WebP images can be decoded in
+   * regions, loads of any other type of image fail.
+   *
+   * <p>The {@link Rect} must not be modified after it's set. See {@link
+   * com.bumptech.glide.TiledImageLoader}, which loads large images in tiles using this option.
+   */
+  public static final Option<Rect> REGION =
+      Option.disk(
+          "com.bumptech.glide.load.resource.bitmap.Downsampler.Region",
+          new Option.CacheKeyUpdater<Rect>() {
+            private final ByteBuffer buffer = ByteBuffer.allocate(4 * Integer.SIZE / Byte.SIZE);
+
+            @Override
+            public void update(
+                @NonNull byte[] keyBytes,
+                @NonNull Rect value,
+                @NonNull MessageDigest messageDigest) {
+              messageDigest.update(keyBytes);
+              synchronized (buffer) {
+                buffer.position(0);
+                buffer.putInt(value.left).putInt(value.top);
+                buffer.putInt(value.right).putInt(value.bottom);
+                messageDigest.update(buffer.array());
+              }
+            }
+          });
+
+  /**
+   * An optional key that identifies the data of loads that set {@link #REGION}, so that regions
+   * decoded from equal keys can reuse a small pool of {@link BitmapRegionDecoder}s rather than
+   * creating a new one, and parsing the image again, for each region.
+   *
+   * <p>Keys must implement {@link Object#equals(Object)} and {@link Object#hashCode()}, and must
+   * change if the data changes. {@link com.bumptech.glide.TiledImageLoader} uses the model and
+   * signature of the image.
+   */
+  public static final Option<Object> REGION_SOURCE_KEY =
+      Option.memory("com.bumptech.glide.load.resource.bitmap.Downsampler.RegionSourceKey");
+
+  /**
+   * The maximum number of bytes of a progressive JPEG to decode, or {@code null} to decode the
+   * entire image.
+   *
+   * <p>When set, only the first scans of progressive JPEGs, which contain a low resolution version
+   * of the entire image, are decoded. Reading stops once the given number of bytes has been read,
+   * which lets {@link com.bumptech.glide.load.data.DataFetcher}s like {@link
+   * com.bumptech.glide.load.data.HttpUrlFetcher} stop downloading early. Loads of any other type of
+   * image, or of images that aren't provided as an {@link InputStream}, fail.
+   *
+   * <p>See {@link com.bumptech.glide.RequestBuilder#progressivePreview(int)}, which displays the
+   * result as a thumbnail until the full image is loaded.
+   */
+  public static final Option<Integer> PROGRESSIVE_PREVIEW_BYTES =
+      Option.disk(
+          "com.bumptech.glide.load.resource.bitmap.Downsampler.ProgressivePreviewBytes",
+          new Option.CacheKeyUpdater<Integer>() {
+            private final ByteBuffer buffer = ByteBuffer.allocate(Integer.SIZE / Byte.SIZE);
+
+            @Override
+            public void update(
+                @NonNull byte[] keyBytes,
+                @NonNull Integer value,
+                @NonNull MessageDigest messageDigest) {
+              messageDigest.update(keyBytes);
+              synchronized (buffer) {
+                buffer.position(0);
+                messageDigest.update(buffer.putInt(value).array());
+              }
+            }
+          });
+
   private static final String WBMP_MIME_TYPE = "image/vnd.wap.wbmp";
   private static final String ICO_MIME_TYPE = "image/x-ico";
   private static final Set<String> NO_DOWNSAMPLE_PRE_N_MIME_TYPES =
@@ -155,6 +263,15 @@ public final class Downsampler {
               ImageHeaderParser.ImageType.JPEG,
               ImageHeaderParser.ImageType.PNG_A,
               ImageHeaderParser.ImageType.PNG));
+  // The types that BitmapRegionDecoder supports on all of the versions of Android we support.
+  private static final Set<ImageHeaderParser.ImageType> REGION_DECODER_TYPES =
+      Collections.unmodifiableSet(
+          EnumSet.of(
+              ImageHeaderParser.ImageType.JPEG,
+              ImageHeaderParser.ImageType.PNG_A,
+              ImageHeaderParser.ImageType.PNG,
+              ImageHeaderParser.ImageType.WEBP_A,
+              ImageHeaderParser.ImageType.WEBP));
   private static final Queue<BitmapFactory.Options> OPTIONS_QUEUE = Util.createQueue(0);
 
   private final BitmapPool bitmapPool;
@@ -162,6 +279,7 @@ public final class Downsampler {
   private final ArrayPool byteArrayPool;
   private final List<ImageHeaderParser> parsers;
   private final HardwareConfigState hardwareConfigState = HardwareConfigState.getInstance();
+  private final RegionDecoderCache regionDecoders = new RegionDecoderCache();
 
   public Downsampler(
       List<ImageHeaderParser> parsers,
@@ -244,6 +362,10 @@ public final class Downsampler {
       Options options,
       DecodeCallbacks callbacks)
       throws IOException {
+    Integer previewBytes = options.get(PROGRESSIVE_PREVIEW_BYTES);
+    if (previewBytes != null) {
+      is = new JpegPrefixInputStream(is, previewBytes);
+    }
     return decode(
         new ImageReader.InputStreamImageReader(is, parsers, byteArrayPool),
         requestedWidth,
@@ -304,11 +426,24 @@ public final class Downsampler {
     boolean fixBitmapToRequestedDimensions = options.get(FIX_BITMAP_SIZE_TO_REQUESTED_DIMENSIONS);
     boolean isHardwareConfigAllowed =
         options.get(ALLOW_HARDWARE_CONFIG) != null && options.get(ALLOW_HARDWARE_CONFIG);
+    ImageMetadata knownMetadata = options.get(IMAGE_METADATA);
+    boolean isCenterCropRegionDecodeAllowed = options.get(DECODE_CENTER_CROP_REGION);
+    Rect requestedRegion = options.get(REGION);
+    Object regionSourceKey = requestedRegion != null ? options.get(REGION_SOURCE_KEY) : null;
+    boolean isProgressivePreview = options.get(PROGRESSIVE_PREVIEW_BYTES) != null;
+    if (isProgressivePreview) {
+      if (!(imageReader instanceof ImageReader.InputStreamImageReader)) {
+        throw new IOException("Progressive previews can only be decoded from InputStreams");
+      }
+      // A truncated image can't be decoded in regions.
+      isCenterCropRegionDecodeAllowed = false;
+    }
 
     try {
       Bitmap result =
           decodeFromWrappedStreams(
               imageReader,
+              knownMetadata,
               bitmapFactoryOptions,
               downsampleStrategy,
               decodeFormat,
@@ -317,6 +452,10 @@ public final class Downsampler {
               requestedWidth,
               requestedHeight,
               fixBitmapToRequestedDimensions,
+              isCenterCropRegionDecodeAllowed,
+              requestedRegion,
+              regionSourceKey,
+              isProgressivePreview,
               callbacks);
       return BitmapResource.obtain(result, bitmapPool);
     } finally {
@@ -327,6 +466,7 @@ public final class Downsampler {
 
   private Bitmap decodeFromWrappedStreams(
       ImageReader imageReader,
+      @Nullable ImageMetadata knownMetadata,
       BitmapFactory.Options options,
       DownsampleStrategy downsampleStrategy,
       DecodeFormat decodeFormat,
@@ -335,11 +475,32 @@ public final class Downsampler {
       int requestedWidth,
       int requestedHeight,
       boolean fixBitmapToRequestedDimensions,
+      boolean isCenterCropRegionDecodeAllowed,
+      @Nullable Rect requestedRegion,
+      @Nullable Object regionSourceKey,
+      boolean isProgressivePreview,
       DecodeCallbacks callbacks)
       throws IOException {
     long startTime = LogTime.getLogTime();
 
-    int[] sourceDimensions = getDimensions(imageReader, options, callbacks, bitmapPool);
+    // Read the type, orientation and, for some formats, dimensions in one pass over the header,
+    // unless they were persisted when the data was written to the disk cache.
+    ImageMetadata metadata = knownMetadata != null ? knownMetadata : imageReader.getImageMetadata();
+    ImageType imageType = metadata.getType();
+    if (isProgressivePreview && (imageType != ImageType.JPEG || !metadata.isProgressive())) {
+      // Only the first bytes of the image are available, which for any other image would decode
+      // as a partially drawn Bitmap.
+      throw new IOException("Progressive previews require a progressive JPEG, got: " + metadata);
+    }
+
+    int[] sourceDimensions;
+    String headerMimeType = getMimeTypeIfHeaderDimensionsAreReliable(metadata, preferredColorSpace);
+    if (headerMimeType != null) {
+      sourceDimensions = new int[] {metadata.getWidth(), metadata.getHeight()};
+      options.outMimeType = headerMimeType;
+    } else {
+      sourceDimensions = getDimensions(imageReader, options, callbacks, bitmapPool);
+    }
     int sourceWidth = sourceDimensions[0];
     int sourceHeight = sourceDimensions[1];
     String sourceMimeType = options.outMimeType;
@@ -352,10 +513,20 @@ public final class Downsampler {
       isHardwareConfigAllowed = false;
     }
 
-    int orientation = imageReader.getImageOrientation();
+    int orientation = metadata.getOrientation();
     int degreesToRotate = TransformationUtils.getExifOrientationDegrees(orientation);
     boolean isExifOrientationRequired = TransformationUtils.isExifOrientationRequired(orientation);
 
+    Rect sourceRegion = null;
+    if (requestedRegion != null) {
+      sourceRegion =
+          getSourceRegion(imageType, requestedRegion, orientation, sourceWidth, sourceHeight);
+      // From here on, size everything as if the region were the entire image.
+      sourceWidth = sourceRegion.width();
+      sourceHeight = sourceRegion.height();
+      isHardwareConfigAllowed = false;
+    }
+
     int targetWidth =
         requestedWidth == Target.SIZE_ORIGINAL
             ? (isRotationRequired(degreesToRotate) ? sourceHeight : sourceWidth)
@@ -365,8 +536,6 @@ public final class Downsampler {
             ? (isRotationRequired(degreesToRotate) ? sourceWidth : sourceHeight)
             : requestedHeight;
 
-    ImageType imageType = imageReader.getImageType();
-
     calculateScaling(
         imageType,
         imageReader,
@@ -380,7 +549,7 @@ public final class Downsampler {
         targetHeight,
         options);
     calculateConfig(
-        imageReader,
+        imageType,
         decodeFormat,
         isHardwareConfigAllowed,
         isExifOrientationRequired,
@@ -388,9 +557,31 @@ public final class Downsampler {
         targetWidth,
         targetHeight);
 
+    Rect region = sourceRegion;
+    if (region == null
+        && isCenterCropRegionDecodeAllowed
+        && !fixBitmapToRequestedDimensions
+        // BitmapRegionDecoder reads all of a stream, so if it fails the stream can't be rewound to
+        // decode the whole image instead.
+        && !(imageReader instanceof ImageReader.InputStreamImageReader)) {
+      region =
+          getCenterCropRegion(
+              imageType,
+              preferredColorSpace,
+              isExifOrientationRequired,
+              sourceWidth,
+              sourceHeight,
+              targetWidth,
+              targetHeight,
+              options);
+    }
+
     boolean isKitKatOrGreater = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
     // Prior to KitKat, the inBitmap size must exactly match the size of the bitmap we're decoding.
-    if ((options.inSampleSize == 1 || isKitKatOrGreater) && shouldUsePool(imageType)) {
+    // Region decodes obtain their own inBitmap, see decodeRegion.
+    if (region == null
+        && (options.inSampleSize == 1 || isKitKatOrGreater)
+        && shouldUsePool(imageType)) {
       int expectedWidth;
       int expectedHeight;
       if (sourceWidth >= 0
@@ -451,7 +642,25 @@ public final class Downsampler {
       }
     }
 
-    Bitmap downsampled = decodeStream(imageReader, options, callbacks, bitmapPool);
+    Bitmap downsampled = null;
+    if (region != null) {
+      downsampled =
+          decodeRegion(
+              imageReader,
+              region,
+              imageType,
+              options,
+              callbacks,
+              bitmapPool,
+              sourceRegion != null ? regionSourceKey : null,
+              regionDecoders);
+    }
+    if (downsampled == null) {
+      if (sourceRegion != null) {
+        throw new IOException("Failed to decode region: " + sourceRegion + " of: " + imageType);
+      }
+      downsampled = decodeStream(imageReader, options, callbacks, bitmapPool);
+    }
     callbacks.onDecodeComplete(bitmapPool, downsampled);
 
     if (downsampled != null && sourceWidth > 0 && sourceHeight > 0) {
@@ -734,7 +943,7 @@ public final class Downsampler {
 
   @SuppressWarnings("deprecation")
   private void calculateConfig(
-      ImageReader imageReader,
+      ImageType imageType,
       DecodeFormat format,
       boolean isHardwareConfigAllowed,
       boolean isExifOrientationRequired,
@@ -758,20 +967,7 @@ public final class Downsampler {
       return;
     }
 
-    boolean hasAlpha = false;
-    try {
-      hasAlpha = imageReader.getImageType().hasAlpha();
-    } catch (IOException e) {
-      if (Log.isLoggable(TAG, Log.DEBUG)) {
-        Log.d(
-            TAG,
-            "Cannot determine whether the image has alpha or not from header"
-                + ", format "
-                + format,
-            e);
-      }
-    }
-
+    boolean hasAlpha = imageType.hasAlpha();
     optionsWithScaling.inPreferredConfig =
         hasAlpha ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
     if (optionsWithScaling.inPreferredConfig == Config.RGB_565) {
@@ -779,6 +975,33 @@ public final class Downsampler {
     }
   }
 
+  /**
+   * Returns the mime type of the image if the dimensions read from its header match those {@link
+   * BitmapFactory} would report, so that decoding just the bounds of the image can be skipped, or
+   * {@code null} otherwise.
+   */
+  @Nullable
+  private static String getMimeTypeIfHeaderDimensionsAreReliable(
+      ImageMetadata metadata, @Nullable PreferredColorSpace preferredColorSpace) {
+    if (!metadata.hasDimensions()) {
+      return null;
+    }
+    // The color space of the image is only available by decoding its bounds.
+    if (preferredColorSpace == PreferredColorSpace.DISPLAY_P3
+        && Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+      return null;
+    }
+    switch (metadata.getType()) {
+      case JPEG:
+        return "image/jpeg";
+      case PNG:
+      case PNG_A:
+        return "image/png";
+      default:
+        return null;
+    }
+  }
+
   /**
    * A method for getting the dimensions of an image from the given InputStream.
    *
@@ -850,6 +1073,217 @@ public final class Downsampler {
     return result;
   }
 
+  /**
+   * Returns the centered region of the image that {@link CenterCrop} would keep, or {@code null} if
+   * the whole image should be decoded instead.
+   *
+   * <p>The region's dimensions are multiples of the sample size so that the size of the decoded
+   * region is known exactly, which {@link BitmapRegionDecoder} requires to decode into a pooled
+   * {@link Bitmap}.
+   */
+  @Nullable
+  @VisibleForTesting
+  static Rect getCenterCropRegion(
+      ImageType imageType,
+      @Nullable PreferredColorSpace preferredColorSpace,
+      boolean isExifOrientationRequired,
+      int sourceWidth,
+      int sourceHeight,
+      int targetWidth,
+      int targetHeight,
+      BitmapFactory.Options options) {
+    if (!REGION_DECODER_TYPES.contains(imageType)
+        // Cropping before rotating would require mapping the region through the exif transform.
+        || isExifOrientationRequired
+        // BitmapRegionDecoder won't convert into the color space of a pooled Bitmap.
+        || preferredColorSpace == PreferredColorSpace.DISPLAY_P3
+        || (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+            && options.inPreferredConfig == Config.HARDWARE)
+        || sourceWidth <= 0
+        || sourceHeight <= 0
+        || targetWidth <= 0
+        || targetHeight <= 0) {
+      return null;
+    }
+    int sampleSize = Math.max(1, options.inSampleSize);
+    float scale = Math.max(targetWidth / (float) sourceWidth, targetHeight / (float) sourceHeight);
+    int regionWidth = roundDownToMultiple(Math.round(targetWidth / scale), sampleSize, sourceWidth);
+    int regionHeight =
+        roundDownToMultiple(Math.round(targetHeight / scale), sampleSize, sourceHeight);
+    if (regionWidth <= 0 || regionHeight <= 0) {
+      return null;
+    }
+    // Rounding to the sample size alone isn't worth a second decoder.
+    if (sourceWidth - regionWidth < sampleSize && sourceHeight - regionHeight < sampleSize) {
+      return null;
+    }
+    int left = (sourceWidth - regionWidth) / 2;
+    int top = (sourceHeight - regionHeight) / 2;
+    return new Rect(left, top, left + regionWidth, top + regionHeight);
+  }
+
+  /**
+   * Returns the given region of the oriented image in the coordinates of the image as it's stored,
+   * clipped to the image.
+   *
+   * @throws IOException If the image can't be decoded in regions or the region is empty.
+   */
+  @VisibleForTesting
+  static Rect getSourceRegion(
+      ImageType imageType, Rect region, int orientation, int sourceWidth, int sourceHeight)
+      throws IOException {
+    if (!REGION_DECODER_TYPES.contains(imageType) || sourceWidth <= 0 || sourceHeight <= 0) {
+      throw new IOException(
+          "Unable to decode region of: "
+              + imageType
+              + " with dimensions: ["
+              + sourceWidth
+              + "x"
+              + sourceHeight
+              + "]");
+    }
+    int w = sourceWidth;
+    int h = sourceHeight;
+    Rect result;
+    switch (orientation) {
+      case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+        result = new Rect(w - region.right, region.top, w - region.left, region.bottom);
+        break;
+      case ExifInterface.ORIENTATION_ROTATE_180:
+        result = new Rect(w - region.right, h - region.bottom, w - region.left, h - region.top);
+        break;
+      case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+        result = new Rect(region.left, h - region.bottom, region.right, h - region.top);
+        break;
+      case ExifInterface.ORIENTATION_TRANSPOSE:
+        result = new Rect(region.top, region.left, region.bottom, region.right);
+        break;
+      case ExifInterface.ORIENTATION_ROTATE_90:
+        result = new Rect(region.top, h - region.right, region.bottom, h - region.left);
+        break;
+      case ExifInterface.ORIENTATION_TRANSVERSE:
+        result = new Rect(w - region.bottom, h - region.right, w - region.top, h - region.left);
+        break;
+      case ExifInterface.ORIENTATION_ROTATE_270:
+        result = new Rect(w - region.bottom, region.left, w - region.top, region.right);
+        break;
+      default:
+        result = new Rect(region);
+        break;
+    }
+    if (!result.intersect(0, 0, w, h) || result.isEmpty()) {
+      throw new IOException(
+          "Region: " + region + " is outside of image: [" + sourceWidth + "x" + sourceHeight + "]");
+    }
+    return result;
+  }
+
+  private static int roundDownToMultiple(int value, int multiple, int max) {
+    int clamped = Math.min(value, max);
+    return clamped - clamped % multiple;
+  }
+
+  /**
+   * Decodes only the given region of the image, or returns {@code null} if the region couldn't be
+   * decoded and the whole image should be decoded instead.
+   *
+   * <p>If {@code sourceKey} is non-null, the region is decoded with an idle decoder for the same
+   * data from {@code regionDecoders}, or with a new decoder that's then added to it.
+   */
+  @Nullable
+  private static Bitmap decodeRegion(
+      ImageReader imageReader,
+      Rect region,
+      ImageType imageType,
+      BitmapFactory.Options options,
+      DecodeCallbacks callbacks,
+      BitmapPool bitmapPool,
+      @Nullable Object sourceKey,
+      RegionDecoderCache regionDecoders)
+      throws IOException {
+    callbacks.onObtainBounds();
+    imageReader.stopGrowingBuffers();
+
+    int sampleSize = Math.max(1, options.inSampleSize);
+    int width = region.width() / sampleSize;
+    int height = region.height() / sampleSize;
+    // BitmapRegionDecoder neither resizes nor clears the Bitmap it decodes into, so it must be
+    // exactly the size of the region and cleared if the image may have transparent pixels. The
+    // decoded size is only known exactly if the region is a multiple of the sample size.
+    if (shouldUsePool(imageType)
+        && region.width() % sampleSize == 0
+        && region.height() % sampleSize == 0) {
+      options.inBitmap =
+          imageType.hasAlpha()
+              ? bitmapPool.get(width, height, options.inPreferredConfig)
+              : bitmapPool.getDirty(width, height, options.inPreferredConfig);
+    }
+
+    RegionDecoderCache.Entry sharedDecoder =
+        sourceKey != null ? regionDecoders.acquire(sourceKey) : null;
+    BitmapRegionDecoder regionDecoder = null;
+    try {
+      if (sharedDecoder != null) {
+        regionDecoder = sharedDecoder.decoder;
+      } else {
+        regionDecoder = imageReader.newRegionDecoder();
+        if (regionDecoder == null) {
+          releaseInBitmap(options, bitmapPool);
+          return null;
+        }
+        if (sourceKey != null) {
+          sharedDecoder = regionDecoders.put(sourceKey, regionDecoder);
+          regionDecoder = sharedDecoder.decoder;
+        }
+      }
+      Bitmap result = decodeRegion(regionDecoder, region, options);
+      if (result == null && options.inBitmap != null) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Failed to decode region with inBitmap, trying again without re-use");
+        }
+        releaseInBitmap(options, bitmapPool);
+        result = decodeRegion(regionDecoder, region, options);
+      }
+      return result;
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to decode region: " + region + ", decoding the whole image", e);
+      }
+      releaseInBitmap(options, bitmapPool);
+      return null;
+    } finally {
+      if (sharedDecoder != null) {
+        regionDecoders.release(sharedDecoder);
+      } else if (regionDecoder != null) {
+        regionDecoder.recycle();
+      }
+    }
+  }
+
+  @Nullable
+  private static Bitmap decodeRegion(
+      BitmapRegionDecoder regionDecoder, Rect region, BitmapFactory.Options options) {
+    TransformationUtils.getBitmapDrawableLock().lock();
+    try {
+      return regionDecoder.decodeRegion(region, options);
+    } catch (IllegalArgumentException e) {
+      // Thrown if the region or inBitmap can't be used, in which case we fall back.
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to decode region: " + region, e);
+      }
+      return null;
+    } finally {
+      TransformationUtils.getBitmapDrawableLock().unlock();
+    }
+  }
+
+  private static void releaseInBitmap(BitmapFactory.Options options, BitmapPool bitmapPool) {
+    if (options.inBitmap != null) {
+      bitmapPool.put(options.inBitmap);
+      options.inBitmap = null;
+    }
+  }
+
   private static boolean isScaling(BitmapFactory.Options options) {
     return options.inTargetDensity > 0
         && options.inDensity > 0
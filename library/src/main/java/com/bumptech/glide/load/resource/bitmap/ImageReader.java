@@ -3,11 +3,12 @@ package com.bumptech.glide.load.resource.bitmap;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.BitmapFactory.Options;
+import android.graphics.BitmapRegionDecoder;
 import android.os.ParcelFileDescriptor;
 import androidx.annotation.Nullable;
 import com.bumptech.glide.load.ImageHeaderParser;
-import com.bumptech.glide.load.ImageHeaderParser.ImageType;
 import com.bumptech.glide.load.ImageHeaderParserUtils;
+import com.bumptech.glide.load.ImageMetadata;
 import com.bumptech.glide.load.data.DataRewinder;
 import com.bumptech.glide.load.data.InputStreamRewinder;
 import com.bumptech.glide.load.data.ParcelFileDescriptorRewinder;
@@ -32,9 +33,16 @@ interface ImageReader {
   @Nullable
   Bitmap decodeBitmap(BitmapFactory.Options options) throws IOException;
 
-  ImageHeaderParser.ImageType getImageType() throws IOException;
+  /** Returns the type, orientation and, if available, dimensions of the image in one pass. */
+  ImageMetadata getImageMetadata() throws IOException;
 
-  int getImageOrientation() throws IOException;
+  /**
+   * Returns a new decoder for regions of the image, or {@code null} if the image can't be decoded.
+   *
+   * <p>Callers must {@link BitmapRegionDecoder#recycle() recycle} the returned decoder.
+   */
+  @Nullable
+  BitmapRegionDecoder newRegionDecoder() throws IOException;
 
   boolean hasJpegMpf() throws IOException;
 
@@ -59,13 +67,15 @@ interface ImageReader {
     }
 
     @Override
-    public ImageType getImageType() throws IOException {
-      return ImageHeaderParserUtils.getType(parsers, ByteBuffer.wrap(bytes));
+    public ImageMetadata getImageMetadata() throws IOException {
+      return ImageHeaderParserUtils.getMetadata(parsers, ByteBuffer.wrap(bytes), byteArrayPool);
     }
 
+    @Nullable
     @Override
-    public int getImageOrientation() throws IOException {
-      return ImageHeaderParserUtils.getOrientation(parsers, ByteBuffer.wrap(bytes), byteArrayPool);
+    @SuppressWarnings("deprecation")
+    public BitmapRegionDecoder newRegionDecoder() throws IOException {
+      return BitmapRegionDecoder.newInstance(bytes, 0, bytes.length, /* isShareable= */ false);
     }
 
     @Override
@@ -108,11 +118,11 @@ interface ImageReader {
     }
 
     @Override
-    public ImageType getImageType() throws IOException {
+    public ImageMetadata getImageMetadata() throws IOException {
       InputStream is = null;
       try {
         is = new RecyclableBufferedInputStream(new FileInputStream(file), byteArrayPool);
-        return ImageHeaderParserUtils.getType(parsers, is, byteArrayPool);
+        return ImageHeaderParserUtils.getMetadata(parsers, is, byteArrayPool);
       } finally {
         if (is != null) {
           try {
@@ -124,21 +134,11 @@ interface ImageReader {
       }
     }
 
+    @Nullable
     @Override
-    public int getImageOrientation() throws IOException {
-      InputStream is = null;
-      try {
-        is = new RecyclableBufferedInputStream(new FileInputStream(file), byteArrayPool);
-        return ImageHeaderParserUtils.getOrientation(parsers, is, byteArrayPool);
-      } finally {
-        if (is != null) {
-          try {
-            is.close();
-          } catch (IOException e) {
-            // Ignored.
-          }
-        }
-      }
+    @SuppressWarnings("deprecation")
+    public BitmapRegionDecoder newRegionDecoder() throws IOException {
+      return BitmapRegionDecoder.newInstance(file.getAbsolutePath(), /* isShareable= */ false);
     }
 
     @Override
@@ -196,14 +196,16 @@ interface ImageReader {
     }
 
     @Override
-    public ImageType getImageType() throws IOException {
-      return ImageHeaderParserUtils.getType(parsers, ByteBufferUtil.rewind(buffer));
+    public ImageMetadata getImageMetadata() throws IOException {
+      return ImageHeaderParserUtils.getMetadata(
+          parsers, ByteBufferUtil.rewind(buffer), byteArrayPool);
     }
 
+    @Nullable
     @Override
-    public int getImageOrientation() throws IOException {
-      return ImageHeaderParserUtils.getOrientation(
-          parsers, ByteBufferUtil.rewind(buffer), byteArrayPool);
+    @SuppressWarnings("deprecation")
+    public BitmapRegionDecoder newRegionDecoder() throws IOException {
+      return BitmapRegionDecoder.newInstance(stream(), /* isShareable= */ false);
     }
 
     @Override
@@ -241,14 +243,16 @@ interface ImageReader {
     }
 
     @Override
-    public ImageHeaderParser.ImageType getImageType() throws IOException {
-      return ImageHeaderParserUtils.getType(parsers, dataRewinder.rewindAndGet(), byteArrayPool);
+    public ImageMetadata getImageMetadata() throws IOException {
+      return ImageHeaderParserUtils.getMetadata(
+          parsers, dataRewinder.rewindAndGet(), byteArrayPool);
     }
 
+    @Nullable
     @Override
-    public int getImageOrientation() throws IOException {
-      return ImageHeaderParserUtils.getOrientation(
-          parsers, dataRewinder.rewindAndGet(), byteArrayPool);
+    @SuppressWarnings("deprecation")
+    public BitmapRegionDecoder newRegionDecoder() throws IOException {
+      return BitmapRegionDecoder.newInstance(dataRewinder.rewindAndGet(), /* isShareable= */ false);
     }
 
     @Override
@@ -286,13 +290,16 @@ interface ImageReader {
     }
 
     @Override
-    public ImageHeaderParser.ImageType getImageType() throws IOException {
-      return ImageHeaderParserUtils.getType(parsers, dataRewinder, byteArrayPool);
+    public ImageMetadata getImageMetadata() throws IOException {
+      return ImageHeaderParserUtils.getMetadata(parsers, dataRewinder, byteArrayPool);
     }
 
+    @Nullable
     @Override
-    public int getImageOrientation() throws IOException {
-      return ImageHeaderParserUtils.getOrientation(parsers, dataRewinder, byteArrayPool);
+    @SuppressWarnings("deprecation")
+    public BitmapRegionDecoder newRegionDecoder() throws IOException {
+      FileDescriptor fileDescriptor = dataRewinder.rewindAndGet().getFileDescriptor();
+      return BitmapRegionDecoder.newInstance(fileDescriptor, /* isShareable= */ false);
     }
 
     @Override
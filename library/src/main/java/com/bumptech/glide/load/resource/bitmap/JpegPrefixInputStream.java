@@ -0,0 +1,103 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import androidx.annotation.NonNull;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads at most a given number of bytes of a JPEG and then ends the image with an end of image
+ * marker so that the scans that were read can be decoded as if they were the entire image.
+ *
+ * <p>If the wrapped {@link InputStream} ends before the given number of bytes is read, no marker is
+ * added, the image is already complete.
+ */
+final class JpegPrefixInputStream extends FilterInputStream {
+  private static final int END_OF_STREAM = -1;
+  private static final byte[] END_OF_IMAGE = new byte[] {(byte) 0xFF, (byte) 0xD9};
+
+  private final int maxBytes;
+  private int position;
+
+  JpegPrefixInputStream(@NonNull InputStream in, int maxBytes) {
+    super(in);
+    this.maxBytes = maxBytes;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (position < maxBytes) {
+      int result = super.read();
+      if (result != END_OF_STREAM) {
+        position++;
+      }
+      return result;
+    }
+    int markerIndex = position - maxBytes;
+    if (markerIndex >= END_OF_IMAGE.length) {
+      return END_OF_STREAM;
+    }
+    position++;
+    return END_OF_IMAGE[markerIndex] & 0xFF;
+  }
+
+  @Override
+  public int read(@NonNull byte[] buffer, int byteOffset, int byteCount) throws IOException {
+    if (byteCount == 0) {
+      return 0;
+    }
+    if (position < maxBytes) {
+      int read = super.read(buffer, byteOffset, Math.min(byteCount, maxBytes - position));
+      if (read != END_OF_STREAM) {
+        position += read;
+      }
+      return read;
+    }
+    int markerIndex = position - maxBytes;
+    if (markerIndex >= END_OF_IMAGE.length) {
+      return END_OF_STREAM;
+    }
+    int count = Math.min(byteCount, END_OF_IMAGE.length - markerIndex);
+    System.arraycopy(END_OF_IMAGE, markerIndex, buffer, byteOffset, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public long skip(long byteCount) throws IOException {
+    if (byteCount <= 0) {
+      return 0;
+    }
+    if (position < maxBytes) {
+      long skipped = super.skip(Math.min(byteCount, maxBytes - position));
+      position += (int) skipped;
+      return skipped;
+    }
+    int count = (int) Math.min(byteCount, Math.max(0, maxBytes + END_OF_IMAGE.length - position));
+    position += count;
+    return count;
+  }
+
+  @Override
+  public int available() throws IOException {
+    if (position < maxBytes) {
+      return Math.min(super.available(), maxBytes - position);
+    }
+    return Math.max(0, maxBytes + END_OF_IMAGE.length - position);
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public synchronized void mark(int readLimit) {
+    // Not supported.
+  }
+
+  @Override
+  public synchronized void reset() throws IOException {
+    throw new IOException("Mark is not supported");
+  }
+}
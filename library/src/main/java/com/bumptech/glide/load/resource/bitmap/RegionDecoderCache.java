@@ -0,0 +1,131 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.graphics.BitmapRegionDecoder;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the {@link BitmapRegionDecoder}s most recently used by {@link Downsampler} so that regions
+ * of an image decoded with {@link Downsampler#REGION_SOURCE_KEY} reuse decoders rather than
+ * creating a new one for each region.
+ *
+ * <p>Creating a decoder parses the image and, for some types of data, copies all of it, so for an
+ * image decoded in many regions that cost would otherwise be paid once per region. Each decoder is
+ * internally synchronized and decodes one region at a time, so a small pool of decoders is kept for
+ * each image and every decoder is used by at most one decode at a time, which lets regions of the
+ * same image be decoded in parallel. Decoders are only recycled once they've been evicted and are
+ * no longer in use.
+ */
+final class RegionDecoderCache {
+  // Enough for the image being viewed and the image being transitioned to or from.
+  private static final int DEFAULT_MAX_SOURCES = 2;
+  // Matches the maximum number of threads in Glide's default source executor.
+  private static final int DEFAULT_MAX_DECODERS_PER_SOURCE = 4;
+
+  private final int maxSources;
+  private final int maxDecodersPerSource;
+  private final Map<Object, List<Entry>> entries =
+      new LinkedHashMap<>(
+          /* initialCapacity= */ DEFAULT_MAX_SOURCES + 1,
+          /* loadFactor= */ 0.75f,
+          /* accessOrder= */ true);
+
+  RegionDecoderCache() {
+    this(DEFAULT_MAX_SOURCES, DEFAULT_MAX_DECODERS_PER_SOURCE);
+  }
+
+  @VisibleForTesting
+  RegionDecoderCache(int maxSources, int maxDecodersPerSource) {
+    this.maxSources = maxSources;
+    this.maxDecodersPerSource = maxDecodersPerSource;
+  }
+
+  /**
+   * Returns an entry for the given key whose decoder isn't in use, or {@code null} if there isn't
+   * one.
+   *
+   * <p>Callers must {@link #release(Entry)} the returned entry once they've finished decoding.
+   */
+  @Nullable
+  synchronized Entry acquire(@NonNull Object key) {
+    List<Entry> sourceEntries = entries.get(key);
+    if (sourceEntries == null) {
+      return null;
+    }
+    Iterator<Entry> iterator = sourceEntries.iterator();
+    while (iterator.hasNext()) {
+      Entry entry = iterator.next();
+      if (entry.decoder.isRecycled()) {
+        iterator.remove();
+        entry.isEvicted = true;
+      } else if (!entry.isInUse) {
+        entry.isInUse = true;
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Adds the given decoder for the given key, evicting the decoders of the least recently used keys
+   * if necessary, and returns its entry, which is in use.
+   *
+   * <p>If the key already has as many decoders as allowed, the given decoder isn't added and is
+   * recycled when its entry is released. Callers must {@link #release(Entry)} the returned entry
+   * once they've finished decoding.
+   */
+  @NonNull
+  synchronized Entry put(@NonNull Object key, @NonNull BitmapRegionDecoder decoder) {
+    Entry entry = new Entry(decoder);
+    entry.isInUse = true;
+    List<Entry> sourceEntries = entries.get(key);
+    if (sourceEntries == null) {
+      sourceEntries = new ArrayList<>(maxDecodersPerSource);
+      entries.put(key, sourceEntries);
+    }
+    if (sourceEntries.size() >= maxDecodersPerSource) {
+      entry.isEvicted = true;
+      return entry;
+    }
+    sourceEntries.add(entry);
+    Iterator<List<Entry>> iterator = entries.values().iterator();
+    while (entries.size() > maxSources && iterator.hasNext()) {
+      List<Entry> eldest = iterator.next();
+      iterator.remove();
+      for (Entry evicted : eldest) {
+        evicted.isEvicted = true;
+        recycleIfUnused(evicted);
+      }
+    }
+    return entry;
+  }
+
+  /** Releases an entry returned by {@link #acquire(Object)} or {@link #put}. */
+  synchronized void release(@NonNull Entry entry) {
+    entry.isInUse = false;
+    recycleIfUnused(entry);
+  }
+
+  private static void recycleIfUnused(Entry entry) {
+    if (entry.isEvicted && !entry.isInUse) {
+      entry.decoder.recycle();
+    }
+  }
+
+  /** A decoder and whether a decode is using it. */
+  static final class Entry {
+    final BitmapRegionDecoder decoder;
+    boolean isInUse;
+    boolean isEvicted;
+
+    Entry(BitmapRegionDecoder decoder) {
+      this.decoder = decoder;
+    }
+  }
+}
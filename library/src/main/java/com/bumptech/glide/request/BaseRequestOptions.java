@@ -18,6 +18,7 @@ import com.bumptech.glide.load.Option;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import com.bumptech.glide.load.model.stream.HttpGlideUrlLoader;
 import com.bumptech.glide.load.resource.bitmap.BitmapEncoder;
 import com.bumptech.glide.load.resource.bitmap.CenterCrop;
@@ -48,6 +49,9 @@ import java.util.Map;
  */
 @SuppressWarnings({"PMD.UseUtilityClass", "unused"})
 public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implements Cloneable {
+  /** Returned by {@link #getDeadlineMillis()} for loads without a deadline. */
+  public static final long NO_DEADLINE = -1;
+
   private static final int UNSET = -1;
   private static final int SIZE_MULTIPLIER = 1 << 1;
   private static final int DISK_CACHE_STRATEGY = 1 << 2;
@@ -69,6 +73,7 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
   private static final int USE_UNLIMITED_SOURCE_GENERATORS_POOL = 1 << 18;
   private static final int ONLY_RETRIEVE_FROM_CACHE = 1 << 19;
   private static final int USE_ANIMATION_POOL = 1 << 20;
+  private static final int DEADLINE = 1 << 21;
 
   private int fields;
   private float sizeMultiplier = 1f;
@@ -99,6 +104,7 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
   private boolean onlyRetrieveFromCache;
   private boolean isScaleOnlyOrNoTransform = true;
   private boolean useAnimationPool;
+  private long deadlineMillis = NO_DEADLINE;
 
   private static boolean isSet(int fields, int flag) {
     return (fields & flag) != 0;
@@ -204,6 +210,33 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
     return selfOrThrowIfLocked();
   }
 
+  /**
+   * Experimental API that may be removed in a future release.
+   *
+   * <p>Sets the number of milliseconds, from when the size of the target is known, within which
+   * this load would like to finish.
+   *
+   * <p>Like {@link #priority(Priority)}, deadlines only affect the order in which loads are run
+   * and are not part of the load's cache key. Executors built with {@link
+   * GlideExecutor.Builder#setEarliestDeadlineFirst(boolean)} run loads of the same priority in
+   * deadline order. Loads that pass their deadline while still waiting to fetch from source are
+   * moved to {@link Priority#LOW} so that they don't hold up loads that can still finish in time.
+   *
+   * <p>Defaults to {@link #NO_DEADLINE}.
+   */
+  @NonNull
+  @CheckResult
+  public T experimentalDeadline(@IntRange(from = 0) long deadlineMillis) {
+    if (isAutoCloneEnabled) {
+      return clone().experimentalDeadline(deadlineMillis);
+    }
+
+    this.deadlineMillis = deadlineMillis;
+    fields |= DEADLINE;
+
+    return selfOrThrowIfLocked();
+  }
+
   /**
    * Sets the {@link DiskCacheStrategy} to use for this load.
    *
@@ -1193,6 +1226,9 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
     if (isSet(other.fields, ONLY_RETRIEVE_FROM_CACHE)) {
       onlyRetrieveFromCache = other.onlyRetrieveFromCache;
     }
+    if (isSet(other.fields, DEADLINE)) {
+      deadlineMillis = other.deadlineMillis;
+    }
 
     // Applying options with dontTransform() is expected to clear our transformations.
     if (!isTransformationAllowed) {
@@ -1233,6 +1269,7 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
         && isTransformationAllowed == other.isTransformationAllowed
         && useUnlimitedSourceGeneratorsPool == other.useUnlimitedSourceGeneratorsPool
         && onlyRetrieveFromCache == other.onlyRetrieveFromCache
+        && deadlineMillis == other.deadlineMillis
         && diskCacheStrategy.equals(other.diskCacheStrategy)
         && priority == other.priority
         && options.equals(other.options)
@@ -1266,6 +1303,7 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
     hashCode = Util.hashCode(isTransformationAllowed, hashCode);
     hashCode = Util.hashCode(useUnlimitedSourceGeneratorsPool, hashCode);
     hashCode = Util.hashCode(onlyRetrieveFromCache, hashCode);
+    hashCode = Util.hashCode((int) (deadlineMillis ^ (deadlineMillis >>> 32)), hashCode);
     hashCode = Util.hashCode(diskCacheStrategy, hashCode);
     hashCode = Util.hashCode(priority, hashCode);
     hashCode = Util.hashCode(options, hashCode);
@@ -1410,6 +1448,13 @@ public abstract class BaseRequestOptions<T extends BaseRequestOptions<T>> implem
     return priority;
   }
 
+  /**
+   * Returns the deadline set with {@link #experimentalDeadline(long)}, or {@link #NO_DEADLINE}.
+   */
+  public final long getDeadlineMillis() {
+    return deadlineMillis;
+  }
+
   public final int getOverrideWidth() {
     return overrideWidth;
   }
@@ -1,7 +1,9 @@
 package com.bumptech.glide.request;
 
 import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.bumptech.glide.Priority;
 
 /**
  * Runs a single primary {@link Request} until it completes and then a fallback error request only
@@ -158,6 +160,14 @@ public final class ErrorRequestCoordinator implements RequestCoordinator, Reques
     }
   }
 
+  @Override
+  public void setPriority(@NonNull Priority priority) {
+    synchronized (requestLock) {
+      primary.setPriority(priority);
+      error.setPriority(priority);
+    }
+  }
+
   @Override
   public void onRequestSuccess(Request request) {
     synchronized (requestLock) {
@@ -1,5 +1,8 @@
 package com.bumptech.glide.request;
 
+import androidx.annotation.NonNull;
+import com.bumptech.glide.Priority;
+
 /** A request that loads a resource for an {@link com.bumptech.glide.request.target.Target}. */
 public interface Request {
   /** Starts an asynchronous load. */
@@ -38,6 +41,16 @@ public interface Request {
    */
   boolean isAnyResourceSet();
 
+  /**
+   * Changes the {@link Priority} of this request, including any part of it that's already waiting
+   * to be loaded.
+   *
+   * <p>Useful to move requests for views that have just become visible ahead of requests that are
+   * no longer visible, or that were started to preload. Requests that share a load with other
+   * requests can only make the load run earlier, not later, than the other requests need.
+   */
+  void setPriority(@NonNull Priority priority);
+
   /**
    * Returns {@code true} if this {@link Request} is equivalent to the given {@link Request} (has
    * all of the same options and sizes).
@@ -10,11 +10,13 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.bumptech.glide.GlideBuilder.LogRequestOrigins;
 import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.GlideEventListener;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.engine.Engine;
 import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import com.bumptech.glide.load.resource.drawable.DrawableDecoderCompat;
 import com.bumptech.glide.request.target.SizeReadyCallback;
 import com.bumptech.glide.request.target.Target;
@@ -26,6 +28,7 @@ import com.bumptech.glide.util.pool.GlideTrace;
 import com.bumptech.glide.util.pool.StateVerifier;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A {@link Request} that loads a {@link com.bumptech.glide.load.engine.Resource} into a given
@@ -101,6 +104,10 @@ public final class SingleRequest<R> implements Request, SizeReadyCallback, Resou
   @GuardedBy("requestLock")
   private Engine.LoadStatus loadStatus;
 
+  // The priority to load with, which may differ from the priority this request was built with.
+  @GuardedBy("requestLock")
+  private Priority loadPriority;
+
   @GuardedBy("requestLock")
   private long startTime;
 
@@ -199,6 +206,7 @@ public final class SingleRequest<R> implements Request, SizeReadyCallback, Resou
     this.overrideWidth = overrideWidth;
     this.overrideHeight = overrideHeight;
     this.priority = priority;
+    this.loadPriority = priority;
     this.target = target;
     this.targetListener = targetListener;
     this.requestListeners = requestListeners;
@@ -235,6 +243,11 @@ public final class SingleRequest<R> implements Request, SizeReadyCallback, Resou
         throw new IllegalArgumentException("Cannot restart a running request");
       }
 
+      GlideEventListener eventListener = glideContext.getEventListener();
+      if (eventListener != null) {
+        eventListener.onRequestStarted(model);
+      }
+
       // If we're restarted after we're complete (usually via something like a notifyDataSetChanged
       // that starts an identical request into the same Target or View), we can simply use the
       // resource and size we retrieved the last time around and skip obtaining a new size, starting
@@ -254,6 +267,9 @@ public final class SingleRequest<R> implements Request, SizeReadyCallback, Resou
 
       cookie = GlideTrace.beginSectionAsync(TAG);
       status = Status.WAITING_FOR_SIZE;
+      if (eventListener != null) {
+        eventListener.onStageStarted(model, GlideEventListener.Stage.SIZE);
+      }
       if (Util.isValidDimensions(overrideWidth, overrideHeight)) {
         onSizeReady(overrideWidth, overrideHeight);
       } else {
@@ -270,6 +286,15 @@ public final class SingleRequest<R> implements Request, SizeReadyCallback, Resou
     }
   }
 
+  @GuardedBy("requestLock")
+  private void notifyEventListenerRequestFinished(@Nullable DataSource dataSource) {
+    GlideEventListener eventListener = glideContext.getEventListener();
+    // Requests for null models fail before they're reported as started.
+    if (eventListener != null && model != null) {
+      eventListener.onRequestFinished(model, dataSource, LogTime.getLogTime() - startTime);
+    }
+  }
+
   private void experimentalNotifyRequestStarted(Object model) {
     if (requestListeners == null) {
       return;
@@ -385,6 +410,16 @@ public final class SingleRequest<R> implements Request, SizeReadyCallback, Resou
     }
   }
 
+  @Override
+  public void setPriority(@NonNull Priority priority) {
+    synchronized (requestLock) {
+      loadPriority = priority;
+      if (loadStatus != null) {
+        loadStatus.setPriority(priority);
+      }
+    }
+  }
+
   @GuardedBy("requestLock")
   private Drawable getErrorDrawable() {
     if (errorDrawable == null) {
@@ -459,10 +494,22 @@ public final class SingleRequest<R> implements Request, SizeReadyCallback, Resou
       }
       status = Status.RUNNING;
 
+      GlideEventListener eventListener = glideContext.getEventListener();
+      if (eventListener != null) {
+        eventListener.onStageFinished(
+            model, GlideEventListener.Stage.SIZE, LogTime.getLogTime() - startTime);
+      }
+
       float sizeMultiplier = requestOptions.getSizeMultiplier();
       this.width = maybeApplySizeMultiplier(width, sizeMultiplier);
       this.height = maybeApplySizeMultiplier(height, sizeMultiplier);
 
+      long deadlineMillis = requestOptions.getDeadlineMillis();
+      long deadlineNanos =
+          deadlineMillis == BaseRequestOptions.NO_DEADLINE
+              ? GlideExecutor.NO_DEADLINE
+              : LogTime.getLogTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+
       if (IS_VERBOSE_LOGGABLE) {
         logV("finished setup for calling load in " + LogTime.getElapsedMillis(startTime));
       }
@@ -475,7 +522,7 @@ public final class SingleRequest<R> implements Request, SizeReadyCallback, Resou
               this.height,
               requestOptions.getResourceClass(),
               transcodeClass,
-              priority,
+              loadPriority,
               requestOptions.getDiskCacheStrategy(),
               requestOptions.getTransformations(),
               requestOptions.isTransformationRequired(),
@@ -485,6 +532,7 @@ public final class SingleRequest<R> implements Request, SizeReadyCallback, Resou
               requestOptions.getUseUnlimitedSourceGeneratorsPool(),
               requestOptions.getUseAnimationPool(),
               requestOptions.getOnlyRetrieveFromCache(),
+              deadlineNanos,
               this,
               callbackExecutor);
 
@@ -642,6 +690,7 @@ public final class SingleRequest<R> implements Request, SizeReadyCallback, Resou
     }
 
     notifyRequestCoordinatorLoadSucceeded();
+    notifyEventListenerRequestFinished(dataSource);
 
     isCallingCallbacks = true;
     try {
@@ -706,6 +755,7 @@ public final class SingleRequest<R> implements Request, SizeReadyCallback, Resou
       status = Status.FAILED;
 
       notifyRequestCoordinatorLoadFailed();
+      notifyEventListenerRequestFinished(/* dataSource= */ null);
 
       isCallingCallbacks = true;
       try {
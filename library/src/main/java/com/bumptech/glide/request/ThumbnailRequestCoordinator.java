@@ -1,7 +1,9 @@
 package com.bumptech.glide.request;
 
 import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.bumptech.glide.Priority;
 
 /**
  * A coordinator that coordinates two individual {@link Request}s that load a small thumbnail
@@ -24,14 +26,29 @@ public class ThumbnailRequestCoordinator implements RequestCoordinator, Request
   @GuardedBy("requestLock")
   private boolean isRunningDuringBegin;
 
+  // True if the thumbnail request's priority was set explicitly rather than derived from ours.
+  private volatile boolean isThumbPriorityExplicit;
+
   public ThumbnailRequestCoordinator(Object requestLock, @Nullable RequestCoordinator parent) {
     this.requestLock = requestLock;
     this.parent = parent;
   }
 
   public void setRequests(Request full, Request thumb) {
+    setRequests(full, thumb, /* isThumbPriorityExplicit= */ false);
+  }
+
+  /**
+   * Sets the full and thumbnail requests.
+   *
+   * @param isThumbPriorityExplicit {@code true} if the thumbnail request's priority was set
+   *     explicitly, in which case {@link #setPriority(Priority)} leaves it unchanged rather than
+   *     replacing it with {@link #getThumbnailPriority(Priority)}.
+   */
+  public void setRequests(Request full, Request thumb, boolean isThumbPriorityExplicit) {
     this.full = full;
     this.thumb = thumb;
+    this.isThumbPriorityExplicit = isThumbPriorityExplicit;
   }
 
   /**
@@ -89,6 +106,35 @@ public class ThumbnailRequestCoordinator implements RequestCoordinator, Request
     }
   }
 
+  @Override
+  public void setPriority(@NonNull Priority priority) {
+    synchronized (requestLock) {
+      full.setPriority(priority);
+      if (!isThumbPriorityExplicit) {
+        thumb.setPriority(getThumbnailPriority(priority));
+      }
+    }
+  }
+
+  /**
+   * Returns the priority of a thumbnail whose full request has the given priority, which keeps the
+   * thumbnail ahead of the full request, unless the thumbnail's priority was set explicitly.
+   */
+  @NonNull
+  public static Priority getThumbnailPriority(@NonNull Priority priority) {
+    switch (priority) {
+      case LOW:
+        return Priority.NORMAL;
+      case NORMAL:
+        return Priority.HIGH;
+      case HIGH:
+      case IMMEDIATE:
+        return Priority.IMMEDIATE;
+      default:
+        throw new IllegalArgumentException("unknown priority: " + priority);
+    }
+  }
+
   @Override
   public void onRequestSuccess(Request request) {
     synchronized (requestLock) {
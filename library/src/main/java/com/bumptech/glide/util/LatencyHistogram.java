@@ -0,0 +1,137 @@
+package com.bumptech.glide.util;
+
+import androidx.annotation.NonNull;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, lock free histogram of durations with a bounded relative error, in the style of an
+ * HDR histogram.
+ *
+ * <p>Durations are recorded with microsecond resolution into buckets whose width doubles every
+ * {@code 8} buckets, so any reported value is within 12.5% of the recorded values it represents
+ * while the histogram uses a few kilobytes regardless of how many values are recorded.
+ *
+ * <p>Recording is thread safe and never allocates or blocks. Reads are not atomic with respect to
+ * concurrent writes, so values read while other threads are recording may be slightly
+ * inconsistent with each other.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalMicros = new AtomicLong();
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  /** Records a single duration, negative durations are recorded as zero. */
+  public void record(long durationNanos) {
+    long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    counts.incrementAndGet(bucketIndex(micros));
+    count.incrementAndGet();
+    totalMicros.addAndGet(micros);
+    long currentMax;
+    while (micros > (currentMax = maxMicros.get())) {
+      if (maxMicros.compareAndSet(currentMax, micros)) {
+        break;
+      }
+    }
+  }
+
+  /** Returns the number of recorded durations. */
+  public long getCount() {
+    return count.get();
+  }
+
+  /** Returns the mean recorded duration in nanoseconds, or {@code 0} if nothing was recorded. */
+  public long getMeanNanos() {
+    long currentCount = count.get();
+    return currentCount == 0 ? 0 : TimeUnit.MICROSECONDS.toNanos(totalMicros.get() / currentCount);
+  }
+
+  /** Returns the largest recorded duration in nanoseconds. */
+  public long getMaxNanos() {
+    return TimeUnit.MICROSECONDS.toNanos(maxMicros.get());
+  }
+
+  /**
+   * Returns a duration in nanoseconds that's greater than or equal to the given percentage of
+   * recorded durations, or {@code 0} if nothing was recorded.
+   *
+   * @param percentile The percentage, in the range [0, 100].
+   */
+  public long getValueAtPercentileNanos(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be in [0, 100]: " + percentile);
+    }
+    long currentCount = count.get();
+    if (currentCount == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(percentile / 100 * currentCount));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts.get(i);
+      if (seen >= target) {
+        return TimeUnit.MICROSECONDS.toNanos(Math.min(highestValueInBucket(i), maxMicros.get()));
+      }
+    }
+    return getMaxNanos();
+  }
+
+  /** Removes all recorded durations. */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts.set(i, 0);
+    }
+    count.set(0);
+    totalMicros.set(0);
+    maxMicros.set(0);
+  }
+
+  @NonNull
+  @Override
+  public String toString() {
+    return "count="
+        + getCount()
+        + ", mean="
+        + formatMillis(getMeanNanos())
+        + ", p50="
+        + formatMillis(getValueAtPercentileNanos(50))
+        + ", p90="
+        + formatMillis(getValueAtPercentileNanos(90))
+        + ", p99="
+        + formatMillis(getValueAtPercentileNanos(99))
+        + ", max="
+        + formatMillis(getMaxNanos());
+  }
+
+  private static String formatMillis(long nanos) {
+    return String.format(Locale.US, "%.2fms", nanos / 1_000_000d);
+  }
+
+  // Values below SUB_BUCKET_COUNT each have their own bucket. Above that, each power of two range
+  // is split into SUB_BUCKET_COUNT equally sized buckets.
+  private static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+    return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  private static long highestValueInBucket(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_COUNT - 1;
+    long subBucket = index % SUB_BUCKET_COUNT;
+    long lowest = (SUB_BUCKET_COUNT + subBucket) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+}
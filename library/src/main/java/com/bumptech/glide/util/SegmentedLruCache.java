@@ -0,0 +1,197 @@
+package com.bumptech.glide.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * A size limited cache that splits its entries across a fixed number of independently locked
+ * {@link LruCache} segments so that threads accessing different keys rarely contend.
+ *
+ * <p>Each key is assigned to a segment based on its hash code and each segment is given an equal
+ * share of the total size, evicting its own least recently used items. As a result eviction order
+ * is only approximately LRU across the cache as a whole and an item is rejected if it's larger than
+ * a single segment's share, rather than the total size. This cache is therefore best suited to
+ * caches with many small items, like hashed keys or model lookups, that are accessed from many
+ * threads at once. Like {@link LruCache}, subclasses can override {@link #getSize(Object)} and
+ * {@link #onItemEvicted(Object, Object)}.
+ *
+ * @param <T> The type of the keys.
+ * @param <Y> The type of the values.
+ */
+public class SegmentedLruCache<T, Y> {
+  private static final int DEFAULT_SEGMENT_COUNT = 8;
+
+  private final Segment<T, Y>[] segments;
+  private final int segmentMask;
+
+  /**
+   * Constructor for SegmentedLruCache using a default number of segments.
+   *
+   * @param size The maximum size of the cache, the units must match the units used in {@link
+   *     #getSize(Object)}.
+   */
+  public SegmentedLruCache(long size) {
+    this(size, DEFAULT_SEGMENT_COUNT);
+  }
+
+  /**
+   * Constructor for SegmentedLruCache.
+   *
+   * @param size The maximum size of the cache, the units must match the units used in {@link
+   *     #getSize(Object)}.
+   * @param segmentCount The number of segments to split the cache into, must be a power of two.
+   */
+  @SuppressWarnings("unchecked")
+  public SegmentedLruCache(long size, int segmentCount) {
+    if (segmentCount <= 0 || Integer.bitCount(segmentCount) != 1) {
+      throw new IllegalArgumentException("Segment count must be a power of two: " + segmentCount);
+    }
+    segments = new Segment[segmentCount];
+    segmentMask = segmentCount - 1;
+    long segmentSize = size / segmentCount;
+    long remainder = size % segmentCount;
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment<>(this, i < remainder ? segmentSize + 1 : segmentSize);
+    }
+  }
+
+  /**
+   * Sets a size multiplier that will be applied to the size provided in the constructor to put the
+   * new size of the cache. Each segment evicts entries until it is within its share of the new
+   * size.
+   *
+   * @param multiplier The multiplier to apply.
+   */
+  public void setSizeMultiplier(float multiplier) {
+    if (multiplier < 0) {
+      throw new IllegalArgumentException("Multiplier must be >= 0");
+    }
+    for (Segment<T, Y> segment : segments) {
+      segment.setSizeMultiplier(multiplier);
+    }
+  }
+
+  /**
+   * Returns the size of a given item, defaulting to one. The units must match those used in the
+   * size passed in to the constructor. Subclasses can override this method to return sizes in
+   * various units, usually bytes.
+   *
+   * @param item The item to get the size of.
+   */
+  protected int getSize(@Nullable Y item) {
+    return 1;
+  }
+
+  /**
+   * A callback called whenever an item is evicted from the cache. Subclasses can override.
+   *
+   * <p>Called while holding the lock for the evicted item's segment.
+   *
+   * @param key The key of the evicted item.
+   * @param item The evicted item.
+   */
+  protected void onItemEvicted(@NonNull T key, @Nullable Y item) {
+    // optional override
+  }
+
+  /** Returns the current maximum size of the cache, summed across all segments. */
+  public long getMaxSize() {
+    long result = 0;
+    for (Segment<T, Y> segment : segments) {
+      result += segment.getMaxSize();
+    }
+    return result;
+  }
+
+  /**
+   * Returns the sum of the sizes of all items in the cache.
+   *
+   * <p>Segments are read one at a time, so the result may be stale if other threads are modifying
+   * the cache concurrently.
+   */
+  public long getCurrentSize() {
+    long result = 0;
+    for (Segment<T, Y> segment : segments) {
+      result += segment.getCurrentSize();
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if there is a value for the given key in the cache.
+   *
+   * @param key The key to check.
+   */
+  public boolean contains(@NonNull T key) {
+    return segmentFor(key).contains(key);
+  }
+
+  /**
+   * Returns the item in the cache for the given key or null if no such item exists.
+   *
+   * @param key The key to check.
+   */
+  @Nullable
+  public Y get(@NonNull T key) {
+    return segmentFor(key).get(key);
+  }
+
+  /**
+   * Adds the given item to the cache with the given key and returns any previous entry for the
+   * given key that may have already been in the cache.
+   *
+   * <p>Matches the behavior of {@link LruCache#put(Object, Object)}, except that the item is
+   * rejected and passed to {@link #onItemEvicted(Object, Object)} if it's larger than the segment
+   * it's assigned to.
+   *
+   * @param key The key to add the item at.
+   * @param item The item to add.
+   */
+  @Nullable
+  public Y put(@NonNull T key, @Nullable Y item) {
+    return segmentFor(key).put(key, item);
+  }
+
+  /**
+   * Removes the item at the given key and returns the removed item if present, and null otherwise.
+   *
+   * @param key The key to remove the item at.
+   */
+  @Nullable
+  public Y remove(@NonNull T key) {
+    return segmentFor(key).remove(key);
+  }
+
+  /** Clears all items in the cache. */
+  public void clearMemory() {
+    for (Segment<T, Y> segment : segments) {
+      segment.clearMemory();
+    }
+  }
+
+  private Segment<T, Y> segmentFor(@NonNull T key) {
+    int hash = key.hashCode();
+    // Spread the high bits so that keys whose hashes only differ there still use every segment.
+    hash ^= hash >>> 16;
+    return segments[hash & segmentMask];
+  }
+
+  private static final class Segment<T, Y> extends LruCache<T, Y> {
+    private final SegmentedLruCache<T, Y> parent;
+
+    Segment(SegmentedLruCache<T, Y> parent, long size) {
+      super(size);
+      this.parent = parent;
+    }
+
+    @Override
+    protected int getSize(@Nullable Y item) {
+      return parent.getSize(item);
+    }
+
+    @Override
+    protected void onItemEvicted(@NonNull T key, @Nullable Y item) {
+      parent.onItemEvicted(key, item);
+    }
+  }
+}
@@ -24,6 +24,8 @@ public final class Util {
   private static final char[] HEX_CHAR_ARRAY = "0123456789abcdef".toCharArray();
   // 32 bytes from sha-256 -> 64 hex chars.
   private static final char[] SHA_256_CHARS = new char[64];
+  // 16 bytes from a 128 bit hash -> 32 hex chars.
+  private static final char[] HASH_128_CHARS = new char[32];
   @Nullable private static volatile Handler mainThreadHandler;
 
   private Util() {
@@ -38,6 +40,14 @@ public final class Util {
     }
   }
 
+  /** Returns the hex string of the given byte array representing a 128 bit hash. */
+  @NonNull
+  public static String hash128BytesToHex(@NonNull byte[] bytes) {
+    synchronized (HASH_128_CHARS) {
+      return bytesToHex(bytes, HASH_128_CHARS);
+    }
+  }
+
   // Taken from:
   // http://stackoverflow.com/questions/9655181/convert-from-byte-array-to-hex-string-in-java
   // /9655275#9655275
@@ -1,6 +1,7 @@
 package com.bumptech.glide;
 
 import static com.bumptech.glide.tests.BackgroundUtil.testInBackground;
+import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
@@ -17,12 +18,16 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.test.core.app.ApplicationProvider;
 import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.EncodeStrategy;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.load.resource.SimpleResource;
+import com.bumptech.glide.load.resource.bitmap.Downsampler;
 import com.bumptech.glide.request.Request;
 import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.SingleRequest;
+import com.bumptech.glide.request.ThumbnailRequestCoordinator;
 import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.request.target.ViewTarget;
 import com.bumptech.glide.tests.BackgroundUtil.BackgroundTester;
@@ -393,6 +398,48 @@ public class RequestBuilderTest {
         .testEquals();
   }
 
+  @Test
+  public void progressivePreview_withPreviewsDisabled_doesNotAddThumbnail() {
+    getNullModelRequest().progressivePreview(/* previewBytes= */ 1024).into(target);
+
+    verify(requestManager).track(eq(target), isA(SingleRequest.class));
+  }
+
+  @Test
+  public void progressivePreview_withPreviewsEnabled_addsThumbnail() {
+    Glide.init(context, new GlideBuilder().setProgressivePreviews(true));
+    glide = Glide.get(context);
+
+    getNullModelRequest().progressivePreview(/* previewBytes= */ 1024).into(target);
+
+    verify(requestManager).track(eq(target), isA(ThumbnailRequestCoordinator.class));
+  }
+
+  @Test
+  public void newProgressivePreview_setsPreviewBytes() {
+    RequestBuilder<Object> preview =
+        getNullModelRequest().newProgressivePreview(/* previewBytes= */ 1024);
+
+    assertThat(preview.getOptions().get(Downsampler.PROGRESSIVE_PREVIEW_BYTES)).isEqualTo(1024);
+  }
+
+  @Test
+  public void newProgressivePreview_neverWritesToDiskCache() {
+    RequestBuilder<Object> preview =
+        getNullModelRequest().newProgressivePreview(/* previewBytes= */ 1024);
+    DiskCacheStrategy strategy = preview.getDiskCacheStrategy();
+
+    for (DataSource dataSource : DataSource.values()) {
+      assertThat(strategy.isDataCacheable(dataSource)).isFalse();
+      for (EncodeStrategy encodeStrategy : EncodeStrategy.values()) {
+        assertThat(strategy.isResourceCacheable(true, dataSource, encodeStrategy)).isFalse();
+        assertThat(strategy.isResourceCacheable(false, dataSource, encodeStrategy)).isFalse();
+      }
+    }
+    // Data that's already cached can still be used.
+    assertThat(strategy.decodeCachedData()).isTrue();
+  }
+
   private RequestBuilder<Object> getNullModelRequest() {
     return newRequestBuilder(Object.class).load((Object) null);
   }
@@ -0,0 +1,195 @@
+package com.bumptech.glide;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.os.Looper;
+import com.bumptech.glide.TiledImageLoader.Tile;
+import com.bumptech.glide.TiledImageLoader.TileListener;
+import com.bumptech.glide.load.resource.bitmap.Downsampler;
+import com.bumptech.glide.request.target.Target;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class TiledImageLoaderTest {
+  @Mock private RequestManager requestManager;
+  @Mock private TileListener listener;
+  private RequestBuilder<Bitmap> requestBuilder;
+  private TiledImageLoader loader;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    requestBuilder = mock(RequestBuilder.class, RETURNS_SELF);
+    loader =
+        new TiledImageLoader(
+            requestManager,
+            requestBuilder,
+            /* imageWidth= */ 1000,
+            /* imageHeight= */ 600,
+            /* tileSize= */ 256,
+            listener);
+  }
+
+  @Test
+  public void getSampleSize_returnsLargestPowerOfTwoNotSmallerThanScreen() {
+    assertThat(TiledImageLoader.getSampleSize(2f)).isEqualTo(1);
+    assertThat(TiledImageLoader.getSampleSize(1f)).isEqualTo(1);
+    assertThat(TiledImageLoader.getSampleSize(0.6f)).isEqualTo(1);
+    assertThat(TiledImageLoader.getSampleSize(0.5f)).isEqualTo(2);
+    assertThat(TiledImageLoader.getSampleSize(0.3f)).isEqualTo(2);
+    assertThat(TiledImageLoader.getSampleSize(0.125f)).isEqualTo(8);
+  }
+
+  @Test
+  public void getTiles_alignsTilesToGridAndClipsToImage() {
+    List<Tile> tiles =
+        TiledImageLoader.getTiles(
+            new Rect(300, 100, 900, 700),
+            /* sampleSize= */ 2,
+            /* imageWidth= */ 1000,
+            /* imageHeight= */ 600,
+            /* tileSize= */ 256);
+
+    assertThat(tiles)
+        .containsExactly(
+            new Tile(new Rect(0, 0, 512, 512), 2),
+            new Tile(new Rect(512, 0, 1000, 512), 2),
+            new Tile(new Rect(0, 512, 512, 600), 2),
+            new Tile(new Rect(512, 512, 1000, 600), 2));
+  }
+
+  @Test
+  public void getTiles_withRegionOutsideImage_returnsNoTiles() {
+    assertThat(
+            TiledImageLoader.getTiles(
+                new Rect(2000, 2000, 3000, 3000),
+                /* sampleSize= */ 1,
+                /* imageWidth= */ 1000,
+                /* imageHeight= */ 600,
+                /* tileSize= */ 256))
+        .isEmpty();
+  }
+
+  @Test
+  public void setViewport_loadsEachVisibleTileWithItsRegion() {
+    loader.setViewport(new Rect(0, 0, 300, 200), /* scale= */ 1f);
+
+    verify(requestBuilder).set(Downsampler.REGION, new Rect(0, 0, 256, 256));
+    verify(requestBuilder).set(Downsampler.REGION, new Rect(256, 0, 512, 256));
+    verify(requestBuilder, times(2)).into(any(Target.class));
+  }
+
+  @Test
+  public void setViewport_withOverlappingViewport_onlyLoadsNewTiles() {
+    loader.setViewport(new Rect(0, 0, 200, 200), /* scale= */ 1f);
+    loader.setViewport(new Rect(100, 0, 300, 200), /* scale= */ 1f);
+
+    verify(requestBuilder, times(2)).into(any(Target.class));
+    verify(requestManager, never()).clear(any(Target.class));
+  }
+
+  @Test
+  public void setViewport_withMovedViewport_clearsTilesThatAreNoLongerVisible() {
+    loader.setViewport(new Rect(0, 0, 200, 200), /* scale= */ 1f);
+    loader.setViewport(new Rect(600, 300, 700, 400), /* scale= */ 1f);
+
+    verify(requestManager).clear(any(Target.class));
+  }
+
+  @Test
+  public void setViewport_withNewScale_clearsTilesAtPreviousSampleSize() {
+    loader.setViewport(new Rect(0, 0, 200, 200), /* scale= */ 1f);
+    loader.setViewport(new Rect(0, 0, 200, 200), /* scale= */ 0.5f);
+
+    verify(requestManager).clear(any(Target.class));
+    verify(requestBuilder).set(Downsampler.REGION, new Rect(0, 0, 256, 256));
+    verify(requestBuilder).set(Downsampler.REGION, new Rect(0, 0, 512, 512));
+  }
+
+  @Test
+  public void setViewport_loadsEveryTileWithTheSameSourceKey() {
+    loader.setViewport(new Rect(0, 0, 300, 200), /* scale= */ 1f);
+
+    ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+    verify(requestBuilder, times(2)).set(eq(Downsampler.REGION_SOURCE_KEY), captor.capture());
+    assertThat(captor.getAllValues().get(0)).isNotNull();
+    assertThat(captor.getAllValues().get(1)).isEqualTo(captor.getAllValues().get(0));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void setViewport_afterTileFailsToLoad_loadsTileAgain() {
+    loader.setViewport(new Rect(0, 0, 200, 200), /* scale= */ 1f);
+    ArgumentCaptor<Target<Bitmap>> captor = ArgumentCaptor.forClass((Class) Target.class);
+    verify(requestBuilder).into(captor.capture());
+
+    captor.getValue().onLoadFailed(/* errorDrawable= */ null);
+    loader.setViewport(new Rect(0, 0, 200, 200), /* scale= */ 1f);
+
+    verify(listener).onTileCleared(new Tile(new Rect(0, 0, 256, 256), 1));
+    verify(requestBuilder, times(2)).into(any(Target.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void onLoadFailed_clearsFailedRequestOnMainThread() {
+    loader.setViewport(new Rect(0, 0, 200, 200), /* scale= */ 1f);
+    ArgumentCaptor<Target<Bitmap>> captor = ArgumentCaptor.forClass((Class) Target.class);
+    verify(requestBuilder).into(captor.capture());
+
+    captor.getValue().onLoadFailed(/* errorDrawable= */ null);
+    verify(requestManager, never()).clear(any(Target.class));
+    shadowOf(Looper.getMainLooper()).idle();
+
+    verify(requestManager).clear(captor.getValue());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void onResourceReady_afterLoadFailed_doesNotDeliverTile() {
+    loader.setViewport(new Rect(0, 0, 200, 200), /* scale= */ 1f);
+    ArgumentCaptor<Target<Bitmap>> captor = ArgumentCaptor.forClass((Class) Target.class);
+    verify(requestBuilder).into(captor.capture());
+
+    Target<Bitmap> target = captor.getValue();
+
+    target.onLoadFailed(/* errorDrawable= */ null);
+    // For example if the failed request was restarted before it was cleared.
+    Bitmap bitmap = Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888);
+    target.onResourceReady(bitmap, /* transition= */ null);
+    target.onLoadCleared(/* placeholder= */ null);
+
+    verify(listener, never()).onTileReady(any(Tile.class), any(Bitmap.class));
+    verify(listener, times(1)).onTileCleared(any(Tile.class));
+  }
+
+  @Test
+  public void clear_clearsAllTiles() {
+    loader.setViewport(new Rect(0, 0, 300, 300), /* scale= */ 1f);
+
+    loader.clear();
+
+    verify(requestManager, times(4)).clear(any(Target.class));
+  }
+}
@@ -114,6 +114,22 @@ public class ImageHeaderParserUtilsTest {
     assertAllParsersReceivedTheSameData();
   }
 
+  @Test
+  public void getMetadata_withTwoParsers_andStream_rewindsBeforeEachParser() throws IOException {
+    ImageHeaderParserUtils.getMetadata(
+        parsers, new ByteArrayInputStream(expectedData), lruArrayPool);
+
+    assertAllParsersReceivedTheSameData();
+  }
+
+  @Test
+  public void getMetadata_withTwoParsers_andByteBuffer_rewindsBeforeEachParser()
+      throws IOException {
+    ImageHeaderParserUtils.getMetadata(parsers, ByteBuffer.wrap(expectedData), lruArrayPool);
+
+    assertAllParsersReceivedTheSameData();
+  }
+
   @Test
   public void hasJpegMpf_withTwoParsers_andStream_rewindsBeforeEachParser() throws IOException {
     ImageHeaderParserUtils.hasJpegMpf(
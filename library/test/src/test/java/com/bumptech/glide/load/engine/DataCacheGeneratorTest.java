@@ -0,0 +1,116 @@
+package com.bumptech.glide.load.engine;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.ImageMetadata;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.DataFetcherGenerator.FetcherReadyCallback;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheWrapper;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/** Tests for loading progressive previews from data with metadata in the disk cache. */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class DataCacheGeneratorTest {
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Mock private DecodeHelper<Object> helper;
+  @Mock private FetcherReadyCallback cb;
+
+  private final Key sourceKey = new ObjectKey("source");
+  private final ObjectKey signature = new ObjectKey("signature");
+  private final DataCacheKey dataKey = new DataCacheKey(sourceKey, signature);
+  private DiskCache diskCache;
+  private DataCacheGenerator generator;
+
+  @Before
+  public void setUp() throws IOException {
+    MockitoAnnotations.initMocks(this);
+    diskCache =
+        DiskLruCacheWrapper.create(temporaryFolder.newFolder("cache"), /* maxSize= */ 1024 * 1024);
+    diskCache.put(
+        dataKey,
+        new DiskCache.Writer() {
+          @Override
+          public boolean write(@NonNull File file) {
+            try (FileOutputStream os = new FileOutputStream(file)) {
+              os.write(new byte[] {1, 2, 3, 4});
+              return true;
+            } catch (IOException e) {
+              return false;
+            }
+          }
+        });
+
+    when(helper.getCacheKeys()).thenReturn(Collections.singletonList(sourceKey));
+    when(helper.getSignature()).thenReturn(signature);
+    when(helper.getDiskCache()).thenReturn(diskCache);
+    when(helper.isPersistImageMetadataEnabled()).thenReturn(true);
+    when(helper.getModelLoaders(any(File.class)))
+        .thenReturn(Collections.<ModelLoader<File, ?>>emptyList());
+
+    generator = new DataCacheGenerator(helper, cb);
+  }
+
+  @Test
+  public void startNext_withPreviewOfNonProgressiveImage_skipsDataAndSource() {
+    writeMetadata(/* isProgressive= */ false);
+    when(helper.isProgressivePreview()).thenReturn(true);
+
+    assertThat(generator.startNext()).isFalse();
+
+    verify(helper).setKnownNotProgressive();
+    verify(helper, never()).getModelLoaders(any(File.class));
+  }
+
+  @Test
+  public void startNext_withPreviewOfProgressiveImage_loadsData() {
+    writeMetadata(/* isProgressive= */ true);
+    when(helper.isProgressivePreview()).thenReturn(true);
+
+    generator.startNext();
+
+    verify(helper, never()).setKnownNotProgressive();
+    verify(helper).getModelLoaders(any(File.class));
+  }
+
+  @Test
+  public void startNext_withNonProgressiveImage_withoutPreview_loadsData() {
+    writeMetadata(/* isProgressive= */ false);
+
+    generator.startNext();
+
+    verify(helper, never()).setKnownNotProgressive();
+    verify(helper).getModelLoaders(any(File.class));
+  }
+
+  private void writeMetadata(boolean isProgressive) {
+    DataCacheImageMetadata.write(
+        diskCache,
+        dataKey,
+        new ImageMetadata(ImageType.JPEG, 1, 10, 10, isProgressive),
+        diskCache.get(dataKey).length());
+  }
+}
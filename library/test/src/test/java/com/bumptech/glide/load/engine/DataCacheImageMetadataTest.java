@@ -0,0 +1,173 @@
+package com.bumptech.glide.load.engine;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.ImageMetadata;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskCacheAdmissionFilter;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheWrapper;
+import com.bumptech.glide.load.resource.bitmap.DefaultImageHeaderParser;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.testutil.TestResourceUtil;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class DataCacheImageMetadataTest {
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final DataCacheKey key =
+      new DataCacheKey(new ObjectKey("source"), new ObjectKey("signature"));
+  private final List<ImageHeaderParser> parsers =
+      Collections.<ImageHeaderParser>singletonList(new DefaultImageHeaderParser());
+  private final ArrayPool arrayPool = new LruArrayPool(/* maxSize= */ 64 * 1024);
+  private DiskCache diskCache;
+  private File dataFile;
+
+  @Before
+  public void setUp() throws IOException {
+    diskCache =
+        DiskLruCacheWrapper.create(temporaryFolder.newFolder("cache"), /* maxSize= */ 1024 * 1024);
+    dataFile = temporaryFolder.newFile("data");
+    Files.write(
+        ByteStreams.toByteArray(
+            TestResourceUtil.openResource(getClass(), "issue387_rotated_jpeg.jpg")),
+        dataFile);
+  }
+
+  @Test
+  public void parse_withJpeg_returnsMetadata() {
+    ImageMetadata metadata = DataCacheImageMetadata.parse(dataFile, parsers, arrayPool);
+
+    assertThat(metadata).isNotNull();
+    assertThat(metadata.getType()).isEqualTo(ImageType.JPEG);
+    assertThat(metadata.getOrientation()).isEqualTo(6);
+    assertThat(metadata.getWidth()).isEqualTo(4128);
+    assertThat(metadata.getHeight()).isEqualTo(2322);
+  }
+
+  @Test
+  public void parse_withUnrecognizedData_returnsNull() throws IOException {
+    Files.write(new byte[] {1, 2, 3, 4}, dataFile);
+
+    assertThat(DataCacheImageMetadata.parse(dataFile, parsers, arrayPool)).isNull();
+  }
+
+  @Test
+  public void read_afterWrite_returnsWrittenMetadata() {
+    ImageMetadata written =
+        new ImageMetadata(ImageType.PNG_A, 1, 400, 300, /* isProgressive= */ false);
+    DataCacheImageMetadata.write(diskCache, key, written, dataFile.length());
+
+    ImageMetadata read = DataCacheImageMetadata.read(diskCache, key, dataFile);
+
+    assertThat(read).isNotNull();
+    assertThat(read.getType()).isEqualTo(ImageType.PNG_A);
+    assertThat(read.getOrientation()).isEqualTo(1);
+    assertThat(read.getWidth()).isEqualTo(400);
+    assertThat(read.getHeight()).isEqualTo(300);
+    assertThat(read.isProgressive()).isFalse();
+  }
+
+  @Test
+  public void write_withAdmissionFilter_isWrittenWithoutLookups() {
+    DiskCacheAdmissionFilter filter =
+        new DiskCacheAdmissionFilter(/* minFrequency= */ 2, /* minCostMillis= */ Long.MAX_VALUE);
+    DiskCache filteredDiskCache =
+        filter
+            .wrap(
+                new DiskCache.Factory() {
+                  @Override
+                  public DiskCache build() {
+                    return diskCache;
+                  }
+                })
+            .build();
+
+    DataCacheImageMetadata.write(
+        filteredDiskCache,
+        key,
+        new ImageMetadata(ImageType.JPEG, 1, 10, 10, /* isProgressive= */ false),
+        dataFile.length());
+
+    assertThat(DataCacheImageMetadata.read(diskCache, key, dataFile)).isNotNull();
+    assertThat(filter.getRejectedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void read_doesNotCountAsLookup() {
+    DataCacheImageMetadata.write(
+        diskCache,
+        key,
+        new ImageMetadata(ImageType.JPEG, 1, 10, 10, /* isProgressive= */ false),
+        dataFile.length());
+    DiskCache spyDiskCache = spy(diskCache);
+
+    assertThat(DataCacheImageMetadata.read(spyDiskCache, key, dataFile)).isNotNull();
+
+    verify(spyDiskCache).peek(any(Key.class));
+    verify(spyDiskCache, never()).get(any(Key.class));
+  }
+
+  @Test
+  public void read_withDifferentDataSize_returnsNull() {
+    DataCacheImageMetadata.write(
+        diskCache,
+        key,
+        new ImageMetadata(ImageType.JPEG, 1, 10, 10, /* isProgressive= */ true),
+        dataFile.length() + 1);
+
+    assertThat(DataCacheImageMetadata.read(diskCache, key, dataFile)).isNull();
+  }
+
+  @Test
+  public void read_withoutWrite_returnsNull() {
+    assertThat(DataCacheImageMetadata.read(diskCache, key, dataFile)).isNull();
+  }
+
+  @Test
+  public void write_doesNotReplaceData() {
+    diskCache.put(
+        key,
+        new DiskCache.Writer() {
+          @Override
+          public boolean write(@NonNull File file) {
+            return dataFile.renameTo(file);
+          }
+        });
+    File cached = diskCache.get(key);
+    long size = cached.length();
+
+    DataCacheImageMetadata.write(
+        diskCache,
+        key,
+        new ImageMetadata(ImageType.JPEG, 1, 10, 10, /* isProgressive= */ false),
+        size);
+
+    assertThat(diskCache.get(key).length()).isEqualTo(size);
+    assertThat(DataCacheImageMetadata.read(diskCache, key, diskCache.get(key))).isNotNull();
+  }
+}
@@ -0,0 +1,179 @@
+package com.bumptech.glide.load.engine;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class DataCacheTeeTest {
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Mock private DiskCache diskCache;
+  private final DataCacheKey key =
+      new DataCacheKey(new ObjectKey("source"), new ObjectKey("signature"));
+  private File cacheDir;
+  private File entry;
+
+  @Before
+  public void setUp() throws IOException {
+    MockitoAnnotations.initMocks(this);
+    cacheDir = temporaryFolder.newFolder("cache");
+    entry = new File(temporaryFolder.getRoot(), "entry");
+    doAnswer(
+            new Answer<Void>() {
+              @Override
+              public Void answer(InvocationOnMock invocation) {
+                DiskCache.Writer writer = invocation.getArgument(1);
+                assertThat(writer.write(entry)).isTrue();
+                return null;
+              }
+            })
+        .when(diskCache)
+        .put(any(Key.class), any(DiskCache.Writer.class));
+  }
+
+  @Test
+  public void run_afterPartialRead_writesAllDataToDiskCache() throws IOException {
+    byte[] data = data(20_000);
+    DataCacheTee tee = start(new ByteArrayInputStream(data));
+
+    byte[] buffer = new byte[100];
+    assertThat(tee.getStream().read(buffer)).isEqualTo(buffer.length);
+    assertThat(tee.getStream().skip(50)).isEqualTo(50);
+    tee.getStream().read();
+    tee.run();
+
+    assertThat(writtenData()).isEqualTo(data);
+    assertThat(tempFiles()).isEmpty();
+  }
+
+  @Test
+  public void run_afterCancel_doesNotWriteToDiskCache() throws IOException {
+    DataCacheTee tee = start(new ByteArrayInputStream(data(1000)));
+    tee.getStream().read();
+
+    tee.cancel();
+    tee.run();
+
+    verify(diskCache, never()).put(any(Key.class), any(DiskCache.Writer.class));
+    assertThat(tempFiles()).isEmpty();
+  }
+
+  @Test
+  public void run_afterSourceFails_doesNotWriteToDiskCache() throws IOException {
+    DataCacheTee tee =
+        start(
+            new InputStream() {
+              @Override
+              public int read() throws IOException {
+                throw new IOException("test");
+              }
+            });
+    try {
+      tee.getStream().read();
+    } catch (IOException e) {
+      // Expected.
+    }
+
+    tee.run();
+
+    verify(diskCache, never()).put(any(Key.class), any(DiskCache.Writer.class));
+    assertThat(tempFiles()).isEmpty();
+  }
+
+  @Test
+  public void run_calledTwice_onlyWritesOnce() throws IOException {
+    DataCacheTee tee = start(new ByteArrayInputStream(data(10)));
+
+    tee.run();
+    tee.run();
+
+    verify(diskCache, times(1)).put(eq(key), any(DiskCache.Writer.class));
+  }
+
+  @Test
+  public void start_withFileLeftInTempDirectory_deletesFile() throws IOException {
+    File tempDirectory = new File(cacheDir, "glide_source_tee");
+    assertThat(tempDirectory.mkdirs()).isTrue();
+    File staleFile = new File(tempDirectory, "stale");
+    assertThat(staleFile.createNewFile()).isTrue();
+
+    start(new ByteArrayInputStream(data(10)));
+
+    assertThat(staleFile.exists()).isFalse();
+    assertThat(tempFiles()).hasLength(1);
+  }
+
+  @Test
+  public void start_withTeeInProgress_keepsItsTempFile() throws IOException {
+    start(new ByteArrayInputStream(data(10)));
+
+    start(new ByteArrayInputStream(data(10)));
+
+    assertThat(tempFiles()).hasLength(2);
+  }
+
+  private DataCacheTee start(InputStream source) throws IOException {
+    return DataCacheTee.start(
+        source,
+        cacheDir,
+        diskCache,
+        key,
+        new LruArrayPool(/* maxSize= */ 64 * 1024),
+        new Options(),
+        /* metadataParsers= */ null);
+  }
+
+  private byte[] writtenData() throws IOException {
+    verify(diskCache).put(eq(key), any(DiskCache.Writer.class));
+    byte[] result = new byte[(int) entry.length()];
+    InputStream is = new FileInputStream(entry);
+    try {
+      assertThat(is.read(result)).isEqualTo(result.length);
+    } finally {
+      is.close();
+    }
+    return result;
+  }
+
+  private File[] tempFiles() {
+    File[] files = new File(cacheDir, "glide_source_tee").listFiles();
+    return files == null ? new File[0] : files;
+  }
+
+  private static byte[] data(int length) {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = (byte) i;
+    }
+    return result;
+  }
+}
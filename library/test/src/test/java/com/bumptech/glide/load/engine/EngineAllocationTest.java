@@ -0,0 +1,325 @@
+package com.bumptech.glide.load.engine;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+import com.bumptech.glide.Glide.RequestOptionsFactory;
+import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.GlideExperiments;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.executor.MockGlideExecutor;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.ResourceCallback;
+import com.bumptech.glide.request.target.ImageViewTargetFactory;
+import com.bumptech.glide.signature.EmptySignature;
+import com.bumptech.glide.util.Executors;
+import com.bumptech.glide.util.GlideSuppliers.GlideSupplier;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Tests that memory cache hits in {@link Engine#load} don't allocate keys.
+ *
+ * <p>Active resource hits shouldn't allocate at all. Memory cache hits move the resource into
+ * active resources and releasing the resource moves it back, so each round trip allocates a
+ * reference and a couple of map entries to track the resource, but never a key.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class EngineAllocationTest {
+  private static final int ITERATIONS = 10_000;
+  // Allows for a small amount of unrelated allocation by the VM, but far less than one key.
+  private static final long MAX_BYTES_PER_ACTIVE_RESOURCE_HIT = 8;
+  // A reference and the map entries used to track a resource, with room for unrelated allocations
+  // by the VM. Keys are checked separately by counting the keys that are built.
+  private static final long MAX_BYTES_PER_MEMORY_CACHE_HIT = 256;
+
+  private final Map<Class<?>, Transformation<?>> transformations = Collections.emptyMap();
+  private final Options options = new Options();
+  private final CountingKeyFactory keyFactory = new CountingKeyFactory();
+  private ActiveResources activeResources;
+  private GlideContext glideContext;
+  private Engine engine;
+
+  @After
+  public void tearDown() {
+    if (activeResources != null) {
+      activeResources.shutdown();
+    }
+  }
+
+  @Test
+  public void load_withActiveResourceHit_doesNotAllocate() {
+    assertLoadAllocatesLessThan(
+        /* isLockStripingEnabled= */ false,
+        /* isActive= */ true,
+        MAX_BYTES_PER_ACTIVE_RESOURCE_HIT);
+  }
+
+  @Test
+  public void load_withActiveResourceHit_withStriping_doesNotAllocate() {
+    assertLoadAllocatesLessThan(
+        /* isLockStripingEnabled= */ true,
+        /* isActive= */ true,
+        MAX_BYTES_PER_ACTIVE_RESOURCE_HIT);
+  }
+
+  @Test
+  public void load_withMemoryCacheHit_onlyAllocatesResourceTracking() {
+    assertLoadAllocatesLessThan(
+        /* isLockStripingEnabled= */ false,
+        /* isActive= */ false,
+        MAX_BYTES_PER_MEMORY_CACHE_HIT);
+  }
+
+  @Test
+  public void load_withMemoryCacheHit_withStriping_onlyAllocatesResourceTracking() {
+    assertLoadAllocatesLessThan(
+        /* isLockStripingEnabled= */ true,
+        /* isActive= */ false,
+        MAX_BYTES_PER_MEMORY_CACHE_HIT);
+  }
+
+  private void assertLoadAllocatesLessThan(
+      boolean isLockStripingEnabled, boolean isActive, long maxBytesPerLoad) {
+    ThreadMXBean threadBean = getThreadMxBean();
+    assumeTrue(threadBean != null);
+    setUpEngine(isLockStripingEnabled);
+    HitCountingCallback cb = new HitCountingCallback(isActive);
+    populate(cb, isActive);
+
+    // Warm up so that any one time allocations (class loading, lazy initialization) are excluded.
+    loadRepeatedly(cb);
+    long threadId = Thread.currentThread().getId();
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    loadRepeatedly(cb);
+    long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+    assertThat(cb.failure).isNull();
+    assertThat(cb.hits).isEqualTo(2 * ITERATIONS);
+    assertThat(keyFactory.builtKeys).isEqualTo(0);
+    assertThat(allocated).isLessThan(maxBytesPerLoad * ITERATIONS);
+  }
+
+  private void setUpEngine(boolean isLockStripingEnabled) {
+    activeResources =
+        new ActiveResources(
+            /* isActiveResourceRetentionAllowed= */ false,
+            /* isConcurrent= */ isLockStripingEnabled);
+    engine =
+        new Engine(
+            // Large enough that nothing is ever evicted.
+            new LruResourceCache(Long.MAX_VALUE),
+            mock(DiskCache.Factory.class),
+            MockGlideExecutor.newMainThreadExecutor(),
+            MockGlideExecutor.newMainThreadExecutor(),
+            MockGlideExecutor.newMainThreadExecutor(),
+            MockGlideExecutor.newMainThreadExecutor(),
+            new Jobs(/* isConcurrent= */ isLockStripingEnabled),
+            keyFactory,
+            activeResources,
+            mock(Engine.EngineJobFactory.class),
+            mock(Engine.DecodeJobFactory.class),
+            mock(ResourceRecycler.class),
+            /* isActiveResourceRetentionAllowed= */ false,
+            isLockStripingEnabled,
+            /* isSizeVariantReuseEnabled= */ false,
+            /* bitmapPool= */ null,
+            /* sourceFetchExecutor= */ null);
+    // A real GlideContext, because every call to a mock allocates.
+    glideContext =
+        new GlideContext(
+            ApplicationProvider.getApplicationContext(),
+            new LruArrayPool(),
+            new GlideSupplier<Registry>() {
+              @Override
+              public Registry get() {
+                return new Registry();
+              }
+            },
+            new ImageViewTargetFactory(),
+            new RequestOptionsFactory() {
+              @NonNull
+              @Override
+              public RequestOptions build() {
+                return new RequestOptions();
+              }
+            },
+            Collections.emptyMap(),
+            Collections.<RequestListener<Object>>emptyList(),
+            engine,
+            mock(GlideExperiments.class),
+            Log.ERROR);
+  }
+
+  /** Makes the model either an active resource or a memory cache entry. */
+  private void populate(HitCountingCallback cb, boolean isActive) {
+    EngineKey key =
+        new EngineKey(
+            /* model= */ 1,
+            EmptySignature.obtain(),
+            /* width= */ 100,
+            /* height= */ 100,
+            transformations,
+            Object.class,
+            Object.class,
+            options);
+    EngineResource<Object> resource =
+        new EngineResource<>(
+            new SimpleTestResource(),
+            /* isMemoryCacheable= */ true,
+            /* isRecyclable= */ true,
+            key,
+            engine);
+    // Keep a strong reference so that active resources can't be cleared by GC.
+    cb.resource = resource;
+    if (isActive) {
+      resource.acquire();
+      engine.onEngineJobComplete(mock(EngineJob.class), key, resource);
+    } else {
+      engine.onResourceReleased(key, resource);
+    }
+  }
+
+  private void loadRepeatedly(ResourceCallback cb) {
+    // A boxed model that's cached by Integer.valueOf, so the model itself isn't allocated.
+    Integer model = 1;
+    for (int i = 0; i < ITERATIONS; i++) {
+      Engine.LoadStatus status =
+          engine.load(
+              glideContext,
+              model,
+              EmptySignature.obtain(),
+              /* width= */ 100,
+              /* height= */ 100,
+              Object.class,
+              Object.class,
+              Priority.NORMAL,
+              DiskCacheStrategy.ALL,
+              transformations,
+              /* isTransformationRequired= */ false,
+              /* isScaleOnlyOrNoTransform= */ true,
+              options,
+              /* isMemoryCacheable= */ true,
+              /* useUnlimitedSourceExecutorPool= */ false,
+              /* useAnimationPool= */ false,
+              /* onlyRetrieveFromCache= */ false,
+              cb,
+              Executors.directExecutor());
+      if (status != null) {
+        throw new IllegalStateException("Expected a memory hit");
+      }
+    }
+  }
+
+  private static ThreadMXBean getThreadMxBean() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof ThreadMXBean
+        && ((ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+        && ((ThreadMXBean) bean).isThreadAllocatedMemoryEnabled()) {
+      return (ThreadMXBean) bean;
+    }
+    return null;
+  }
+
+  /** Counts the keys built to be stored, which memory cache hits should never need. */
+  private static final class CountingKeyFactory extends EngineKeyFactory {
+    int builtKeys;
+
+    @Override
+    EngineKey buildKey(
+        Object model,
+        Key signature,
+        int width,
+        int height,
+        Map<Class<?>, Transformation<?>> transformations,
+        Class<?> resourceClass,
+        Class<?> transcodeClass,
+        Options options) {
+      builtKeys++;
+      return super.buildKey(
+          model, signature, width, height, transformations, resourceClass, transcodeClass, options);
+    }
+  }
+
+  private static final class HitCountingCallback implements ResourceCallback {
+    private final boolean isActive;
+    int hits;
+    Throwable failure;
+    EngineResource<?> resource;
+
+    HitCountingCallback(boolean isActive) {
+      this.isActive = isActive;
+    }
+
+    @Override
+    public void onResourceReady(
+        Resource<?> resource, DataSource dataSource, boolean isLoadedFromAlternateCacheKey) {
+      if (dataSource != DataSource.MEMORY_CACHE && failure == null) {
+        failure = new IllegalStateException("Unexpected source: " + dataSource);
+      }
+      hits++;
+      if (!isActive) {
+        // Return the resource to the memory cache so the next load is a memory cache hit.
+        ((EngineResource<?>) resource).release();
+      }
+    }
+
+    @Override
+    public void onLoadFailed(GlideException e) {
+      failure = e;
+    }
+
+    @Override
+    public Object getLock() {
+      return this;
+    }
+  }
+
+  private static final class SimpleTestResource implements Resource<Object> {
+    private final Object value = new Object();
+
+    @NonNull
+    @Override
+    public Class<Object> getResourceClass() {
+      return Object.class;
+    }
+
+    @NonNull
+    @Override
+    public Object get() {
+      return value;
+    }
+
+    @Override
+    public int getSize() {
+      return 1;
+    }
+
+    @Override
+    public void recycle() {
+      // Do nothing.
+    }
+  }
+}
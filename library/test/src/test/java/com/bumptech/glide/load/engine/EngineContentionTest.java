@@ -0,0 +1,275 @@
+package com.bumptech.glide.load.engine;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.executor.MockGlideExecutor;
+import com.bumptech.glide.request.ResourceCallback;
+import com.bumptech.glide.signature.EmptySignature;
+import com.bumptech.glide.util.Executors;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Tests that concurrent memory cache hits in {@link Engine#load} are all returned correctly, with
+ * and without lock striping.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class EngineContentionTest {
+  private static final int KEY_COUNT = 64;
+  private static final int LOADS_PER_THREAD = 1000;
+  private static final int THREAD_COUNT = 4;
+
+  private final Map<Class<?>, Transformation<?>> transformations = Collections.emptyMap();
+  private final Options options = new Options();
+  private final Engine.EngineJobFactory engineJobFactory = mock(Engine.EngineJobFactory.class);
+  private final Engine.DecodeJobFactory decodeJobFactory = mock(Engine.DecodeJobFactory.class);
+  private final GlideContext glideContext = mock(GlideContext.class);
+  private ActiveResources activeResources;
+  private Engine engine;
+
+  @After
+  public void tearDown() {
+    if (activeResources != null) {
+      activeResources.shutdown();
+    }
+  }
+
+  @Test
+  public void load_withActiveResourceHits_withoutStriping_neverStartsJobs()
+      throws InterruptedException {
+    loadFromThreads(/* isLockStripingEnabled= */ false, /* isActive= */ true);
+  }
+
+  @Test
+  public void load_withActiveResourceHits_withStriping_neverStartsJobs()
+      throws InterruptedException {
+    loadFromThreads(/* isLockStripingEnabled= */ true, /* isActive= */ true);
+  }
+
+  @Test
+  public void load_withMemoryCacheHits_withoutStriping_neverStartsJobs()
+      throws InterruptedException {
+    loadFromThreads(/* isLockStripingEnabled= */ false, /* isActive= */ false);
+  }
+
+  @Test
+  public void load_withMemoryCacheHits_withStriping_neverStartsJobs()
+      throws InterruptedException {
+    loadFromThreads(/* isLockStripingEnabled= */ true, /* isActive= */ false);
+  }
+
+  private void loadFromThreads(boolean isLockStripingEnabled, boolean isActive)
+      throws InterruptedException {
+    setUpEngine(isLockStripingEnabled);
+    HitCountingCallback cb = new HitCountingCallback(isActive);
+    populate(cb, isActive);
+
+    loadConcurrently(cb);
+
+    assertThat(cb.failure.get()).isNull();
+    assertThat(cb.hits.get()).isEqualTo((long) THREAD_COUNT * LOADS_PER_THREAD);
+    verify(engineJobFactory, never())
+        .build(any(Key.class), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean());
+  }
+
+  private void setUpEngine(boolean isLockStripingEnabled) {
+    activeResources =
+        new ActiveResources(
+            /* isActiveResourceRetentionAllowed= */ false,
+            /* isConcurrent= */ isLockStripingEnabled);
+    engine =
+        new Engine(
+            // Large enough that nothing is ever evicted.
+            new LruResourceCache(Long.MAX_VALUE),
+            mock(DiskCache.Factory.class),
+            MockGlideExecutor.newMainThreadExecutor(),
+            MockGlideExecutor.newMainThreadExecutor(),
+            MockGlideExecutor.newMainThreadExecutor(),
+            MockGlideExecutor.newMainThreadExecutor(),
+            new Jobs(/* isConcurrent= */ isLockStripingEnabled),
+            new EngineKeyFactory(),
+            activeResources,
+            engineJobFactory,
+            decodeJobFactory,
+            mock(ResourceRecycler.class),
+            /* isActiveResourceRetentionAllowed= */ false,
+            isLockStripingEnabled,
+            /* isSizeVariantReuseEnabled= */ false,
+            /* bitmapPool= */ null,
+            /* sourceFetchExecutor= */ null);
+  }
+
+  /**
+   * Makes every model either an active resource or a memory cache entry.
+   *
+   * <p>Memory cache hits move the resource into active resources, so for memory cache hits the
+   * callback immediately releases each resource to put it back in the cache.
+   */
+  private void populate(HitCountingCallback cb, boolean isActive) {
+    for (int i = 0; i < KEY_COUNT; i++) {
+      EngineKey key =
+          new EngineKey(
+              i,
+              EmptySignature.obtain(),
+              /* width= */ 100,
+              /* height= */ 100,
+              transformations,
+              Object.class,
+              Object.class,
+              options);
+      EngineResource<Object> resource =
+          new EngineResource<>(
+              new SimpleTestResource(),
+              /* isMemoryCacheable= */ true,
+              /* isRecyclable= */ true,
+              key,
+              engine);
+      // Keep a strong reference so that active resources can't be cleared by GC.
+      cb.resources[i] = resource;
+      if (isActive) {
+        resource.acquire();
+        engine.onEngineJobComplete(mock(EngineJob.class), key, resource);
+      } else {
+        engine.onResourceReleased(key, resource);
+      }
+    }
+  }
+
+  private void loadConcurrently(final HitCountingCallback cb) throws InterruptedException {
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(THREAD_COUNT);
+    // Each thread loads a disjoint range of keys so that memory cache hits never race with the
+    // release of the same resource on another thread.
+    final int keysPerThread = KEY_COUNT / THREAD_COUNT;
+    for (int t = 0; t < THREAD_COUNT; t++) {
+      final int offset = t * keysPerThread;
+      new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  try {
+                    start.await();
+                    for (int i = 0; i < LOADS_PER_THREAD; i++) {
+                      load(offset + i % keysPerThread, cb);
+                    }
+                  } catch (Throwable e) {
+                    cb.failure.compareAndSet(null, e);
+                  } finally {
+                    done.countDown();
+                  }
+                }
+              })
+          .start();
+    }
+    start.countDown();
+    done.await();
+  }
+
+  private void load(int model, ResourceCallback cb) {
+    Engine.LoadStatus status =
+        engine.load(
+            glideContext,
+            model,
+            EmptySignature.obtain(),
+            /* width= */ 100,
+            /* height= */ 100,
+            Object.class,
+            Object.class,
+            Priority.NORMAL,
+            DiskCacheStrategy.ALL,
+            transformations,
+            /* isTransformationRequired= */ false,
+            /* isScaleOnlyOrNoTransform= */ true,
+            options,
+            /* isMemoryCacheable= */ true,
+            /* useUnlimitedSourceExecutorPool= */ false,
+            /* useAnimationPool= */ false,
+            /* onlyRetrieveFromCache= */ false,
+            cb,
+            Executors.directExecutor());
+    if (status != null) {
+      throw new IllegalStateException("Expected a memory hit for: " + model);
+    }
+  }
+
+  private static final class HitCountingCallback implements ResourceCallback {
+    final AtomicLong hits = new AtomicLong();
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final EngineResource<?>[] resources = new EngineResource<?>[KEY_COUNT];
+    private final boolean isActive;
+
+    HitCountingCallback(boolean isActive) {
+      this.isActive = isActive;
+    }
+
+    @Override
+    public void onResourceReady(
+        Resource<?> resource, DataSource dataSource, boolean isLoadedFromAlternateCacheKey) {
+      if (dataSource != DataSource.MEMORY_CACHE) {
+        failure.compareAndSet(null, new IllegalStateException("Unexpected source: " + dataSource));
+      }
+      hits.incrementAndGet();
+      if (!isActive) {
+        // Return the resource to the memory cache so the next load for this key is a cache hit.
+        ((EngineResource<?>) resource).release();
+      }
+    }
+
+    @Override
+    public void onLoadFailed(GlideException e) {
+      failure.compareAndSet(null, e);
+    }
+
+    @Override
+    public Object getLock() {
+      return this;
+    }
+  }
+
+  private static final class SimpleTestResource implements Resource<Object> {
+    private final Object value = new Object();
+
+    @Override
+    public Class<Object> getResourceClass() {
+      return Object.class;
+    }
+
+    @Override
+    public Object get() {
+      return value;
+    }
+
+    @Override
+    public int getSize() {
+      return 1;
+    }
+
+    @Override
+    public void recycle() {
+      // Do nothing.
+    }
+  }
+}
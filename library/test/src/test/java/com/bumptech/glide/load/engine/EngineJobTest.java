@@ -20,6 +20,7 @@ import static org.mockito.Mockito.when;
 import android.os.Handler;
 import android.os.Looper;
 import androidx.core.util.Pools;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.EngineResource.ResourceListener;
@@ -27,8 +28,10 @@ import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import com.bumptech.glide.load.engine.executor.MockGlideExecutor;
 import com.bumptech.glide.request.ResourceCallback;
 import com.bumptech.glide.util.Executors;
+import com.bumptech.glide.util.LogTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -208,6 +211,95 @@ public class EngineJobTest {
     assertFalse(job.isCancelled());
   }
 
+  @Test
+  public void setPriority_withHigherPriorityCallback_raisesDecodeJobPriority() {
+    EngineJob<Object> job = harness.getJob();
+    job.setPriority(harness.cb, Priority.LOW);
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.LOW);
+    job.start(harness.decodeJob);
+
+    ResourceCallback other = mockResourceCallback();
+    job.addCallback(other, Executors.directExecutor());
+    job.setPriority(other, Priority.HIGH);
+
+    verify(harness.decodeJob).setPriority(Priority.HIGH);
+  }
+
+  @Test
+  public void setPriority_withLowerPriorityCallback_doesNotLowerDecodeJobPriority() {
+    EngineJob<Object> job = harness.getJob();
+    job.setPriority(harness.cb, Priority.HIGH);
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.HIGH);
+    job.start(harness.decodeJob);
+
+    ResourceCallback other = mockResourceCallback();
+    job.addCallback(other, Executors.directExecutor());
+    job.setPriority(other, Priority.LOW);
+
+    verify(harness.decodeJob, never()).setPriority(any(Priority.class));
+  }
+
+  @Test
+  public void removeCallback_withHighestPriorityCallback_lowersDecodeJobPriority() {
+    EngineJob<Object> job = harness.getJob();
+    job.setPriority(harness.cb, Priority.LOW);
+    ResourceCallback other = mockResourceCallback();
+    job.addCallback(other, Executors.directExecutor());
+    job.setPriority(other, Priority.HIGH);
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.HIGH);
+    job.start(harness.decodeJob);
+
+    job.removeCallback(other);
+
+    verify(harness.decodeJob).setPriority(Priority.LOW);
+  }
+
+  @Test
+  public void setDeadline_withCallbackWithoutDeadline_removesDecodeJobDeadline() {
+    EngineJob<Object> job = harness.getJob();
+    long deadlineNanos = LogTime.getLogTime() + TimeUnit.HOURS.toNanos(1);
+    job.setPriority(harness.cb, Priority.NORMAL);
+    job.setDeadline(harness.cb, deadlineNanos);
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.NORMAL);
+    when(harness.decodeJob.getDeadlineNanos()).thenReturn(deadlineNanos);
+    job.start(harness.decodeJob);
+
+    ResourceCallback other = mockResourceCallback();
+    job.addCallback(other, Executors.directExecutor());
+    job.setPriority(other, Priority.NORMAL);
+    job.setDeadline(other, GlideExecutor.NO_DEADLINE);
+
+    verify(harness.decodeJob).setDeadlineNanos(GlideExecutor.NO_DEADLINE);
+    verify(harness.decodeJob, never()).setPriority(any(Priority.class));
+  }
+
+  @Test
+  public void setDeadline_withPastDeadline_lowersDecodeJobPriority() {
+    EngineJob<Object> job = harness.getJob();
+    job.setPriority(harness.cb, Priority.HIGH);
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.HIGH);
+    when(harness.decodeJob.getDeadlineNanos()).thenReturn(GlideExecutor.NO_DEADLINE);
+    job.start(harness.decodeJob);
+
+    long deadlineNanos = LogTime.getLogTime() - 1;
+    job.setDeadline(harness.cb, deadlineNanos);
+
+    verify(harness.decodeJob).setPriority(Priority.LOW);
+    verify(harness.decodeJob).setDeadlineNanos(deadlineNanos);
+  }
+
+  @Test
+  public void reschedule_withPastDeadline_lowersDecodeJobPriority() {
+    EngineJob<Object> job = harness.getJob();
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.HIGH);
+    job.start(harness.decodeJob);
+
+    when(harness.decodeJob.isPastDeadline()).thenReturn(true);
+    job.reschedule(harness.decodeJob);
+
+    verify(harness.decodeJob).setPriority(Priority.LOW);
+  }
+
   @Test
   public void testResourceIsAcquiredOncePerConsumerAndOnceForCache() {
     EngineJob<Object> job = harness.getJob();
@@ -507,6 +599,66 @@ public class EngineJobTest {
     verify(harness.decodeJob).run();
   }
 
+  @Test
+  public void testSubmitsDecodeJobToSourceFetchServiceWhenDecodingFromSourceOnlyOnStart() {
+    harness.sourceFetchService = MockGlideExecutor.newMainThreadExecutor();
+    EngineJob<Object> job = harness.getJob();
+    when(harness.decodeJob.willDecodeFromCache()).thenReturn(false);
+    harness.diskCacheService.shutdownNow();
+    harness.sourceService.shutdownNow();
+    job.start(harness.decodeJob);
+
+    verify(harness.decodeJob).run();
+  }
+
+  @Test
+  public void testSubmitsDecodeJobToSourceServiceOnRescheduleToDecodeRetrievedData() {
+    harness.sourceFetchService = MockGlideExecutor.newMainThreadExecutor();
+    EngineJob<Object> job = harness.getJob();
+    when(harness.decodeJob.isDecodingRetrievedData()).thenReturn(true);
+    harness.diskCacheService.shutdownNow();
+    harness.sourceFetchService.shutdownNow();
+    job.reschedule(harness.decodeJob);
+
+    verify(harness.decodeJob).run();
+  }
+
+  @Test
+  public void testSubmitsDecodeJobToSourceFetchServiceOnRescheduleToRetrieveData() {
+    harness.sourceFetchService = MockGlideExecutor.newMainThreadExecutor();
+    EngineJob<Object> job = harness.getJob();
+    when(harness.decodeJob.isDecodingRetrievedData()).thenReturn(false);
+    harness.diskCacheService.shutdownNow();
+    harness.sourceService.shutdownNow();
+    job.reschedule(harness.decodeJob);
+
+    verify(harness.decodeJob).run();
+  }
+
+  @Test
+  public void shouldDecodeOnSeparateExecutor_withoutSourceFetchService_returnsFalse() {
+    EngineJob<Object> job = harness.getJob();
+
+    assertFalse(job.shouldDecodeOnSeparateExecutor());
+  }
+
+  @Test
+  public void shouldDecodeOnSeparateExecutor_withSourceFetchService_returnsTrue() {
+    harness.sourceFetchService = MockGlideExecutor.newMainThreadExecutor();
+    EngineJob<Object> job = harness.getJob();
+
+    assertTrue(job.shouldDecodeOnSeparateExecutor());
+  }
+
+  @Test
+  public void shouldDecodeOnSeparateExecutor_withUnlimitedSourceGeneratorPool_returnsFalse() {
+    harness.sourceFetchService = MockGlideExecutor.newMainThreadExecutor();
+    harness.useUnlimitedSourceGeneratorPool = true;
+    EngineJob<Object> job = harness.getJob();
+
+    assertFalse(job.shouldDecodeOnSeparateExecutor());
+  }
+
   private static ResourceCallback mockResourceCallback() {
     ResourceCallback result = mock(ResourceCallback.class);
     when(result.getLock()).thenReturn(result);
@@ -532,6 +684,7 @@ public class EngineJobTest {
     final GlideExecutor sourceService = MockGlideExecutor.newMainThreadExecutor();
     final GlideExecutor sourceUnlimitedService = MockGlideExecutor.newMainThreadExecutor();
     final GlideExecutor animationService = MockGlideExecutor.newMainThreadExecutor();
+    final GlideExecutor sourceFetchService = null;
     final Pools.Pool<EngineJob<?>> pool = new Pools.SimplePool<>(1);
     final DecodeJob<Object> decodeJob = mock(DecodeJob.class);
     final DataSource dataSource = DataSource.LOCAL;
@@ -545,6 +698,7 @@ public class EngineJobTest {
               sourceService,
               sourceUnlimitedService,
               animationService,
+              sourceFetchService,
               engineJobListener,
               resourceListener,
               pool,
@@ -578,6 +732,7 @@ public class EngineJobTest {
     final GlideExecutor sourceService = MockGlideExecutor.newMainThreadExecutor();
     final GlideExecutor sourceUnlimitedService = MockGlideExecutor.newMainThreadExecutor();
     final GlideExecutor animationService = MockGlideExecutor.newMainThreadExecutor();
+    GlideExecutor sourceFetchService = null;
     boolean isCacheable = true;
     boolean useUnlimitedSourceGeneratorPool = false;
     final boolean useAnimationPool = false;
@@ -595,6 +750,7 @@ public class EngineJobTest {
               sourceService,
               sourceUnlimitedService,
               animationService,
+              sourceFetchService,
               engineJobListener,
               resourceListener,
               pool,
@@ -0,0 +1,146 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.signature.ObjectKey;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class EngineKeyFactoryTest {
+  private final EngineKeyFactory factory = new EngineKeyFactory();
+  private final Map<Class<?>, Transformation<?>> transformations = Collections.emptyMap();
+  private final Options options = new Options();
+
+  @Test
+  public void obtainProbeKey_isEqualToBuiltKey() {
+    EngineKey probe = obtainProbeKey("model", 100);
+    EngineKey built =
+        factory.buildKey(
+            "model",
+            new ObjectKey("signature"),
+            100,
+            100,
+            transformations,
+            Object.class,
+            Object.class,
+            options);
+
+    assertThat(probe).isEqualTo(built);
+    assertThat(built).isEqualTo(probe);
+    assertThat(probe.hashCode()).isEqualTo(built.hashCode());
+  }
+
+  @Test
+  public void obtainProbeKey_afterRelease_reusesKey() {
+    EngineKey first = obtainProbeKey("model", 100);
+    factory.releaseProbeKey(first);
+
+    EngineKey second = obtainProbeKey("model", 100);
+
+    assertThat(second).isSameInstanceAs(first);
+  }
+
+  @Test
+  public void obtainProbeKey_withoutRelease_returnsNewKey() {
+    EngineKey first = obtainProbeKey("model", 100);
+
+    EngineKey second = obtainProbeKey("model", 100);
+
+    assertThat(second).isNotSameInstanceAs(first);
+  }
+
+  @Test
+  public void obtainProbeKey_afterReuseWithDifferentArguments_updatesHashCode() {
+    EngineKey first = obtainProbeKey("model", 100);
+    int firstHashCode = first.hashCode();
+    factory.releaseProbeKey(first);
+
+    EngineKey second = obtainProbeKey("model", 200);
+
+    assertThat(second.hashCode()).isNotEqualTo(firstHashCode);
+    assertThat(second).isEqualTo(obtainProbeKey("model", 200));
+  }
+
+  @Test
+  public void copy_returnsEqualKeyThatIsUnaffectedByRelease() {
+    EngineKey probe = obtainProbeKey("model", 100);
+    EngineKey copy = probe.copy();
+
+    factory.releaseProbeKey(probe);
+
+    assertThat(copy).isEqualTo(obtainProbeKey("model", 100));
+    assertThat(copy).isNotSameInstanceAs(probe);
+  }
+
+  @Test
+  public void obtainProbeKey_withLookupAndRelease_doesNotAllocate() {
+    ThreadMXBean threadBean = getThreadMxBean();
+    assumeTrue(threadBean != null);
+
+    Key signature = new ObjectKey("signature");
+    Map<Key, Object> keys = new HashMap<>();
+    keys.put(
+        factory.buildKey(
+            "model", signature, 100, 100, transformations, Object.class, Object.class, options),
+        new Object());
+
+    int iterations = 10_000;
+    // Warm up so that any one time allocations (class loading, lazy initialization) are excluded.
+    int hits = probe(iterations, signature, keys);
+    long threadId = Thread.currentThread().getId();
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    hits += probe(iterations, signature, keys);
+    long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+    assertThat(hits).isEqualTo(2 * iterations);
+    // Allow for a small amount of unrelated allocation by the VM, but far less than one key.
+    assertThat(allocated).isLessThan((long) iterations);
+  }
+
+  private int probe(int iterations, Key signature, Map<Key, Object> keys) {
+    int hits = 0;
+    for (int i = 0; i < iterations; i++) {
+      EngineKey probeKey =
+          factory.obtainProbeKey(
+              "model", signature, 100, 100, transformations, Object.class, Object.class, options);
+      if (keys.get(probeKey) != null) {
+        hits++;
+      }
+      factory.releaseProbeKey(probeKey);
+    }
+    return hits;
+  }
+
+  private static ThreadMXBean getThreadMxBean() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof ThreadMXBean
+        && ((ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+        && ((ThreadMXBean) bean).isThreadAllocatedMemoryEnabled()) {
+      return (ThreadMXBean) bean;
+    }
+    return null;
+  }
+
+  private EngineKey obtainProbeKey(String model, int size) {
+    return factory.obtainProbeKey(
+        model,
+        new ObjectKey("signature"),
+        size,
+        size,
+        transformations,
+        Object.class,
+        Object.class,
+        options);
+  }
+}
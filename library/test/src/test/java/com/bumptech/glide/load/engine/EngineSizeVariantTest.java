@@ -0,0 +1,222 @@
+package com.bumptech.glide.load.engine;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.Bitmap;
+import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.executor.MockGlideExecutor;
+import com.bumptech.glide.load.resource.bitmap.BitmapResource;
+import com.bumptech.glide.request.ResourceCallback;
+import com.bumptech.glide.signature.EmptySignature;
+import com.bumptech.glide.util.Executors;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/** Tests for serving smaller requests by scaling down larger Bitmaps in {@link Engine}. */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class EngineSizeVariantTest {
+  private static final Object MODEL = "model";
+
+  private final Map<Class<?>, Transformation<?>> transformations = Collections.emptyMap();
+  private final Options options = new Options();
+  private final Engine.EngineJobFactory engineJobFactory = mock(Engine.EngineJobFactory.class);
+  private final Engine.DecodeJobFactory decodeJobFactory = mock(Engine.DecodeJobFactory.class);
+  private final ResourceCallback cb = mock(ResourceCallback.class);
+  private final LruResourceCache memoryCache = new LruResourceCache(Long.MAX_VALUE);
+  private ActiveResources activeResources;
+  private Engine engine;
+
+  @Before
+  public void setUp() {
+    when(engineJobFactory.build(
+            any(Key.class), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean()))
+        .thenReturn(mock(EngineJob.class));
+    activeResources = new ActiveResources(/* isActiveResourceRetentionAllowed= */ false);
+    engine = newEngine(/* isSizeVariantReuseEnabled= */ true);
+  }
+
+  @After
+  public void tearDown() {
+    activeResources.shutdown();
+  }
+
+  @Test
+  public void load_withLargerActiveVariant_returnsScaledBitmapFromMemory() {
+    completeLoad(/* width= */ 1000, /* height= */ 1000);
+
+    assertThat(load(/* width= */ 100, /* height= */ 100)).isNull();
+
+    Bitmap result = captureReadyBitmap();
+    assertThat(result.getWidth()).isEqualTo(100);
+    assertThat(result.getHeight()).isEqualTo(100);
+    verify(engineJobFactory, never())
+        .build(any(Key.class), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean());
+  }
+
+  @Test
+  public void load_withLargerCachedVariant_returnsScaledBitmapAndLeavesVariantCached() {
+    EngineResource<Bitmap> large = completeLoad(/* width= */ 1000, /* height= */ 1000);
+    large.release();
+    assertThat(memoryCache.getCurrentSize()).isGreaterThan(0L);
+
+    assertThat(load(/* width= */ 100, /* height= */ 100)).isNull();
+
+    assertThat(captureReadyBitmap().getWidth()).isEqualTo(100);
+    assertThat(memoryCache.contains(large.getKey())).isTrue();
+  }
+
+  @Test
+  public void load_withOnlySmallerVariant_startsNewLoad() {
+    completeLoad(/* width= */ 50, /* height= */ 50);
+
+    assertThat(load(/* width= */ 100, /* height= */ 100)).isNotNull();
+  }
+
+  @Test
+  public void load_afterVariantIsEvicted_startsNewLoad() {
+    EngineResource<Bitmap> large = completeLoad(/* width= */ 1000, /* height= */ 1000);
+    large.release();
+    memoryCache.clearMemory();
+
+    assertThat(load(/* width= */ 100, /* height= */ 100)).isNotNull();
+  }
+
+  @Test
+  public void load_withReuseDisabled_startsNewLoad() {
+    engine = newEngine(/* isSizeVariantReuseEnabled= */ false);
+    completeLoad(/* width= */ 1000, /* height= */ 1000);
+
+    assertThat(load(/* width= */ 100, /* height= */ 100)).isNotNull();
+  }
+
+  @Test
+  public void load_withLargerVariantAndLoadInProgress_joinsLoadInsteadOfScaling() {
+    assertThat(load(/* width= */ 100, /* height= */ 100)).isNotNull();
+    completeLoad(/* width= */ 1000, /* height= */ 1000);
+
+    assertThat(load(/* width= */ 100, /* height= */ 100)).isNotNull();
+
+    verify(engineJobFactory)
+        .build(any(Key.class), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean());
+    verify(cb, never()).onResourceReady(any(Resource.class), any(DataSource.class), anyBoolean());
+  }
+
+  @Test
+  public void load_withLockStripingAndLargerVariant_returnsScaledBitmapFromMemory() {
+    activeResources.shutdown();
+    activeResources =
+        new ActiveResources(
+            /* isActiveResourceRetentionAllowed= */ false, /* isConcurrent= */ true);
+    engine = newEngine(/* isSizeVariantReuseEnabled= */ true, /* isLockStripingEnabled= */ true);
+    completeLoad(/* width= */ 1000, /* height= */ 1000);
+
+    assertThat(load(/* width= */ 100, /* height= */ 100)).isNull();
+
+    assertThat(captureReadyBitmap().getWidth()).isEqualTo(100);
+  }
+
+  private Engine newEngine(boolean isSizeVariantReuseEnabled) {
+    return newEngine(isSizeVariantReuseEnabled, /* isLockStripingEnabled= */ false);
+  }
+
+  private Engine newEngine(boolean isSizeVariantReuseEnabled, boolean isLockStripingEnabled) {
+    return new Engine(
+        memoryCache,
+        mock(DiskCache.Factory.class),
+        MockGlideExecutor.newMainThreadExecutor(),
+        MockGlideExecutor.newMainThreadExecutor(),
+        MockGlideExecutor.newMainThreadExecutor(),
+        MockGlideExecutor.newMainThreadExecutor(),
+        new Jobs(/* isConcurrent= */ isLockStripingEnabled),
+        new EngineKeyFactory(),
+        activeResources,
+        engineJobFactory,
+        decodeJobFactory,
+        mock(ResourceRecycler.class),
+        /* isActiveResourceRetentionAllowed= */ false,
+        isLockStripingEnabled,
+        isSizeVariantReuseEnabled,
+        new BitmapPoolAdapter(),
+        /* sourceFetchExecutor= */ null);
+  }
+
+  private EngineResource<Bitmap> completeLoad(int width, int height) {
+    EngineKey key =
+        new EngineKey(
+            MODEL,
+            EmptySignature.obtain(),
+            width,
+            height,
+            transformations,
+            Object.class,
+            Bitmap.class,
+            options);
+    EngineResource<Bitmap> resource =
+        new EngineResource<>(
+            BitmapResource.obtain(
+                Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888),
+                new BitmapPoolAdapter()),
+            /* isMemoryCacheable= */ true,
+            /* isRecyclable= */ true,
+            key,
+            engine);
+    resource.acquire();
+    engine.onEngineJobComplete(mock(EngineJob.class), key, resource);
+    return resource;
+  }
+
+  private Engine.LoadStatus load(int width, int height) {
+    return engine.load(
+        mock(GlideContext.class),
+        MODEL,
+        EmptySignature.obtain(),
+        width,
+        height,
+        Object.class,
+        Bitmap.class,
+        Priority.NORMAL,
+        DiskCacheStrategy.ALL,
+        transformations,
+        /* isTransformationRequired= */ false,
+        /* isScaleOnlyOrNoTransform= */ true,
+        options,
+        /* isMemoryCacheable= */ true,
+        /* useUnlimitedSourceExecutorPool= */ false,
+        /* useAnimationPool= */ false,
+        /* onlyRetrieveFromCache= */ false,
+        cb,
+        Executors.directExecutor());
+  }
+
+  private Bitmap captureReadyBitmap() {
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Resource<?>> captor =
+        (ArgumentCaptor<Resource<?>>) (ArgumentCaptor<?>) ArgumentCaptor.forClass(Resource.class);
+    verify(cb).onResourceReady(captor.capture(), eq(DataSource.MEMORY_CACHE), eq(false));
+    return (Bitmap) captor.getValue().get();
+  }
+}
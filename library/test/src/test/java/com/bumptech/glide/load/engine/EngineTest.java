@@ -26,6 +26,7 @@ import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheFactory;
 import com.bumptech.glide.load.engine.cache.LruResourceCache;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
@@ -39,6 +40,7 @@ import java.util.concurrent.Executor;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
@@ -641,6 +643,41 @@ public class EngineTest {
     verify(harness.job, never()).start(anyDecodeJobOrNull());
   }
 
+  @Test
+  public void constructor_withDefaultDiskCacheFactory_doesNotBuildDiskCache() {
+    GlideExecutor diskCacheExecutor = mock(GlideExecutor.class);
+
+    newEngine(mock(DiskCache.Factory.class), diskCacheExecutor);
+
+    verify(diskCacheExecutor, never()).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void constructor_withDiskCacheOpenedInBackground_buildsDiskCache() {
+    GlideExecutor diskCacheExecutor = mock(GlideExecutor.class);
+    DiskLruCacheFactory diskCacheFactory = mock(DiskLruCacheFactory.class);
+    when(diskCacheFactory.isOpenInBackground()).thenReturn(true);
+
+    newEngine(diskCacheFactory, diskCacheExecutor);
+
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(diskCacheExecutor).execute(captor.capture());
+    captor.getValue().run();
+    verify(diskCacheFactory).build();
+  }
+
+  private static Engine newEngine(
+      DiskCache.Factory diskCacheFactory, GlideExecutor diskCacheExecutor) {
+    return new Engine(
+        mock(MemoryCache.class),
+        diskCacheFactory,
+        diskCacheExecutor,
+        MockGlideExecutor.newMainThreadExecutor(),
+        MockGlideExecutor.newMainThreadExecutor(),
+        MockGlideExecutor.newMainThreadExecutor(),
+        /* isActiveResourceRetentionAllowed= */ true);
+  }
+
   @SuppressWarnings({"unchecked", "rawtypes"})
   private static DecodeJob anyDecodeJobOrNull() {
     return any();
@@ -688,7 +725,19 @@ public class EngineTest {
               eq(Object.class),
               eq(options)))
           .thenReturn(cacheKey);
+      when(keyFactory.obtainProbeKey(
+              eq(model),
+              eq(signature),
+              anyInt(),
+              anyInt(),
+              eq(transformations),
+              eq(Object.class),
+              eq(Object.class),
+              eq(options)))
+          .thenReturn(cacheKey);
+      when(cacheKey.copy()).thenReturn(cacheKey);
       when(resource.getResource()).thenReturn(mock(Resource.class));
+      when(resource.getKey()).thenReturn(cacheKey);
 
       job = mock(EngineJob.class);
     }
@@ -741,7 +790,11 @@ public class EngineTest {
                 engineJobFactory,
                 decodeJobFactory,
                 resourceRecycler,
-                /* isActiveResourceRetentionAllowed= */ true);
+                /* isActiveResourceRetentionAllowed= */ true,
+                /* isLockStripingEnabled= */ false,
+                /* isSizeVariantReuseEnabled= */ false,
+                /* bitmapPool= */ null,
+                /* sourceFetchExecutor= */ null);
       }
       return engine;
     }
@@ -0,0 +1,306 @@
+package com.bumptech.glide.load.engine;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bumptech.glide.GlideEventListener;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.EncodeStrategy;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.data.DataFetcher.DataCallback;
+import com.bumptech.glide.load.engine.DataFetcherGenerator.FetcherReadyCallback;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoader.LoadData;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class RacingGeneratorTest {
+  // Reads cached data, but never writes it, so source data is passed on directly.
+  private static final DiskCacheStrategy READ_DATA_ONLY =
+      new DiskCacheStrategy() {
+        @Override
+        public boolean isDataCacheable(DataSource dataSource) {
+          return false;
+        }
+
+        @Override
+        public boolean isResourceCacheable(
+            boolean isFromAlternateCacheKey, DataSource dataSource, EncodeStrategy encodeStrategy) {
+          return false;
+        }
+
+        @Override
+        public boolean decodeCachedResource() {
+          return false;
+        }
+
+        @Override
+        public boolean decodeCachedData() {
+          return true;
+        }
+      };
+
+  @Mock private DecodeHelper<Object> helper;
+  @Mock private FetcherReadyCallback cb;
+  @Mock private GlideEventListener eventListener;
+  @Mock private GlideExecutor sourceFetchExecutor;
+  @Mock private DiskCache diskCache;
+  @Mock private ModelLoader<File, Object> cacheModelLoader;
+  @Mock private DataFetcher<Object> cacheFetcher;
+  @Mock private DataFetcher<Object> sourceFetcher;
+  @Captor private ArgumentCaptor<DataCallback<Object>> callbackCaptor;
+
+  private final Object model = new Object();
+  private final Object cacheData = new Object();
+  private final Object sourceData = new Object();
+  private final Key sourceKey = new ObjectKey("source");
+  private final File cacheFile = new File("cache");
+  private final List<Runnable> pendingSourceLoads = new ArrayList<>();
+  private RacingGenerator generator;
+
+  @Before
+  public void setUp() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    when(helper.getDiskCacheStrategy()).thenReturn(READ_DATA_ONLY);
+    when(helper.getCacheKeys()).thenReturn(Collections.singletonList(sourceKey));
+    when(helper.getSignature()).thenReturn(new ObjectKey("signature"));
+    when(helper.getDiskCache()).thenReturn(diskCache);
+    when(helper.getPriority()).thenReturn(Priority.NORMAL);
+    when(helper.getOptions()).thenReturn(new Options());
+    when(helper.hasLoadPath(any(Class.class))).thenReturn(true);
+    when(helper.getModelLoaders(cacheFile))
+        .thenReturn(Collections.<ModelLoader<File, ?>>singletonList(cacheModelLoader));
+    when(helper.getLoadData())
+        .thenReturn(
+            Collections.<LoadData<?>>singletonList(new LoadData<>(sourceKey, sourceFetcher)));
+
+    when(cacheModelLoader.buildLoadData(eq(cacheFile), anyInt(), anyInt(), any(Options.class)))
+        .thenReturn(new LoadData<>(sourceKey, cacheFetcher));
+    when(cacheFetcher.getDataClass()).thenReturn(Object.class);
+    when(cacheFetcher.getDataSource()).thenReturn(DataSource.LOCAL);
+    when(sourceFetcher.getDataClass()).thenReturn(Object.class);
+    when(sourceFetcher.getDataSource()).thenReturn(DataSource.REMOTE);
+
+    doAnswer(
+            new Answer<Void>() {
+              @Override
+              public Void answer(InvocationOnMock invocation) {
+                pendingSourceLoads.add(invocation.<Runnable>getArgument(0));
+                return null;
+              }
+            })
+        .when(sourceFetchExecutor)
+        .execute(any(Runnable.class));
+    when(sourceFetchExecutor.remove(any(Runnable.class)))
+        .thenAnswer(
+            new Answer<Boolean>() {
+              @Override
+              public Boolean answer(InvocationOnMock invocation) {
+                return pendingSourceLoads.remove(invocation.<Runnable>getArgument(0));
+              }
+            });
+
+    generator =
+        new RacingGenerator(
+            helper, cb, sourceFetchExecutor, /* order= */ 0, model, eventListener);
+  }
+
+  @Test
+  public void startNext_withDiskCacheHit_abandonsInFlightSourceFetch() {
+    when(diskCache.get(any(Key.class))).thenReturn(cacheFile);
+
+    assertThat(generator.startNext()).isTrue();
+    runPendingSourceLoads();
+    DataCallback<Object> sourceCallback = captureCallback(sourceFetcher);
+    captureCallback(cacheFetcher).onDataReady(cacheData);
+
+    verify(sourceFetcher).cancel();
+    verify(cb)
+        .onDataFetcherReady(
+            any(),
+            eq(cacheData),
+            eq(cacheFetcher),
+            eq(DataSource.DATA_DISK_CACHE),
+            any(),
+            isNull());
+
+    sourceCallback.onDataReady(sourceData);
+
+    verify(sourceFetcher).cleanup();
+    verify(cb, never()).onDataFetcherReady(any(), eq(sourceData), any(), any(), any(), any());
+    verify(eventListener).onDiskCacheRaceFinished(model, /* isDiskCacheWinner= */ true);
+  }
+
+  @Test
+  public void startNext_withDiskCacheHitBeforeSourceStarts_neverStartsSourceFetch() {
+    when(diskCache.get(any(Key.class))).thenReturn(cacheFile);
+
+    generator.startNext();
+    captureCallback(cacheFetcher).onDataReady(cacheData);
+    runPendingSourceLoads();
+
+    verify(sourceFetcher, never()).loadData(any(Priority.class), any(DataCallback.class));
+  }
+
+  @Test
+  public void startNext_withDiskCacheMiss_passesOnSourceData() {
+    assertThat(generator.startNext()).isTrue();
+    verify(cb, never()).onDataFetcherReady(any(), any(), any(), any(), any(), any());
+
+    runPendingSourceLoads();
+    captureCallback(sourceFetcher).onDataReady(sourceData);
+
+    verify(cb)
+        .onDataFetcherReady(
+            any(), eq(sourceData), eq(sourceFetcher), eq(DataSource.REMOTE), any(), isNull());
+    verify(eventListener).onDiskCacheRaceFinished(model, /* isDiskCacheWinner= */ false);
+  }
+
+  @Test
+  public void startNext_withSourceFinishedBeforeDiskCacheMiss_passesOnSourceData() {
+    doAnswer(
+            new Answer<Void>() {
+              @Override
+              public Void answer(InvocationOnMock invocation) {
+                DataCallback<Object> callback = invocation.getArgument(1);
+                callback.onDataReady(sourceData);
+                return null;
+              }
+            })
+        .when(sourceFetcher)
+        .loadData(any(Priority.class), any(DataCallback.class));
+    when(diskCache.get(any(Key.class)))
+        .thenAnswer(
+            new Answer<File>() {
+              @Override
+              public File answer(InvocationOnMock invocation) {
+                // The source load finishes while the disk cache lookup is in progress.
+                runPendingSourceLoads();
+                return null;
+              }
+            });
+
+    assertThat(generator.startNext()).isTrue();
+
+    verify(cb)
+        .onDataFetcherReady(
+            any(), eq(sourceData), eq(sourceFetcher), eq(DataSource.REMOTE), any(), isNull());
+    verify(eventListener).onDiskCacheRaceFinished(model, /* isDiskCacheWinner= */ false);
+  }
+
+  @Test
+  public void startNext_afterCachedDataFailsToDecode_fallsBackToSource() {
+    when(diskCache.get(any(Key.class))).thenReturn(cacheFile);
+    generator.startNext();
+    captureCallback(cacheFetcher).onDataReady(cacheData);
+
+    // The job couldn't decode the cached data, so it asks for the next fetcher.
+    assertThat(generator.startNext()).isTrue();
+    verify(cb).reschedule();
+    runPendingSourceLoads();
+    verify(sourceFetcher, never()).loadData(any(Priority.class), any(DataCallback.class));
+
+    assertThat(generator.startNext()).isTrue();
+    captureCallback(sourceFetcher).onDataReady(sourceData);
+
+    verify(cb)
+        .onDataFetcherReady(
+            any(), eq(sourceData), eq(sourceFetcher), eq(DataSource.REMOTE), any(), isNull());
+  }
+
+  @Test
+  public void cancel_duringRace_cancelsAndCleansUpEachFetcherOnce() {
+    when(diskCache.get(any(Key.class))).thenReturn(cacheFile);
+    generator.startNext();
+    runPendingSourceLoads();
+    DataCallback<Object> sourceCallback = captureCallback(sourceFetcher);
+
+    generator.cancel();
+    sourceCallback.onDataReady(sourceData);
+
+    verify(cacheFetcher).cancel();
+    verify(sourceFetcher).cancel();
+    verify(sourceFetcher).cleanup();
+    verify(cb, never()).onDataFetcherReady(any(), eq(sourceData), any(), any(), any(), any());
+    verify(eventListener, never()).onDiskCacheRaceFinished(any(), anyBoolean());
+  }
+
+  @Test
+  public void onDataFetcherReady_afterSourceWon_reportsWinnerOnce() {
+    generator.startNext();
+    runPendingSourceLoads();
+    captureCallback(sourceFetcher).onDataReady(sourceData);
+
+    // The source generator has taken over, so more results don't start a new race.
+    generator.onDataFetcherReady(
+        sourceKey, cacheData, cacheFetcher, DataSource.DATA_DISK_CACHE, sourceKey);
+
+    verify(eventListener).onDiskCacheRaceFinished(model, /* isDiskCacheWinner= */ false);
+    verify(eventListener, never()).onDiskCacheRaceFinished(model, /* isDiskCacheWinner= */ true);
+  }
+
+  @Test
+  public void setPriority_beforeSourceLoadStarts_requeuesSourceLoadWithNewPriority() {
+    generator.startNext();
+
+    generator.setPriority(Priority.HIGH);
+
+    assertThat(pendingSourceLoads).hasSize(1);
+    assertThat(((PrioritizedRunnable) pendingSourceLoads.get(0)).getPriority())
+        .isEqualTo(Priority.HIGH);
+  }
+
+  @Test
+  public void setPriority_afterSourceLoadStarts_doesNotRequeueSourceLoad() {
+    generator.startNext();
+    runPendingSourceLoads();
+
+    generator.setPriority(Priority.HIGH);
+
+    assertThat(pendingSourceLoads).isEmpty();
+    verify(sourceFetchExecutor, never()).remove(any(Runnable.class));
+  }
+
+  private DataCallback<Object> captureCallback(DataFetcher<Object> fetcher) {
+    verify(fetcher).loadData(eq(Priority.NORMAL), callbackCaptor.capture());
+    return callbackCaptor.getValue();
+  }
+
+  private void runPendingSourceLoads() {
+    List<Runnable> toRun = new ArrayList<>(pendingSourceLoads);
+    pendingSourceLoads.clear();
+    for (Runnable runnable : toRun) {
+      runnable.run();
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package com.bumptech.glide.load.engine;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+
+import android.graphics.Bitmap;
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
+import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
+import com.bumptech.glide.signature.EmptySignature;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class SizeVariantIndexTest {
+  private final SizeVariantIndex index = new SizeVariantIndex();
+
+  @Test
+  public void findLarger_withNoVariants_returnsEmptyList() {
+    assertThat(index.findLarger(newKey("model", 100, 100))).isEmpty();
+  }
+
+  @Test
+  public void findLarger_returnsLargerVariantsSmallestFirst() {
+    EngineKey huge = newKey("model", 1000, 1000);
+    EngineKey large = newKey("model", 500, 500);
+    index.add(huge);
+    index.add(large);
+
+    assertThat(index.findLarger(newKey("model", 100, 100))).containsExactly(large, huge).inOrder();
+  }
+
+  @Test
+  public void findLarger_ignoresVariantsSmallerInEitherDimension() {
+    index.add(newKey("model", 1000, 50));
+    index.add(newKey("model", 50, 1000));
+
+    assertThat(index.findLarger(newKey("model", 100, 100))).isEmpty();
+  }
+
+  @Test
+  public void findLarger_ignoresExactMatch() {
+    index.add(newKey("model", 100, 100));
+
+    assertThat(index.findLarger(newKey("model", 100, 100))).isEmpty();
+  }
+
+  @Test
+  public void findLarger_ignoresVariantsOfOtherModels() {
+    index.add(newKey("other", 1000, 1000));
+
+    assertThat(index.findLarger(newKey("model", 100, 100))).isEmpty();
+  }
+
+  @Test
+  public void findLarger_ignoresVariantsWithOtherOptions() {
+    Options options = new Options().set(DownsampleStrategy.OPTION, DownsampleStrategy.FIT_CENTER);
+    index.add(newKey("model", 1000, 1000, Bitmap.class, options));
+
+    assertThat(index.findLarger(newKey("model", 100, 100))).isEmpty();
+  }
+
+  @Test
+  public void findLarger_afterRemove_doesNotReturnRemovedVariant() {
+    EngineKey large = newKey("model", 1000, 1000);
+    index.add(large);
+    index.remove(large);
+
+    assertThat(index.findLarger(newKey("model", 100, 100))).isEmpty();
+  }
+
+  @Test
+  public void isEligible_withTransformations_returnsFalse() {
+    Map<Class<?>, Transformation<?>> transformations =
+        Collections.<Class<?>, Transformation<?>>singletonMap(
+            Bitmap.class, mock(Transformation.class));
+    EngineKey key =
+        new EngineKey(
+            "model",
+            EmptySignature.obtain(),
+            100,
+            100,
+            transformations,
+            Object.class,
+            Bitmap.class,
+            new Options());
+
+    assertThat(SizeVariantIndex.isEligible(key)).isFalse();
+  }
+
+  @Test
+  public void isEligible_withNonBitmapTranscodeClass_returnsFalse() {
+    assertThat(SizeVariantIndex.isEligible(newKey("model", 100, 100, Object.class, new Options())))
+        .isFalse();
+  }
+
+  @Test
+  public void isEligible_withOriginalSize_returnsFalse() {
+    assertThat(SizeVariantIndex.isEligible(newKey("model", Integer.MIN_VALUE, Integer.MIN_VALUE)))
+        .isFalse();
+  }
+
+  @Test
+  public void scaleDown_withCenterOutside_coversRequestedSize() {
+    Bitmap source = Bitmap.createBitmap(1000, 500, Bitmap.Config.ARGB_8888);
+    Options options =
+        new Options().set(DownsampleStrategy.OPTION, DownsampleStrategy.CENTER_OUTSIDE);
+
+    Bitmap result =
+        SizeVariantIndex.scaleDown(
+            new BitmapPoolAdapter(), source, newKey("model", 100, 100, Bitmap.class, options));
+
+    assertThat(result).isNotNull();
+    assertThat(result.getWidth()).isEqualTo(200);
+    assertThat(result.getHeight()).isEqualTo(100);
+  }
+
+  @Test
+  public void scaleDown_withFitCenter_fitsWithinRequestedSize() {
+    Bitmap source = Bitmap.createBitmap(1000, 500, Bitmap.Config.ARGB_8888);
+    Options options = new Options().set(DownsampleStrategy.OPTION, DownsampleStrategy.FIT_CENTER);
+
+    Bitmap result =
+        SizeVariantIndex.scaleDown(
+            new BitmapPoolAdapter(), source, newKey("model", 100, 100, Bitmap.class, options));
+
+    assertThat(result).isNotNull();
+    assertThat(result.getWidth()).isEqualTo(100);
+    assertThat(result.getHeight()).isEqualTo(50);
+  }
+
+  @Test
+  public void scaleDown_whenSourceIsAlreadySmallEnough_returnsNull() {
+    Bitmap source = Bitmap.createBitmap(50, 50, Bitmap.Config.ARGB_8888);
+    Options options =
+        new Options().set(DownsampleStrategy.OPTION, DownsampleStrategy.CENTER_OUTSIDE);
+
+    assertThat(
+            SizeVariantIndex.scaleDown(
+                new BitmapPoolAdapter(), source, newKey("model", 100, 100, Bitmap.class, options)))
+        .isNull();
+  }
+
+  private static EngineKey newKey(@NonNull Object model, int width, int height) {
+    return newKey(model, width, height, Bitmap.class, new Options());
+  }
+
+  private static EngineKey newKey(
+      @NonNull Object model, int width, int height, Class<?> transcodeClass, Options options) {
+    return new EngineKey(
+        model,
+        EmptySignature.obtain(),
+        width,
+        height,
+        Collections.<Class<?>, Transformation<?>>emptyMap(),
+        Object.class,
+        transcodeClass,
+        options);
+  }
+}
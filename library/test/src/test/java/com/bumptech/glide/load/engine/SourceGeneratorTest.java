@@ -0,0 +1,134 @@
+package com.bumptech.glide.load.engine;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Encoder;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.data.DataFetcher.DataCallback;
+import com.bumptech.glide.load.data.DataRewinder;
+import com.bumptech.glide.load.engine.DataFetcherGenerator.FetcherReadyCallback;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskCacheAdmissionFilter;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoader.LoadData;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.File;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/** Tests for writing source data to a disk cache wrapped by a {@link DiskCacheAdmissionFilter}. */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class SourceGeneratorTest {
+  private static final int MIN_FREQUENCY = 2;
+
+  @Mock private DecodeHelper<Object> helper;
+  @Mock private FetcherReadyCallback cb;
+  @Mock private DiskCache delegate;
+  @Mock private DataFetcher<Object> fetcher;
+  @Mock private DataRewinder<Object> rewinder;
+  @Mock private Encoder<Object> encoder;
+
+  private final Object data = new Object();
+  private final Key sourceKey = new ObjectKey("source");
+  private final ObjectKey signature = new ObjectKey("signature");
+  private final DataCacheKey dataKey = new DataCacheKey(sourceKey, signature);
+  private DiskCacheAdmissionFilter filter;
+  private DiskCache diskCache;
+  private SourceGenerator generator;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    filter = new DiskCacheAdmissionFilter(MIN_FREQUENCY, /* minCostMillis= */ Long.MAX_VALUE);
+    DiskCache.Factory factory = mock(DiskCache.Factory.class);
+    when(factory.build()).thenReturn(delegate);
+    diskCache = filter.wrap(factory).build();
+
+    when(helper.getDiskCacheStrategy()).thenReturn(DiskCacheStrategy.DATA);
+    when(helper.getDiskCache()).thenReturn(diskCache);
+    when(helper.getSignature()).thenReturn(signature);
+    when(helper.getPriority()).thenReturn(Priority.NORMAL);
+    when(helper.getOptions()).thenReturn(new Options());
+    when(helper.getLoadData())
+        .thenReturn(Collections.<LoadData<?>>singletonList(new LoadData<>(sourceKey, fetcher)));
+    when(helper.getRewinder(data)).thenReturn(rewinder);
+    when(helper.getSourceEncoder(data)).thenReturn(encoder);
+    when(rewinder.rewindAndGet()).thenReturn(data);
+
+    when(fetcher.getDataClass()).thenReturn(Object.class);
+    when(fetcher.getDataSource()).thenReturn(DataSource.REMOTE);
+    doAnswer(
+            new Answer<Void>() {
+              @Override
+              public Void answer(InvocationOnMock invocation) {
+                DataCallback<Object> callback = invocation.getArgument(1);
+                callback.onDataReady(data);
+                return null;
+              }
+            })
+        .when(fetcher)
+        .loadData(any(Priority.class), any(DataCallback.class));
+
+    generator = new SourceGenerator(helper, cb);
+  }
+
+  @Test
+  public void startNext_withRejectedWrite_doesNotCountCheckForWrittenDataAsLookup() {
+    loadAndWriteToDiskCache();
+    verify(cb).onDataFetcherReady(sourceKey, data, fetcher, DataSource.REMOTE, sourceKey);
+
+    // The next load of the same data looks it up once, which isn't enough to admit it.
+    diskCache.get(dataKey);
+    diskCache.put(dataKey, mock(DiskCache.Writer.class));
+
+    assertThat(filter.getAdmittedCount()).isEqualTo(0);
+    assertThat(filter.getRejectedCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void startNext_withAdmittedWrite_readsWrittenDataWithoutCountingLookups()
+      throws Exception {
+    File cacheFile = new File("cache");
+    when(delegate.peek(dataKey)).thenReturn(cacheFile);
+    when(helper.getModelLoaders(cacheFile))
+        .thenReturn(Collections.<ModelLoader<File, ?>>emptyList());
+    for (int i = 0; i < MIN_FREQUENCY; i++) {
+      diskCache.get(dataKey);
+    }
+
+    loadAndWriteToDiskCache();
+
+    assertThat(filter.getAdmittedCount()).isEqualTo(1);
+    // Once to check that the write succeeded and once to load the written data.
+    verify(delegate, times(2)).peek(dataKey);
+    verify(delegate, times(MIN_FREQUENCY)).get(dataKey);
+  }
+
+  private void loadAndWriteToDiskCache() {
+    assertThat(generator.startNext()).isTrue();
+    verify(cb).reschedule();
+    // Writes the data to the disk cache on our thread.
+    generator.startNext();
+  }
+}
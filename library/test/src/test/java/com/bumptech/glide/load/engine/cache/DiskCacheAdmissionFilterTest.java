@@ -0,0 +1,161 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.cache.SafeKeyGenerator.HashAlgorithm;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class DiskCacheAdmissionFilterTest {
+  private static final int MIN_FREQUENCY = 2;
+  private static final long MIN_COST_MILLIS = 100;
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final DiskCache delegate = mock(DiskCache.class);
+  private final DiskCache.Factory factory = mock(DiskCache.Factory.class);
+  private final Key key = new ObjectKey("key");
+  private final DiskCache.Writer writer = mock(DiskCache.Writer.class);
+  private DiskCacheAdmissionFilter filter;
+  private DiskCache cache;
+
+  @Before
+  public void setUp() {
+    when(factory.build()).thenReturn(delegate);
+    filter = new DiskCacheAdmissionFilter(MIN_FREQUENCY, MIN_COST_MILLIS);
+    cache = filter.wrap(factory).build();
+  }
+
+  @Test
+  public void put_withKeyLookedUpLessThanMinFrequency_isRejected() {
+    cache.get(key);
+    cache.put(key, writer);
+
+    verify(delegate, never()).put(any(Key.class), any(DiskCache.Writer.class));
+    assertThat(filter.getRejectedCount()).isEqualTo(1);
+    assertThat(filter.getAdmittedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withKeyLookedUpMinFrequencyTimes_isAdmitted() {
+    cache.get(key);
+    cache.get(key);
+    cache.put(key, writer);
+
+    verify(delegate).put(key, writer);
+    assertThat(filter.getAdmittedCount()).isEqualTo(1);
+    assertThat(filter.getRejectedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withExpensiveEntry_isAdmitted() {
+    DiskCacheAdmissionFilter.CostAwareWriter expensiveWriter =
+        mock(DiskCacheAdmissionFilter.CostAwareWriter.class);
+    when(expensiveWriter.getCostMillis()).thenReturn(MIN_COST_MILLIS);
+
+    cache.put(key, expensiveWriter);
+
+    verify(delegate).put(key, expensiveWriter);
+  }
+
+  @Test
+  public void put_withCheapEntry_isRejected() {
+    DiskCacheAdmissionFilter.CostAwareWriter cheapWriter =
+        mock(DiskCacheAdmissionFilter.CostAwareWriter.class);
+    when(cheapWriter.getCostMillis()).thenReturn(MIN_COST_MILLIS - 1);
+
+    cache.put(key, cheapWriter);
+
+    verify(delegate, never()).put(any(Key.class), any(DiskCache.Writer.class));
+  }
+
+  @Test
+  public void put_withDependentWriter_isAdmittedWithoutLookups() {
+    DiskCacheAdmissionFilter.DependentWriter dependentWriter =
+        mock(DiskCacheAdmissionFilter.DependentWriter.class);
+
+    cache.put(key, dependentWriter);
+
+    verify(delegate).put(key, dependentWriter);
+    assertThat(filter.getAdmittedCount()).isEqualTo(0);
+    assertThat(filter.getRejectedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void get_withDiskLruCacheWrapper_countsLookupsWithCacheSafeKeyGenerator()
+      throws IOException {
+    SafeKeyGenerator safeKeyGenerator = new SafeKeyGenerator(HashAlgorithm.MURMUR3_128);
+    DiskLruCacheWrapper diskLruCache =
+        new DiskLruCacheWrapper(
+            temporaryFolder.newFolder(),
+            /* maxSize= */ 1024,
+            /* memoizePathNames= */ false,
+            safeKeyGenerator,
+            /* useBinaryJournal= */ false,
+            /* useGroupCommit= */ false);
+    DiskCache filtered = new AdmissionFilteringDiskCache(diskLruCache, filter);
+
+    filtered.get(key);
+    filtered.get(key);
+
+    assertThat(filter.admit(safeKeyGenerator, key, /* costMillis= */ 0)).isTrue();
+  }
+
+  @Test
+  public void get_returnsDelegateResult() {
+    File file = new File("fake");
+    when(delegate.get(key)).thenReturn(file);
+
+    assertThat(cache.get(key)).isEqualTo(file);
+  }
+
+  @Test
+  public void peek_returnsDelegateResultWithoutCountingLookup() {
+    File file = new File("fake");
+    when(delegate.peek(key)).thenReturn(file);
+
+    assertThat(cache.peek(key)).isEqualTo(file);
+    cache.get(key);
+    cache.put(key, writer);
+
+    verify(delegate, never()).put(any(Key.class), any(DiskCache.Writer.class));
+  }
+
+  @Test
+  public void deleteAndClear_areNotFiltered() {
+    cache.delete(key);
+    cache.clear();
+
+    verify(delegate).delete(key);
+    verify(delegate).clear();
+  }
+
+  @Test
+  public void wrap_withFactoryReturningNull_returnsNull() {
+    when(factory.build()).thenReturn(null);
+
+    assertThat(filter.wrap(factory).build()).isNull();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withMinFrequencyAboveMax_throws() {
+    new DiskCacheAdmissionFilter(DiskCacheAdmissionFilter.MAX_MIN_FREQUENCY + 1, MIN_COST_MILLIS);
+  }
+}
@@ -0,0 +1,122 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DiskCacheWriteLockerTest {
+  private static final int THREAD_COUNT = 8;
+  private static final int KEY_COUNT = 16;
+  private static final int ACQUIRES_PER_THREAD = 20_000;
+
+  private final DiskCacheWriteLocker locker = new DiskCacheWriteLocker();
+
+  @Test
+  public void acquire_fromManyThreads_neverAllowsTwoWritersForOneKey()
+      throws InterruptedException {
+    final String[] keys = new String[KEY_COUNT];
+    final AtomicInteger[] writers = new AtomicInteger[KEY_COUNT];
+    // Incremented without synchronization so that lost updates reveal a broken lock.
+    final int[] writes = new int[KEY_COUNT];
+    for (int i = 0; i < KEY_COUNT; i++) {
+      keys[i] = "key" + i;
+      writers[i] = new AtomicInteger();
+    }
+
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < THREAD_COUNT; t++) {
+      final int seed = t;
+      Thread thread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  try {
+                    start.await();
+                    for (int i = 0; i < ACQUIRES_PER_THREAD; i++) {
+                      int index = (i * 7 + seed) % KEY_COUNT;
+                      locker.acquire(keys[index]);
+                      try {
+                        if (writers[index].incrementAndGet() != 1) {
+                          throw new AssertionError("Two writers for: " + keys[index]);
+                        }
+                        writes[index]++;
+                        writers[index].decrementAndGet();
+                      } finally {
+                        locker.release(keys[index]);
+                      }
+                    }
+                  } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                  }
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join(TimeUnit.SECONDS.toMillis(30));
+      assertThat(thread.isAlive()).isFalse();
+    }
+
+    assertThat(failure.get()).isNull();
+    int totalWrites = 0;
+    for (int count : writes) {
+      totalWrites += count;
+    }
+    assertThat(totalWrites).isEqualTo(THREAD_COUNT * ACQUIRES_PER_THREAD);
+  }
+
+  @Test
+  public void acquire_withKeysInSameStripe_onSameThread_doesNotDeadlock() {
+    DiskCacheWriteLocker singleStripeLocker = new DiskCacheWriteLocker(1);
+
+    singleStripeLocker.acquire("first");
+    singleStripeLocker.acquire("second");
+    singleStripeLocker.release("second");
+    singleStripeLocker.release("first");
+  }
+
+  @Test
+  public void acquire_afterRelease_onOtherThread_succeeds() throws InterruptedException {
+    locker.acquire("key");
+    locker.release("key");
+
+    final CountDownLatch acquired = new CountDownLatch(1);
+    new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                locker.acquire("key");
+                locker.release("key");
+                acquired.countDown();
+              }
+            })
+        .start();
+
+    assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void release_withoutAcquire_throws() {
+    locker.release("key");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withStripeCountNotPowerOfTwo_throws() {
+    new DiskCacheWriteLocker(3);
+  }
+}
@@ -171,4 +171,60 @@ public class DiskLruCacheWrapperTest {
 
     cache.get(mock(Key.class));
   }
+
+  @Test
+  public void get_afterOpenInBackground_returnsEntryWrittenBeforeOpen() throws IOException {
+    File cacheDir = new File(dir, "open_in_background");
+    newWrapper(cacheDir).put(key, new DataWriter());
+
+    DiskLruCacheWrapper reopened = newWrapper(cacheDir);
+    reopened.openInBackground(DiskLruCacheWrapper.newOpenExecutor(/* cacheCount= */ 1));
+
+    byte[] received = Util.readFile(reopened.get(key), data.length);
+    assertArrayEquals(data, received);
+    // Waits for the open to finish.
+    reopened.clear();
+  }
+
+  @Test
+  public void get_afterOpenInBackground_withMissingEntry_returnsNull() {
+    DiskLruCacheWrapper wrapper = newWrapper(new File(dir, "open_in_background"));
+    wrapper.openInBackground(DiskLruCacheWrapper.newOpenExecutor(/* cacheCount= */ 1));
+
+    assertNull(wrapper.get(key));
+    // Waits for the open to finish.
+    wrapper.clear();
+  }
+
+  @Test
+  public void put_afterOpenInBackground_canBeRead() throws IOException {
+    DiskLruCacheWrapper wrapper = newWrapper(new File(dir, "open_in_background"));
+    wrapper.openInBackground(DiskLruCacheWrapper.newOpenExecutor(/* cacheCount= */ 1));
+    wrapper.put(key, new DataWriter());
+
+    byte[] received = Util.readFile(wrapper.get(key), data.length);
+    assertArrayEquals(data, received);
+  }
+
+  private static DiskLruCacheWrapper newWrapper(File directory) {
+    return new DiskLruCacheWrapper(
+        directory,
+        1024 * 1024,
+        /* memoizePathNames= */ false,
+        new SafeKeyGenerator(),
+        /* useBinaryJournal= */ false,
+        /* useGroupCommit= */ false);
+  }
+
+  private final class DataWriter implements DiskCache.Writer {
+    @Override
+    public boolean write(@NonNull File file) {
+      try {
+        Util.writeFile(file, data);
+      } catch (IOException e) {
+        fail(e.toString());
+      }
+      return true;
+    }
+  }
 }
@@ -0,0 +1,47 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FrequencySketchTest {
+  private final FrequencySketch sketch = new FrequencySketch(64);
+
+  @Test
+  public void frequency_withUnseenItem_returnsZero() {
+    assertThat(sketch.frequency(42)).isEqualTo(0);
+  }
+
+  @Test
+  public void increment_increasesFrequency() {
+    sketch.increment(42);
+    sketch.increment(42);
+    sketch.increment(42);
+
+    assertThat(sketch.frequency(42)).isAtLeast(3);
+  }
+
+  @Test
+  public void increment_beyondMaxFrequency_saturates() {
+    for (int i = 0; i < 100; i++) {
+      sketch.increment(42);
+    }
+
+    assertThat(sketch.frequency(42)).isEqualTo(FrequencySketch.MAX_FREQUENCY);
+  }
+
+  @Test
+  public void increment_withManyOtherItems_halvesOldFrequencies() {
+    for (int i = 0; i < 100; i++) {
+      sketch.increment(42);
+    }
+    for (int i = 0; i < 10_000; i++) {
+      sketch.increment(i + 1_000);
+    }
+
+    assertThat(sketch.frequency(42)).isLessThan(FrequencySketch.MAX_FREQUENCY);
+  }
+}
@@ -0,0 +1,51 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.hash.Hashing;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class Murmur3MessageDigestTest {
+  private final Murmur3MessageDigest digest = new Murmur3MessageDigest();
+
+  @Test
+  public void digest_withEmptyInput_returnsZeroes() {
+    assertThat(digest.digest()).isEqualTo(new byte[Murmur3MessageDigest.DIGEST_LENGTH]);
+  }
+
+  @Test
+  public void digest_matchesReferenceImplementation() {
+    Random random = new Random(0);
+    for (int length = 0; length < 100; length++) {
+      byte[] input = new byte[length];
+      random.nextBytes(input);
+
+      assertThat(digest.digest(input)).isEqualTo(Hashing.murmur3_128().hashBytes(input).asBytes());
+    }
+  }
+
+  @Test
+  public void digest_withInputSplitAcrossUpdates_matchesSingleUpdate() {
+    Random random = new Random(0);
+    byte[] input = new byte[100];
+    random.nextBytes(input);
+    byte[] expected = digest.digest(input);
+
+    int offset = 0;
+    while (offset < input.length) {
+      int length = Math.min(input.length - offset, random.nextInt(20));
+      if (length == 1) {
+        digest.update(input[offset]);
+      } else {
+        digest.update(input, offset, length);
+      }
+      offset += length;
+    }
+
+    assertThat(digest.digest()).isEqualTo(expected);
+  }
+}
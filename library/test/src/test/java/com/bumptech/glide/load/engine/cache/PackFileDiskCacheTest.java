@@ -0,0 +1,253 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class PackFileDiskCacheTest {
+  private static final long SEGMENT_SIZE = 1024;
+  private static final long MAX_SIZE = 4 * SEGMENT_SIZE;
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+  private File dir;
+  private PackFileDiskCache cache;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = temporaryFolder.newFolder("pack_file_disk_cache");
+    cache = newCache(/* largeEntryCache= */ null);
+  }
+
+  @After
+  public void tearDown() {
+    cache.clear();
+  }
+
+  @Test
+  public void get_afterPut_returnsData() throws IOException {
+    put("key", data(100, 1));
+
+    assertData("key", data(100, 1));
+  }
+
+  @Test
+  public void get_withMissingKey_returnsNull() {
+    assertThat(cache.get(new ObjectKey("missing"))).isNull();
+  }
+
+  @Test
+  public void put_withWriterReturningFalse_doesNotStoreEntry() {
+    cache.put(
+        new ObjectKey("key"),
+        new DiskCache.Writer() {
+          @Override
+          public boolean write(@NonNull File file) {
+            try {
+              Util.writeFile(file, data(100, 1));
+            } catch (IOException e) {
+              throw new RuntimeException(e);
+            }
+            return false;
+          }
+        });
+
+    assertThat(cache.get(new ObjectKey("key"))).isNull();
+  }
+
+  @Test
+  public void put_storesEntriesInSingleSegment() throws IOException {
+    put("key1", data(100, 1));
+    put("key2", data(100, 2));
+    put("key3", data(100, 3));
+
+    assertThat(getSegmentFiles()).hasLength(1);
+  }
+
+  @Test
+  public void get_afterReopen_returnsData() throws IOException {
+    put("key1", data(100, 1));
+    put("key2", data(200, 2));
+
+    cache = newCache(/* largeEntryCache= */ null);
+
+    assertData("key1", data(100, 1));
+    assertData("key2", data(200, 2));
+  }
+
+  @Test
+  public void get_afterDeleteAndReopen_returnsNull() throws IOException {
+    put("key1", data(100, 1));
+    put("key2", data(100, 2));
+    cache.delete(new ObjectKey("key1"));
+    assertThat(cache.get(new ObjectKey("key1"))).isNull();
+
+    cache = newCache(/* largeEntryCache= */ null);
+
+    assertThat(cache.get(new ObjectKey("key1"))).isNull();
+    assertData("key2", data(100, 2));
+  }
+
+  @Test
+  public void get_afterReopenWithPartiallyWrittenEntry_returnsEarlierEntries() throws IOException {
+    put("key1", data(100, 1));
+    put("key2", data(100, 2));
+    File segment = getSegmentFiles()[0];
+    RandomAccessFile file = new RandomAccessFile(segment, "rw");
+    try {
+      file.setLength(file.length() - 10);
+    } finally {
+      file.close();
+    }
+
+    cache = newCache(/* largeEntryCache= */ null);
+
+    assertData("key1", data(100, 1));
+    assertThat(cache.get(new ObjectKey("key2"))).isNull();
+    // Entries written after the discarded entry can be read after reopening.
+    put("key3", data(100, 3));
+    cache = newCache(/* largeEntryCache= */ null);
+    assertData("key3", data(100, 3));
+  }
+
+  @Test
+  public void put_exceedingMaxSize_evictsOldestEntries() throws IOException {
+    int count = (int) (MAX_SIZE / 200) * 2;
+    for (int i = 0; i < count; i++) {
+      put("key" + i, data(200, i));
+    }
+
+    assertThat(cache.get(new ObjectKey("key0"))).isNull();
+    assertData("key" + (count - 1), data(200, count - 1));
+    long totalSize = 0;
+    for (File segment : getSegmentFiles()) {
+      totalSize += segment.length();
+    }
+    assertThat(totalSize).isAtMost(MAX_SIZE);
+  }
+
+  @Test
+  public void delete_ofMostEntriesInSegment_compactsSegment() throws Exception {
+    // Fill the first segment and start a second.
+    int count = (int) (SEGMENT_SIZE / 200) + 1;
+    for (int i = 0; i < count; i++) {
+      put("key" + i, data(200, i));
+    }
+    File firstSegment = new File(dir, "pack-0");
+    for (int i = 1; i < count - 1; i++) {
+      cache.delete(new ObjectKey("key" + i));
+    }
+    cache.compactionExecutor.shutdown();
+    cache.compactionExecutor.awaitTermination(5, TimeUnit.SECONDS);
+
+    assertThat(firstSegment.exists()).isFalse();
+    assertData("key0", data(200, 0));
+
+    cache = newCache(/* largeEntryCache= */ null);
+    assertData("key0", data(200, 0));
+    for (int i = 1; i < count - 1; i++) {
+      assertThat(cache.get(new ObjectKey("key" + i))).isNull();
+    }
+  }
+
+  @Test
+  public void put_withLargeEntry_storesEntryInLargeEntryCache() throws IOException {
+    File largeDir = temporaryFolder.newFolder("large");
+    DiskCache largeEntryCache = DiskLruCacheWrapper.create(largeDir, MAX_SIZE);
+    cache = newCache(largeEntryCache);
+
+    put("small", data(100, 1));
+    put("large", data(300, 2));
+
+    assertData("small", data(100, 1));
+    assertData("large", data(300, 2));
+    assertThat(cache.get(new ObjectKey("large")).getParentFile()).isEqualTo(largeDir);
+    largeEntryCache.clear();
+  }
+
+  @Test
+  public void clear_removesEntries() throws IOException {
+    put("key", data(100, 1));
+
+    cache.clear();
+
+    assertThat(cache.get(new ObjectKey("key"))).isNull();
+    assertThat(getSegmentFiles()).hasLength(1);
+  }
+
+  @Test
+  public void clear_beforeCacheIsOpened_removesEntriesWrittenByPreviousCache() throws IOException {
+    put("key1", data(100, 1));
+    put("key2", data(100, 2));
+    cache = newCache(/* largeEntryCache= */ null);
+
+    cache.clear();
+
+    assertThat(cache.get(new ObjectKey("key1"))).isNull();
+    assertThat(cache.get(new ObjectKey("key2"))).isNull();
+  }
+
+  private PackFileDiskCache newCache(DiskCache largeEntryCache) {
+    return new PackFileDiskCache(
+        dir, MAX_SIZE, SEGMENT_SIZE, largeEntryCache, /* largeEntryThreshold= */ 200);
+  }
+
+  private File[] getSegmentFiles() {
+    return dir.listFiles(
+        new FilenameFilter() {
+          @Override
+          public boolean accept(File dir, String name) {
+            return name.startsWith("pack-");
+          }
+        });
+  }
+
+  private void put(String key, final byte[] data) {
+    cache.put(
+        new ObjectKey(key),
+        new DiskCache.Writer() {
+          @Override
+          public boolean write(@NonNull File file) {
+            try {
+              Util.writeFile(file, data);
+            } catch (IOException e) {
+              throw new RuntimeException(e);
+            }
+            return true;
+          }
+        });
+  }
+
+  private void assertData(String key, byte[] expected) throws IOException {
+    Key cacheKey = new ObjectKey(key);
+    File file = cache.get(cacheKey);
+    assertThat(file).isNotNull();
+    assertThat(Util.readFile(file, (int) file.length())).isEqualTo(expected);
+  }
+
+  private static byte[] data(int length, int seed) {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = (byte) (seed + i);
+    }
+    return result;
+  }
+}
@@ -1,6 +1,7 @@
 package com.bumptech.glide.load.engine.cache;
 
 import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import androidx.annotation.NonNull;
@@ -36,6 +37,24 @@ public class SafeKeyGeneratorTest {
     }
   }
 
+  @Test
+  public void getSafeKey_withMurmur3_returnsKeysValidForDiskCache() {
+    keyGenerator = new SafeKeyGenerator(SafeKeyGenerator.HashAlgorithm.MURMUR3_128);
+    final Pattern diskCacheRegex = Pattern.compile("[a-z0-9_-]{32}");
+    for (int i = 0; i < 1000; i++) {
+      String key = getRandomKeyFromGenerator();
+      Matcher matcher = diskCacheRegex.matcher(key);
+      assertTrue(key, matcher.matches());
+    }
+  }
+
+  @Test
+  public void getSafeKey_withMurmur3_isStable() {
+    keyGenerator = new SafeKeyGenerator(SafeKeyGenerator.HashAlgorithm.MURMUR3_128);
+
+    assertEquals("029bbd41b3a7d8cb191dae486a901e5b", keyGenerator.getSafeKey(new MockKey("hello")));
+  }
+
   private String getRandomKeyFromGenerator() {
     return keyGenerator.getSafeKey(new MockKey(getNextId()));
   }
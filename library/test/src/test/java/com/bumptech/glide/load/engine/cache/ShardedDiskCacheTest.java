@@ -0,0 +1,188 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class ShardedDiskCacheTest {
+  private static final int SHARD_COUNT = 4;
+  private static final long MAX_SIZE = 10 * 1024 * 1024;
+  private final byte[] data = new byte[] {1, 2, 3, 4, 5, 6};
+  private File dir;
+  private DiskCache cache;
+
+  @Before
+  public void setUp() {
+    dir = new File(ApplicationProvider.getApplicationContext().getCacheDir(), "sharded");
+    assertThat(dir.isDirectory() || dir.mkdirs()).isTrue();
+    cache = newShardedCache();
+  }
+
+  @After
+  public void tearDown() {
+    try {
+      cache.clear();
+    } finally {
+      deleteRecursive(dir);
+    }
+  }
+
+  @Test
+  public void get_afterPut_returnsData() throws IOException {
+    for (int i = 0; i < 20; i++) {
+      Key key = new ObjectKey("key" + i);
+      put(cache, key);
+
+      assertArrayEquals(data, Util.readFile(cache.get(key), data.length));
+    }
+  }
+
+  @Test
+  public void put_withManyKeys_spreadsKeysAcrossShards() {
+    for (int i = 0; i < 20; i++) {
+      put(cache, new ObjectKey("key" + i));
+    }
+
+    int usedShards = 0;
+    for (int i = 0; i < SHARD_COUNT; i++) {
+      if (new File(dir, "shard-" + i).isDirectory()) {
+        usedShards++;
+      }
+    }
+    assertThat(usedShards).isGreaterThan(1);
+  }
+
+  @Test
+  public void get_fromNewCacheInSameDirectory_returnsData() throws IOException {
+    Key key = new ObjectKey("key");
+    put(cache, key);
+
+    DiskCache reopened = newShardedCache();
+
+    assertArrayEquals(data, Util.readFile(reopened.get(key), data.length));
+  }
+
+  @Test
+  public void delete_removesOnlyGivenKey() {
+    Key first = new ObjectKey("first");
+    Key second = new ObjectKey("second");
+    put(cache, first);
+    put(cache, second);
+
+    cache.delete(first);
+
+    assertThat(cache.get(first)).isNull();
+    assertThat(cache.get(second)).isNotNull();
+  }
+
+  @Test
+  public void clear_removesKeysFromAllShards() {
+    for (int i = 0; i < 20; i++) {
+      put(cache, new ObjectKey("key" + i));
+    }
+
+    cache.clear();
+
+    for (int i = 0; i < 20; i++) {
+      assertThat(cache.get(new ObjectKey("key" + i))).isNull();
+    }
+  }
+
+  @Test
+  public void create_withUnshardedCacheInDirectory_removesUnshardedCacheOnly() throws IOException {
+    DiskCache unsharded = DiskLruCacheWrapper.create(dir, MAX_SIZE);
+    put(unsharded, new ObjectKey("unsharded"));
+    File unrelated = new File(dir, "unrelated");
+    Util.writeFile(unrelated, data);
+    int filesBefore = dir.listFiles().length;
+
+    newShardedCache();
+
+    assertThat(new File(dir, "journal").exists()).isFalse();
+    assertThat(unrelated.exists()).isTrue();
+    assertThat(dir.listFiles()).hasLength(filesBefore - 2);
+  }
+
+  @Test
+  public void build_withMultipleShards_returnsShardedCache() {
+    DiskLruCacheFactory factory = newFactory(SHARD_COUNT);
+
+    assertThat(factory.build()).isInstanceOf(ShardedDiskCache.class);
+  }
+
+  @Test
+  public void build_withSingleShard_returnsUnshardedCache() {
+    DiskLruCacheFactory factory = newFactory(/* shardCount= */ 1);
+
+    assertThat(factory.build()).isInstanceOf(DiskLruCacheWrapper.class);
+  }
+
+  private DiskCache newShardedCache() {
+    return ShardedDiskCache.create(
+        dir,
+        MAX_SIZE,
+        SHARD_COUNT,
+        /* useBinaryJournal= */ false,
+        /* useGroupCommit= */ false,
+        SafeKeyGenerator.HashAlgorithm.SHA_256);
+  }
+
+  private DiskLruCacheFactory newFactory(int shardCount) {
+    return new DiskLruCacheFactory(
+        new DiskLruCacheFactory.CacheDirectoryGetter() {
+          @Override
+          public File getCacheDirectory() {
+            return dir;
+          }
+        },
+        MAX_SIZE,
+        shardCount);
+  }
+
+  private void put(DiskCache cache, Key key) {
+    cache.put(
+        key,
+        new DiskCache.Writer() {
+          @Override
+          public boolean write(@NonNull File file) {
+            try {
+              Util.writeFile(file, data);
+            } catch (IOException e) {
+              fail(e.toString());
+            }
+            return true;
+          }
+        });
+  }
+
+  private static void deleteRecursive(File file) {
+    if (file.isDirectory()) {
+      File[] files = file.listFiles();
+      if (files != null) {
+        for (File f : files) {
+          deleteRecursive(f);
+        }
+      }
+    }
+    if (!file.delete() && file.exists()) {
+      throw new RuntimeException("Failed to delete: " + file);
+    }
+  }
+}
@@ -0,0 +1,297 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.bumptech.glide.load.engine.cache.MemoryCache.ResourceRemovedListener;
+import static com.bumptech.glide.tests.Util.mockResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentCallbacks2;
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import java.security.MessageDigest;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TinyLfuResourceCacheTest {
+  private final ResourceRemovedListener listener = mock(ResourceRemovedListener.class);
+  private TinyLfuResourceCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new TinyLfuResourceCache(100);
+    cache.setResourceRemovedListener(listener);
+  }
+
+  @Test
+  public void put_thenRemove_returnsResourceAndUpdatesSize() {
+    Key key = new IdKey(1);
+    Resource<?> resource = getResource(30);
+    cache.put(key, resource);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(30);
+    assertThat(cache.remove(key)).isEqualTo(resource);
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+    assertThat(cache.contains(key)).isFalse();
+    verify(listener, never()).onResourceRemoved(resource);
+  }
+
+  @Test
+  public void remove_withMissingKey_returnsNull() {
+    assertThat(cache.remove(new IdKey(1))).isNull();
+  }
+
+  @Test
+  public void put_withExistingItem_updatesSizeAndEvictsExistingItem() {
+    Key key = new IdKey(1);
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(40);
+    cache.put(key, first);
+
+    assertThat(cache.put(key, second)).isEqualTo(first);
+    assertThat(cache.getCurrentSize()).isEqualTo(40);
+    verify(listener).onResourceRemoved(first);
+    verify(listener, never()).onResourceRemoved(second);
+  }
+
+  @Test
+  public void put_withNullResource_removesExistingItem() {
+    Key key = new IdKey(1);
+    Resource<?> resource = getResource(50);
+    cache.put(key, resource);
+
+    cache.put(key, null);
+
+    assertThat(cache.contains(key)).isFalse();
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+    verify(listener).onResourceRemoved(resource);
+  }
+
+  @Test
+  public void put_withResourceLargerThanCache_notifiesListenerAndDoesNotAdd() {
+    Key key = new IdKey(1);
+    Resource<?> resource = getResource(200);
+
+    cache.put(key, resource);
+
+    verify(listener).onResourceRemoved(resource);
+    assertThat(cache.contains(key)).isFalse();
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_whenFull_neverExceedsMaxSize() {
+    for (int i = 0; i < 50; i++) {
+      cache.put(new IdKey(i), getResource(30));
+      assertThat(cache.getCurrentSize()).isAtMost(100);
+    }
+  }
+
+  @Test
+  public void put_whenFull_keepsFrequentlyRequestedItemOverItemsRequestedOnce() {
+    Key hot = new IdKey(-1);
+    cache.put(hot, getResource(10));
+    for (int i = 0; i < 5; i++) {
+      cache.put(hot, cache.remove(hot));
+    }
+
+    for (int i = 0; i < 100; i++) {
+      cache.put(new IdKey(i), getResource(10));
+    }
+
+    assertThat(cache.contains(hot)).isTrue();
+  }
+
+  @Test
+  public void setSizeMultiplier_evictsUntilUnderNewSize() {
+    for (int i = 0; i < 4; i++) {
+      cache.put(new IdKey(i), getResource(25));
+    }
+
+    cache.setSizeMultiplier(0.5f);
+
+    assertThat(cache.getMaxSize()).isEqualTo(50);
+    assertThat(cache.getCurrentSize()).isAtMost(50);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setSizeMultiplier_withNegativeMultiplier_throws() {
+    cache.setSizeMultiplier(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withWindowFractionOutOfRange_throws() {
+    new TinyLfuResourceCache(100, 1.5f, 16);
+  }
+
+  @Test
+  public void clearMemory_evictsAllItems() {
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(50);
+    cache.put(new IdKey(1), first);
+    cache.put(new IdKey(2), second);
+
+    cache.clearMemory();
+
+    verify(listener).onResourceRemoved(first);
+    verify(listener).onResourceRemoved(second);
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testTrimMemoryBackground() {
+    cache.put(new IdKey(1), getResource(50));
+    cache.put(new IdKey(2), getResource(50));
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testTrimMemoryModerate() {
+    cache.put(new IdKey(1), getResource(50));
+    cache.put(new IdKey(2), getResource(50));
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testTrimMemoryUiHidden() {
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(50);
+    cache.put(new IdKey(1), first);
+    cache.put(new IdKey(2), second);
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    verify(listener).onResourceRemoved(first);
+    verify(listener, never()).onResourceRemoved(second);
+    assertThat(cache.getCurrentSize()).isEqualTo(50);
+  }
+
+  @Test
+  public void testTrimMemoryRunningCritical() {
+    Resource<?> first = getResource(50);
+    Resource<?> second = getResource(50);
+    cache.put(new IdKey(1), first);
+    cache.put(new IdKey(2), second);
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+
+    verify(listener).onResourceRemoved(first);
+    verify(listener, never()).onResourceRemoved(second);
+  }
+
+  @Test
+  public void testTrimMemoryRunningModerate_doesNotEvict() {
+    cache.put(new IdKey(1), getResource(50));
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+
+    verify(listener, never()).onResourceRemoved(any());
+  }
+
+  /**
+   * Replays a trace where a small set of resources is requested repeatedly while the user scrolls
+   * through a long list of resources that are each requested once, which is the case this cache is
+   * designed for.
+   */
+  @Test
+  public void hitRatio_withHotSetAndOneShotScan_isHigherThanLruResourceCache() {
+    double lruHitRatio = replayTrace(new LruResourceCache(300));
+    double tinyLfuHitRatio = replayTrace(new TinyLfuResourceCache(300));
+
+    assertThat(tinyLfuHitRatio).isGreaterThan(lruHitRatio);
+  }
+
+  private static double replayTrace(MemoryCache memoryCache) {
+    Random random = new Random(1);
+    int nextOneShotId = 1000;
+    int hits = 0;
+    int requests = 20_000;
+    for (int i = 0; i < requests; i++) {
+      int id = random.nextFloat() < 0.3f ? random.nextInt(20) : nextOneShotId++;
+      Key key = new IdKey(id);
+      // Glide removes resources from the memory cache while they're in use and puts them back
+      // when they're released.
+      Resource<?> resource = memoryCache.remove(key);
+      if (resource != null) {
+        hits++;
+      } else {
+        resource = new SizedResource(10);
+      }
+      memoryCache.put(key, resource);
+    }
+    return hits / (double) requests;
+  }
+
+  private static Resource<?> getResource(int size) {
+    Resource<?> resource = mockResource();
+    when(resource.getSize()).thenReturn(size);
+    return resource;
+  }
+
+  private static final class IdKey implements Key {
+    private final int id;
+
+    IdKey(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof IdKey && ((IdKey) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      messageDigest.update(String.valueOf(id).getBytes(CHARSET));
+    }
+  }
+
+  private static final class SizedResource implements Resource<Object> {
+    private final int size;
+
+    SizedResource(int size) {
+      this.size = size;
+    }
+
+    @NonNull
+    @Override
+    public Class<Object> getResourceClass() {
+      return Object.class;
+    }
+
+    @NonNull
+    @Override
+    public Object get() {
+      return this;
+    }
+
+    @Override
+    public int getSize() {
+      return size;
+    }
+
+    @Override
+    public void recycle() {
+      // Do nothing.
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.bumptech.glide.load.engine.executor;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.function.ThrowingRunnable;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AdaptiveThreadCountControllerTest {
+  private static final long RUN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long BLOCKED_CPU_NANOS = RUN_NANOS / 4;
+  private static final long QUEUED_NANOS = RUN_NANOS;
+  private static final int CPU_COUNT = 2;
+
+  private final AdaptiveThreadCountController controller =
+      new AdaptiveThreadCountController(
+          /* minThreadCount= */ 1, /* maxThreadCount= */ 8, CPU_COUNT);
+  private long nowNanos;
+
+  @Test
+  public void getThreadCount_initially_returnsCpuCount() {
+    assertThat(controller.getThreadCount()).isEqualTo(CPU_COUNT);
+  }
+
+  @Test
+  public void getThreadCount_initially_isWithinBounds() {
+    AdaptiveThreadCountController controller =
+        new AdaptiveThreadCountController(
+            /* minThreadCount= */ 1, /* maxThreadCount= */ 2, /* cpuCount= */ 8);
+
+    assertThat(controller.getThreadCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void onTaskFinished_withQueuedBlockedTasksAndRisingThroughput_addsThreadPerWindow() {
+    assertThat(runWindow(/* stepMillis= */ 100, QUEUED_NANOS, BLOCKED_CPU_NANOS)).isEqualTo(3);
+    assertThat(runWindow(/* stepMillis= */ 50, QUEUED_NANOS, BLOCKED_CPU_NANOS)).isEqualTo(4);
+    assertThat(runWindow(/* stepMillis= */ 25, QUEUED_NANOS, BLOCKED_CPU_NANOS)).isEqualTo(5);
+  }
+
+  @Test
+  public void onTaskFinished_beforeWindowIsComplete_doesNotChangeThreadCount() {
+    for (int i = 0; i < AdaptiveThreadCountController.WINDOW_SIZE - 1; i++) {
+      nowNanos += RUN_NANOS;
+      controller.onTaskFinished(nowNanos, QUEUED_NANOS, RUN_NANOS, BLOCKED_CPU_NANOS);
+    }
+
+    assertThat(controller.getThreadCount()).isEqualTo(CPU_COUNT);
+  }
+
+  @Test
+  public void onTaskFinished_withoutQueueing_doesNotAddThreads() {
+    assertThat(runWindow(/* stepMillis= */ 100, /* queueWaitNanos= */ 0, BLOCKED_CPU_NANOS))
+        .isEqualTo(CPU_COUNT);
+  }
+
+  @Test
+  public void onTaskFinished_withoutCpuTime_doesNotAddThreads() {
+    assertThat(runWindow(/* stepMillis= */ 100, QUEUED_NANOS, /* cpuNanos= */ -1))
+        .isEqualTo(CPU_COUNT);
+  }
+
+  @Test
+  public void onTaskFinished_withCpuBoundTasks_removesThreadsUntilCpuCount() {
+    runWindow(/* stepMillis= */ 100, QUEUED_NANOS, BLOCKED_CPU_NANOS);
+    runWindow(/* stepMillis= */ 50, QUEUED_NANOS, BLOCKED_CPU_NANOS);
+    assertThat(controller.getThreadCount()).isEqualTo(4);
+
+    assertThat(runWindow(/* stepMillis= */ 50, /* queueWaitNanos= */ 0, RUN_NANOS)).isEqualTo(3);
+    assertThat(runWindow(/* stepMillis= */ 50, /* queueWaitNanos= */ 0, RUN_NANOS)).isEqualTo(2);
+    assertThat(runWindow(/* stepMillis= */ 50, /* queueWaitNanos= */ 0, RUN_NANOS)).isEqualTo(2);
+  }
+
+  @Test
+  public void onTaskFinished_whenAddedThreadDoesNotIncreaseThroughput_removesThread() {
+    runWindow(/* stepMillis= */ 100, QUEUED_NANOS, BLOCKED_CPU_NANOS);
+
+    assertThat(runWindow(/* stepMillis= */ 100, QUEUED_NANOS, BLOCKED_CPU_NANOS))
+        .isEqualTo(CPU_COUNT);
+    assertThat(controller.getStats().getIdealThreadCount()).isEqualTo(CPU_COUNT);
+  }
+
+  @Test
+  public void onTaskFinished_afterRemovingThread_waitsBeforeAddingThreadAgain() {
+    runWindow(/* stepMillis= */ 100, QUEUED_NANOS, BLOCKED_CPU_NANOS);
+    runWindow(/* stepMillis= */ 100, QUEUED_NANOS, BLOCKED_CPU_NANOS);
+
+    for (int i = 0; i < AdaptiveThreadCountController.PROBE_INTERVAL_WINDOWS - 1; i++) {
+      assertThat(runWindow(/* stepMillis= */ 100, QUEUED_NANOS, BLOCKED_CPU_NANOS))
+          .isEqualTo(CPU_COUNT);
+    }
+    assertThat(runWindow(/* stepMillis= */ 100, QUEUED_NANOS, BLOCKED_CPU_NANOS)).isEqualTo(3);
+  }
+
+  @Test
+  public void onTaskFinished_neverExceedsMaxThreadCount() {
+    AdaptiveThreadCountController controller =
+        new AdaptiveThreadCountController(
+            /* minThreadCount= */ 1, /* maxThreadCount= */ 3, CPU_COUNT);
+    long stepMillis = 100;
+    for (int i = 0; i < 5; i++) {
+      runWindow(controller, stepMillis, QUEUED_NANOS, BLOCKED_CPU_NANOS);
+      stepMillis /= 2;
+    }
+
+    assertThat(controller.getThreadCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void getStats_reflectsLastDecision() {
+    runWindow(/* stepMillis= */ 100, QUEUED_NANOS, BLOCKED_CPU_NANOS);
+
+    GlideExecutor.ThreadCountStats stats = controller.getStats();
+    assertThat(stats.getThreadCount()).isEqualTo(3);
+    assertThat(stats.getIdealThreadCount()).isEqualTo(8);
+    assertThat(stats.getMinThreadCount()).isEqualTo(1);
+    assertThat(stats.getMaxThreadCount()).isEqualTo(8);
+    assertThat(stats.getAdjustmentCount()).isEqualTo(1);
+    assertThat(stats.getMeanQueueWaitNanos()).isEqualTo(QUEUED_NANOS);
+    assertThat(stats.getMeanRunNanos()).isEqualTo(RUN_NANOS);
+    assertThat(stats.getCpuFraction()).isWithin(0.001).of(0.25);
+    assertThat(stats.getThroughput()).isGreaterThan(0d);
+  }
+
+  @Test
+  public void constructor_withInvalidBounds_throws() {
+    assertThrows(
+        IllegalArgumentException.class,
+        new ThrowingRunnable() {
+          @Override
+          public void run() {
+            new AdaptiveThreadCountController(
+                /* minThreadCount= */ 4, /* maxThreadCount= */ 2, CPU_COUNT);
+          }
+        });
+  }
+
+  private int runWindow(long stepMillis, long queueWaitNanos, long cpuNanos) {
+    return runWindow(controller, stepMillis, queueWaitNanos, cpuNanos);
+  }
+
+  // Completes a window of tasks, one every stepMillis, and returns the resulting thread count.
+  private int runWindow(
+      AdaptiveThreadCountController controller,
+      long stepMillis,
+      long queueWaitNanos,
+      long cpuNanos) {
+    int result = 0;
+    for (int i = 0; i < AdaptiveThreadCountController.WINDOW_SIZE; i++) {
+      nowNanos += TimeUnit.MILLISECONDS.toNanos(stepMillis);
+      result = controller.onTaskFinished(nowNanos, queueWaitNanos, RUN_NANOS, cpuNanos);
+    }
+    return result;
+  }
+}
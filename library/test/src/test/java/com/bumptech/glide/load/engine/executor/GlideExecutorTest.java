@@ -4,6 +4,8 @@ import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
 import static com.google.common.truth.Truth.assertThat;
 
 import androidx.annotation.NonNull;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.util.LogTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -115,6 +117,238 @@ public class GlideExecutorTest {
     assertThat(resultPriorities).containsExactly(5, 1, 2, 3, 4).inOrder();
   }
 
+  @Test
+  public void testEarliestDeadlineFirst_loadsAreExecutedInPriorityThenDeadlineOrder()
+      throws InterruptedException {
+    final List<Integer> resultPriorities = Collections.synchronizedList(new ArrayList<Integer>());
+    CountDownLatch latch = new CountDownLatch(1);
+    MockRunnable.OnRun onRun =
+        new MockRunnable.OnRun() {
+          @Override
+          public void onRun(int priority) {
+            try {
+              latch.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new RuntimeException(e);
+            }
+            resultPriorities.add(priority);
+          }
+        };
+    GlideExecutor executor =
+        GlideExecutor.newDiskCacheBuilder().setEarliestDeadlineFirst(true).build();
+    long now = LogTime.getLogTime();
+    for (int i = 1; i <= 5; i++) {
+      executor.execute(
+          new MockDeadlineRunnable(
+              i, Priority.NORMAL, now + TimeUnit.SECONDS.toNanos(6 - i), onRun));
+    }
+    executor.execute(
+        new MockDeadlineRunnable(6, Priority.NORMAL, GlideExecutor.NO_DEADLINE, onRun));
+    executor.execute(new MockDeadlineRunnable(7, Priority.LOW, now, onRun));
+    executor.execute(
+        new MockDeadlineRunnable(0, Priority.IMMEDIATE, GlideExecutor.NO_DEADLINE, onRun));
+    latch.countDown();
+
+    executor.shutdown();
+    executor.awaitTermination(500, TimeUnit.MILLISECONDS);
+
+    // The first item added is run immediately. Deadlines only order loads of the same priority, and
+    // loads without deadlines run after those with deadlines.
+    assertThat(resultPriorities).containsExactly(1, 0, 5, 4, 3, 2, 6, 7).inOrder();
+  }
+
+  @Test
+  public void testGetMissedDeadlineCount_countsOnlyLoadsStartedAfterTheirDeadline()
+      throws InterruptedException {
+    GlideExecutor executor = GlideExecutor.newDiskCacheExecutor();
+    MockRunnable.OnRun onRun =
+        new MockRunnable.OnRun() {
+          @Override
+          public void onRun(int priority) {}
+        };
+    long now = LogTime.getLogTime();
+    executor.execute(new MockDeadlineRunnable(1, Priority.NORMAL, now - 1, onRun));
+    executor.execute(
+        new MockDeadlineRunnable(2, Priority.NORMAL, now + TimeUnit.HOURS.toNanos(1), onRun));
+    executor.execute(
+        new MockDeadlineRunnable(3, Priority.NORMAL, GlideExecutor.NO_DEADLINE, onRun));
+
+    executor.shutdown();
+    executor.awaitTermination(500, TimeUnit.MILLISECONDS);
+
+    assertThat(executor.getMissedDeadlineCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testRemove_withQueuedTask_preventsTaskFromRunning() throws InterruptedException {
+    GlideExecutor executor = GlideExecutor.newDiskCacheExecutor();
+    final CountDownLatch latch = new CountDownLatch(1);
+    executor.execute(
+        new MockRunnable(
+            0,
+            new MockRunnable.OnRun() {
+              @Override
+              public void onRun(int priority) {
+                try {
+                  latch.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  throw new RuntimeException(e);
+                }
+              }
+            }));
+    final List<Integer> resultPriorities = Collections.synchronizedList(new ArrayList<Integer>());
+    MockRunnable queued =
+        new MockRunnable(
+            1,
+            new MockRunnable.OnRun() {
+              @Override
+              public void onRun(int priority) {
+                resultPriorities.add(priority);
+              }
+            });
+    executor.execute(queued);
+
+    assertThat(executor.remove(queued)).isTrue();
+    latch.countDown();
+    executor.shutdown();
+    executor.awaitTermination(500, TimeUnit.MILLISECONDS);
+
+    assertThat(resultPriorities).isEmpty();
+    assertThat(executor.remove(queued)).isFalse();
+  }
+
+  @Test
+  public void testRemove_withQueuedDecoratedTask_preventsTaskFromRunning()
+      throws InterruptedException {
+    GlideExecutor executor =
+        GlideExecutor.newDiskCacheBuilder()
+            .experimentalSetOnExecuteDecorator(
+                new Function<Runnable, Runnable>() {
+                  @Override
+                  public Runnable apply(final Runnable runnable) {
+                    // Keep the task's place in the queue, as real decorators must.
+                    return new MockRunnable(
+                        ((MockRunnable) runnable).priority,
+                        new MockRunnable.OnRun() {
+                          @Override
+                          public void onRun(int priority) {
+                            runnable.run();
+                          }
+                        });
+                  }
+                })
+            .build();
+    final CountDownLatch latch = new CountDownLatch(1);
+    executor.execute(
+        new MockRunnable(
+            0,
+            new MockRunnable.OnRun() {
+              @Override
+              public void onRun(int priority) {
+                try {
+                  latch.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  throw new RuntimeException(e);
+                }
+              }
+            }));
+    final List<Integer> resultPriorities = Collections.synchronizedList(new ArrayList<Integer>());
+    MockRunnable queued =
+        new MockRunnable(
+            1,
+            new MockRunnable.OnRun() {
+              @Override
+              public void onRun(int priority) {
+                resultPriorities.add(priority);
+              }
+            });
+    executor.execute(queued);
+
+    assertThat(executor.remove(queued)).isTrue();
+    latch.countDown();
+    executor.shutdown();
+    executor.awaitTermination(500, TimeUnit.MILLISECONDS);
+
+    assertThat(resultPriorities).isEmpty();
+  }
+
+  @Test
+  public void testGetThreadCountStats_withFixedThreadCount_returnsNull() {
+    GlideExecutor executor = GlideExecutor.newSourceExecutor();
+
+    assertThat(executor.getThreadCountStats()).isNull();
+    executor.shutdown();
+  }
+
+  @Test
+  public void testGetThreadCountStats_withAdaptiveThreadCount_returnsBoundedThreadCount()
+      throws InterruptedException {
+    GlideExecutor executor =
+        GlideExecutor.newSourceBuilder().setAdaptiveThreadCount(1, 2).build();
+    final int taskCount = AdaptiveThreadCountController.WINDOW_SIZE * 2;
+    final CountDownLatch latch = new CountDownLatch(taskCount);
+    for (int i = 0; i < taskCount; i++) {
+      executor.execute(
+          new MockRunnable(
+              i,
+              new MockRunnable.OnRun() {
+                @Override
+                public void onRun(int priority) {
+                  latch.countDown();
+                }
+              }));
+    }
+
+    assertThat(latch.await(500, TimeUnit.MILLISECONDS)).isTrue();
+    GlideExecutor.ThreadCountStats stats = executor.getThreadCountStats();
+    assertThat(stats.getMinThreadCount()).isEqualTo(1);
+    assertThat(stats.getMaxThreadCount()).isEqualTo(2);
+    assertThat(stats.getThreadCount()).isAtLeast(1);
+    assertThat(stats.getThreadCount()).isAtMost(2);
+    executor.shutdown();
+    executor.awaitTermination(500, TimeUnit.MILLISECONDS);
+  }
+
+  private static final class MockDeadlineRunnable
+      implements Runnable, Comparable<MockDeadlineRunnable>, GlideExecutor.DeadlineTask {
+    private final int order;
+    private final Priority priority;
+    private final long deadlineNanos;
+    private final MockRunnable.OnRun onRun;
+
+    MockDeadlineRunnable(
+        int order, Priority priority, long deadlineNanos, MockRunnable.OnRun onRun) {
+      this.order = order;
+      this.priority = priority;
+      this.deadlineNanos = deadlineNanos;
+      this.onRun = onRun;
+    }
+
+    @Override
+    public int compareTo(@NonNull MockDeadlineRunnable another) {
+      int result = priority.compareTo(another.priority);
+      return result != 0 ? result : order - another.order;
+    }
+
+    @Override
+    public Priority getPriority() {
+      return priority;
+    }
+
+    @Override
+    public long getDeadlineNanos() {
+      return deadlineNanos;
+    }
+
+    @Override
+    public void run() {
+      onRun.onRun(order);
+    }
+  }
+
   private static final class MockRunnable implements Runnable, Comparable<MockRunnable> {
     private final int priority;
     private final OnRun onRun;
@@ -7,6 +7,7 @@ import static org.junit.Assert.assertNotEquals;
 import androidx.annotation.NonNull;
 import com.bumptech.glide.load.ImageHeaderParser;
 import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.ImageMetadata;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
 import com.bumptech.glide.testutil.TestResourceUtil;
@@ -1172,6 +1173,116 @@ public class DefaultImageHeaderParserTest {
         });
   }
 
+  @Test
+  public void getMetadata_withRotatedJpeg_returnsTypeOrientationAndDimensions() throws IOException {
+    byte[] data =
+        ByteStreams.toByteArray(
+            TestResourceUtil.openResource(getClass(), "issue387_rotated_jpeg.jpg"));
+    runTest(
+        data,
+        new ParserTestCase() {
+          @Override
+          public void run(DefaultImageHeaderParser parser, InputStream is, ArrayPool byteArrayPool)
+              throws IOException {
+            assertRotatedJpegMetadata(parser.getMetadata(is, byteArrayPool));
+          }
+
+          @Override
+          public void run(
+              DefaultImageHeaderParser parser, ByteBuffer byteBuffer, ArrayPool byteArrayPool)
+              throws IOException {
+            assertRotatedJpegMetadata(parser.getMetadata(byteBuffer, byteArrayPool));
+          }
+        });
+  }
+
+  private static void assertRotatedJpegMetadata(ImageMetadata metadata) {
+    assertThat(metadata.getType()).isEqualTo(ImageType.JPEG);
+    assertThat(metadata.getOrientation()).isEqualTo(6);
+    assertThat(metadata.getWidth()).isEqualTo(4128);
+    assertThat(metadata.getHeight()).isEqualTo(2322);
+    assertThat(metadata.isProgressive()).isFalse();
+  }
+
+  @Test
+  public void getMetadata_withProgressiveJpeg_returnsProgressive() throws IOException {
+    ByteBuffer data = ByteBuffer.allocate(2 + 2 + 2 + 5 + 2);
+    data.put(getExifMagicNumber())
+        .put((byte) DefaultImageHeaderParser.SEGMENT_START_ID)
+        // SOF2.
+        .put((byte) 0xC2)
+        // Length, including the length bytes.
+        .putShort((short) 7)
+        // Sample precision.
+        .put((byte) 8)
+        // Height then width.
+        .putShort((short) 100)
+        .putShort((short) 200)
+        .put((byte) DefaultImageHeaderParser.SEGMENT_START_ID)
+        // SOS.
+        .put((byte) 0xDA);
+    data.position(0);
+
+    ImageMetadata metadata = new DefaultImageHeaderParser().getMetadata(data, byteArrayPool);
+
+    assertThat(metadata.getType()).isEqualTo(ImageType.JPEG);
+    assertThat(metadata.getOrientation()).isEqualTo(ImageHeaderParser.UNKNOWN_ORIENTATION);
+    assertThat(metadata.getWidth()).isEqualTo(200);
+    assertThat(metadata.getHeight()).isEqualTo(100);
+    assertThat(metadata.isProgressive()).isTrue();
+  }
+
+  @Test
+  public void getMetadata_withPngWithAlpha_returnsTypeAndDimensions() throws IOException {
+    runTest(
+        generatePngHeaderWithIhdr(6),
+        new ParserTestCase() {
+          @Override
+          public void run(DefaultImageHeaderParser parser, InputStream is, ArrayPool byteArrayPool)
+              throws IOException {
+            assertPngMetadata(parser.getMetadata(is, byteArrayPool));
+          }
+
+          @Override
+          public void run(
+              DefaultImageHeaderParser parser, ByteBuffer byteBuffer, ArrayPool byteArrayPool)
+              throws IOException {
+            assertPngMetadata(parser.getMetadata(byteBuffer, byteArrayPool));
+          }
+        });
+  }
+
+  private static void assertPngMetadata(ImageMetadata metadata) {
+    assertThat(metadata.getType()).isEqualTo(ImageType.PNG_A);
+    assertThat(metadata.hasAlpha()).isTrue();
+    // From PNG_HEADER_WITH_IHDR_CHUNK.
+    assertThat(metadata.getWidth()).isEqualTo(400);
+    assertThat(metadata.getHeight()).isEqualTo(300);
+  }
+
+  @Test
+  public void getMetadata_withTruncatedPng_returnsTypeWithoutDimensions() throws IOException {
+    byte[] data = new byte[] {(byte) 0x89, 0x50, 0x4e, 0x47, 0x0d, 0x0a, 0x1a, 0x0a};
+
+    ImageMetadata metadata =
+        new DefaultImageHeaderParser().getMetadata(ByteBuffer.wrap(data), byteArrayPool);
+
+    assertThat(metadata.getType()).isEqualTo(ImageType.PNG);
+    assertThat(metadata.hasDimensions()).isFalse();
+  }
+
+  @Test
+  public void getMetadata_withGif_returnsTypeWithoutOrientationOrDimensions() throws IOException {
+    byte[] data = new byte[] {'G', 'I', 'F'};
+
+    ImageMetadata metadata =
+        new DefaultImageHeaderParser().getMetadata(ByteBuffer.wrap(data), byteArrayPool);
+
+    assertThat(metadata.getType()).isEqualTo(ImageType.GIF);
+    assertThat(metadata.getOrientation()).isEqualTo(ImageHeaderParser.UNKNOWN_ORIENTATION);
+    assertThat(metadata.hasDimensions()).isFalse();
+  }
+
   private static ByteBuffer getExifMagicNumber() {
     ByteBuffer jpegHeaderBytes = ByteBuffer.allocate(2);
     jpegHeaderBytes.putShort((short) DefaultImageHeaderParser.EXIF_MAGIC_NUMBER);
@@ -0,0 +1,395 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.os.Build;
+import androidx.exifinterface.media.ExifInterface;
+import androidx.test.core.app.ApplicationProvider;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.PreferredColorSpace;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.resource.bitmap.DownsamplerTest.FailingBitmapRegionDecoder;
+import com.bumptech.glide.testutil.TestResourceUtil;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.function.ThrowingRunnable;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK, shadows = FailingBitmapRegionDecoder.class)
+public class DownsamplerTest {
+  // A portrait JPEG without exif orientation that's larger than the stream buffer.
+  private static final String LARGE_JPEG = "small_gainmap_image.jpg";
+
+  private Downsampler downsampler;
+  private Options options;
+
+  @Before
+  public void setUp() {
+    FailingBitmapRegionDecoder.attempts = 0;
+    downsampler =
+        new Downsampler(
+            Collections.<ImageHeaderParser>singletonList(new DefaultImageHeaderParser()),
+            ApplicationProvider.getApplicationContext().getResources().getDisplayMetrics(),
+            new BitmapPoolAdapter(),
+            new LruArrayPool());
+    options =
+        new Options()
+            .set(Downsampler.DECODE_CENTER_CROP_REGION, true)
+            .set(DownsampleStrategy.OPTION, DownsampleStrategy.CENTER_OUTSIDE);
+  }
+
+  @Test
+  public void decode_withStreamAndCenterCropRegion_decodesWholeImage() throws IOException {
+    InputStream is = TestResourceUtil.openResource(getClass(), LARGE_JPEG);
+
+    Resource<Bitmap> result = downsampler.decode(is, 100, 100, options);
+
+    // The region decoder would have read the entire stream, so it must not be used.
+    assertThat(FailingBitmapRegionDecoder.attempts).isEqualTo(0);
+    Bitmap bitmap = result.get();
+    assertThat(bitmap.getHeight()).isGreaterThan(bitmap.getWidth());
+  }
+
+  @Test
+  public void decode_withByteBufferAndFailingRegionDecode_decodesWholeImage() throws IOException {
+    ByteBuffer buffer =
+        ByteBuffer.wrap(
+            ByteStreams.toByteArray(TestResourceUtil.openResource(getClass(), LARGE_JPEG)));
+
+    Resource<Bitmap> result = downsampler.decode(buffer, 100, 100, options);
+
+    assertThat(FailingBitmapRegionDecoder.attempts).isEqualTo(1);
+    Bitmap bitmap = result.get();
+    assertThat(bitmap.getHeight()).isGreaterThan(bitmap.getWidth());
+  }
+
+  @Test
+  public void decode_withProgressivePreviewOfBaselineJpeg_throws() {
+    final InputStream is = TestResourceUtil.openResource(getClass(), LARGE_JPEG);
+    final Options previewOptions =
+        new Options().set(Downsampler.PROGRESSIVE_PREVIEW_BYTES, /* value= */ 1024);
+
+    assertThrows(
+        IOException.class,
+        new ThrowingRunnable() {
+          @Override
+          public void run() throws Throwable {
+            downsampler.decode(is, 100, 100, previewOptions);
+          }
+        });
+  }
+
+  @Test
+  public void decode_withProgressivePreviewOfByteBuffer_throws() throws IOException {
+    final ByteBuffer buffer =
+        ByteBuffer.wrap(
+            ByteStreams.toByteArray(TestResourceUtil.openResource(getClass(), LARGE_JPEG)));
+    final Options previewOptions =
+        new Options().set(Downsampler.PROGRESSIVE_PREVIEW_BYTES, /* value= */ 1024);
+
+    assertThrows(
+        IOException.class,
+        new ThrowingRunnable() {
+          @Override
+          public void run() throws Throwable {
+            downsampler.decode(buffer, 100, 100, previewOptions);
+          }
+        });
+  }
+
+  @Test
+  public void getCenterCropRegion_centersRegionWithTargetAspectRatio() {
+    Rect region =
+        Downsampler.getCenterCropRegion(
+            ImageType.JPEG,
+            /* preferredColorSpace= */ null,
+            /* isExifOrientationRequired= */ false,
+            /* sourceWidth= */ 400,
+            /* sourceHeight= */ 200,
+            /* targetWidth= */ 100,
+            /* targetHeight= */ 100,
+            bitmapFactoryOptions(/* sampleSize= */ 1));
+
+    assertThat(region).isEqualTo(new Rect(100, 0, 300, 200));
+  }
+
+  @Test
+  public void getCenterCropRegion_roundsRegionDownToMultipleOfSampleSize() {
+    Rect region =
+        Downsampler.getCenterCropRegion(
+            ImageType.JPEG,
+            /* preferredColorSpace= */ null,
+            /* isExifOrientationRequired= */ false,
+            /* sourceWidth= */ 1001,
+            /* sourceHeight= */ 500,
+            /* targetWidth= */ 100,
+            /* targetHeight= */ 100,
+            bitmapFactoryOptions(/* sampleSize= */ 3));
+
+    assertThat(region).isEqualTo(new Rect(251, 1, 749, 499));
+  }
+
+  @Test
+  public void getCenterCropRegion_withCropSmallerThanSampleSize_returnsNull() {
+    assertThat(
+            Downsampler.getCenterCropRegion(
+                ImageType.JPEG,
+                /* preferredColorSpace= */ null,
+                /* isExifOrientationRequired= */ false,
+                /* sourceWidth= */ 101,
+                /* sourceHeight= */ 100,
+                /* targetWidth= */ 50,
+                /* targetHeight= */ 50,
+                bitmapFactoryOptions(/* sampleSize= */ 2)))
+        .isNull();
+  }
+
+  @Test
+  public void getCenterCropRegion_withUnsupportedType_returnsNull() {
+    assertThat(
+            Downsampler.getCenterCropRegion(
+                ImageType.GIF,
+                /* preferredColorSpace= */ null,
+                /* isExifOrientationRequired= */ false,
+                /* sourceWidth= */ 400,
+                /* sourceHeight= */ 200,
+                /* targetWidth= */ 100,
+                /* targetHeight= */ 100,
+                bitmapFactoryOptions(/* sampleSize= */ 1)))
+        .isNull();
+  }
+
+  @Test
+  public void getCenterCropRegion_withExifOrientation_returnsNull() {
+    assertThat(
+            Downsampler.getCenterCropRegion(
+                ImageType.JPEG,
+                /* preferredColorSpace= */ null,
+                /* isExifOrientationRequired= */ true,
+                /* sourceWidth= */ 400,
+                /* sourceHeight= */ 200,
+                /* targetWidth= */ 100,
+                /* targetHeight= */ 100,
+                bitmapFactoryOptions(/* sampleSize= */ 1)))
+        .isNull();
+  }
+
+  @Test
+  public void getCenterCropRegion_withDisplayP3_returnsNull() {
+    assertThat(
+            Downsampler.getCenterCropRegion(
+                ImageType.JPEG,
+                PreferredColorSpace.DISPLAY_P3,
+                /* isExifOrientationRequired= */ false,
+                /* sourceWidth= */ 400,
+                /* sourceHeight= */ 200,
+                /* targetWidth= */ 100,
+                /* targetHeight= */ 100,
+                bitmapFactoryOptions(/* sampleSize= */ 1)))
+        .isNull();
+  }
+
+  @Test
+  @Config(sdk = Build.VERSION_CODES.O)
+  public void getCenterCropRegion_withHardwareConfig_returnsNull() {
+    BitmapFactory.Options bitmapFactoryOptions = bitmapFactoryOptions(/* sampleSize= */ 1);
+    bitmapFactoryOptions.inPreferredConfig = Bitmap.Config.HARDWARE;
+
+    assertThat(
+            Downsampler.getCenterCropRegion(
+                ImageType.JPEG,
+                /* preferredColorSpace= */ null,
+                /* isExifOrientationRequired= */ false,
+                /* sourceWidth= */ 400,
+                /* sourceHeight= */ 200,
+                /* targetWidth= */ 100,
+                /* targetHeight= */ 100,
+                bitmapFactoryOptions))
+        .isNull();
+  }
+
+  @Test
+  public void getCenterCropRegion_withUnknownDimensions_returnsNull() {
+    assertThat(
+            Downsampler.getCenterCropRegion(
+                ImageType.JPEG,
+                /* preferredColorSpace= */ null,
+                /* isExifOrientationRequired= */ false,
+                /* sourceWidth= */ -1,
+                /* sourceHeight= */ -1,
+                /* targetWidth= */ 100,
+                /* targetHeight= */ 100,
+                bitmapFactoryOptions(/* sampleSize= */ 1)))
+        .isNull();
+  }
+
+  @Test
+  public void getSourceRegion_mapsRegionThroughEachExifOrientation() throws IOException {
+    assertThat(getSourceRegion(ExifInterface.ORIENTATION_UNDEFINED))
+        .isEqualTo(new Rect(10, 20, 50, 80));
+    assertThat(getSourceRegion(ExifInterface.ORIENTATION_NORMAL))
+        .isEqualTo(new Rect(10, 20, 50, 80));
+    assertThat(getSourceRegion(ExifInterface.ORIENTATION_FLIP_HORIZONTAL))
+        .isEqualTo(new Rect(350, 20, 390, 80));
+    assertThat(getSourceRegion(ExifInterface.ORIENTATION_ROTATE_180))
+        .isEqualTo(new Rect(350, 120, 390, 180));
+    assertThat(getSourceRegion(ExifInterface.ORIENTATION_FLIP_VERTICAL))
+        .isEqualTo(new Rect(10, 120, 50, 180));
+    assertThat(getSourceRegion(ExifInterface.ORIENTATION_TRANSPOSE))
+        .isEqualTo(new Rect(20, 10, 80, 50));
+    assertThat(getSourceRegion(ExifInterface.ORIENTATION_ROTATE_90))
+        .isEqualTo(new Rect(20, 150, 80, 190));
+    assertThat(getSourceRegion(ExifInterface.ORIENTATION_TRANSVERSE))
+        .isEqualTo(new Rect(320, 150, 380, 190));
+    assertThat(getSourceRegion(ExifInterface.ORIENTATION_ROTATE_270))
+        .isEqualTo(new Rect(320, 10, 380, 50));
+  }
+
+  @Test
+  public void getSourceRegion_withRegionPastEdges_clipsRegionToImage() throws IOException {
+    Rect region =
+        Downsampler.getSourceRegion(
+            ImageType.JPEG,
+            new Rect(-10, -10, 500, 100),
+            ExifInterface.ORIENTATION_NORMAL,
+            /* sourceWidth= */ 400,
+            /* sourceHeight= */ 200);
+
+    assertThat(region).isEqualTo(new Rect(0, 0, 400, 100));
+  }
+
+  @Test
+  public void getSourceRegion_withRotationAndRegionPastEdges_clipsRegionToImage()
+      throws IOException {
+    // The oriented image is 200x400.
+    Rect region =
+        Downsampler.getSourceRegion(
+            ImageType.JPEG,
+            new Rect(100, 300, 300, 500),
+            ExifInterface.ORIENTATION_ROTATE_90,
+            /* sourceWidth= */ 400,
+            /* sourceHeight= */ 200);
+
+    assertThat(region).isEqualTo(new Rect(300, 0, 400, 100));
+  }
+
+  @Test
+  public void getSourceRegion_withRegionOutsideImage_throws() {
+    assertThrows(
+        IOException.class,
+        new ThrowingRunnable() {
+          @Override
+          public void run() throws Throwable {
+            Downsampler.getSourceRegion(
+                ImageType.JPEG,
+                new Rect(500, 0, 600, 100),
+                ExifInterface.ORIENTATION_NORMAL,
+                /* sourceWidth= */ 400,
+                /* sourceHeight= */ 200);
+          }
+        });
+  }
+
+  @Test
+  public void getSourceRegion_withUnsupportedType_throws() {
+    assertThrows(
+        IOException.class,
+        new ThrowingRunnable() {
+          @Override
+          public void run() throws Throwable {
+            Downsampler.getSourceRegion(
+                ImageType.GIF,
+                new Rect(10, 20, 50, 80),
+                ExifInterface.ORIENTATION_NORMAL,
+                /* sourceWidth= */ 400,
+                /* sourceHeight= */ 200);
+          }
+        });
+  }
+
+  @Test
+  public void getSourceRegion_withUnknownDimensions_throws() {
+    assertThrows(
+        IOException.class,
+        new ThrowingRunnable() {
+          @Override
+          public void run() throws Throwable {
+            Downsampler.getSourceRegion(
+                ImageType.JPEG,
+                new Rect(10, 20, 50, 80),
+                ExifInterface.ORIENTATION_NORMAL,
+                /* sourceWidth= */ -1,
+                /* sourceHeight= */ -1);
+          }
+        });
+  }
+
+  @Test
+  public void decode_withRegionOfUnsupportedType_throws() throws IOException {
+    final ByteBuffer buffer =
+        ByteBuffer.wrap(
+            ByteStreams.toByteArray(TestResourceUtil.openResource(getClass(), "test.gif")));
+    final Options regionOptions = new Options().set(Downsampler.REGION, new Rect(0, 0, 10, 10));
+
+    assertThrows(
+        IOException.class,
+        new ThrowingRunnable() {
+          @Override
+          public void run() throws Throwable {
+            downsampler.decode(buffer, 10, 10, regionOptions);
+          }
+        });
+    assertThat(FailingBitmapRegionDecoder.attempts).isEqualTo(0);
+  }
+
+  /** Maps a region of a 400x200 image, as it's stored, through the given orientation. */
+  private static Rect getSourceRegion(int orientation) throws IOException {
+    return Downsampler.getSourceRegion(
+        ImageType.JPEG,
+        new Rect(10, 20, 50, 80),
+        orientation,
+        /* sourceWidth= */ 400,
+        /* sourceHeight= */ 200);
+  }
+
+  private static BitmapFactory.Options bitmapFactoryOptions(int sampleSize) {
+    BitmapFactory.Options result = new BitmapFactory.Options();
+    result.inSampleSize = sampleSize;
+    result.inPreferredConfig = Bitmap.Config.ARGB_8888;
+    return result;
+  }
+
+  /** Reads all of the given data, like the framework does, and then fails. */
+  @Implements(BitmapRegionDecoder.class)
+  public static final class FailingBitmapRegionDecoder {
+    static int attempts;
+
+    @Implementation
+    protected static BitmapRegionDecoder newInstance(InputStream is, boolean isShareable)
+        throws IOException {
+      attempts++;
+      ByteStreams.exhaust(is);
+      throw new IOException("Failed to create region decoder");
+    }
+  }
+}
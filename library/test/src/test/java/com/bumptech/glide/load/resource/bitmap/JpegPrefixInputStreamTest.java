@@ -0,0 +1,64 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class JpegPrefixInputStreamTest {
+  private static final byte[] DATA = new byte[] {1, 2, 3, 4, 5, 6};
+
+  @Test
+  public void read_withLongerData_returnsPrefixFollowedByEndOfImage() throws IOException {
+    InputStream is = new JpegPrefixInputStream(new ByteArrayInputStream(DATA), /* maxBytes= */ 3);
+
+    assertThat(ByteStreams.toByteArray(is))
+        .isEqualTo(new byte[] {1, 2, 3, (byte) 0xFF, (byte) 0xD9});
+  }
+
+  @Test
+  public void readSingleBytes_withLongerData_returnsPrefixFollowedByEndOfImage()
+      throws IOException {
+    InputStream is = new JpegPrefixInputStream(new ByteArrayInputStream(DATA), /* maxBytes= */ 2);
+
+    assertThat(is.read()).isEqualTo(1);
+    assertThat(is.read()).isEqualTo(2);
+    assertThat(is.read()).isEqualTo(0xFF);
+    assertThat(is.read()).isEqualTo(0xD9);
+    assertThat(is.read()).isEqualTo(-1);
+  }
+
+  @Test
+  public void read_withShorterData_returnsDataWithoutEndOfImage() throws IOException {
+    InputStream is =
+        new JpegPrefixInputStream(new ByteArrayInputStream(DATA), /* maxBytes= */ DATA.length + 1);
+
+    assertThat(ByteStreams.toByteArray(is)).isEqualTo(DATA);
+  }
+
+  @Test
+  public void skip_doesNotSkipPastPrefix() throws IOException {
+    InputStream is = new JpegPrefixInputStream(new ByteArrayInputStream(DATA), /* maxBytes= */ 3);
+
+    assertThat(is.skip(5)).isEqualTo(3);
+    assertThat(is.read()).isEqualTo(0xFF);
+  }
+
+  @Test
+  public void available_doesNotExceedRemainingBytes() throws IOException {
+    InputStream is = new JpegPrefixInputStream(new ByteArrayInputStream(DATA), /* maxBytes= */ 3);
+
+    assertThat(is.available()).isEqualTo(3);
+    ByteStreams.toByteArray(is);
+    assertThat(is.available()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,102 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.bumptech.glide.RobolectricConstants.ROBOLECTRIC_SDK;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.graphics.BitmapRegionDecoder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = ROBOLECTRIC_SDK)
+public class RegionDecoderCacheTest {
+  private final RegionDecoderCache cache =
+      new RegionDecoderCache(/* maxSources= */ 1, /* maxDecodersPerSource= */ 2);
+
+  @Test
+  public void acquire_withMissingKey_returnsNull() {
+    assertThat(cache.acquire("key")).isNull();
+  }
+
+  @Test
+  public void acquire_afterPut_returnsSameDecoder() {
+    BitmapRegionDecoder decoder = mock(BitmapRegionDecoder.class);
+    cache.release(cache.put("key", decoder));
+
+    RegionDecoderCache.Entry entry = cache.acquire("key");
+
+    assertThat(entry).isNotNull();
+    assertThat(entry.decoder).isSameInstanceAs(decoder);
+  }
+
+  @Test
+  public void acquire_withDecoderInUse_returnsNull() {
+    cache.put("key", mock(BitmapRegionDecoder.class));
+
+    assertThat(cache.acquire("key")).isNull();
+  }
+
+  @Test
+  public void acquire_withOneOfTwoDecodersInUse_returnsOtherDecoder() {
+    BitmapRegionDecoder first = mock(BitmapRegionDecoder.class);
+    BitmapRegionDecoder second = mock(BitmapRegionDecoder.class);
+    cache.put("key", first);
+    cache.release(cache.put("key", second));
+
+    RegionDecoderCache.Entry entry = cache.acquire("key");
+
+    assertThat(entry).isNotNull();
+    assertThat(entry.decoder).isSameInstanceAs(second);
+  }
+
+  @Test
+  public void put_withMaxDecodersForKey_recyclesNewDecoderOnRelease() {
+    cache.put("key", mock(BitmapRegionDecoder.class));
+    cache.put("key", mock(BitmapRegionDecoder.class));
+    BitmapRegionDecoder third = mock(BitmapRegionDecoder.class);
+
+    RegionDecoderCache.Entry entry = cache.put("key", third);
+    assertThat(entry.decoder).isSameInstanceAs(third);
+    verify(third, never()).recycle();
+
+    cache.release(entry);
+    verify(third).recycle();
+  }
+
+  @Test
+  public void put_overMaxSize_recyclesEvictedUnusedDecoder() {
+    BitmapRegionDecoder first = mock(BitmapRegionDecoder.class);
+    cache.release(cache.put("first", first));
+
+    cache.put("second", mock(BitmapRegionDecoder.class));
+
+    verify(first).recycle();
+    assertThat(cache.acquire("first")).isNull();
+  }
+
+  @Test
+  public void put_overMaxSize_withEvictedDecoderInUse_recyclesDecoderOnRelease() {
+    BitmapRegionDecoder first = mock(BitmapRegionDecoder.class);
+    RegionDecoderCache.Entry entry = cache.put("first", first);
+
+    cache.put("second", mock(BitmapRegionDecoder.class));
+    verify(first, never()).recycle();
+
+    cache.release(entry);
+    verify(first).recycle();
+  }
+
+  @Test
+  public void release_withDecoderStillCached_doesNotRecycleDecoder() {
+    BitmapRegionDecoder decoder = mock(BitmapRegionDecoder.class);
+
+    cache.release(cache.put("key", decoder));
+
+    verify(decoder, never()).recycle();
+  }
+}
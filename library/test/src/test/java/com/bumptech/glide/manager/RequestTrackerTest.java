@@ -7,6 +7,8 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import androidx.annotation.NonNull;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.request.Request;
 import org.junit.Before;
 import org.junit.Test;
@@ -421,6 +423,16 @@ public class RequestTrackerTest {
       return isComplete;
     }
 
+    @Override
+    public void setPriority(@NonNull Priority priority) {
+      // Do nothing.
+    }
+
+    @Override
+    public void setPriority(@NonNull Priority priority) {
+      // Do nothing.
+    }
+
     @Override
     public boolean isEquivalentTo(Request other) {
       throw new UnsupportedOperationException();
@@ -9,8 +9,10 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -24,6 +26,7 @@ import android.graphics.drawable.Drawable;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.bumptech.glide.GlideContext;
+import com.bumptech.glide.GlideEventListener;
 import com.bumptech.glide.GlideExperiments;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
@@ -237,6 +240,48 @@ public class SingleRequestTest {
     verify(builder.target, times(1)).onLoadCleared(anyDrawableOrNull());
   }
 
+  @Test
+  public void begin_withEventListener_reportsRequestStartedAndSizeStage() {
+    GlideEventListener eventListener = mock(GlideEventListener.class);
+    when(builder.glideContext.getEventListener()).thenReturn(eventListener);
+    SingleRequest<List> request = builder.build();
+
+    request.begin();
+    request.onSizeReady(100, 100);
+
+    verify(eventListener).onRequestStarted(builder.model);
+    verify(eventListener).onStageStarted(builder.model, GlideEventListener.Stage.SIZE);
+    verify(eventListener)
+        .onStageFinished(eq(builder.model), eq(GlideEventListener.Stage.SIZE), anyLong());
+  }
+
+  @Test
+  public void onResourceReady_withEventListener_reportsRequestFinished() {
+    GlideEventListener eventListener = mock(GlideEventListener.class);
+    when(builder.glideContext.getEventListener()).thenReturn(eventListener);
+    SingleRequest<List> request = builder.build();
+
+    request.begin();
+    request.onSizeReady(100, 100);
+    request.onResourceReady(
+        builder.resource, DataSource.REMOTE, /* isLoadedFromAlternateCacheKey= */ false);
+
+    verify(eventListener).onRequestFinished(eq(builder.model), eq(DataSource.REMOTE), anyLong());
+  }
+
+  @Test
+  public void onLoadFailed_withEventListener_reportsRequestFinishedWithoutDataSource() {
+    GlideEventListener eventListener = mock(GlideEventListener.class);
+    when(builder.glideContext.getEventListener()).thenReturn(eventListener);
+    SingleRequest<List> request = builder.build();
+
+    request.begin();
+    request.onSizeReady(100, 100);
+    request.onLoadFailed(new GlideException("test"));
+
+    verify(eventListener).onRequestFinished(eq(builder.model), isNull(), anyLong());
+  }
+
   @Test
   public void testIgnoresOnSizeReadyIfNotWaitingForSize() {
     SingleRequest<List> request = builder.build();
@@ -263,6 +308,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /* useAnimationPool= */ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class),
             anyExecutor());
   }
@@ -289,6 +335,7 @@ public class SingleRequestTest {
             anyBoolean(),
             anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class),
             anyExecutor()))
         .thenReturn(loadStatus);
@@ -581,6 +628,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /* useAnimationPool= */ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class),
             anyExecutor()))
         .thenAnswer(
@@ -851,6 +899,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /* useAnimationPool= */ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class),
             anyExecutor());
   }
@@ -888,6 +937,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /* useAnimationPool= */ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class),
             anyExecutor()))
         .thenAnswer(new CallResourceCallback(builder.resource));
@@ -934,6 +984,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /* useAnimationPool= */ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class),
             anyExecutor());
   }
@@ -966,6 +1017,7 @@ public class SingleRequestTest {
             eq(true),
             /* useAnimationPool= */ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class),
             anyExecutor());
   }
@@ -998,6 +1050,7 @@ public class SingleRequestTest {
             eq(false),
             /* useAnimationPool= */ anyBoolean(),
             anyBoolean(),
+            anyLong(),
             any(ResourceCallback.class),
             anyExecutor());
   }
@@ -12,6 +12,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.bumptech.glide.Priority;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -401,6 +402,32 @@ public class ThumbnailRequestCoordinatorTest {
     assertFalse(first.isEquivalentTo(third));
   }
 
+  @Test
+  public void setPriority_keepsThumbAheadOfFull() {
+    coordinator.setPriority(Priority.LOW);
+
+    verify(full).setPriority(Priority.LOW);
+    verify(thumb).setPriority(Priority.NORMAL);
+  }
+
+  @Test
+  public void setPriority_withImmediate_setsThumbToImmediate() {
+    coordinator.setPriority(Priority.IMMEDIATE);
+
+    verify(full).setPriority(Priority.IMMEDIATE);
+    verify(thumb).setPriority(Priority.IMMEDIATE);
+  }
+
+  @Test
+  public void setPriority_withExplicitThumbPriority_doesNotChangeThumbPriority() {
+    coordinator.setRequests(full, thumb, /* isThumbPriorityExplicit= */ true);
+
+    coordinator.setPriority(Priority.LOW);
+
+    verify(full).setPriority(Priority.LOW);
+    verify(thumb, never()).setPriority(any(Priority.class));
+  }
+
   private static ThumbnailRequestCoordinator newCoordinator() {
     return newCoordinator(/* parent= */ null);
   }
@@ -0,0 +1,96 @@
+package com.bumptech.glide.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.function.ThrowingRunnable;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LatencyHistogramTest {
+  private final LatencyHistogram histogram = new LatencyHistogram();
+
+  @Test
+  public void getValueAtPercentileNanos_withNoValues_returnsZero() {
+    assertThat(histogram.getCount()).isEqualTo(0);
+    assertThat(histogram.getValueAtPercentileNanos(50)).isEqualTo(0);
+    assertThat(histogram.getMeanNanos()).isEqualTo(0);
+  }
+
+  @Test
+  public void getValueAtPercentileNanos_isWithinRelativeErrorOfRecordedValues() {
+    for (int millis = 1; millis <= 1000; millis++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    assertThat(histogram.getCount()).isEqualTo(1000);
+    assertWithinRelativeError(histogram.getValueAtPercentileNanos(50), 500);
+    assertWithinRelativeError(histogram.getValueAtPercentileNanos(90), 900);
+    assertWithinRelativeError(histogram.getValueAtPercentileNanos(99), 990);
+    assertThat(histogram.getValueAtPercentileNanos(100))
+        .isEqualTo(TimeUnit.MILLISECONDS.toNanos(1000));
+  }
+
+  @Test
+  public void getValueAtPercentileNanos_neverExceedsMax() {
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(1001));
+
+    assertThat(histogram.getValueAtPercentileNanos(50))
+        .isEqualTo(TimeUnit.MICROSECONDS.toNanos(1001));
+  }
+
+  @Test
+  public void getValueAtPercentileNanos_withInvalidPercentile_throws() {
+    assertThrows(
+        IllegalArgumentException.class,
+        new ThrowingRunnable() {
+          @Override
+          public void run() {
+            histogram.getValueAtPercentileNanos(101);
+          }
+        });
+  }
+
+  @Test
+  public void record_tracksMeanAndMax() {
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(30));
+
+    assertThat(histogram.getMeanNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    assertThat(histogram.getMaxNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(30));
+  }
+
+  @Test
+  public void record_withNegativeValue_recordsZero() {
+    histogram.record(-1);
+
+    assertThat(histogram.getCount()).isEqualTo(1);
+    assertThat(histogram.getMaxNanos()).isEqualTo(0);
+  }
+
+  @Test
+  public void record_withVeryLargeValue_doesNotThrow() {
+    histogram.record(Long.MAX_VALUE);
+
+    assertThat(histogram.getValueAtPercentileNanos(100)).isGreaterThan(0L);
+  }
+
+  @Test
+  public void reset_removesAllValues() {
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+
+    histogram.reset();
+
+    assertThat(histogram.getCount()).isEqualTo(0);
+    assertThat(histogram.getMaxNanos()).isEqualTo(0);
+    assertThat(histogram.getValueAtPercentileNanos(100)).isEqualTo(0);
+  }
+
+  private static void assertWithinRelativeError(long actualNanos, long expectedMillis) {
+    long expectedNanos = TimeUnit.MILLISECONDS.toNanos(expectedMillis);
+    assertThat((double) actualNanos).isWithin(expectedNanos * 0.125).of(expectedNanos);
+  }
+}
@@ -0,0 +1,175 @@
+package com.bumptech.glide.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SegmentedLruCacheTest {
+  private static final int SIZE = 64;
+  private static final int SEGMENT_COUNT = 4;
+
+  private EvictionListener listener;
+  private SegmentedLruCache<Integer, Object> cache;
+
+  @Before
+  public void setUp() {
+    listener = mock(EvictionListener.class);
+    cache = new TestSegmentedLruCache(SIZE, SEGMENT_COUNT, listener);
+  }
+
+  @Test
+  public void get_afterPut_returnsItem() {
+    Object item = new Object();
+    cache.put(1, item);
+
+    assertThat(cache.get(1)).isEqualTo(item);
+    assertThat(cache.contains(1)).isTrue();
+  }
+
+  @Test
+  public void remove_afterPut_returnsItemAndUpdatesSize() {
+    Object item = new Object();
+    cache.put(1, item);
+
+    assertThat(cache.remove(1)).isEqualTo(item);
+    assertThat(cache.contains(1)).isFalse();
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+    verify(listener, never()).onItemEvicted(anyInt(), any());
+  }
+
+  @Test
+  public void put_withExistingItem_notifiesListenerOfOldItem() {
+    Object first = new Object();
+    Object second = new Object();
+    cache.put(1, first);
+
+    assertThat(cache.put(1, second)).isEqualTo(first);
+    verify(listener).onItemEvicted(1, first);
+    assertThat(cache.getCurrentSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void getMaxSize_returnsSumOfSegmentSizes() {
+    assertThat(cache.getMaxSize()).isEqualTo(SIZE);
+    assertThat(new SegmentedLruCache<Integer, Object>(10, 4).getMaxSize()).isEqualTo(10);
+  }
+
+  @Test
+  public void put_beyondMaxSize_evictsLeastRecentlyUsedItemInSegment() {
+    // Keys that are multiples of the segment count all map to the same segment.
+    int segmentSize = SIZE / SEGMENT_COUNT;
+    for (int i = 0; i <= segmentSize; i++) {
+      cache.put(i * SEGMENT_COUNT, new Object());
+    }
+
+    assertThat(cache.contains(0)).isFalse();
+    assertThat(cache.contains(SEGMENT_COUNT)).isTrue();
+    assertThat(cache.getCurrentSize()).isEqualTo(segmentSize);
+  }
+
+  @Test
+  public void put_withManyKeys_neverExceedsMaxSize() {
+    for (int i = 0; i < SIZE * 10; i++) {
+      cache.put(i, new Object());
+    }
+
+    assertThat(cache.getCurrentSize()).isAtMost(SIZE);
+  }
+
+  @Test
+  public void setSizeMultiplier_evictsFromEverySegment() {
+    for (int i = 0; i < SIZE; i++) {
+      cache.put(i, new Object());
+    }
+
+    cache.setSizeMultiplier(0.5f);
+
+    assertThat(cache.getMaxSize()).isEqualTo(SIZE / 2);
+    assertThat(cache.getCurrentSize()).isEqualTo(SIZE / 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setSizeMultiplier_withNegativeMultiplier_throws() {
+    cache.setSizeMultiplier(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withNonPowerOfTwoSegmentCount_throws() {
+    new SegmentedLruCache<Integer, Object>(SIZE, 3);
+  }
+
+  @Test
+  public void clearMemory_evictsAllItems() {
+    Object item = new Object();
+    cache.put(1, item);
+
+    cache.clearMemory();
+
+    verify(listener).onItemEvicted(1, item);
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void putAndGet_fromManyThreads_keepsSizeConsistent() throws InterruptedException {
+    final int threadCount = 8;
+    final CountDownLatch done = new CountDownLatch(threadCount);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    for (int t = 0; t < threadCount; t++) {
+      final int offset = t * 1000;
+      new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  try {
+                    for (int i = 0; i < 10_000; i++) {
+                      int key = offset + i % 100;
+                      if (cache.get(key) == null) {
+                        cache.put(key, new Object());
+                      }
+                    }
+                  } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                  } finally {
+                    done.countDown();
+                  }
+                }
+              })
+          .start();
+    }
+    done.await();
+
+    assertThat(failure.get()).isNull();
+    assertThat(cache.getCurrentSize()).isAtMost(SIZE);
+  }
+
+  private interface EvictionListener {
+    void onItemEvicted(Integer key, Object item);
+  }
+
+  private static final class TestSegmentedLruCache extends SegmentedLruCache<Integer, Object> {
+    private final EvictionListener listener;
+
+    TestSegmentedLruCache(long size, int segmentCount, EvictionListener listener) {
+      super(size, segmentCount);
+      this.listener = listener;
+    }
+
+    @Override
+    protected void onItemEvicted(@NonNull Integer key, @Nullable Object item) {
+      listener.onItemEvicted(key, item);
+    }
+  }
+}
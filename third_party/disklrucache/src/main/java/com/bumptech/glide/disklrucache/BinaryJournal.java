@@ -0,0 +1,254 @@
+package com.bumptech.glide.disklrucache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Constants and replay for the binary journal format written by {@link BinaryJournalWriter}.
+ *
+ * <p>The binary journal is the same append only log of operations as the text journal described
+ * in {@link DiskLruCache}, encoded so that it can be replayed without parsing or splitting lines.
+ * All numbers are big endian. The journal starts with a fixed size header:
+ *
+ * <pre>
+ *   int magic, int version, int appVersion, int valueCount, int crc
+ * </pre>
+ *
+ * <p>Followed by records, each of which starts with a one byte type and ends with the CRC32 of
+ * every preceding byte in the record:
+ *
+ * <pre>
+ *   SNAPSHOT: type, int entryCount, int payloadLength, payload, int crc
+ *   CLEAN:    type, short keyLength, key, long[valueCount] lengths, int crc
+ *   DIRTY:    type, short keyLength, key, int crc
+ *   REMOVE:   type, short keyLength, key, int crc
+ *   READ:     type, long keyHash, int crc
+ * </pre>
+ *
+ * <p>Keys are UTF-8. A SNAPSHOT segment holds the state of a batch of entries written when the
+ * journal is rebuilt, each as a flags byte ({@link #FLAG_DIRTY} or 0), the key length, the key and,
+ * for clean entries, the value lengths. READ records are by far the most common, so they identify
+ * their entry with a fixed size hash of the key rather than the key itself. Hashes that collide
+ * only affect the recency of the colliding entries, never their contents.
+ *
+ * <p>A record that is cut short, or that fails its CRC, at the end of the journal is assumed to be
+ * from a write that was interrupted by the process dying. Replay stops at that record and the
+ * journal is rebuilt. Any other malformed record means the journal is corrupt.
+ */
+final class BinaryJournal {
+  static final int MAGIC = 0x474c444a;
+  static final int VERSION_1 = 1;
+  static final int HEADER_SIZE = 5 * 4;
+
+  static final byte TYPE_SNAPSHOT = 1;
+  static final byte TYPE_CLEAN = 2;
+  static final byte TYPE_DIRTY = 3;
+  static final byte TYPE_REMOVE = 4;
+  static final byte TYPE_READ = 5;
+
+  static final byte FLAG_DIRTY = 1;
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private BinaryJournal() {
+    // Utility class.
+  }
+
+  /** Receives the operations in a journal in the order they were written. */
+  interface Listener {
+    /**
+     * Called for a clean entry.
+     *
+     * @param lengths The lengths of the entry's values, only valid for the duration of the call.
+     */
+    void onClean(String key, long[] lengths);
+
+    void onDirty(String key);
+
+    void onRemove(String key);
+
+    void onRead(long keyHash);
+  }
+
+  /** Returns a 64 bit FNV-1a hash of the given key used to identify the key in READ records. */
+  static long hashKey(String key) {
+    long hash = FNV_OFFSET_BASIS;
+    for (int i = 0; i < key.length(); i++) {
+      hash ^= key.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /**
+   * Replays every record in the given journal to the given listener.
+   *
+   * @return {@code true} if every record was replayed, or {@code false} if the journal ended with
+   *     an incomplete record and should be rebuilt before it's appended to.
+   * @throws IOException if the journal can't be read or is corrupt.
+   */
+  static boolean read(File file, int appVersion, int valueCount, Listener listener)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(readFully(file));
+    int fileLength = buffer.limit();
+    readHeader(buffer, appVersion, valueCount);
+
+    CRC32 crc = new CRC32();
+    long[] lengths = new long[valueCount];
+    while (buffer.position() < fileLength) {
+      int start = buffer.position();
+      byte type = buffer.get();
+      // The end of the record's contents, the CRC follows.
+      int end;
+      try {
+        switch (type) {
+          case TYPE_SNAPSHOT:
+            buffer.getInt(); // The entry count, read again below.
+            int payloadLength = buffer.getInt();
+            end = buffer.position() + payloadLength;
+            break;
+          case TYPE_CLEAN:
+            end = buffer.position() + 2 + (buffer.getShort() & 0xffff) + valueCount * 8;
+            break;
+          case TYPE_DIRTY:
+          case TYPE_REMOVE:
+            end = buffer.position() + 2 + (buffer.getShort() & 0xffff);
+            break;
+          case TYPE_READ:
+            end = buffer.position() + 8;
+            break;
+          default:
+            throw new IOException("unexpected journal record type: " + type + " at " + start);
+        }
+      } catch (BufferUnderflowException e) {
+        return false;
+      }
+      if (end < buffer.position()) {
+        throw new IOException("negative journal record length at " + start);
+      } else if (end > fileLength - 4) {
+        return false;
+      }
+
+      crc.reset();
+      crc.update(buffer.array(), start, end - start);
+      if (buffer.getInt(end) != (int) crc.getValue()) {
+        if (end + 4 == fileLength) {
+          return false;
+        }
+        throw new IOException("journal record failed crc check at " + start);
+      }
+
+      buffer.position(start + 1);
+      buffer.limit(end);
+      try {
+        switch (type) {
+          case TYPE_SNAPSHOT:
+            int entryCount = buffer.getInt();
+            buffer.getInt();
+            for (int i = 0; i < entryCount; i++) {
+              byte flags = buffer.get();
+              String key = readKey(buffer);
+              if ((flags & FLAG_DIRTY) != 0) {
+                listener.onDirty(key);
+              } else {
+                readLengths(buffer, lengths);
+                listener.onClean(key, lengths);
+              }
+            }
+            break;
+          case TYPE_CLEAN:
+            String cleanKey = readKey(buffer);
+            readLengths(buffer, lengths);
+            listener.onClean(cleanKey, lengths);
+            break;
+          case TYPE_DIRTY:
+            listener.onDirty(readKey(buffer));
+            break;
+          case TYPE_REMOVE:
+            listener.onRemove(readKey(buffer));
+            break;
+          case TYPE_READ:
+            listener.onRead(buffer.getLong());
+            break;
+          default:
+            throw new IllegalStateException("Unhandled record type: " + type);
+        }
+      } catch (BufferUnderflowException e) {
+        throw new IOException("malformed journal record at " + start, e);
+      }
+      if (buffer.hasRemaining()) {
+        throw new IOException("malformed journal record at " + start);
+      }
+      buffer.limit(fileLength);
+      buffer.position(end + 4);
+    }
+    return true;
+  }
+
+  private static void readHeader(ByteBuffer buffer, int appVersion, int valueCount)
+      throws IOException {
+    if (buffer.remaining() < HEADER_SIZE) {
+      throw new IOException("unexpected journal header, length: " + buffer.remaining());
+    }
+    int magic = buffer.getInt();
+    int version = buffer.getInt();
+    int journalAppVersion = buffer.getInt();
+    int journalValueCount = buffer.getInt();
+    int headerCrc = buffer.getInt();
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), 0, HEADER_SIZE - 4);
+    if (magic != MAGIC
+        || version != VERSION_1
+        || journalAppVersion != appVersion
+        || journalValueCount != valueCount
+        || headerCrc != (int) crc.getValue()) {
+      throw new IOException("unexpected journal header: [" + magic + ", " + version + ", "
+          + journalAppVersion + ", " + journalValueCount + "]");
+    }
+  }
+
+  private static String readKey(ByteBuffer buffer) {
+    int keyLength = buffer.getShort() & 0xffff;
+    if (keyLength > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    String key = new String(buffer.array(), buffer.position(), keyLength, Util.UTF_8);
+    buffer.position(buffer.position() + keyLength);
+    return key;
+  }
+
+  private static void readLengths(ByteBuffer buffer, long[] lengths) {
+    for (int i = 0; i < lengths.length; i++) {
+      lengths[i] = buffer.getLong();
+    }
+  }
+
+  private static byte[] readFully(File file) throws IOException {
+    long length = file.length();
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("journal too large: " + length);
+    }
+    byte[] result = new byte[(int) length];
+    InputStream is = new FileInputStream(file);
+    try {
+      int read = 0;
+      while (read < result.length) {
+        int count = is.read(result, read, result.length - read);
+        if (count == -1) {
+          throw new IOException("unexpected end of journal");
+        }
+        read += count;
+      }
+    } finally {
+      Util.closeQuietly(is);
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,174 @@
+package com.bumptech.glide.disklrucache;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/** Writes the binary journal format described in {@link BinaryJournal}. */
+final class BinaryJournalWriter implements JournalWriter {
+  /** The maximum number of entries in each SNAPSHOT segment. */
+  static final int SNAPSHOT_SEGMENT_SIZE = 256;
+
+  private static final int SNAPSHOT_HEADER_SIZE = 1 + 4 + 4;
+
+  private final OutputStream os;
+  private final CRC32 crc = new CRC32();
+  // Re-used for every record to avoid allocations while appending.
+  private ByteBuffer record = ByteBuffer.allocate(256);
+  private int snapshotEntryCount;
+
+  private BinaryJournalWriter(OutputStream os) {
+    this.os = os;
+  }
+
+  /** Creates or replaces the given file with a new journal with only a header. */
+  static BinaryJournalWriter create(File file, int appVersion, int valueCount)
+      throws IOException {
+    BinaryJournalWriter result = new BinaryJournalWriter(newStream(file, /* append= */ false));
+    try {
+      ByteBuffer header = ByteBuffer.allocate(BinaryJournal.HEADER_SIZE);
+      header.putInt(BinaryJournal.MAGIC);
+      header.putInt(BinaryJournal.VERSION_1);
+      header.putInt(appVersion);
+      header.putInt(valueCount);
+      CRC32 crc = new CRC32();
+      crc.update(header.array(), 0, header.position());
+      header.putInt((int) crc.getValue());
+      result.os.write(header.array());
+    } catch (IOException e) {
+      Util.closeQuietly(result.os);
+      throw e;
+    }
+    return result;
+  }
+
+  /** Appends to the existing journal in the given file. */
+  static BinaryJournalWriter append(File file) throws IOException {
+    return new BinaryJournalWriter(newStream(file, /* append= */ true));
+  }
+
+  private static OutputStream newStream(File file, boolean append) throws IOException {
+    return new BufferedOutputStream(new FileOutputStream(file, append));
+  }
+
+  @Override
+  public void writeSnapshotEntry(String key, boolean isDirty, long[] lengths) throws IOException {
+    if (snapshotEntryCount == 0) {
+      record.clear();
+      record.put(BinaryJournal.TYPE_SNAPSHOT);
+      // The entry count and payload length are filled in when the segment is written.
+      record.putInt(0);
+      record.putInt(0);
+    }
+    byte[] keyBytes = key.getBytes(Util.UTF_8);
+    ensureCapacity(1 + 2 + keyBytes.length + lengths.length * 8 + 4);
+    record.put(isDirty ? BinaryJournal.FLAG_DIRTY : 0);
+    putKey(keyBytes);
+    if (!isDirty) {
+      putLengths(lengths);
+    }
+    if (++snapshotEntryCount == SNAPSHOT_SEGMENT_SIZE) {
+      endSnapshotSegment();
+    }
+  }
+
+  @Override
+  public void endSnapshot() throws IOException {
+    if (snapshotEntryCount > 0) {
+      endSnapshotSegment();
+    }
+  }
+
+  private void endSnapshotSegment() throws IOException {
+    record.putInt(1, snapshotEntryCount);
+    record.putInt(1 + 4, record.position() - SNAPSHOT_HEADER_SIZE);
+    snapshotEntryCount = 0;
+    writeRecord();
+  }
+
+  @Override
+  public void writeClean(String key, long[] lengths) throws IOException {
+    byte[] keyBytes = startRecord(BinaryJournal.TYPE_CLEAN, key, lengths.length * 8);
+    putKey(keyBytes);
+    putLengths(lengths);
+    writeRecord();
+  }
+
+  @Override
+  public void writeDirty(String key) throws IOException {
+    writeKeyRecord(BinaryJournal.TYPE_DIRTY, key);
+  }
+
+  @Override
+  public void writeRemove(String key) throws IOException {
+    writeKeyRecord(BinaryJournal.TYPE_REMOVE, key);
+  }
+
+  @Override
+  public void writeRead(String key) throws IOException {
+    record.clear();
+    record.put(BinaryJournal.TYPE_READ);
+    record.putLong(BinaryJournal.hashKey(key));
+    writeRecord();
+  }
+
+  private void writeKeyRecord(byte type, String key) throws IOException {
+    byte[] keyBytes = startRecord(type, key, /* extraSize= */ 0);
+    putKey(keyBytes);
+    writeRecord();
+  }
+
+  private byte[] startRecord(byte type, String key, int extraSize) {
+    byte[] keyBytes = key.getBytes(Util.UTF_8);
+    record.clear();
+    ensureCapacity(1 + 2 + keyBytes.length + extraSize + 4);
+    record.put(type);
+    return keyBytes;
+  }
+
+  private void putKey(byte[] keyBytes) throws IOException {
+    if (keyBytes.length > 0xffff) {
+      throw new IOException("key too long: " + keyBytes.length);
+    }
+    record.putShort((short) keyBytes.length);
+    record.put(keyBytes);
+  }
+
+  private void putLengths(long[] lengths) {
+    for (long length : lengths) {
+      record.putLong(length);
+    }
+  }
+
+  private void ensureCapacity(int additional) {
+    if (record.remaining() < additional) {
+      ByteBuffer larger =
+          ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + additional));
+      record.flip();
+      larger.put(record);
+      record = larger;
+    }
+  }
+
+  private void writeRecord() throws IOException {
+    crc.reset();
+    crc.update(record.array(), 0, record.position());
+    ensureCapacity(4);
+    record.putInt((int) crc.getValue());
+    os.write(record.array(), 0, record.position());
+  }
+
+  @Override
+  public void flush() throws IOException {
+    os.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    os.close();
+  }
+}
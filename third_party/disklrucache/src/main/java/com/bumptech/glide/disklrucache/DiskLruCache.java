@@ -21,13 +21,13 @@ import android.os.Build.VERSION;
 import android.os.Build.VERSION_CODES;
 import android.os.StrictMode;
 import androidx.annotation.Nullable;
-import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -35,6 +35,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -93,13 +94,21 @@ public final class DiskLruCache implements Closeable {
   static final String JOURNAL_FILE = "journal";
   static final String JOURNAL_FILE_TEMP = "journal.tmp";
   static final String JOURNAL_FILE_BACKUP = "journal.bkp";
+  static final String BINARY_JOURNAL_FILE = "journal.bin";
+  static final String BINARY_JOURNAL_FILE_TEMP = "journal.bin.tmp";
+  static final String BINARY_JOURNAL_FILE_BACKUP = "journal.bin.bkp";
   static final String MAGIC = "libcore.io.DiskLruCache";
   static final String VERSION_1 = "1";
   static final long ANY_SEQUENCE_NUMBER = -1;
-  private static final String CLEAN = "CLEAN";
-  private static final String DIRTY = "DIRTY";
-  private static final String REMOVE = "REMOVE";
-  private static final String READ = "READ";
+  /**
+   * How long a group commit waits for other edits to complete before flushing the journal, see
+   * {@link #experimentalSetGroupCommitEnabled(boolean)}.
+   */
+  static final long GROUP_COMMIT_WINDOW_MS = 10;
+  static final String CLEAN = "CLEAN";
+  static final String DIRTY = "DIRTY";
+  static final String REMOVE = "REMOVE";
+  static final String READ = "READ";
 
     /*
      * This cache uses a journal file named "journal". A typical journal file
@@ -139,6 +148,11 @@ public final class DiskLruCache implements Closeable {
      * occasionally be compacted by dropping redundant lines. A temporary file named
      * "journal.tmp" will be used during compaction; that file should be deleted if
      * it exists when the cache is opened.
+     *
+     * Caches opened with the binary journal enabled write the same records
+     * to a file named "journal.bin" in the format described in BinaryJournal
+     * instead. A journal in the other format is migrated when the cache is
+     * opened.
      */
 
   private final File directory;
@@ -149,11 +163,16 @@ public final class DiskLruCache implements Closeable {
   private long maxSize;
   private final int valueCount;
   private final boolean memoizePathNames;
+  private final boolean useBinaryJournal;
   private long size = 0;
-  private Writer journalWriter;
+  private JournalWriter journalWriter;
   private final LinkedHashMap<String, Entry> lruEntries =
       new LinkedHashMap<String, Entry>(0, 0.75f, true);
   private int redundantOpCount;
+  private boolean isGroupCommitEnabled;
+  private boolean isGroupCommitScheduled;
+  /** True if a DIRTY record has been written but the journal hasn't been flushed since. */
+  private boolean hasUnflushedDirtyRecord;
 
   /**
    * To differentiate between old and current snapshots, each entry is given
@@ -181,17 +200,49 @@ public final class DiskLruCache implements Closeable {
       return null;
     }
   };
+  private final Callable<Void> groupCommitCallable = new Callable<Void>() {
+    public Void call() throws Exception {
+      // Give edits that complete shortly after this one a chance to share its flush.
+      Thread.sleep(GROUP_COMMIT_WINDOW_MS);
+      synchronized (DiskLruCache.this) {
+        isGroupCommitScheduled = false;
+        if (journalWriter == null) {
+          return null; // Closed.
+        }
+        flushJournal();
+      }
+      return null;
+    }
+  };
 
   private DiskLruCache(
-      File directory, int appVersion, int valueCount, long maxSize, boolean memoizePathNames) {
+      File directory,
+      int appVersion,
+      int valueCount,
+      long maxSize,
+      boolean memoizePathNames,
+      boolean useBinaryJournal) {
     this.directory = directory;
     this.appVersion = appVersion;
-    this.journalFile = new File(directory, JOURNAL_FILE);
-    this.journalFileTmp = new File(directory, JOURNAL_FILE_TEMP);
-    this.journalFileBackup = new File(directory, JOURNAL_FILE_BACKUP);
+    this.journalFile = new File(directory, getJournalFileName(useBinaryJournal));
+    this.journalFileTmp = new File(directory, getJournalTempFileName(useBinaryJournal));
+    this.journalFileBackup = new File(directory, getJournalBackupFileName(useBinaryJournal));
     this.valueCount = valueCount;
     this.maxSize = maxSize;
     this.memoizePathNames = memoizePathNames;
+    this.useBinaryJournal = useBinaryJournal;
+  }
+
+  private static String getJournalFileName(boolean binary) {
+    return binary ? BINARY_JOURNAL_FILE : JOURNAL_FILE;
+  }
+
+  private static String getJournalTempFileName(boolean binary) {
+    return binary ? BINARY_JOURNAL_FILE_TEMP : JOURNAL_FILE_TEMP;
+  }
+
+  private static String getJournalBackupFileName(boolean binary) {
+    return binary ? BINARY_JOURNAL_FILE_BACKUP : JOURNAL_FILE_BACKUP;
   }
 
   /**
@@ -225,6 +276,41 @@ public final class DiskLruCache implements Closeable {
   public static DiskLruCache experimentalOpen(
       File directory, int appVersion, int valueCount, long maxSize, boolean memoizePathNames)
       throws IOException {
+    return experimentalOpen(
+        directory,
+        appVersion,
+        valueCount,
+        maxSize,
+        memoizePathNames,
+        /* useBinaryJournal= */ false);
+  }
+
+  /**
+   * Opens the cache in {@code directory}, creating a cache if none exists there, with explicit
+   * control over path name memoization and the journal format.
+   *
+   * <p>The binary journal is smaller and faster to replay when the cache is opened than the text
+   * journal, which matters most for large caches. A journal in the other format is migrated when
+   * the cache is opened, so the setting can be changed without losing the cache's contents.
+   * Versions of this library that predate the binary journal will discard a cache that only has
+   * a binary journal.
+   *
+   * @param directory a writable directory
+   * @param appVersion the application's current version code
+   * @param valueCount the number of values per cache entry. Must be positive.
+   * @param maxSize the maximum number of bytes this cache should use to store
+   * @param memoizePathNames whether to memoize path names
+   * @param useBinaryJournal whether to use the binary journal format
+   * @return The new disk cache with the given arguments
+   */
+  public static DiskLruCache experimentalOpen(
+      File directory,
+      int appVersion,
+      int valueCount,
+      long maxSize,
+      boolean memoizePathNames,
+      boolean useBinaryJournal)
+      throws IOException {
     if (maxSize <= 0) {
       throw new IllegalArgumentException("maxSize <= 0");
     }
@@ -233,24 +319,22 @@ public final class DiskLruCache implements Closeable {
     }
 
     // If a bkp file exists, use it instead.
-    File backupFile = new File(directory, JOURNAL_FILE_BACKUP);
-    if (backupFile.exists()) {
-      File journalFile = new File(directory, JOURNAL_FILE);
-      // If journal file also exists just delete backup file.
-      if (journalFile.exists()) {
-        backupFile.delete();
-      } else {
-        renameTo(backupFile, journalFile, false);
-      }
-    }
+    restoreBackup(directory, /* binary= */ false);
+    restoreBackup(directory, /* binary= */ true);
 
     // Prefer to pick up where we left off.
     DiskLruCache cache =
-        new DiskLruCache(directory, appVersion, valueCount, maxSize, memoizePathNames);
-    if (cache.journalFile.exists()) {
+        new DiskLruCache(
+            directory, appVersion, valueCount, maxSize, memoizePathNames, useBinaryJournal);
+    File otherJournalFile = new File(directory, getJournalFileName(!useBinaryJournal));
+    if (cache.journalFile.exists() || otherJournalFile.exists()) {
       try {
-        cache.readJournal();
-        cache.processJournal();
+        if (cache.journalFile.exists()) {
+          cache.readJournal();
+          cache.processJournal();
+        } else {
+          cache.migrateJournal(otherJournalFile);
+        }
         return cache;
       } catch (IOException journalIsCorrupt) {
         System.out
@@ -265,13 +349,61 @@ public final class DiskLruCache implements Closeable {
 
     // Create a new empty cache.
     directory.mkdirs();
-    cache = new DiskLruCache(directory, appVersion, valueCount, maxSize, memoizePathNames);
+    cache =
+        new DiskLruCache(
+            directory, appVersion, valueCount, maxSize, memoizePathNames, useBinaryJournal);
     cache.rebuildJournal();
     return cache;
   }
 
+  private static void restoreBackup(File directory, boolean binary) throws IOException {
+    File backupFile = new File(directory, getJournalBackupFileName(binary));
+    if (backupFile.exists()) {
+      File journalFile = new File(directory, getJournalFileName(binary));
+      // If journal file also exists just delete backup file.
+      if (journalFile.exists()) {
+        backupFile.delete();
+      } else {
+        renameTo(backupFile, journalFile, false);
+      }
+    }
+  }
+
   private void readJournal() throws IOException {
-    StrictLineReader reader = new StrictLineReader(new FileInputStream(journalFile), Util.US_ASCII);
+    boolean isComplete =
+        useBinaryJournal ? readBinaryJournal(journalFile) : readTextJournal(journalFile);
+    // If we ended on a truncated record, rebuild the journal before appending to it.
+    if (isComplete) {
+      journalWriter = newAppendingJournalWriter();
+    } else {
+      rebuildJournal();
+    }
+  }
+
+  /**
+   * Replaces the given journal, written in the format this cache doesn't use, with a journal in
+   * the format this cache does use.
+   */
+  private void migrateJournal(File otherJournalFile) throws IOException {
+    if (useBinaryJournal) {
+      readTextJournal(otherJournalFile);
+    } else {
+      readBinaryJournal(otherJournalFile);
+    }
+    processJournal();
+    rebuildJournal();
+    redundantOpCount = 0;
+    deleteIfExists(otherJournalFile);
+    deleteIfExists(new File(directory, getJournalTempFileName(!useBinaryJournal)));
+  }
+
+  /**
+   * Reads the text journal in the given file.
+   *
+   * @return {@code true} if the journal ended with a complete line.
+   */
+  private boolean readTextJournal(File file) throws IOException {
+    StrictLineReader reader = new StrictLineReader(new FileInputStream(file), Util.US_ASCII);
     try {
       String magic = reader.readLine();
       String version = reader.readLine();
@@ -297,19 +429,24 @@ public final class DiskLruCache implements Closeable {
         }
       }
       redundantOpCount = lineCount - lruEntries.size();
-
-      // If we ended on a truncated line, rebuild the journal before appending to it.
-      if (reader.hasUnterminatedLine()) {
-        rebuildJournal();
-      } else {
-        journalWriter = new BufferedWriter(new OutputStreamWriter(
-            new FileOutputStream(journalFile, true), Util.US_ASCII));
-      }
+      return !reader.hasUnterminatedLine();
     } finally {
       Util.closeQuietly(reader);
     }
   }
 
+  /**
+   * Reads the binary journal in the given file.
+   *
+   * @return {@code true} if the journal ended with a complete record.
+   */
+  private boolean readBinaryJournal(File file) throws IOException {
+    BinaryJournalReplayer replayer = new BinaryJournalReplayer();
+    boolean isComplete = BinaryJournal.read(file, appVersion, valueCount, replayer);
+    redundantOpCount = replayer.recordCount - lruEntries.size();
+    return isComplete;
+  }
+
   private void readJournalLine(String line) throws IOException {
     int firstSpace = line.indexOf(' ');
     if (firstSpace == -1) {
@@ -381,26 +518,15 @@ public final class DiskLruCache implements Closeable {
       closeWriter(journalWriter);
     }
 
-    Writer writer = new BufferedWriter(
-        new OutputStreamWriter(new FileOutputStream(journalFileTmp), Util.US_ASCII));
+    JournalWriter writer =
+        useBinaryJournal
+            ? BinaryJournalWriter.create(journalFileTmp, appVersion, valueCount)
+            : TextJournalWriter.create(journalFileTmp, appVersion, valueCount);
     try {
-      writer.write(MAGIC);
-      writer.write("\n");
-      writer.write(VERSION_1);
-      writer.write("\n");
-      writer.write(Integer.toString(appVersion));
-      writer.write("\n");
-      writer.write(Integer.toString(valueCount));
-      writer.write("\n");
-      writer.write("\n");
-
       for (Entry entry : lruEntries.values()) {
-        if (entry.currentEditor != null) {
-          writer.write(DIRTY + ' ' + entry.key + '\n');
-        } else {
-          writer.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
-        }
+        writer.writeSnapshotEntry(entry.key, entry.currentEditor != null, entry.lengths);
       }
+      writer.endSnapshot();
     } finally {
       closeWriter(writer);
     }
@@ -411,8 +537,13 @@ public final class DiskLruCache implements Closeable {
     renameTo(journalFileTmp, journalFile, false);
     journalFileBackup.delete();
 
-    journalWriter = new BufferedWriter(
-        new OutputStreamWriter(new FileOutputStream(journalFile, true), Util.US_ASCII));
+    journalWriter = newAppendingJournalWriter();
+  }
+
+  private JournalWriter newAppendingJournalWriter() throws IOException {
+    return useBinaryJournal
+        ? BinaryJournalWriter.append(journalFile)
+        : TextJournalWriter.append(journalFile);
   }
 
   private static void deleteIfExists(File file) throws IOException {
@@ -455,10 +586,7 @@ public final class DiskLruCache implements Closeable {
     }
 
     redundantOpCount++;
-    journalWriter.append(READ);
-    journalWriter.append(' ');
-    journalWriter.append(key);
-    journalWriter.append('\n');
+    journalWriter.writeRead(key);
     if (journalRebuildRequired()) {
       executorService.submit(cleanupCallable);
     }
@@ -492,14 +620,41 @@ public final class DiskLruCache implements Closeable {
     entry.currentEditor = editor;
 
     // Flush the journal before creating files to prevent file leaks.
-    journalWriter.append(DIRTY);
-    journalWriter.append(' ');
-    journalWriter.append(key);
-    journalWriter.append('\n');
-    flushWriter(journalWriter);
+    journalWriter.writeDirty(key);
+    if (isGroupCommitEnabled) {
+      // Deferred until the editor's files are requested so concurrent edits share a flush.
+      hasUnflushedDirtyRecord = true;
+    } else {
+      flushJournal();
+    }
     return editor;
   }
 
+  /**
+   * Sets whether journal flushes are batched across concurrent edits.
+   *
+   * <p>By default every call to {@link #edit} and every commit or abort flushes the journal. With
+   * group commit enabled, the DIRTY record for an edit is only flushed when the edit's first file
+   * is requested, along with any other records written since the last flush, and CLEAN and REMOVE
+   * records are flushed together at most {@link #GROUP_COMMIT_WINDOW_MS} after they're written.
+   *
+   * <p>A DIRTY record is always in the journal before any of its entry's files are created, so no
+   * files are leaked. If the process dies before a CLEAN record is flushed, the entry is discarded
+   * along with its files when the cache is next opened, as if the edit had never been committed.
+   */
+  public synchronized void experimentalSetGroupCommitEnabled(boolean isEnabled) throws IOException {
+    checkNotClosed();
+    if (isGroupCommitEnabled && !isEnabled) {
+      flushJournal();
+    }
+    isGroupCommitEnabled = isEnabled;
+  }
+
+  private void flushJournal() throws IOException {
+    flushWriter(journalWriter);
+    hasUnflushedDirtyRecord = false;
+  }
+
   /** Returns the directory where this cache stores its data. */
   public File getDirectory() {
     return directory;
@@ -571,23 +726,21 @@ public final class DiskLruCache implements Closeable {
     entry.currentEditor = null;
     if (entry.readable | success) {
       entry.readable = true;
-      journalWriter.append(CLEAN);
-      journalWriter.append(' ');
-      journalWriter.append(entry.key);
-      journalWriter.append(entry.getLengths());
-      journalWriter.append('\n');
+      journalWriter.writeClean(entry.key, entry.lengths);
 
       if (success) {
         entry.sequenceNumber = nextSequenceNumber++;
       }
     } else {
       lruEntries.remove(entry.key);
-      journalWriter.append(REMOVE);
-      journalWriter.append(' ');
-      journalWriter.append(entry.key);
-      journalWriter.append('\n');
+      journalWriter.writeRemove(entry.key);
+    }
+    if (!isGroupCommitEnabled) {
+      flushJournal();
+    } else if (!isGroupCommitScheduled) {
+      isGroupCommitScheduled = true;
+      executorService.submit(groupCommitCallable);
     }
-    flushWriter(journalWriter);
 
     if (size > maxSize || journalRebuildRequired()) {
       executorService.submit(cleanupCallable);
@@ -627,10 +780,7 @@ public final class DiskLruCache implements Closeable {
     }
 
     redundantOpCount++;
-    journalWriter.append(REMOVE);
-    journalWriter.append(' ');
-    journalWriter.append(key);
-    journalWriter.append('\n');
+    journalWriter.writeRemove(key);
 
     lruEntries.remove(key);
 
@@ -656,7 +806,7 @@ public final class DiskLruCache implements Closeable {
   public synchronized void flush() throws IOException {
     checkNotClosed();
     trimToSize();
-    flushWriter(journalWriter);
+    flushJournal();
   }
 
   /** Closes this cache. Stored values will remain on the filesystem. */
@@ -701,7 +851,7 @@ public final class DiskLruCache implements Closeable {
    * <p>Analogous to b/71520172.
    */
   @TargetApi(VERSION_CODES.O)
-  private static void closeWriter(Writer writer) throws IOException {
+  private static void closeWriter(Closeable writer) throws IOException {
     // If API is less than 26, we don't need to whitelist with StrictMode.
     if (VERSION.SDK_INT < VERSION_CODES.O) {
       writer.close();
@@ -725,7 +875,7 @@ public final class DiskLruCache implements Closeable {
    * <p>See b/71520172.
    */
   @TargetApi(VERSION_CODES.O)
-  private static void flushWriter(Writer writer) throws IOException {
+  private static void flushWriter(Flushable writer) throws IOException {
     // If API is less than 26, we don't need to whitelist with StrictMode.
     if (VERSION.SDK_INT < VERSION_CODES.O) {
       writer.flush();
@@ -833,6 +983,9 @@ public final class DiskLruCache implements Closeable {
         if (!entry.readable) {
             written[index] = true;
         }
+        if (hasUnflushedDirtyRecord) {
+          flushJournal();
+        }
         File dirtyFile = entry.getDirtyFile(index);
         directory.mkdirs();
         return dirtyFile;
@@ -930,14 +1083,6 @@ public final class DiskLruCache implements Closeable {
       }
     }
 
-    public String getLengths() throws IOException {
-      StringBuilder result = new StringBuilder();
-      for (long size : lengths) {
-        result.append(' ').append(size);
-      }
-      return result.toString();
-    }
-
     /** Set lengths using decimal numbers like "10123". */
     private void setLengths(String[] strings) throws IOException {
       if (strings.length != valueCount) {
@@ -972,6 +1117,62 @@ public final class DiskLruCache implements Closeable {
     }
   }
 
+  /**
+   * Applies the records in a binary journal to {@link #lruEntries} the same way {@link
+   * #readJournalLine(String)} applies lines in a text journal.
+   */
+  private final class BinaryJournalReplayer implements BinaryJournal.Listener {
+    // READ records only have a hash of the key, so track the entry for each hash during replay.
+    private final Map<Long, Entry> entriesByKeyHash = new HashMap<>();
+    private int recordCount;
+
+    @Override
+    public void onClean(String key, long[] lengths) {
+      recordCount++;
+      Entry entry = getOrCreateEntry(key);
+      entry.readable = true;
+      entry.currentEditor = null;
+      System.arraycopy(lengths, 0, entry.lengths, 0, valueCount);
+    }
+
+    @Override
+    public void onDirty(String key) {
+      recordCount++;
+      Entry entry = getOrCreateEntry(key);
+      entry.currentEditor = new Editor(entry);
+    }
+
+    @Override
+    public void onRemove(String key) {
+      recordCount++;
+      Entry removed = lruEntries.remove(key);
+      Long keyHash = BinaryJournal.hashKey(key);
+      if (removed != null && entriesByKeyHash.get(keyHash) == removed) {
+        entriesByKeyHash.remove(keyHash);
+      }
+    }
+
+    @Override
+    public void onRead(long keyHash) {
+      recordCount++;
+      Entry entry = entriesByKeyHash.get(keyHash);
+      if (entry != null) {
+        // Moves the entry to the head of the LRU queue.
+        lruEntries.get(entry.key);
+      }
+    }
+
+    private Entry getOrCreateEntry(String key) {
+      Entry entry = lruEntries.get(key);
+      if (entry == null) {
+        entry = new Entry(key);
+        lruEntries.put(key, entry);
+      }
+      entriesByKeyHash.put(BinaryJournal.hashKey(key), entry);
+      return entry;
+    }
+  }
+
   /**
    * A {@link java.util.concurrent.ThreadFactory} that builds a thread with a specific thread name
    * and with minimum priority.
@@ -0,0 +1,33 @@
+package com.bumptech.glide.disklrucache;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Writes operations to a {@link DiskLruCache}'s journal in a particular format.
+ *
+ * <p>A journal starts with a snapshot of every entry written when the journal is rebuilt, followed
+ * by a record of each operation since then. Operations are buffered until {@link #flush()} or
+ * {@link #close()} is called.
+ */
+interface JournalWriter extends Closeable, Flushable {
+
+  /**
+   * Writes the state of one entry as part of the snapshot at the start of a new journal.
+   *
+   * @param lengths The lengths of the entry's values, ignored if {@code isDirty} is true.
+   */
+  void writeSnapshotEntry(String key, boolean isDirty, long[] lengths) throws IOException;
+
+  /** Called after every entry has been written to the snapshot. */
+  void endSnapshot() throws IOException;
+
+  void writeClean(String key, long[] lengths) throws IOException;
+
+  void writeDirty(String key) throws IOException;
+
+  void writeRemove(String key) throws IOException;
+
+  void writeRead(String key) throws IOException;
+}
@@ -0,0 +1,105 @@
+package com.bumptech.glide.disklrucache;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/** Writes the original, line based text journal format described in {@link DiskLruCache}. */
+final class TextJournalWriter implements JournalWriter {
+  private final Writer writer;
+
+  private TextJournalWriter(Writer writer) {
+    this.writer = writer;
+  }
+
+  /** Creates or replaces the given file with a new journal with only a header. */
+  static TextJournalWriter create(File file, int appVersion, int valueCount) throws IOException {
+    TextJournalWriter result = new TextJournalWriter(newWriter(file, /* append= */ false));
+    try {
+      result.writer.write(DiskLruCache.MAGIC);
+      result.writer.write("\n");
+      result.writer.write(DiskLruCache.VERSION_1);
+      result.writer.write("\n");
+      result.writer.write(Integer.toString(appVersion));
+      result.writer.write("\n");
+      result.writer.write(Integer.toString(valueCount));
+      result.writer.write("\n");
+      result.writer.write("\n");
+    } catch (IOException e) {
+      Util.closeQuietly(result.writer);
+      throw e;
+    }
+    return result;
+  }
+
+  /** Appends to the existing journal in the given file. */
+  static TextJournalWriter append(File file) throws IOException {
+    return new TextJournalWriter(newWriter(file, /* append= */ true));
+  }
+
+  private static Writer newWriter(File file, boolean append) throws IOException {
+    return new BufferedWriter(
+        new OutputStreamWriter(new FileOutputStream(file, append), Util.US_ASCII));
+  }
+
+  @Override
+  public void writeSnapshotEntry(String key, boolean isDirty, long[] lengths) throws IOException {
+    if (isDirty) {
+      writeDirty(key);
+    } else {
+      writeClean(key, lengths);
+    }
+  }
+
+  @Override
+  public void endSnapshot() {
+    // The text format has no separate snapshot.
+  }
+
+  @Override
+  public void writeClean(String key, long[] lengths) throws IOException {
+    writer.append(DiskLruCache.CLEAN);
+    writer.append(' ');
+    writer.append(key);
+    for (long length : lengths) {
+      writer.append(' ');
+      writer.append(Long.toString(length));
+    }
+    writer.append('\n');
+  }
+
+  @Override
+  public void writeDirty(String key) throws IOException {
+    writeLine(DiskLruCache.DIRTY, key);
+  }
+
+  @Override
+  public void writeRemove(String key) throws IOException {
+    writeLine(DiskLruCache.REMOVE, key);
+  }
+
+  @Override
+  public void writeRead(String key) throws IOException {
+    writeLine(DiskLruCache.READ, key);
+  }
+
+  private void writeLine(String operation, String key) throws IOException {
+    writer.append(operation);
+    writer.append(' ');
+    writer.append(key);
+    writer.append('\n');
+  }
+
+  @Override
+  public void flush() throws IOException {
+    writer.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+}
@@ -0,0 +1,226 @@
+package com.bumptech.glide.disklrucache;
+
+import static com.bumptech.glide.disklrucache.DiskLruCache.BINARY_JOURNAL_FILE;
+import static com.bumptech.glide.disklrucache.DiskLruCache.JOURNAL_FILE;
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class BinaryJournalTest {
+  private final int appVersion = 100;
+  private File cacheDir;
+  private File journalFile;
+  private File textJournalFile;
+  private DiskLruCache cache;
+
+  @Rule public TemporaryFolder tempDir = new TemporaryFolder();
+
+  @Before public void setUp() throws Exception {
+    cacheDir = tempDir.newFolder("BinaryJournalTest");
+    journalFile = new File(cacheDir, BINARY_JOURNAL_FILE);
+    textJournalFile = new File(cacheDir, JOURNAL_FILE);
+    cache = open(/* useBinaryJournal= */ true, Integer.MAX_VALUE);
+  }
+
+  @After public void tearDown() throws Exception {
+    cache.close();
+  }
+
+  @Test public void openWritesOnlyBinaryJournal() throws Exception {
+    assertThat(journalFile.exists()).isTrue();
+    assertThat(textJournalFile.exists()).isFalse();
+  }
+
+  @Test public void readAndWriteEntryAcrossCacheOpenAndClose() throws Exception {
+    set("k1", "A", "BC");
+    cache.close();
+
+    cache = open(/* useBinaryJournal= */ true, Integer.MAX_VALUE);
+    assertValue("k1", "A", "BC");
+    assertThat(cache.size()).isEqualTo(3);
+  }
+
+  @Test public void readAndWriteEntryWithoutProperClose() throws Exception {
+    set("k1", "A", "B");
+
+    DiskLruCache cache2 = open(/* useBinaryJournal= */ true, Integer.MAX_VALUE);
+    DiskLruCache.Value value = cache2.get("k1");
+    assertThat(value.getString(0)).isEqualTo("A");
+    assertThat(value.getString(1)).isEqualTo("B");
+    cache2.close();
+  }
+
+  @Test public void removedEntryIsAbsentAfterReopen() throws Exception {
+    set("k1", "A", "B");
+    set("k2", "C", "D");
+    cache.remove("k1");
+    cache.close();
+
+    cache = open(/* useBinaryJournal= */ true, Integer.MAX_VALUE);
+    assertThat(cache.get("k1")).isNull();
+    assertValue("k2", "C", "D");
+  }
+
+  @Test public void readsAfterReopenPreserveLruOrder() throws Exception {
+    cache.close();
+    cache = open(/* useBinaryJournal= */ true, 10);
+    set("a", "aa", "aaa"); // size 5
+    set("b", "bb", "bbb"); // size 5
+    cache.get("a");
+    cache.close();
+
+    cache = open(/* useBinaryJournal= */ true, 10);
+    set("c", "c", "cccc"); // size 5, evicts 'b' because 'a' was read more recently.
+    cache.flush();
+    assertThat(cache.get("b")).isNull();
+    assertValue("a", "aa", "aaa");
+    assertValue("c", "c", "cccc");
+  }
+
+  @Test public void rebuiltJournalWithManyEntriesIsReadAfterReopen() throws Exception {
+    int count = BinaryJournalWriter.SNAPSHOT_SEGMENT_SIZE * 2 + 1;
+    for (int i = 0; i < count; i++) {
+      set("k" + i, "A", "B");
+    }
+    cache.close();
+    cache = open(/* useBinaryJournal= */ true, Integer.MAX_VALUE);
+    long journalLength = journalFile.length();
+    // Reads are redundant, so enough of them triggers a rebuild in the background.
+    int readCount = 2000;
+    for (int i = 0; i < readCount; i++) {
+      cache.get("k0");
+    }
+    cache.executorService.shutdown();
+    cache.executorService.awaitTermination(500, TimeUnit.MILLISECONDS);
+    cache.close();
+    // Without a rebuild, every read would have been appended as a 13 byte record.
+    assertThat(journalFile.length()).isLessThan(journalLength + readCount * 13);
+
+    cache = open(/* useBinaryJournal= */ true, Integer.MAX_VALUE);
+    for (int i = 0; i < count; i++) {
+      assertValue("k" + i, "A", "B");
+    }
+  }
+
+  @Test public void openWithTruncatedRecordDiscardsThatRecord() throws Exception {
+    set("k1", "A", "B");
+    set("k2", "C", "D");
+    cache.close();
+    truncateJournal(/* bytes= */ 3);
+
+    cache = open(/* useBinaryJournal= */ true, Integer.MAX_VALUE);
+    assertValue("k1", "A", "B");
+    assertThat(cache.get("k2")).isNull();
+
+    // The journal is not corrupt when editing after a truncated record.
+    set("k2", "E", "F");
+    cache.close();
+    cache = open(/* useBinaryJournal= */ true, Integer.MAX_VALUE);
+    assertValue("k2", "E", "F");
+  }
+
+  @Test public void openWithCorruptRecordClearsDirectory() throws Exception {
+    set("k1", "A", "B");
+    set("k2", "C", "D");
+    cache.close();
+    byte[] journal = Files.readAllBytes(journalFile.toPath());
+    // The first record after the header.
+    journal[BinaryJournal.HEADER_SIZE + 4] ^= 0x55;
+    Files.write(journalFile.toPath(), journal);
+
+    cache = open(/* useBinaryJournal= */ true, Integer.MAX_VALUE);
+    assertThat(cache.get("k1")).isNull();
+    assertThat(cache.get("k2")).isNull();
+    assertThat(new File(cacheDir, "k1.0").exists()).isFalse();
+  }
+
+  @Test public void openWithInvalidAppVersionClearsDirectory() throws Exception {
+    set("k1", "A", "B");
+    cache.close();
+
+    cache =
+        DiskLruCache.experimentalOpen(
+            cacheDir,
+            appVersion + 1,
+            2,
+            Integer.MAX_VALUE,
+            /* memoizePathNames= */ false,
+            /* useBinaryJournal= */ true);
+    assertThat(cache.get("k1")).isNull();
+  }
+
+  @Test public void openWithTextJournalMigratesToBinaryJournal() throws Exception {
+    cache.close();
+    Files.delete(journalFile.toPath());
+    cache = open(/* useBinaryJournal= */ false, Integer.MAX_VALUE);
+    set("k1", "A", "B");
+    set("k2", "C", "D");
+    cache.close();
+
+    cache = open(/* useBinaryJournal= */ true, Integer.MAX_VALUE);
+    assertThat(textJournalFile.exists()).isFalse();
+    assertThat(journalFile.exists()).isTrue();
+    assertValue("k1", "A", "B");
+    assertValue("k2", "C", "D");
+    cache.close();
+
+    cache = open(/* useBinaryJournal= */ true, Integer.MAX_VALUE);
+    assertValue("k1", "A", "B");
+  }
+
+  @Test public void openWithBinaryJournalAndTextJournalEnabledMigratesToTextJournal()
+      throws Exception {
+    set("k1", "A", "B");
+    cache.close();
+
+    cache = open(/* useBinaryJournal= */ false, Integer.MAX_VALUE);
+    assertThat(journalFile.exists()).isFalse();
+    assertThat(textJournalFile.exists()).isTrue();
+    assertValue("k1", "A", "B");
+  }
+
+  @Test public void hashKey_isStable() {
+    assertThat(BinaryJournal.hashKey("")).isEqualTo(0xcbf29ce484222325L);
+    assertThat(BinaryJournal.hashKey("a")).isEqualTo(0xaf63dc4c8601ec8cL);
+  }
+
+  private DiskLruCache open(boolean useBinaryJournal, long maxSize) throws Exception {
+    return DiskLruCache.experimentalOpen(
+        cacheDir, appVersion, 2, maxSize, /* memoizePathNames= */ false, useBinaryJournal);
+  }
+
+  private void truncateJournal(int bytes) throws Exception {
+    RandomAccessFile file = new RandomAccessFile(journalFile, "rw");
+    try {
+      file.setLength(file.length() - bytes);
+    } finally {
+      file.close();
+    }
+  }
+
+  private void set(String key, String value0, String value1) throws Exception {
+    DiskLruCache.Editor editor = cache.edit(key);
+    editor.set(0, value0);
+    editor.set(1, value1);
+    editor.commit();
+  }
+
+  private void assertValue(String key, String value0, String value1) throws Exception {
+    DiskLruCache.Value value = cache.get(key);
+    assertThat(value.getString(0)).isEqualTo(value0);
+    assertThat(value.getLength(0)).isEqualTo(value0.length());
+    assertThat(value.getString(1)).isEqualTo(value1);
+    assertThat(value.getLength(1)).isEqualTo(value1.length());
+  }
+}
@@ -40,6 +40,8 @@ import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import org.hamcrest.core.StringStartsWith;
 import org.junit.After;
@@ -182,6 +184,53 @@ public final class DiskLruCacheTest {
     assertJournalEquals("DIRTY k1", "CLEAN k1 2 1", "DIRTY k2", "CLEAN k2 3 1", "READ k1");
   }
 
+  @Test public void groupCommitFlushesDirtyBeforeFilesAreCreated() throws Exception {
+    cache.experimentalSetGroupCommitEnabled(true);
+    DiskLruCache.Editor k1Creator = cache.edit("k1");
+    DiskLruCache.Editor k2Creator = cache.edit("k2");
+    assertJournalEquals();
+    k1Creator.getFile(0);
+    assertJournalEquals("DIRTY k1", "DIRTY k2");
+    k1Creator.abort();
+    k2Creator.abort();
+  }
+
+  @Test public void groupCommitFlushesCleanInBackground() throws Exception {
+    cache.experimentalSetGroupCommitEnabled(true);
+    CountDownLatch backgroundThreadBlocked = blockBackgroundThread();
+    set("k1", "AB", "C");
+    set("k2", "DEF", "G");
+    assertJournalEquals("DIRTY k1", "CLEAN k1 2 1", "DIRTY k2");
+
+    backgroundThreadBlocked.countDown();
+    cache.executorService.shutdown();
+    cache.executorService.awaitTermination(500, TimeUnit.MILLISECONDS);
+    assertJournalEquals("DIRTY k1", "CLEAN k1 2 1", "DIRTY k2", "CLEAN k2 3 1");
+  }
+
+  @Test public void groupCommitWithUnflushedCleanDiscardsEntryAfterReopen() throws Exception {
+    cache.experimentalSetGroupCommitEnabled(true);
+    CountDownLatch backgroundThreadBlocked = blockBackgroundThread();
+    set("k1", "A", "B");
+    assertValue("k1", "A", "B");
+
+    // Simulate a dirty close of 'cache' by opening the cache directory again.
+    DiskLruCache cache2 = DiskLruCache.open(cacheDir, appVersion, 2, Integer.MAX_VALUE);
+    assertThat(cache2.get("k1")).isNull();
+    assertThat(getCleanFile("k1", 0).exists()).isFalse();
+    cache2.close();
+    backgroundThreadBlocked.countDown();
+  }
+
+  @Test public void disablingGroupCommitFlushesJournal() throws Exception {
+    cache.experimentalSetGroupCommitEnabled(true);
+    CountDownLatch backgroundThreadBlocked = blockBackgroundThread();
+    set("k1", "A", "B");
+    cache.experimentalSetGroupCommitEnabled(false);
+    assertJournalEquals("DIRTY k1", "CLEAN k1 1 1");
+    backgroundThreadBlocked.countDown();
+  }
+
   @Test public void cannotOperateOnEditAfterPublish() throws Exception {
     DiskLruCache.Editor editor = cache.edit("k1");
     editor.set(0, "A");
@@ -772,6 +821,18 @@ public final class DiskLruCacheTest {
     assertThat(cache.get("a")).isNull();
   }
 
+  /** Keeps the cache's background thread busy until the returned latch is counted down. */
+  private CountDownLatch blockBackgroundThread() {
+    final CountDownLatch latch = new CountDownLatch(1);
+    cache.executorService.submit(new Callable<Void>() {
+      @Override public Void call() throws Exception {
+        latch.await();
+        return null;
+      }
+    });
+    return latch;
+  }
+
   private void assertJournalEquals(String... expectedBodyLines) throws Exception {
     List<String> expectedLines = new ArrayList<String>();
     expectedLines.add(MAGIC);